@@ -1,6 +1,7 @@
 package hr.fer.zemris.bool;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -61,10 +62,10 @@ public class BooleanOperator implements BooleanSource {
   /**
    * Getter for sources property. Returns operands from which operator tree is constituted.
    * 
-   * @return operands
+   * @return read only list of operands
    */
-  protected List<BooleanSource> getSources() {
-    return sources;
+  public List<BooleanSource> getSources() {
+    return Collections.unmodifiableList(sources);
   }
 
 }
@@ -0,0 +1,26 @@
+package hr.fer.zemris.bool;
+
+/**
+ * Iterator over primitive {@code int} values, used where boxing every value into an
+ * {@link Integer} would cost more than the iteration itself.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public interface IntIterator {
+
+  /**
+   * Checks if there are more values.
+   *
+   * @return {@code true} if {@link #nextInt()} will return a value.
+   */
+  boolean hasNext();
+
+  /**
+   * Returns the next value.
+   *
+   * @return next value.
+   * @throws java.util.NoSuchElementException if there are no more values.
+   */
+  int nextInt();
+}
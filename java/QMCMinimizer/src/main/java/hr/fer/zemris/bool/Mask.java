@@ -1,14 +1,32 @@
 package hr.fer.zemris.bool;
 
 import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 /**
+ * Mask is a product term over some domain. Every position holds one of the {@link MaskValue}
+ * values. Internally, mask is packed into two bit planes: a care plane which has a bit set for
+ * every position that is not a 'don't care', and a value plane which has a bit set for every
+ * position that is a one. Position {@code i} of a mask of size {@code n} is stored in bit
+ * {@code n - 1 - i}, so for domains of up to 64 variables value plane of a mask created by
+ * {@link #fromIndex(int, int)} is that index itself.
+ * 
  * @author Antonio Paunovic
- * @version 0.2
+ * @version 0.3
  */
 public class Mask implements Cloneable {
 
-  private MaskValue[] mask;
+  /** Number of bits stored in one word of a plane. */
+  private static final int WORD_SIZE = 64;
+  /** Shift which turns bit position into word position. */
+  private static final int WORD_SHIFT = 6;
+
+  /** Number of mask values constituting the mask. */
+  private final int size;
+  /** Bits set on positions that are ones. Don't care positions are always zero. */
+  private final long[] values;
+  /** Bits set on positions that are not 'don't care'. */
+  private final long[] cares;
 
   /**
    * Mask constructor.
@@ -16,7 +34,69 @@ public class Mask implements Cloneable {
    * @param mask an array of {@link MaskValue} representing mask.
    */
   public Mask(MaskValue[] mask) {
-    this.mask = Arrays.copyOf(mask, mask.length);
+    this(mask.length);
+
+    for (int position = 0; position < size; position++) {
+      setValue(position, mask[position]);
+    }
+  }
+
+  /**
+   * Constructor for mask of given size with all positions set to zero.
+   * 
+   * @param size number of mask values.
+   */
+  private Mask(int size) {
+    this.size = size;
+    this.values = new long[wordCount(size)];
+    this.cares = new long[wordCount(size)];
+  }
+
+  /**
+   * Constructor which takes ownership of already packed planes.
+   * 
+   * @param size number of mask values.
+   * @param values value plane.
+   * @param cares care plane.
+   */
+  private Mask(int size, long[] values, long[] cares) {
+    this.size = size;
+    this.values = values;
+    this.cares = cares;
+  }
+
+  /**
+   * Creates mask from packed planes, laid out as described in the class documentation. Planes are
+   * copied. Preconditions:
+   * <ul>
+   * <li>Planes can't be null references and must have as many words as the size needs.</li>
+   * <li>Value plane has no bits outside the care plane, and no plane has bits above the size.</li>
+   * </ul>
+   * 
+   * @param size number of mask values.
+   * @param values value plane.
+   * @param cares care plane.
+   * @return mask with given planes.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static Mask fromPlanes(int size, long[] values, long[] cares) {
+    if (size < 0 || values == null || cares == null || values.length != wordCount(size)
+        || cares.length != wordCount(size)) {
+      throw new IllegalArgumentException("Precondition violation: planes don't fit the size.");
+    }
+    final int lastWord = cares.length - 1;
+    if (lastWord >= 0 && (size & (WORD_SIZE - 1)) != 0
+        && (cares[lastWord] & (-1L << size)) != 0) {
+      throw new IllegalArgumentException("Precondition violation: planes don't fit the size.");
+    }
+    for (int word = 0; word < cares.length; word++) {
+      if ((values[word] & ~cares[word]) != 0) {
+        throw new IllegalArgumentException(
+            "Precondition violation: value plane has bits of don't care positions.");
+      }
+    }
+
+    return new Mask(size, Arrays.copyOf(values, values.length), Arrays.copyOf(cares, cares.length));
   }
 
   /**
@@ -28,18 +108,20 @@ public class Mask implements Cloneable {
    * @return Mask determined by index's binary number representation.
    */
   public static Mask fromIndex(int domainSize, int index) {
-    MaskValue[] maskFromIndex = new MaskValue[domainSize];
-
-    for (int bitMask = 1, bitPosition = 0; bitPosition < domainSize; bitMask *= 2, bitPosition++) {
+    Mask maskFromIndex = new Mask(domainSize);
 
-      if ((index & bitMask) == 0) {
-        maskFromIndex[domainSize - 1 - bitPosition] = MaskValue.ZERO;
-      } else {
-        maskFromIndex[domainSize - 1 - bitPosition] = MaskValue.ONE;
-      }
+    for (int word = 0; word < maskFromIndex.cares.length; word++) {
+      maskFromIndex.cares[word] = -1L;
+    }
+    if (domainSize % WORD_SIZE != 0) {
+      maskFromIndex.cares[maskFromIndex.cares.length - 1] = (1L << (domainSize % WORD_SIZE)) - 1;
+    }
+    if (domainSize > 0) {
+      // Index never has more than 32 bits, so it fits in the first word.
+      maskFromIndex.values[0] = (index & 0xFFFFFFFFL) & maskFromIndex.cares[0];
     }
 
-    return new Mask(maskFromIndex);
+    return maskFromIndex;
   }
 
   /**
@@ -51,26 +133,25 @@ public class Mask implements Cloneable {
   public static Mask parse(String stringMask) {
 
     final int maskLength = stringMask.length();
-    MaskValue[] maskFromString = new MaskValue[maskLength];
-    char[] charMask = stringMask.toCharArray();
+    Mask maskFromString = new Mask(maskLength);
 
     for (int bitPosition = 0; bitPosition < maskLength; bitPosition++) {
-      switch (charMask[bitPosition]) {
+      switch (stringMask.charAt(bitPosition)) {
         case '0':
-          maskFromString[bitPosition] = MaskValue.ZERO;
+          maskFromString.setValue(bitPosition, MaskValue.ZERO);
           break;
         case '1':
-          maskFromString[bitPosition] = MaskValue.ONE;
+          maskFromString.setValue(bitPosition, MaskValue.ONE);
           break;
         case 'x':
-          maskFromString[bitPosition] = MaskValue.DONT_CARE;
+          maskFromString.setValue(bitPosition, MaskValue.DONT_CARE);
           break;
         default:
           throw new IllegalArgumentException("String mask representation is not valid");
       }
     }
 
-    return new Mask(maskFromString);
+    return maskFromString;
   }
 
   /**
@@ -80,11 +161,39 @@ public class Mask implements Cloneable {
    * @return MaskValue at given index.
    */
   public MaskValue getValue(int index) {
-    if (index >= mask.length || index < 0) {
+    if (index >= size || index < 0) {
       throw new IllegalArgumentException();
     }
 
-    return mask[index];
+    final int bit = bitOf(size, index);
+    final long bitMask = 1L << bit;
+    final int word = bit >>> WORD_SHIFT;
+
+    if ((cares[word] & bitMask) == 0) {
+      return MaskValue.DONT_CARE;
+    }
+    return (values[word] & bitMask) == 0 ? MaskValue.ZERO : MaskValue.ONE;
+  }
+
+  /**
+   * Helper used only while mask is being constructed. Sets value on the given position.
+   * 
+   * @param index position of the value.
+   * @param value value to set.
+   */
+  private void setValue(int index, MaskValue value) {
+    final int bit = bitOf(size, index);
+    final long bitMask = 1L << bit;
+    final int word = bit >>> WORD_SHIFT;
+
+    values[word] &= ~bitMask;
+    cares[word] &= ~bitMask;
+    if (value == MaskValue.ONE) {
+      values[word] |= bitMask;
+      cares[word] |= bitMask;
+    } else if (value == MaskValue.ZERO) {
+      cares[word] |= bitMask;
+    }
   }
 
   /**
@@ -100,23 +209,19 @@ public class Mask implements Cloneable {
    * @throws IllegalArgumentException on precondition violations.
    */
   public boolean isMoreGeneral(Mask m) {
-    final int maskLen = m.getSize();
-
-    if (maskLen != getSize()) {
+    if (m.getSize() != getSize()) {
       throw new IllegalArgumentException(
           "Precondition violation: Masks differ in their length thus can't be compared.");
     }
 
-    final int undefinedThis = maskLen - getNumberOfOnes() - getNumberOfZeros();
-    final int undefinedOther = maskLen - m.getNumberOfOnes() - m.getNumberOfZeros();
-
-    return undefinedThis > undefinedOther;
+    return getNumberOfDontCares() > m.getNumberOfDontCares();
   }
 
   /**
    * Some mask can be combined if from the mask generated by combining we can generate backwards the
-   * same values that it was generated from and none else. This method creates combined mask if
-   * possible. Preconditions:
+   * same values that it was generated from and none else. That is the case when both masks have
+   * 'don't care' values on the same positions and differ in exactly one other position. This method
+   * creates combined mask if possible. Preconditions:
    * <ul>
    * <li>Masks have to be non-null Mask objects of equal sizes.</li>
    * </ul>
@@ -131,42 +236,35 @@ public class Mask implements Cloneable {
       throw new IllegalArgumentException("Not combinable masks: " + m1 + " and " + m2);
     }
 
-    if (m1.isMoreGeneral(m2) || m2.isMoreGeneral(m1)) {
-      return null;
-    }
-
-    final int maskLen = m1.getSize();
-    MaskValue[] combinedMask = new MaskValue[maskLen];
-    boolean isCombinable = false;
-    int undefiedCount = 0;
+    final int wordCount = m1.cares.length;
     int difference = 0;
+    int differenceWord = 0;
 
-    // General idea is that no more than one DONT_CARE value can exist.
-    // So on the positions where two masks differ by 0 or 1 a 'x' can
-    // be inserted. There can be only one different value (0 and 1).
-    for (int bitPosition = 0; bitPosition < maskLen; bitPosition++) {
-      MaskValue valueM1 = m1.getValue(bitPosition);
-      MaskValue valueM2 = m2.getValue(bitPosition);
-
-      if (valueM1 == valueM2 && valueM1 == MaskValue.DONT_CARE) {
-        undefiedCount++;
-        if (undefiedCount > 1)
-          return null;
+    for (int word = 0; word < wordCount; word++) {
+      if (m1.cares[word] != m2.cares[word]) {
+        return null;
       }
-
-      if (valueM1 != valueM2) {
-        difference += 1;
+      final long diff = m1.values[word] ^ m2.values[word];
+      if (diff != 0) {
+        difference += Long.bitCount(diff);
         if (difference > 1) {
           return null;
         }
-        combinedMask[bitPosition] = MaskValue.DONT_CARE;
-        isCombinable = true;
-      } else {
-        combinedMask[bitPosition] = valueM1;
+        differenceWord = word;
       }
     }
 
-    return isCombinable ? new Mask(combinedMask) : null;
+    if (difference == 0) {
+      return null;
+    }
+
+    final long diff = m1.values[differenceWord] ^ m2.values[differenceWord];
+    long[] combinedValues = Arrays.copyOf(m1.values, wordCount);
+    long[] combinedCares = Arrays.copyOf(m1.cares, wordCount);
+    combinedValues[differenceWord] &= ~diff;
+    combinedCares[differenceWord] &= ~diff;
+
+    return new Mask(m1.size, combinedValues, combinedCares);
   }
 
   private static boolean preconditionsCombine(Mask m1, Mask m2) {
@@ -179,8 +277,12 @@ public class Mask implements Cloneable {
    * @return number of zeroes in mask.
    */
   public int getNumberOfZeros() {
-    return getNumberOf(MaskValue.ZERO);
+    int cnt = 0;
+    for (int word = 0; word < cares.length; word++) {
+      cnt += Long.bitCount(cares[word] & ~values[word]);
+    }
 
+    return cnt;
   }
 
   /**
@@ -189,24 +291,105 @@ public class Mask implements Cloneable {
    * @return number of ones in masku.
    */
   public int getNumberOfOnes() {
-    return getNumberOf(MaskValue.ONE);
+    int cnt = 0;
+    for (int word = 0; word < values.length; word++) {
+      cnt += Long.bitCount(values[word]);
+    }
+
+    return cnt;
   }
 
   /**
-   * Helper method that gets the number of occurrences of a value from {@link Mask}.
+   * Method returns number of {@link MaskValue} DONT_CARE values.
    * 
-   * @param what a kind of value to be counted.
-   * @return number of occurrences of mask value.
+   * @return number of don't cares in mask.
    */
-  private <T> int getNumberOf(T what) {
+  public int getNumberOfDontCares() {
     int cnt = 0;
-    for (int i = 0, maskLen = getSize(); i < maskLen; i++) {
-      if (mask[i] == what) {
-        cnt++;
+    for (int word = 0; word < cares.length; word++) {
+      cnt += Long.bitCount(cares[word]);
+    }
+
+    return size - cnt;
+  }
+
+  /**
+   * Returns mask which has 'don't care' values on the same positions as this mask and zeros on all
+   * other positions. Two masks can only be combined if their don't care patterns are equal, so the
+   * pattern is used for grouping masks.
+   * 
+   * @return don't care pattern of this mask.
+   */
+  public Mask getDontCarePattern() {
+    return new Mask(size, new long[values.length], Arrays.copyOf(cares, cares.length));
+  }
+
+  /**
+   * Checks if the row is inside the cube of this mask, that is if the row agrees with every
+   * position which is not a 'don't care'. Row index has the first position as its most significant
+   * bit, as in {@link #fromIndex(int, int)}.
+   * 
+   * @param index row index.
+   * @return {@code true} if mask covers the row.
+   */
+  public boolean covers(int index) {
+    if (cares.length == 0) {
+      return true;
+    }
+    if ((((index & 0xFFFFFFFFL) ^ values[0]) & cares[0]) != 0) {
+      return false;
+    }
+    // Index has zeros on all the higher positions.
+    for (int word = 1; word < values.length; word++) {
+      if (values[word] != 0) {
+        return false;
       }
     }
+    return true;
+  }
 
-    return cnt;
+  /**
+   * Checks if the cube of the other mask is inside the cube of this mask. Preconditions:
+   * <ul>
+   * <li>masks have to be of same length</li>
+   * </ul>
+   * 
+   * @param m other mask.
+   * @return {@code true} if every row covered by the other mask is covered by this one.
+   * @throws IllegalArgumentException on precondition violations.
+   */
+  public boolean covers(Mask m) {
+    if (m.getSize() != getSize()) {
+      throw new IllegalArgumentException(
+          "Precondition violation: Masks differ in their length thus can't be compared.");
+    }
+
+    for (int word = 0; word < cares.length; word++) {
+      if ((cares[word] & ~m.cares[word]) != 0
+          || ((values[word] ^ m.values[word]) & cares[word]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indexes of all rows covered by the mask, in ascending order. Don't care positions are expanded
+   * by stepping through the submasks of the don't care plane, so no objects are created while
+   * iterating. Precondition: mask has at most 31 positions, so that indexes fit in an {@code int}.
+   * 
+   * @return iterator over covered indexes.
+   * @throws IllegalStateException on precondition violation.
+   */
+  public IntIterator indexIterator() {
+    if (size >= Integer.SIZE) {
+      throw new IllegalStateException("Precondition violation: mask is too wide for int indexes.");
+    }
+    if (size == 0) {
+      return new CubeIterator(0, 0);
+    }
+    final long all = (1L << size) - 1;
+    return new CubeIterator(values[0], ~cares[0] & all);
   }
 
   /**
@@ -215,7 +398,47 @@ public class Mask implements Cloneable {
    * @return number of mask values constituting the mask.
    */
   public int getSize() {
-    return mask.length;
+    return size;
+  }
+
+  /**
+   * Copy of the value plane, which has bits set on positions that are ones.
+   * 
+   * @return value plane.
+   */
+  public long[] getValuePlane() {
+    return Arrays.copyOf(values, values.length);
+  }
+
+  /**
+   * Copy of the care plane, which has bits set on positions that are not 'don't care'.
+   * 
+   * @return care plane.
+   */
+  public long[] getCarePlane() {
+    return Arrays.copyOf(cares, cares.length);
+  }
+
+  /**
+   * Bit of the planes in which position of a mask is stored. Mapping is its own inverse, so it also
+   * gives the position stored in a bit.
+   * 
+   * @param size number of mask values.
+   * @param position position of a value, or bit of the planes.
+   * @return bit of the planes, or position of a value.
+   */
+  public static int bitOf(int size, int position) {
+    return size - 1 - position;
+  }
+
+  /**
+   * Number of words needed for a plane of given number of bits.
+   * 
+   * @param bits number of bits.
+   * @return number of words.
+   */
+  private static int wordCount(int bits) {
+    return (bits + WORD_SIZE - 1) >>> WORD_SHIFT;
   }
 
   /**
@@ -225,7 +448,11 @@ public class Mask implements Cloneable {
   public int hashCode() {
     final int prime = 31;
     int result = 1;
-    result = prime * result + Arrays.hashCode(mask);
+    result = prime * result + size;
+    for (int word = 0; word < cares.length; word++) {
+      final long mixed = values[word] * 0x9E3779B97F4A7C15L + cares[word];
+      result = prime * result + (int) (mixed ^ (mixed >>> 32));
+    }
     return result;
   }
 
@@ -241,15 +468,20 @@ public class Mask implements Cloneable {
     if (getClass() != obj.getClass())
       return false;
     Mask other = (Mask) obj;
-    if (!Arrays.equals(mask, other.mask))
+    if (size != other.size)
+      return false;
+    if (!Arrays.equals(cares, other.cares))
+      return false;
+    if (!Arrays.equals(values, other.values))
       return false;
     return true;
   }
 
   @Override
   public String toString() {
-    StringBuilder sb = new StringBuilder(mask.length);
-    for (MaskValue mv : mask) {
+    StringBuilder sb = new StringBuilder(size);
+    for (int position = 0; position < size; position++) {
+      MaskValue mv = getValue(position);
       if (mv == MaskValue.DONT_CARE) {
         sb.append("x");
       }
@@ -260,7 +492,6 @@ public class Mask implements Cloneable {
         sb.append("0");
       }
     }
-    // return "Mask " + Arrays.toString(mask);
     return sb.toString();
   }
 
@@ -274,7 +505,61 @@ public class Mask implements Cloneable {
     } catch (CloneNotSupportedException e) {
       e.printStackTrace();
     }
-    Mask newMask = new Mask(this.mask);
+    Mask newMask =
+        new Mask(size, Arrays.copyOf(values, values.length), Arrays.copyOf(cares, cares.length));
     return newMask;
   }
+
+  /**
+   * Iterator over the rows of a cube. Free bits are the don't care positions, and every submask of
+   * them, added to the fixed value bits, is one row. Submasks are visited in ascending order by
+   * {@code next = (current - free) & free}, which carries through the fixed positions.
+   */
+  private static final class CubeIterator implements IntIterator {
+
+    /** Bits of the positions which are ones. */
+    private final long value;
+    /** Bits of the don't care positions. */
+    private final long free;
+    /** Submask of the next row. */
+    private long submask;
+    /** Whether all rows were returned. */
+    private boolean done;
+
+    /**
+     * Constructor for the iterator.
+     * 
+     * @param value bits of the positions which are ones.
+     * @param free bits of the don't care positions.
+     */
+    CubeIterator(long value, long free) {
+      this.value = value;
+      this.free = free;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      return !done;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextInt() {
+      if (done) {
+        throw new NoSuchElementException();
+      }
+      final int row = (int) (value | submask);
+      if (submask == free) {
+        done = true;
+      } else {
+        submask = (submask - free) & free;
+      }
+      return row;
+    }
+  }
 }
@@ -0,0 +1,625 @@
+package hr.fer.zemris.bool.bdd;
+
+import hr.fer.zemris.bool.BooleanConstant;
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanOperator;
+import hr.fer.zemris.bool.BooleanSource;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.fimpl.OperatorTreeBF;
+import hr.fer.zemris.bool.misc.BooleanSwissKnife;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorAND;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorNOT;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorOR;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Boolean function represented by two reduced ordered binary decision diagrams, one for the rows
+ * where function is true and the other for its don't cares. The first domain variable is the top
+ * variable of the diagrams and the most significant bit of row indexes, as in the other function
+ * implementations.
+ * <p>
+ * Diagram size doesn't depend on the number of rows, so functions can be built from operator trees
+ * over domains too big for a truth table. Methods which take or return {@code int} row indexes
+ * work only for domains of at most {@value #MAX_INDEXED_VARIABLES} variables, and iterables are
+ * lazy: rows are enumerated from the paths of the diagram when they are needed.
+ * </p>
+ * <p>
+ * Functions built by the same {@link BddManager} share their nodes and can be compared with
+ * {@link #isEquivalent(BddBF)} in constant time. Nodes of a function are referenced until
+ * {@link #release()} is called.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class BddBF implements BooleanFunction {
+
+  /** Greatest number of variables whose rows can be addressed by {@code int} indexes. */
+  public static final int MAX_INDEXED_VARIABLES = 31;
+
+  /** Name of the function. */
+  private final String name;
+  /** Variables used in function. */
+  private final List<BooleanVariable> domain;
+  /** Manager owning the nodes. */
+  private final BddManager manager;
+  /** Rows where function is true. */
+  private final int onSet;
+  /** Rows where function is don't care, disjoint with the on set. */
+  private final int dontCareSet;
+  /** Rows where function is false, built when it is first needed. */
+  private int offSet = -1;
+
+  /**
+   * Constructor for function from the referenced nodes.
+   *
+   * @param name name of the function.
+   * @param domain variables of the function, copied.
+   * @param manager manager owning the nodes.
+   * @param onSet node of rows where function is true.
+   * @param dontCareSet node of rows where function is don't care.
+   */
+  private BddBF(String name, List<BooleanVariable> domain, BddManager manager, int onSet,
+      int dontCareSet) {
+    this.name = name;
+    this.domain = BooleanSwissKnife.copyBooleanVariableList(domain);
+    this.manager = manager;
+    this.onSet = manager.ref(onSet);
+    this.dontCareSet = manager.ref(dontCareSet);
+  }
+
+  /**
+   * Builds the diagrams of the function from its minterm and don't care indexes, with a new
+   * manager.
+   *
+   * @param function function to convert, for example {@code IndexedBF}.
+   * @return equivalent function.
+   * @throws IllegalArgumentException if function is null or has too many variables.
+   */
+  public static BddBF fromFunction(BooleanFunction function) {
+    checkNotNull(function);
+    return fromFunction(function, new BddManager(function.getDomain().size()));
+  }
+
+  /**
+   * Builds the diagrams of the function from its minterm and don't care indexes. Preconditions:
+   * <ul>
+   * <li>None of the method parameters can be null reference.</li>
+   * <li>Manager has as many variables as the function's domain.</li>
+   * <li>Domain has at most {@value BddManager#MAX_ROW_VARIABLES} variables.</li>
+   * </ul>
+   *
+   * @param function function to convert, for example {@code IndexedBF}.
+   * @param manager manager for the nodes.
+   * @return equivalent function.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static BddBF fromFunction(BooleanFunction function, BddManager manager) {
+    checkNotNull(function);
+    checkManager(function.getDomain(), manager);
+
+    final int onSet = manager.ref(manager.fromSortedRows(sortedRows(function.mintermIterable())));
+    final int dontCareSet = manager.fromSortedRows(sortedRows(function.dontcareIterable()));
+    BddBF result =
+        new BddBF(function.getName(), function.getDomain(), manager, onSet, dontCareSet);
+    manager.deref(onSet);
+    return result;
+  }
+
+  /**
+   * Builds the diagrams of the function directly from its operator tree, with a new manager.
+   *
+   * @param function function to convert.
+   * @return equivalent function.
+   * @throws IllegalArgumentException if function is null.
+   * @throws UnsupportedOperationException if tree contains sources other than operators of the
+   *         {@code opimpl} package, variables and constants.
+   */
+  public static BddBF fromOperatorTree(OperatorTreeBF function) {
+    checkNotNull(function);
+    return fromOperatorTree(function.getName(), function.getDomain(), function.getOperatorTree(),
+        new BddManager(function.getDomain().size()));
+  }
+
+  /**
+   * Builds the diagrams of the function given by operator tree. Truth table is never built, so the
+   * domain may be wider than {@link OperatorTreeBF} allows. Variables of the tree which are not in
+   * the domain are treated as constants with their current values. Preconditions:
+   * <ul>
+   * <li>None of the method parameters can be null reference.</li>
+   * <li>Manager has as many variables as the domain.</li>
+   * </ul>
+   *
+   * @param name name of the function.
+   * @param domain variables of the function.
+   * @param tree expression of the function.
+   * @param manager manager for the nodes.
+   * @return function of the tree.
+   * @throws IllegalArgumentException on precondition violation.
+   * @throws UnsupportedOperationException if tree contains sources other than operators of the
+   *         {@code opimpl} package, variables and constants.
+   */
+  public static BddBF fromOperatorTree(String name, List<BooleanVariable> domain,
+      BooleanSource tree, BddManager manager) {
+    checkNotNull(name);
+    checkNotNull(domain);
+    checkNotNull(tree);
+    checkManager(domain, manager);
+
+    TreeBuilder builder = new TreeBuilder(domain, manager);
+    try {
+      int[] planes = builder.build(tree);
+      return new BddBF(name, domain, manager, planes[0], planes[1]);
+    } finally {
+      builder.release();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BooleanValue getValue() {
+    boolean[] assignment = new boolean[domain.size()];
+    for (int i = 0; i < assignment.length; i++) {
+      assignment[i] = domain.get(i).getValue() == BooleanValue.TRUE;
+    }
+
+    if (manager.evaluate(onSet, assignment)) {
+      return BooleanValue.TRUE;
+    }
+    return manager.evaluate(dontCareSet, assignment) ? BooleanValue.DONT_CARE : BooleanValue.FALSE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<BooleanVariable> getDomain() {
+    return Collections.unmodifiableList(domain);
+  }
+
+  /**
+   * Manager owning the nodes of the function.
+   *
+   * @return manager.
+   */
+  public BddManager getManager() {
+    return manager;
+  }
+
+  /**
+   * Node of the diagram of rows where function is true.
+   *
+   * @return node handle.
+   */
+  public int getOnSet() {
+    return onSet;
+  }
+
+  /**
+   * Node of the diagram of rows where function is don't care.
+   *
+   * @return node handle.
+   */
+  public int getDontCareSet() {
+    return dontCareSet;
+  }
+
+  /**
+   * Number of minterms of the function.
+   *
+   * @return number of rows where function is true.
+   */
+  public BigInteger countMinterms() {
+    return manager.satCount(onSet);
+  }
+
+  /**
+   * Number of don't cares of the function.
+   *
+   * @return number of rows where function is don't care.
+   */
+  public BigInteger countDontCares() {
+    return manager.satCount(dontCareSet);
+  }
+
+  /**
+   * Checks if the functions have the same minterms and don't cares. Names and domains are not
+   * compared.
+   *
+   * @param other function built by the same manager.
+   * @return {@code true} if functions are equivalent.
+   * @throws IllegalArgumentException if other function has a different manager.
+   */
+  public boolean isEquivalent(BddBF other) {
+    if (other == null || other.manager != manager) {
+      throw new IllegalArgumentException(
+          "Precondition violation: functions must have the same manager.");
+    }
+    return onSet == other.onSet && dontCareSet == other.dontCareSet;
+  }
+
+  /**
+   * Function with the given variable fixed to the value. Domain stays the same, so the result
+   * doesn't depend on the fixed variable.
+   *
+   * @param variable position of variable in domain.
+   * @param value value of variable.
+   * @return cofactor of the function.
+   * @throws IllegalArgumentException if there is no such variable.
+   */
+  public BddBF cofactor(int variable, boolean value) {
+    if (variable < 0 || variable >= domain.size()) {
+      throw new IllegalArgumentException("Precondition violation: no variable " + variable + ".");
+    }
+    final int cofactorOnSet = manager.ref(manager.restrict(onSet, variable, value));
+    final int cofactorDontCareSet = manager.restrict(dontCareSet, variable, value);
+    BddBF result = new BddBF(name, domain, manager, cofactorOnSet, cofactorDontCareSet);
+    manager.deref(cofactorOnSet);
+    return result;
+  }
+
+  /**
+   * Releases the nodes of the function so that the manager can collect them. Function mustn't be
+   * used afterwards.
+   */
+  public void release() {
+    manager.deref(onSet);
+    manager.deref(dontCareSet);
+    if (offSet >= 0) {
+      manager.deref(offSet);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasMinterm(int index) {
+    return isInSet(onSet, index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasMaxterm(int index) {
+    return isInSet(getOffSet(), index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasDontCare(int index) {
+    return isInSet(dontCareSet, index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterable<Integer> mintermIterable() {
+    return new RowIterable(onSet);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterable<Integer> maxtermIterable() {
+    return new RowIterable(getOffSet());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterable<Integer> dontcareIterable() {
+    return new RowIterable(dontCareSet);
+  }
+
+  /** Diagram of rows where function is false. */
+  private int getOffSet() {
+    if (offSet < 0) {
+      final int maybe = manager.ref(manager.or(onSet, dontCareSet));
+      offSet = manager.ref(manager.not(maybe));
+      manager.deref(maybe);
+    }
+    return offSet;
+  }
+
+  /** Checks if the row is in the set, following a single path of the diagram. */
+  private boolean isInSet(int set, int index) {
+    final int variableCount = domain.size();
+    if (index < 0 || variableCount < MAX_INDEXED_VARIABLES && index >= 1 << variableCount) {
+      return false;
+    }
+
+    boolean[] assignment = new boolean[variableCount];
+    for (int i = 0; i < variableCount; i++) {
+      final int bit = variableCount - 1 - i;
+      assignment[i] = bit < Integer.SIZE && (index >>> bit & 1) != 0;
+    }
+    return manager.evaluate(set, assignment);
+  }
+
+  /** Checks that the argument isn't null. */
+  private static void checkNotNull(Object argument) {
+    if (argument == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+  }
+
+  /** Checks that the manager exists and has a variable for every domain variable. */
+  private static void checkManager(List<BooleanVariable> domain, BddManager manager) {
+    checkNotNull(manager);
+    if (manager.getVariableCount() != domain.size()) {
+      throw new IllegalArgumentException(
+          "Precondition violation: manager and domain have different numbers of variables.");
+    }
+  }
+
+  /** Collects the indexes into a sorted array of rows. */
+  private static long[] sortedRows(Iterable<Integer> indexes) {
+    long[] rows = new long[16];
+    int size = 0;
+    for (Integer index : indexes) {
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+      }
+      rows[size++] = index;
+    }
+    rows = Arrays.copyOf(rows, size);
+    Arrays.sort(rows);
+    return rows;
+  }
+
+  /**
+   * Lazy view of the rows of a diagram, in ascending order.
+   */
+  private class RowIterable implements Iterable<Integer> {
+
+    /** Root of the diagram. */
+    private final int root;
+
+    /**
+     * Constructor for the view.
+     *
+     * @param root root of the diagram.
+     * @throws IllegalStateException if rows can't be addressed by {@code int} indexes.
+     */
+    RowIterable(int root) {
+      if (domain.size() > MAX_INDEXED_VARIABLES) {
+        throw new IllegalStateException("Too many variables for int indexes: " + domain.size());
+      }
+      this.root = root;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+      return new RowIterator(root);
+    }
+  }
+
+  /**
+   * Depth first walk through the paths of a diagram. Low child is visited before the high one, so
+   * rows come in ascending order. Variables skipped by a path are expanded into both values. Paths
+   * to the false terminal are never entered, so every step leads to a row.
+   */
+  private class RowIterator implements Iterator<Integer> {
+
+    /** Node of every pending frame. */
+    private final int[] nodes;
+    /** Position of the next variable to decide in every pending frame. */
+    private final int[] levels;
+    /** Row bits decided so far in every pending frame. */
+    private final int[] prefixes;
+    /** Number of pending frames. */
+    private int top;
+
+    /**
+     * Constructor for the iterator.
+     *
+     * @param root root of the diagram.
+     */
+    RowIterator(int root) {
+      final int depth = domain.size() + 2;
+      nodes = new int[depth];
+      levels = new int[depth];
+      prefixes = new int[depth];
+      if (root != BddManager.FALSE) {
+        push(root, 0, 0);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      return top > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer next() {
+      if (top == 0) {
+        throw new NoSuchElementException();
+      }
+
+      final int variableCount = domain.size();
+      while (true) {
+        top--;
+        final int node = nodes[top];
+        final int level = levels[top];
+        final int prefix = prefixes[top];
+        if (level == variableCount) {
+          return prefix;
+        }
+
+        final int bit = 1 << (variableCount - 1 - level);
+        int low = node;
+        int high = node;
+        if (manager.getVariable(node) == level) {
+          low = manager.getLow(node);
+          high = manager.getHigh(node);
+        }
+        if (high != BddManager.FALSE) {
+          push(high, level + 1, prefix | bit);
+        }
+        if (low != BddManager.FALSE) {
+          push(low, level + 1, prefix);
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /** Adds a pending frame. */
+    private void push(int node, int level, int prefix) {
+      nodes[top] = node;
+      levels[top] = level;
+      prefixes[top] = prefix;
+      top++;
+    }
+  }
+
+  /**
+   * Builds the diagrams of an operator tree. Every subtree gives a pair of diagrams, one for rows
+   * where it is true and one for its don't cares, combined by the same rules the truth table
+   * evaluation uses. Subtrees used more than once are built once. Every built diagram is referenced
+   * until {@link #release()}, since later operations may collect garbage.
+   */
+  private static class TreeBuilder {
+
+    /** Positions of domain variables. */
+    private final Map<BooleanVariable, Integer> positions = new HashMap<>();
+    /** Manager for the nodes. */
+    private final BddManager manager;
+    /** Diagrams of every built subtree. */
+    private final Map<BooleanSource, int[]> built = new IdentityHashMap<>();
+    /** Referenced nodes. */
+    private final List<Integer> referenced = new ArrayList<>();
+
+    /**
+     * Constructor for the builder.
+     *
+     * @param domain variables, the first one being the top variable.
+     * @param manager manager for the nodes.
+     */
+    TreeBuilder(List<BooleanVariable> domain, BddManager manager) {
+      this.manager = manager;
+      for (int i = 0; i < domain.size(); i++) {
+        positions.put(domain.get(i), i);
+      }
+    }
+
+    /**
+     * Builds the diagrams of the source.
+     *
+     * @param source source to build.
+     * @return pair of referenced nodes, rows where source is true and its don't cares.
+     */
+    int[] build(BooleanSource source) {
+      int[] planes = built.get(source);
+      if (planes != null) {
+        return planes;
+      }
+
+      if (source instanceof BooleanVariable && positions.containsKey(source)) {
+        planes = pair(manager.variable(positions.get(source)), BddManager.FALSE);
+      } else if (source instanceof BooleanVariable || source instanceof BooleanConstant) {
+        final BooleanValue value = source.getValue();
+        planes =
+            pair(value == BooleanValue.TRUE ? BddManager.TRUE : BddManager.FALSE,
+                value == BooleanValue.DONT_CARE ? BddManager.TRUE : BddManager.FALSE);
+      } else if (source instanceof BooleanOperatorNOT) {
+        int[] operand = build(((BooleanOperator) source).getSources().get(0));
+        final int maybe = ref(manager.or(operand[0], operand[1]));
+        planes = pair(manager.not(maybe), operand[1]);
+      } else if (source instanceof BooleanOperatorAND || source instanceof BooleanOperatorOR) {
+        final boolean isAnd = source instanceof BooleanOperatorAND;
+        List<BooleanSource> sources = ((BooleanOperator) source).getSources();
+        planes = build(sources.get(0));
+        for (int i = 1; i < sources.size(); i++) {
+          planes = isAnd ? and(planes, build(sources.get(i))) : or(planes, build(sources.get(i)));
+        }
+      } else {
+        throw new UnsupportedOperationException("Can't build diagram of source: "
+            + source.getClass());
+      }
+
+      built.put(source, planes);
+      return planes;
+    }
+
+    /** Conjunction of two pairs. */
+    private int[] and(int[] first, int[] second) {
+      final int trues = ref(manager.and(first[0], second[0]));
+      final int firstMaybe = ref(manager.or(first[0], first[1]));
+      final int secondMaybe = ref(manager.or(second[0], second[1]));
+      final int maybe = ref(manager.and(firstMaybe, secondMaybe));
+      final int notTrues = ref(manager.not(trues));
+      return pair(trues, manager.and(maybe, notTrues));
+    }
+
+    /** Disjunction of two pairs. */
+    private int[] or(int[] first, int[] second) {
+      final int trues = ref(manager.or(first[0], second[0]));
+      final int dontCares = ref(manager.or(first[1], second[1]));
+      final int notTrues = ref(manager.not(trues));
+      return pair(trues, manager.and(dontCares, notTrues));
+    }
+
+    /** Pair of nodes, both referenced. */
+    private int[] pair(int trues, int dontCares) {
+      ref(trues);
+      return new int[] {trues, ref(dontCares)};
+    }
+
+    /** References the node until the builder is released. */
+    private int ref(int node) {
+      referenced.add(manager.ref(node));
+      return node;
+    }
+
+    /** Removes all references made by the builder. */
+    void release() {
+      for (int node : referenced) {
+        manager.deref(node);
+      }
+    }
+  }
+}
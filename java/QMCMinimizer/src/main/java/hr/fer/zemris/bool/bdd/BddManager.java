@@ -0,0 +1,528 @@
+package hr.fer.zemris.bool.bdd;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Manager of reduced ordered binary decision diagrams over a fixed number of variables. Variable
+ * {@code 0} is at the top of every diagram. Nodes are identified by {@code int} handles and kept in
+ * primitive arrays. Unique table makes every node canonical, so two functions are equal if and
+ * only if their handles are equal. Results of {@link #ite(int, int, int)} are remembered in an
+ * operation cache, and {@link #and(int, int)}, {@link #or(int, int)} and {@link #not(int)} are
+ * special cases of it.
+ * <p>
+ * Nodes which are not reachable from a node referenced by {@link #ref(int)} are garbage. They can
+ * be collected by any of the public operations once the node table fills up, so clients must
+ * reference every handle they want to keep across calls, and dereference it when it is no longer
+ * needed.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class BddManager {
+
+  /** Handle of the constant false function. */
+  public static final int FALSE = 0;
+  /** Handle of the constant true function. */
+  public static final int TRUE = 1;
+  /** Maximal number of variables for which functions can be built from row indexes. */
+  public static final int MAX_ROW_VARIABLES = 63;
+
+  /** Initial number of node slots. */
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  /** Number of entries in the operation cache. */
+  private static final int CACHE_SIZE = 1 << 16;
+  /** Variable of free node slots. */
+  private static final int FREE = -1;
+
+  /** Number of variables. */
+  private final int variableCount;
+
+  /** Variable of each node, {@code variableCount} for terminals. */
+  private int[] vars;
+  /** Low (variable is false) child of each node. */
+  private int[] lows;
+  /** High (variable is true) child of each node. */
+  private int[] highs;
+  /** Number of external references of each node. */
+  private int[] refs;
+  /** Next node in the same unique table bucket, or next free slot. */
+  private int[] nexts;
+  /** First node of each unique table bucket. */
+  private int[] buckets;
+  /** Number of node slots in use, including free ones below it. */
+  private int used;
+  /** First free slot, or {@code -1}. */
+  private int freeList = -1;
+  /** Number of live nodes. */
+  private int liveCount;
+
+  /** Operation cache, keyed by the three arguments of ITE. */
+  private int[] cacheF = new int[CACHE_SIZE];
+  private int[] cacheG = new int[CACHE_SIZE];
+  private int[] cacheH = new int[CACHE_SIZE];
+  private int[] cacheResult = new int[CACHE_SIZE];
+
+  /**
+   * Constructor for the manager. Precondition: number of variables mustn't be negative.
+   *
+   * @param variableCount number of variables.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public BddManager(int variableCount) {
+    if (variableCount < 0) {
+      throw new IllegalArgumentException("Precondition violation: negative number of variables.");
+    }
+    this.variableCount = variableCount;
+
+    vars = new int[INITIAL_CAPACITY];
+    lows = new int[INITIAL_CAPACITY];
+    highs = new int[INITIAL_CAPACITY];
+    refs = new int[INITIAL_CAPACITY];
+    nexts = new int[INITIAL_CAPACITY];
+    buckets = new int[INITIAL_CAPACITY];
+    Arrays.fill(buckets, -1);
+    Arrays.fill(cacheF, -1);
+
+    for (int terminal = FALSE; terminal <= TRUE; terminal++) {
+      vars[terminal] = variableCount;
+      lows[terminal] = terminal;
+      highs[terminal] = terminal;
+      nexts[terminal] = -1;
+    }
+    used = 2;
+    liveCount = 2;
+  }
+
+  /**
+   * Number of variables of the manager.
+   *
+   * @return number of variables.
+   */
+  public int getVariableCount() {
+    return variableCount;
+  }
+
+  /**
+   * Number of live nodes, terminals included. Garbage nodes not yet collected are counted too.
+   *
+   * @return number of nodes.
+   */
+  public int getNodeCount() {
+    return liveCount;
+  }
+
+  /**
+   * Function which is true when the variable is true.
+   *
+   * @param variable position of variable.
+   * @return handle of the function.
+   * @throws IllegalArgumentException if there is no such variable.
+   */
+  public int variable(int variable) {
+    if (variable < 0 || variable >= variableCount) {
+      throw new IllegalArgumentException("Precondition violation: no variable " + variable + ".");
+    }
+    maybeCollect();
+    return mk(variable, FALSE, TRUE);
+  }
+
+  /**
+   * If-then-else operation, {@code f·g + f'·h}.
+   *
+   * @param f condition.
+   * @param g function when condition is true.
+   * @param h function when condition is false.
+   * @return handle of the result.
+   */
+  public int ite(int f, int g, int h) {
+    maybeCollect();
+    return iteRec(f, g, h);
+  }
+
+  /**
+   * Conjunction of two functions.
+   *
+   * @param f first function.
+   * @param g second function.
+   * @return handle of the result.
+   */
+  public int and(int f, int g) {
+    return ite(f, g, FALSE);
+  }
+
+  /**
+   * Disjunction of two functions.
+   *
+   * @param f first function.
+   * @param g second function.
+   * @return handle of the result.
+   */
+  public int or(int f, int g) {
+    return ite(f, TRUE, g);
+  }
+
+  /**
+   * Complement of the function.
+   *
+   * @param f function.
+   * @return handle of the result.
+   */
+  public int not(int f) {
+    return ite(f, FALSE, TRUE);
+  }
+
+  /**
+   * Cofactor of the function with respect to a variable.
+   *
+   * @param f function.
+   * @param variable position of variable.
+   * @param value value of variable.
+   * @return handle of the function with variable fixed to the value.
+   */
+  public int restrict(int f, int variable, boolean value) {
+    maybeCollect();
+    return restrictRec(f, variable, value, new HashMap<Integer, Integer>());
+  }
+
+  /**
+   * Builds the function which is true exactly in the given rows. Row index has the bit of variable
+   * {@code 0} as its most significant bit. Building takes time linear in the number of rows.
+   * Preconditions:
+   * <ul>
+   * <li>Rows can't be null reference.</li>
+   * <li>Manager has at most {@value #MAX_ROW_VARIABLES} variables, so that a row fits in a
+   * {@code long}.</li>
+   * </ul>
+   *
+   * @param rows sorted rows without duplicates.
+   * @return handle of the function.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public int fromSortedRows(long[] rows) {
+    if (rows == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    if (variableCount > MAX_ROW_VARIABLES) {
+      throw new IllegalArgumentException("Precondition violation: rows of more than "
+          + MAX_ROW_VARIABLES + " variables don't fit in a long.");
+    }
+    maybeCollect();
+    return build(rows, 0, rows.length, 0);
+  }
+
+  /**
+   * Number of assignments of all variables for which the function is true.
+   *
+   * @param f function.
+   * @return number of satisfying assignments.
+   */
+  public BigInteger satCount(int f) {
+    return count(f, new HashMap<Integer, BigInteger>()).shiftLeft(vars[f]);
+  }
+
+  /**
+   * Value of the function for the given assignment.
+   *
+   * @param f function.
+   * @param assignment value of every variable.
+   * @return {@code true} if function is true.
+   */
+  public boolean evaluate(int f, boolean[] assignment) {
+    while (f > TRUE) {
+      f = assignment[vars[f]] ? highs[f] : lows[f];
+    }
+    return f == TRUE;
+  }
+
+  /**
+   * Variable of the node.
+   *
+   * @param node node handle.
+   * @return position of variable, or number of variables for terminals.
+   */
+  public int getVariable(int node) {
+    return vars[node];
+  }
+
+  /**
+   * Low child of the node, the function when its variable is false.
+   *
+   * @param node node handle.
+   * @return handle of low child.
+   */
+  public int getLow(int node) {
+    return lows[node];
+  }
+
+  /**
+   * High child of the node, the function when its variable is true.
+   *
+   * @param node node handle.
+   * @return handle of high child.
+   */
+  public int getHigh(int node) {
+    return highs[node];
+  }
+
+  /**
+   * Protects the node and all nodes below it from garbage collection.
+   *
+   * @param node node handle.
+   * @return the same handle.
+   */
+  public int ref(int node) {
+    refs[node]++;
+    return node;
+  }
+
+  /**
+   * Removes one protection of the node added by {@link #ref(int)}.
+   *
+   * @param node node handle.
+   */
+  public void deref(int node) {
+    if (refs[node] > 0) {
+      refs[node]--;
+    }
+  }
+
+  /**
+   * Collects all nodes which are not reachable from referenced nodes. Operation cache is cleared.
+   */
+  public void collectGarbage() {
+    boolean[] marked = new boolean[used];
+    marked[FALSE] = true;
+    marked[TRUE] = true;
+    int[] stack = new int[used];
+
+    for (int node = 2; node < used; node++) {
+      if (refs[node] > 0 && vars[node] != FREE && !marked[node]) {
+        int top = 0;
+        stack[top++] = node;
+        marked[node] = true;
+        while (top > 0) {
+          final int current = stack[--top];
+          for (int child : new int[] {lows[current], highs[current]}) {
+            if (!marked[child]) {
+              marked[child] = true;
+              stack[top++] = child;
+            }
+          }
+        }
+      }
+    }
+
+    Arrays.fill(buckets, -1);
+    freeList = -1;
+    liveCount = 2;
+    for (int node = used - 1; node >= 2; node--) {
+      if (marked[node]) {
+        final int bucket = hash(vars[node], lows[node], highs[node]);
+        nexts[node] = buckets[bucket];
+        buckets[bucket] = node;
+        liveCount++;
+      } else {
+        vars[node] = FREE;
+        nexts[node] = freeList;
+        freeList = node;
+      }
+    }
+    Arrays.fill(cacheF, -1);
+  }
+
+  /**
+   * Collects garbage if there are no free slots left and the table is big enough to make it worth
+   * it. Called only on entry to public operations, when every live intermediate result is
+   * referenced.
+   */
+  private void maybeCollect() {
+    if (freeList < 0 && used == vars.length && used >= INITIAL_CAPACITY) {
+      collectGarbage();
+      // Keep enough room so that collection isn't repeated on every call.
+      if (liveCount > vars.length / 2) {
+        grow();
+      }
+    }
+  }
+
+  /** Recursive part of the ITE operation. */
+  private int iteRec(int f, int g, int h) {
+    if (f == TRUE) {
+      return g;
+    }
+    if (f == FALSE) {
+      return h;
+    }
+    if (g == h) {
+      return g;
+    }
+    if (g == TRUE && h == FALSE) {
+      return f;
+    }
+
+    final int slot = cacheSlot(f, g, h);
+    if (cacheF[slot] == f && cacheG[slot] == g && cacheH[slot] == h) {
+      return cacheResult[slot];
+    }
+
+    final int top = Math.min(vars[f], Math.min(vars[g], vars[h]));
+    final int high = iteRec(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+    final int low =
+        iteRec(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+    final int result = mk(top, low, high);
+
+    cacheF[slot] = f;
+    cacheG[slot] = g;
+    cacheH[slot] = h;
+    cacheResult[slot] = result;
+    return result;
+  }
+
+  /** Cofactor of a node with respect to the top variable. */
+  private int cofactor(int node, int variable, boolean value) {
+    if (vars[node] != variable) {
+      return node;
+    }
+    return value ? highs[node] : lows[node];
+  }
+
+  /** Recursive part of the restrict operation. */
+  private int restrictRec(int f, int variable, boolean value, Map<Integer, Integer> memo) {
+    if (vars[f] > variable) {
+      return f;
+    }
+    if (vars[f] == variable) {
+      return value ? highs[f] : lows[f];
+    }
+
+    Integer cached = memo.get(f);
+    if (cached != null) {
+      return cached;
+    }
+    final int low = restrictRec(lows[f], variable, value, memo);
+    final int high = restrictRec(highs[f], variable, value, memo);
+    final int result = mk(vars[f], low, high);
+    memo.put(f, result);
+    return result;
+  }
+
+  /**
+   * Builds the function of the given rows, all of which have the same values of variables above
+   * the given one.
+   */
+  private int build(long[] rows, int from, int to, int variable) {
+    if (from == to) {
+      return FALSE;
+    }
+    if (variable == variableCount || to - from == 1L << (variableCount - variable)) {
+      return TRUE;
+    }
+
+    final long bit = 1L << (variableCount - 1 - variable);
+    int split = from;
+    while (split < to && (rows[split] & bit) == 0) {
+      split++;
+    }
+    return mk(variable, build(rows, from, split, variable + 1), build(rows, split, to,
+        variable + 1));
+  }
+
+  /** Number of satisfying assignments of variables from the node's variable down. */
+  private BigInteger count(int node, Map<Integer, BigInteger> memo) {
+    if (node <= TRUE) {
+      return node == TRUE ? BigInteger.ONE : BigInteger.ZERO;
+    }
+    BigInteger cached = memo.get(node);
+    if (cached != null) {
+      return cached;
+    }
+
+    final int low = lows[node];
+    final int high = highs[node];
+    BigInteger result =
+        count(low, memo).shiftLeft(vars[low] - vars[node] - 1).add(
+            count(high, memo).shiftLeft(vars[high] - vars[node] - 1));
+    memo.put(node, result);
+    return result;
+  }
+
+  /**
+   * Finds or creates the node. Redundant node, whose children are equal, is never created.
+   *
+   * @param variable variable of the node.
+   * @param low low child.
+   * @param high high child.
+   * @return handle of the canonical node.
+   */
+  private int mk(int variable, int low, int high) {
+    if (low == high) {
+      return low;
+    }
+
+    int bucket = hash(variable, low, high);
+    for (int node = buckets[bucket]; node >= 0; node = nexts[node]) {
+      if (vars[node] == variable && lows[node] == low && highs[node] == high) {
+        return node;
+      }
+    }
+
+    int node;
+    if (freeList >= 0) {
+      node = freeList;
+      freeList = nexts[node];
+    } else {
+      if (used == vars.length) {
+        grow();
+        bucket = hash(variable, low, high);
+      }
+      node = used++;
+    }
+
+    vars[node] = variable;
+    lows[node] = low;
+    highs[node] = high;
+    refs[node] = 0;
+    nexts[node] = buckets[bucket];
+    buckets[bucket] = node;
+    liveCount++;
+    return node;
+  }
+
+  /** Doubles the node table and rehashes it. */
+  private void grow() {
+    final int capacity = vars.length * 2;
+    vars = Arrays.copyOf(vars, capacity);
+    lows = Arrays.copyOf(lows, capacity);
+    highs = Arrays.copyOf(highs, capacity);
+    refs = Arrays.copyOf(refs, capacity);
+    nexts = Arrays.copyOf(nexts, capacity);
+
+    buckets = new int[capacity];
+    Arrays.fill(buckets, -1);
+    for (int node = 2; node < used; node++) {
+      if (vars[node] != FREE) {
+        final int bucket = hash(vars[node], lows[node], highs[node]);
+        nexts[node] = buckets[bucket];
+        buckets[bucket] = node;
+      }
+    }
+  }
+
+  /** Unique table bucket of the node. */
+  private int hash(int variable, int low, int high) {
+    int hash = variable * 0x9E3779B1 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+    hash ^= hash >>> 15;
+    return hash & (buckets.length - 1);
+  }
+
+  /** Operation cache slot of the arguments. */
+  private static int cacheSlot(int f, int g, int h) {
+    int hash = f * 0x9E3779B1 + g * 0x85EBCA6B + h * 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash & (CACHE_SIZE - 1);
+  }
+}
@@ -0,0 +1,191 @@
+package hr.fer.zemris.bool.bdd;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets of cubes kept in zero-suppressed decision diagrams. Cube over {@code n} variables is the set
+ * of its literals: element {@code 2i} is the literal of variable {@code i} and element
+ * {@code 2i + 1} is its complement, so a {@link ZddManager} for cube sets has {@code 2n} elements.
+ * Literals of a variable are next to each other in the element order, right below the literals of
+ * the variables above it, which lets the cube set recursions follow the recursions of the
+ * {@link BddManager} variable by variable.
+ * <p>
+ * Prime implicants are generated implicitly, by the recursion of Coudert and Madre on the diagram
+ * of the function: primes which don't depend on the top variable are the primes of the conjunction
+ * of its cofactors, and the remaining primes of each cofactor get the literal of that cofactor.
+ * Number of primes can be exponential, while the size of their diagram usually isn't.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class CubeSets {
+
+  private CubeSets() {}
+
+  /**
+   * Prime implicants of the function. Preconditions:
+   * <ul>
+   * <li>None of the method parameters can be null reference.</li>
+   * <li>Cube set manager has two elements for every variable of the diagram manager.</li>
+   * </ul>
+   *
+   * @param bdd manager of the function.
+   * @param f referenced function.
+   * @param zdd manager for the cube set.
+   * @return cube set of all prime implicants of the function.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static int primes(BddManager bdd, int f, ZddManager zdd) {
+    checkManagers(bdd, zdd);
+
+    List<Integer> referenced = new ArrayList<>();
+    try {
+      return primes(bdd, f, zdd, new HashMap<Integer, Integer>(), referenced);
+    } finally {
+      for (int node : referenced) {
+        bdd.deref(node);
+      }
+    }
+  }
+
+  /**
+   * Cubes of the set which have at least one row in common with the function. For a set of primes
+   * of on set and don't cares, and the on set as the function, these are the primes which can take
+   * part in a cover. Preconditions are the same as for
+   * {@link #primes(BddManager, int, ZddManager)}.
+   *
+   * @param bdd manager of the function.
+   * @param f referenced function.
+   * @param zdd manager of the cube set.
+   * @param cubes cube set.
+   * @return cube set of cubes which intersect the function.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static int intersecting(BddManager bdd, int f, ZddManager zdd, int cubes) {
+    checkManagers(bdd, zdd);
+
+    List<Integer> referenced = new ArrayList<>();
+    try {
+      return intersecting(bdd, f, zdd, cubes, new HashMap<Long, Integer>(), referenced);
+    } finally {
+      for (int node : referenced) {
+        bdd.deref(node);
+      }
+    }
+  }
+
+  /**
+   * Variable of the literal.
+   *
+   * @param literal element of a cube set.
+   * @return position of variable.
+   */
+  public static int variableOf(int literal) {
+    return literal >>> 1;
+  }
+
+  /**
+   * Checks if the literal is the complement of its variable.
+   *
+   * @param literal element of a cube set.
+   * @return {@code true} if variable has to be false.
+   */
+  public static boolean isComplemented(int literal) {
+    return (literal & 1) != 0;
+  }
+
+  /** Recursive part of the prime generation. */
+  private static int primes(BddManager bdd, int f, ZddManager zdd, Map<Integer, Integer> memo,
+      List<Integer> referenced) {
+    if (f == BddManager.FALSE) {
+      return ZddManager.EMPTY;
+    }
+    if (f == BddManager.TRUE) {
+      return ZddManager.BASE;
+    }
+    Integer cached = memo.get(f);
+    if (cached != null) {
+      return cached;
+    }
+
+    final int variable = bdd.getVariable(f);
+    final int low = bdd.getLow(f);
+    final int high = bdd.getHigh(f);
+    // Conjunction is kept alive, since garbage may be collected by the operations below it.
+    final int both = bdd.ref(bdd.and(low, high));
+    referenced.add(both);
+
+    final int bothPrimes = primes(bdd, both, zdd, memo, referenced);
+    final int lowPrimes = zdd.difference(primes(bdd, low, zdd, memo, referenced), bothPrimes);
+    final int highPrimes = zdd.difference(primes(bdd, high, zdd, memo, referenced), bothPrimes);
+    final int result =
+        zdd.node(2 * variable, zdd.node(2 * variable + 1, bothPrimes, lowPrimes), highPrimes);
+
+    memo.put(f, result);
+    return result;
+  }
+
+  /** Recursive part of the intersection filter. */
+  private static int intersecting(BddManager bdd, int f, ZddManager zdd, int cubes,
+      Map<Long, Integer> memo, List<Integer> referenced) {
+    if (f == BddManager.FALSE || cubes == ZddManager.EMPTY) {
+      return ZddManager.EMPTY;
+    }
+    if (cubes == ZddManager.BASE) {
+      return ZddManager.BASE;
+    }
+    final long key = (long) cubes << 32 | f;
+    Integer cached = memo.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final int variable = Math.min(variableOf(zdd.getElement(cubes)), bdd.getVariable(f));
+    // Split cubes by the literal of the variable they contain, if any.
+    int positive = ZddManager.EMPTY;
+    int rest = cubes;
+    if (zdd.getElement(rest) == 2 * variable) {
+      positive = zdd.getHigh(rest);
+      rest = zdd.getLow(rest);
+    }
+    int negative = ZddManager.EMPTY;
+    if (zdd.getElement(rest) == 2 * variable + 1) {
+      negative = zdd.getHigh(rest);
+      rest = zdd.getLow(rest);
+    }
+
+    int low = f;
+    int high = f;
+    if (bdd.getVariable(f) == variable) {
+      low = bdd.getLow(f);
+      high = bdd.getHigh(f);
+    }
+    final int either = bdd.ref(bdd.or(low, high));
+    referenced.add(either);
+
+    final int positiveResult = intersecting(bdd, high, zdd, positive, memo, referenced);
+    final int negativeResult = intersecting(bdd, low, zdd, negative, memo, referenced);
+    final int restResult = intersecting(bdd, either, zdd, rest, memo, referenced);
+    final int result =
+        zdd.node(2 * variable, zdd.node(2 * variable + 1, restResult, negativeResult),
+            positiveResult);
+
+    memo.put(key, result);
+    return result;
+  }
+
+  /** Checks that managers exist and have matching sizes. */
+  private static void checkManagers(BddManager bdd, ZddManager zdd) {
+    if (bdd == null || zdd == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    if (zdd.getElementCount() != 2 * bdd.getVariableCount()) {
+      throw new IllegalArgumentException(
+          "Precondition violation: cube set needs two elements for every variable.");
+    }
+  }
+}
@@ -0,0 +1,322 @@
+package hr.fer.zemris.bool.bdd;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manager of zero-suppressed decision diagrams, which represent families of sets of elements
+ * {@code 0} to {@code n - 1}. Element {@code 0} is at the top of every diagram. A node whose high
+ * child is the empty family is never created, so sets are stored by the elements they contain and
+ * sparse families, such as sets of cubes, stay small.
+ * <p>
+ * Nodes are kept in primitive arrays and made canonical by a unique table, as in
+ * {@link BddManager}. Unlike it, this manager doesn't collect garbage: it is meant to live for a
+ * single computation and be dropped afterwards.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class ZddManager {
+
+  /** Handle of the empty family. */
+  public static final int EMPTY = 0;
+  /** Handle of the family containing only the empty set. */
+  public static final int BASE = 1;
+
+  /** Initial number of node slots. */
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  /** Number of entries in the operation cache. */
+  private static final int CACHE_SIZE = 1 << 16;
+  /** Operation code of union. */
+  private static final int UNION = 0;
+  /** Operation code of difference. */
+  private static final int DIFFERENCE = 1;
+
+  /** Number of elements. */
+  private final int elementCount;
+
+  /** Element of each node, {@code elementCount} for terminals. */
+  private int[] elements;
+  /** Family of sets without the element. */
+  private int[] lows;
+  /** Family of sets with the element, element removed. */
+  private int[] highs;
+  /** Next node in the same unique table bucket. */
+  private int[] nexts;
+  /** First node of each unique table bucket. */
+  private int[] buckets;
+  /** Number of nodes. */
+  private int size;
+
+  /** Operation cache, keyed by operation and two arguments. */
+  private int[] cacheOperation = new int[CACHE_SIZE];
+  private int[] cacheFirst = new int[CACHE_SIZE];
+  private int[] cacheSecond = new int[CACHE_SIZE];
+  private int[] cacheResult = new int[CACHE_SIZE];
+
+  /**
+   * Constructor for the manager. Precondition: number of elements mustn't be negative.
+   *
+   * @param elementCount number of elements.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public ZddManager(int elementCount) {
+    if (elementCount < 0) {
+      throw new IllegalArgumentException("Precondition violation: negative number of elements.");
+    }
+    this.elementCount = elementCount;
+
+    elements = new int[INITIAL_CAPACITY];
+    lows = new int[INITIAL_CAPACITY];
+    highs = new int[INITIAL_CAPACITY];
+    nexts = new int[INITIAL_CAPACITY];
+    buckets = new int[INITIAL_CAPACITY];
+    Arrays.fill(buckets, -1);
+    Arrays.fill(cacheOperation, -1);
+
+    for (int terminal = EMPTY; terminal <= BASE; terminal++) {
+      elements[terminal] = elementCount;
+      nexts[terminal] = -1;
+    }
+    size = 2;
+  }
+
+  /**
+   * Number of elements of the manager.
+   *
+   * @return number of elements.
+   */
+  public int getElementCount() {
+    return elementCount;
+  }
+
+  /**
+   * Number of nodes, terminals included.
+   *
+   * @return number of nodes.
+   */
+  public int getNodeCount() {
+    return size;
+  }
+
+  /**
+   * Top element of the node.
+   *
+   * @param node node handle.
+   * @return element, or number of elements for terminals.
+   */
+  public int getElement(int node) {
+    return elements[node];
+  }
+
+  /**
+   * Sets of the node's family which don't contain its element.
+   *
+   * @param node node handle.
+   * @return handle of low child.
+   */
+  public int getLow(int node) {
+    return lows[node];
+  }
+
+  /**
+   * Sets of the node's family which contain its element, with the element removed.
+   *
+   * @param node node handle.
+   * @return handle of high child.
+   */
+  public int getHigh(int node) {
+    return highs[node];
+  }
+
+  /**
+   * Finds or creates the node. Precondition, not checked: element is smaller than every element of
+   * both families.
+   *
+   * @param element element of the node.
+   * @param low family of sets without the element.
+   * @param high family of sets with the element, element removed.
+   * @return handle of the canonical node.
+   */
+  public int node(int element, int low, int high) {
+    if (high == EMPTY) {
+      return low;
+    }
+
+    int bucket = hash(element, low, high);
+    for (int node = buckets[bucket]; node >= 0; node = nexts[node]) {
+      if (elements[node] == element && lows[node] == low && highs[node] == high) {
+        return node;
+      }
+    }
+
+    if (size == elements.length) {
+      grow();
+      bucket = hash(element, low, high);
+    }
+    final int node = size++;
+    elements[node] = element;
+    lows[node] = low;
+    highs[node] = high;
+    nexts[node] = buckets[bucket];
+    buckets[bucket] = node;
+    return node;
+  }
+
+  /**
+   * Union of two families.
+   *
+   * @param p first family.
+   * @param q second family.
+   * @return sets which are in either family.
+   */
+  public int union(int p, int q) {
+    if (p == EMPTY || p == q) {
+      return q;
+    }
+    if (q == EMPTY) {
+      return p;
+    }
+    if (elements[p] > elements[q]) {
+      return union(q, p);
+    }
+
+    final int slot = cacheSlot(UNION, p, q);
+    if (cacheOperation[slot] == UNION && cacheFirst[slot] == p && cacheSecond[slot] == q) {
+      return cacheResult[slot];
+    }
+
+    int result;
+    if (elements[p] < elements[q]) {
+      result = node(elements[p], union(lows[p], q), highs[p]);
+    } else {
+      result = node(elements[p], union(lows[p], lows[q]), union(highs[p], highs[q]));
+    }
+    return remember(slot, UNION, p, q, result);
+  }
+
+  /**
+   * Difference of two families.
+   *
+   * @param p first family.
+   * @param q second family.
+   * @return sets of the first family which are not in the second one.
+   */
+  public int difference(int p, int q) {
+    if (p == EMPTY || p == q) {
+      return EMPTY;
+    }
+    if (q == EMPTY) {
+      return p;
+    }
+
+    final int slot = cacheSlot(DIFFERENCE, p, q);
+    if (cacheOperation[slot] == DIFFERENCE && cacheFirst[slot] == p && cacheSecond[slot] == q) {
+      return cacheResult[slot];
+    }
+
+    int result;
+    if (elements[p] < elements[q]) {
+      result = node(elements[p], difference(lows[p], q), highs[p]);
+    } else if (elements[p] > elements[q]) {
+      result = difference(p, lows[q]);
+    } else {
+      result = node(elements[p], difference(lows[p], lows[q]), difference(highs[p], highs[q]));
+    }
+    return remember(slot, DIFFERENCE, p, q, result);
+  }
+
+  /**
+   * Number of sets in the family.
+   *
+   * @param p family.
+   * @return number of sets.
+   */
+  public BigInteger count(int p) {
+    return count(p, new HashMap<Integer, BigInteger>());
+  }
+
+  /**
+   * Sets of the family, each as a sorted array of its elements. Sets are listed in the order in
+   * which the diagram is walked, sets without an element before the ones with it.
+   *
+   * @param p family.
+   * @return list of sets.
+   */
+  public List<int[]> sets(int p) {
+    List<int[]> sets = new ArrayList<>();
+    collect(p, new int[elementCount], 0, sets);
+    return sets;
+  }
+
+  /** Adds sets of the family, each extended by the given prefix of elements. */
+  private void collect(int p, int[] prefix, int length, List<int[]> sets) {
+    while (p > BASE) {
+      prefix[length] = elements[p];
+      collect(highs[p], prefix, length + 1, sets);
+      p = lows[p];
+    }
+    if (p == BASE) {
+      sets.add(Arrays.copyOf(prefix, length));
+    }
+  }
+
+  /** Number of sets in the family, memoized. */
+  private BigInteger count(int p, Map<Integer, BigInteger> memo) {
+    if (p <= BASE) {
+      return p == BASE ? BigInteger.ONE : BigInteger.ZERO;
+    }
+    BigInteger cached = memo.get(p);
+    if (cached != null) {
+      return cached;
+    }
+    BigInteger result = count(lows[p], memo).add(count(highs[p], memo));
+    memo.put(p, result);
+    return result;
+  }
+
+  /** Stores the result in the operation cache and returns it. */
+  private int remember(int slot, int operation, int p, int q, int result) {
+    cacheOperation[slot] = operation;
+    cacheFirst[slot] = p;
+    cacheSecond[slot] = q;
+    cacheResult[slot] = result;
+    return result;
+  }
+
+  /** Doubles the node table and rehashes it. */
+  private void grow() {
+    final int capacity = elements.length * 2;
+    elements = Arrays.copyOf(elements, capacity);
+    lows = Arrays.copyOf(lows, capacity);
+    highs = Arrays.copyOf(highs, capacity);
+    nexts = Arrays.copyOf(nexts, capacity);
+
+    buckets = new int[capacity];
+    Arrays.fill(buckets, -1);
+    for (int node = 2; node < size; node++) {
+      final int bucket = hash(elements[node], lows[node], highs[node]);
+      nexts[node] = buckets[bucket];
+      buckets[bucket] = node;
+    }
+  }
+
+  /** Unique table bucket of the node. */
+  private int hash(int element, int low, int high) {
+    int hash = element * 0x9E3779B1 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+    hash ^= hash >>> 15;
+    return hash & (buckets.length - 1);
+  }
+
+  /** Operation cache slot of the arguments. */
+  private static int cacheSlot(int operation, int p, int q) {
+    int hash = operation * 0x9E3779B1 + p * 0x85EBCA6B + q * 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash & (CACHE_SIZE - 1);
+  }
+}
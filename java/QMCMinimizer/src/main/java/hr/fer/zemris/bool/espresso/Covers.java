@@ -0,0 +1,313 @@
+package hr.fer.zemris.bool.espresso;
+
+import hr.fer.zemris.bool.Mask;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Operations on covers, that is on lists of {@link Cube} instances. All of them are implemented by
+ * the unate recursive paradigm: a cover is split by Shannon expansion on its most binate variable
+ * until the parts are simple enough to be solved directly.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class Covers {
+
+  private Covers() {}
+
+  /**
+   * Cofactor of every cube of the cover with respect to the given cube. Cubes not intersecting the
+   * given cube are left out.
+   *
+   * @param cover cover to cofactor.
+   * @param cube cube with respect to which cofactor is taken.
+   * @return cofactor of the cover.
+   */
+  static List<Cube> cofactor(List<Cube> cover, Cube cube) {
+    List<Cube> cofactor = new ArrayList<>(cover.size());
+    for (Cube c : cover) {
+      Cube cof = c.cofactor(cube);
+      if (cof != null) {
+        cofactor.add(cof);
+      }
+    }
+    return cofactor;
+  }
+
+  /**
+   * Checks if the cube is contained in the union of cover cubes.
+   *
+   * @param cover cover to check.
+   * @param cube cube to check.
+   * @return {@code true} if every minterm of the cube is covered.
+   */
+  static boolean covers(List<Cube> cover, Cube cube) {
+    for (Cube c : cover) {
+      if (c.contains(cube)) {
+        return true;
+      }
+    }
+    return isTautology(cofactor(cover, cube), cube.size);
+  }
+
+  /**
+   * Checks if the cover contains every minterm of its domain.
+   *
+   * @param cover cover to check.
+   * @param size number of variables.
+   * @return {@code true} if cover is a tautology.
+   */
+  static boolean isTautology(List<Cube> cover, int size) {
+    if (cover.isEmpty()) {
+      return false;
+    }
+
+    double volume = 0;
+    for (Cube c : cover) {
+      if (c.isUniverse()) {
+        return true;
+      }
+      volume += Math.scalb(1.0, -c.literalCount());
+    }
+    // Cubes together have fewer minterms than the whole domain.
+    if (volume < 1.0) {
+      return false;
+    }
+
+    // Cubes with a literal of unate variable can be left out, because cofactor with respect to
+    // its opposite literal is contained in every other cofactor.
+    long[] unate = unateLiterals(cover, size);
+    List<Cube> reduced = new ArrayList<>(cover.size());
+    for (Cube c : cover) {
+      if (!hasAny(c.cares, unate)) {
+        reduced.add(c);
+      }
+    }
+    if (reduced.size() < cover.size()) {
+      return isTautology(reduced, size);
+    }
+
+    final int variable = splittingVariable(cover, size, true);
+    if (variable < 0) {
+      return false;
+    }
+
+    Cube universe = Cube.universe(size);
+    return isTautology(cofactor(cover, universe.withLiteral(variable, true)), size)
+        && isTautology(cofactor(cover, universe.withLiteral(variable, false)), size);
+  }
+
+  /**
+   * Finds variables which appear in the cover in only one polarity.
+   *
+   * @param cover cover to inspect.
+   * @param size number of variables.
+   * @return bitset of unate variables.
+   */
+  private static long[] unateLiterals(List<Cube> cover, int size) {
+    final int words = Cube.words(size);
+    long[] positive = new long[words];
+    long[] negative = new long[words];
+
+    for (Cube c : cover) {
+      for (int word = 0; word < words; word++) {
+        positive[word] |= c.cares[word] & c.values[word];
+        negative[word] |= c.cares[word] & ~c.values[word];
+      }
+    }
+
+    long[] unate = new long[words];
+    for (int word = 0; word < words; word++) {
+      unate[word] = positive[word] ^ negative[word];
+    }
+    return unate;
+  }
+
+  /** Checks if two bitsets have a common bit. */
+  private static boolean hasAny(long[] first, long[] second) {
+    for (int word = 0; word < first.length; word++) {
+      if ((first[word] & second[word]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Complement of the cover.
+   *
+   * @param cover cover to complement.
+   * @param size number of variables.
+   * @return cover of all minterms not covered by given cover.
+   */
+  static List<Cube> complement(List<Cube> cover, int size) {
+    List<Cube> complement = new ArrayList<>();
+    if (cover.isEmpty()) {
+      complement.add(Cube.universe(size));
+      return complement;
+    }
+    for (Cube c : cover) {
+      if (c.isUniverse()) {
+        return complement;
+      }
+    }
+
+    if (cover.size() == 1) {
+      // De Morgan's law for a single cube.
+      Cube universe = Cube.universe(size);
+      Cube c = cover.get(0);
+      for (int variable = 0; variable < size; variable++) {
+        final int literal = c.literal(variable);
+        if (literal >= 0) {
+          complement.add(universe.withLiteral(variable, literal == 0));
+        }
+      }
+      return complement;
+    }
+
+    final int variable = splittingVariable(cover, size, false);
+    Cube universe = Cube.universe(size);
+    List<Cube> positive =
+        complement(cofactor(cover, universe.withLiteral(variable, true)), size);
+    List<Cube> negative =
+        complement(cofactor(cover, universe.withLiteral(variable, false)), size);
+
+    // Cubes present in both halves don't depend on splitting variable.
+    Set<Cube> common = new HashSet<>(positive);
+    common.retainAll(negative);
+    complement.addAll(common);
+    for (Cube c : positive) {
+      if (!common.contains(c)) {
+        complement.add(c.withLiteral(variable, true));
+      }
+    }
+    for (Cube c : negative) {
+      if (!common.contains(c)) {
+        complement.add(c.withLiteral(variable, false));
+      }
+    }
+    return complement;
+  }
+
+  /**
+   * Smallest cube containing the complement of the cover. It is computed without computing the
+   * complement itself.
+   *
+   * @param cover cover whose complement is bounded.
+   * @param size number of variables.
+   * @return supercube of complement, or {@code null} if complement is empty.
+   */
+  static Cube supercubeOfComplement(List<Cube> cover, int size) {
+    if (cover.isEmpty()) {
+      return Cube.universe(size);
+    }
+    for (Cube c : cover) {
+      if (c.isUniverse()) {
+        return null;
+      }
+    }
+
+    if (cover.size() == 1) {
+      // Complement of a cube is a union of its negated literals.
+      Cube c = cover.get(0);
+      if (c.literalCount() > 1) {
+        return Cube.universe(size);
+      }
+      for (int variable = 0; variable < size; variable++) {
+        final int literal = c.literal(variable);
+        if (literal >= 0) {
+          return Cube.universe(size).withLiteral(variable, literal == 0);
+        }
+      }
+    }
+
+    final int variable = splittingVariable(cover, size, false);
+    Cube universe = Cube.universe(size);
+    List<Cube> positiveCofactor = cofactor(cover, universe.withLiteral(variable, true));
+    List<Cube> negativeCofactor = cofactor(cover, universe.withLiteral(variable, false));
+
+    // For unate variable one cofactor contains the other, so complement of the bigger cofactor is
+    // contained in the complement of the smaller one and only the smaller one has to be bounded.
+    if (positiveCofactor.size() == cover.size() || negativeCofactor.size() == cover.size()) {
+      final boolean positiveUnate = negativeCofactor.size() < cover.size();
+      List<Cube> smaller = positiveUnate ? negativeCofactor : positiveCofactor;
+      List<Cube> bigger = positiveUnate ? positiveCofactor : negativeCofactor;
+
+      Cube bound = supercubeOfComplement(smaller, size);
+      if (bound == null || !isTautology(bigger, size)) {
+        return bound;
+      }
+      return bound.withLiteral(variable, !positiveUnate);
+    }
+
+    Cube positive = supercubeOfComplement(positiveCofactor, size);
+    if (positive != null && positive.isUniverse()) {
+      // Result is universal unless negative cofactor has empty complement.
+      return isTautology(negativeCofactor, size) ? positive.withLiteral(variable, true) : positive;
+    }
+    Cube negative = supercubeOfComplement(negativeCofactor, size);
+
+    if (positive == null && negative == null) {
+      return null;
+    }
+    if (negative == null) {
+      return positive.withLiteral(variable, true);
+    }
+    if (positive == null) {
+      return negative.withLiteral(variable, false);
+    }
+    return positive.withLiteral(variable, true).supercube(negative.withLiteral(variable, false));
+  }
+
+  /**
+   * Chooses variable for Shannon expansion. It is the variable appearing in both polarities in most
+   * cubes. If there is no such variable, the most frequent variable is returned unless only binate
+   * variables are requested.
+   *
+   * @param cover cover to inspect.
+   * @param size number of variables.
+   * @param binateOnly whether only binate variables can be returned.
+   * @return position of variable, or {@code -1} if there is none.
+   */
+  private static int splittingVariable(List<Cube> cover, int size, boolean binateOnly) {
+    int[] ones = new int[size];
+    int[] zeros = new int[size];
+
+    for (Cube c : cover) {
+      for (int word = 0; word < c.cares.length; word++) {
+        long bits = c.cares[word];
+        while (bits != 0) {
+          final int bit = Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          final int variable = Mask.bitOf(size, (word << 6) + bit);
+          if ((c.values[word] & (1L << bit)) != 0) {
+            ones[variable]++;
+          } else {
+            zeros[variable]++;
+          }
+        }
+      }
+    }
+
+    int best = -1;
+    int bestCount = 0;
+    boolean bestBinate = false;
+    for (int variable = 0; variable < size; variable++) {
+      final boolean binate = ones[variable] > 0 && zeros[variable] > 0;
+      final int count = ones[variable] + zeros[variable];
+      if (count == 0 || (binateOnly && !binate)) {
+        continue;
+      }
+      if ((binate && !bestBinate) || (binate == bestBinate && count > bestCount)) {
+        best = variable;
+        bestCount = count;
+        bestBinate = binate;
+      }
+    }
+    return best;
+  }
+}
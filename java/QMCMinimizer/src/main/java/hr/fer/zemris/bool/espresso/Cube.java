@@ -0,0 +1,280 @@
+package hr.fer.zemris.bool.espresso;
+
+import hr.fer.zemris.bool.Mask;
+
+import java.util.Arrays;
+
+/**
+ * Cube used by the {@link EspressoMinimizer}. It is the same thing as a {@link Mask}, but it has all
+ * the operations of cube calculus that heuristic minimization needs. Value and care planes have
+ * the same layout as the planes of a mask, so variable {@code i} is kept in bit
+ * {@link Mask#bitOf(int, int)} and conversions copy whole words. Value bits of don't care positions
+ * are always zero.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class Cube {
+
+  /** Number of variables. */
+  final int size;
+  /** Bits set for variables which are ones. */
+  final long[] values;
+  /** Bits set for variables which are not 'don't care'. */
+  final long[] cares;
+
+  /**
+   * Constructor which takes ownership of the given planes.
+   *
+   * @param size number of variables.
+   * @param values value plane.
+   * @param cares care plane.
+   */
+  Cube(int size, long[] values, long[] cares) {
+    this.size = size;
+    this.values = values;
+    this.cares = cares;
+  }
+
+  /**
+   * Cube with all variables set to 'don't care'.
+   *
+   * @param size number of variables.
+   * @return universal cube.
+   */
+  static Cube universe(int size) {
+    return new Cube(size, new long[words(size)], new long[words(size)]);
+  }
+
+  /**
+   * Creates cube from the given mask.
+   *
+   * @param mask mask to convert.
+   * @return cube with the same values.
+   */
+  static Cube fromMask(Mask mask) {
+    return new Cube(mask.getSize(), mask.getValuePlane(), mask.getCarePlane());
+  }
+
+  /**
+   * Converts cube to mask.
+   *
+   * @return mask with the same values.
+   */
+  Mask toMask() {
+    return Mask.fromPlanes(size, values, cares);
+  }
+
+  /**
+   * Value of the variable in the cube.
+   *
+   * @param variable position of variable.
+   * @return {@code 0} or {@code 1} for literals, {@code -1} for 'don't care'.
+   */
+  int literal(int variable) {
+    final int position = Mask.bitOf(size, variable);
+    final long bit = 1L << position;
+    final int word = position >>> 6;
+    if ((cares[word] & bit) == 0) {
+      return -1;
+    }
+    return (values[word] & bit) == 0 ? 0 : 1;
+  }
+
+  /**
+   * Cube with the variable set to the given literal.
+   *
+   * @param variable position of variable.
+   * @param value value of literal.
+   * @return new cube.
+   */
+  Cube withLiteral(int variable, boolean value) {
+    Cube cube = copy();
+    final int position = Mask.bitOf(size, variable);
+    final long bit = 1L << position;
+    cube.cares[position >>> 6] |= bit;
+    if (value) {
+      cube.values[position >>> 6] |= bit;
+    } else {
+      cube.values[position >>> 6] &= ~bit;
+    }
+    return cube;
+  }
+
+  /**
+   * Cube with the variable raised to 'don't care'.
+   *
+   * @param variable position of variable.
+   * @return new cube.
+   */
+  Cube raise(int variable) {
+    Cube cube = copy();
+    final int position = Mask.bitOf(size, variable);
+    final long bit = ~(1L << position);
+    cube.cares[position >>> 6] &= bit;
+    cube.values[position >>> 6] &= bit;
+    return cube;
+  }
+
+  /**
+   * Checks if cube has no literals.
+   *
+   * @return {@code true} if cube is universal.
+   */
+  boolean isUniverse() {
+    for (long word : cares) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Number of literals in the cube.
+   *
+   * @return literal count.
+   */
+  int literalCount() {
+    int count = 0;
+    for (long word : cares) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Checks if cubes have common minterms.
+   *
+   * @param other other cube.
+   * @return {@code true} if cubes intersect.
+   */
+  boolean intersects(Cube other) {
+    for (int word = 0; word < cares.length; word++) {
+      if (((values[word] ^ other.values[word]) & cares[word] & other.cares[word]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if all minterms of other cube are in this cube.
+   *
+   * @param other other cube.
+   * @return {@code true} if this cube contains the other one.
+   */
+  boolean contains(Cube other) {
+    for (int word = 0; word < cares.length; word++) {
+      if ((cares[word] & ~other.cares[word]) != 0) {
+        return false;
+      }
+      if (((values[word] ^ other.values[word]) & cares[word]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Intersection of two cubes.
+   *
+   * @param other other cube.
+   * @return intersection, or {@code null} if cubes don't intersect.
+   */
+  Cube intersect(Cube other) {
+    if (!intersects(other)) {
+      return null;
+    }
+    long[] newValues = new long[cares.length];
+    long[] newCares = new long[cares.length];
+    for (int word = 0; word < cares.length; word++) {
+      newValues[word] = values[word] | other.values[word];
+      newCares[word] = cares[word] | other.cares[word];
+    }
+    return new Cube(size, newValues, newCares);
+  }
+
+  /**
+   * Smallest cube containing both cubes.
+   *
+   * @param other other cube.
+   * @return supercube.
+   */
+  Cube supercube(Cube other) {
+    long[] newValues = new long[cares.length];
+    long[] newCares = new long[cares.length];
+    for (int word = 0; word < cares.length; word++) {
+      newCares[word] = cares[word] & other.cares[word] & ~(values[word] ^ other.values[word]);
+      newValues[word] = values[word] & newCares[word];
+    }
+    return new Cube(size, newValues, newCares);
+  }
+
+  /**
+   * Cofactor of this cube with respect to the given cube. Variables on which the given cube has
+   * literals become 'don't care'.
+   *
+   * @param other cube with respect to which cofactor is taken.
+   * @return cofactor, or {@code null} if cubes don't intersect.
+   */
+  Cube cofactor(Cube other) {
+    if (!intersects(other)) {
+      return null;
+    }
+    long[] newValues = new long[cares.length];
+    long[] newCares = new long[cares.length];
+    for (int word = 0; word < cares.length; word++) {
+      newCares[word] = cares[word] & ~other.cares[word];
+      newValues[word] = values[word] & newCares[word];
+    }
+    return new Cube(size, newValues, newCares);
+  }
+
+  /** Copy of this cube. */
+  private Cube copy() {
+    return new Cube(size, Arrays.copyOf(values, values.length), Arrays.copyOf(cares,
+        cares.length));
+  }
+
+  /** Number of words needed for given number of variables. */
+  static int words(int size) {
+    return (size + 63) >>> 6;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + Arrays.hashCode(cares);
+    result = prime * result + Arrays.hashCode(values);
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    Cube other = (Cube) obj;
+    return size == other.size && Arrays.equals(cares, other.cares)
+        && Arrays.equals(values, other.values);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return toMask().toString();
+  }
+}
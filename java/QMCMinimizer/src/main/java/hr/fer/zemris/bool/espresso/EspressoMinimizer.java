@@ -0,0 +1,229 @@
+package hr.fer.zemris.bool.espresso;
+
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+import hr.fer.zemris.bool.qmc.QMCMinimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Heuristic two level minimizer in the style of Espresso. Unlike the {@link QMCMinimizer}, it never
+ * enumerates minterms. It works directly on cube covers, that is on lists of {@link Mask} instances,
+ * and repeats EXPAND, IRREDUNDANT and REDUCE steps until the cover stops getting cheaper. Result is
+ * a near minimal cover, which makes it usable for functions with many inputs.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ * @see <a href="http://en.wikipedia.org/wiki/Espresso_heuristic_logic_minimizer">Espresso
+ *      heuristic logic minimizer</a>
+ */
+public class EspressoMinimizer {
+
+  /** Upper limit on the number of REDUCE, EXPAND, IRREDUNDANT iterations. */
+  private static final int MAX_ITERATIONS = 64;
+
+  /** Orders cubes from the biggest to the smallest one. */
+  private static final Comparator<Cube> BY_LITERALS = new Comparator<Cube>() {
+    @Override
+    public int compare(Cube c1, Cube c2) {
+      return Integer.compare(c1.literalCount(), c2.literalCount());
+    }
+  };
+
+  private EspressoMinimizer() {}
+
+  /**
+   * Minimizes the function given by masks. If masks of the function are maxterms, the on set is
+   * computed as a complement of maxterm and don't care masks.
+   *
+   * @param bf boolean function to minimize.
+   * @return array with single {@link MaskBasedBF} instance which represents the minimized function,
+   *         same as the {@link QMCMinimizer} result.
+   */
+  public static MaskBasedBF[] minimize(MaskBasedBF bf) {
+    final int domainSize = bf.getDomain().size();
+    List<Mask> onSet = bf.getMasks();
+
+    if (!bf.areMasksProducts()) {
+      List<Cube> offSet = toCubes(bf.getMasks());
+      offSet.addAll(toCubes(bf.getDontCareMasks()));
+      onSet = toMasks(Covers.complement(offSet, domainSize));
+    }
+
+    List<Mask> cover = minimizeCover(domainSize, onSet, bf.getDontCareMasks());
+
+    return new MaskBasedBF[] {new MaskBasedBF("f0", bf.getDomain(), true, cover,
+        new ArrayList<Mask>(), true)};
+  }
+
+  /**
+   * Minimizes the cover given by on set and don't care set cubes.
+   *
+   * @param domainSize number of variables.
+   * @param onSet cubes which have to be covered.
+   * @param dontCareSet cubes which can be covered.
+   * @return near minimal cover of the on set.
+   */
+  public static List<Mask> minimizeCover(int domainSize, List<Mask> onSet, List<Mask> dontCareSet) {
+    List<Cube> dontCares = toCubes(dontCareSet);
+    // Cubes of the cover can grow anywhere inside the on set and don't care set.
+    List<Cube> region = toCubes(onSet);
+    region.addAll(dontCares);
+
+    List<Cube> cover = expand(toCubes(onSet), region);
+    cover = irredundant(cover, dontCares);
+
+    for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+      List<Cube> next = reduce(cover, dontCares);
+      next = expand(next, region);
+      next = irredundant(next, dontCares);
+
+      if (cost(next) >= cost(cover)) {
+        break;
+      }
+      cover = next;
+    }
+
+    return toMasks(cover);
+  }
+
+  /**
+   * EXPAND step. Every cube is made as big as possible while staying inside the region. Cube first
+   * tries to grow over other cubes of the cover, and then raises its remaining literals one by one.
+   * Cubes contained in an expanded cube are removed from the cover.
+   *
+   * @param cover cover to expand.
+   * @param region on set and don't care set.
+   * @return expanded cover.
+   */
+  private static List<Cube> expand(List<Cube> cover, List<Cube> region) {
+    List<Cube> remaining = new ArrayList<>(cover);
+    // Bigger cubes first, so they can swallow the smaller ones.
+    Collections.sort(remaining, BY_LITERALS);
+    List<Cube> expanded = new ArrayList<>();
+
+    while (!remaining.isEmpty()) {
+      Cube cube = remaining.remove(0);
+
+      for (Cube other : remaining) {
+        if (!cube.contains(other)) {
+          Cube supercube = cube.supercube(other);
+          if (Covers.covers(region, supercube)) {
+            cube = supercube;
+          }
+        }
+      }
+
+      for (int variable = 0; variable < cube.size; variable++) {
+        if (cube.literal(variable) >= 0) {
+          Cube raised = cube.raise(variable);
+          if (Covers.covers(region, raised)) {
+            cube = raised;
+          }
+        }
+      }
+
+      for (int i = remaining.size() - 1; i >= 0; i--) {
+        if (cube.contains(remaining.get(i))) {
+          remaining.remove(i);
+        }
+      }
+      expanded.add(cube);
+    }
+
+    return expanded;
+  }
+
+  /**
+   * IRREDUNDANT step. Cube covered by the rest of the cover and the don't care set is removed.
+   * Smaller cubes are checked first.
+   *
+   * @param cover cover to make irredundant.
+   * @param dontCares don't care set.
+   * @return irredundant cover.
+   */
+  private static List<Cube> irredundant(List<Cube> cover, List<Cube> dontCares) {
+    List<Cube> result = new ArrayList<>(cover);
+    Collections.sort(result, Collections.reverseOrder(BY_LITERALS));
+
+    for (int i = 0; i < result.size();) {
+      List<Cube> rest = new ArrayList<>(result);
+      Cube cube = rest.remove(i);
+      rest.addAll(dontCares);
+
+      if (Covers.covers(rest, cube)) {
+        result.remove(i);
+      } else {
+        i++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * REDUCE step. Every cube is shrunk to the smallest cube which still covers the minterms not
+   * covered by the other cubes and don't care set. That gives the next EXPAND step a chance to grow
+   * cubes in other directions.
+   *
+   * @param cover cover to reduce.
+   * @param dontCares don't care set.
+   * @return reduced cover.
+   */
+  private static List<Cube> reduce(List<Cube> cover, List<Cube> dontCares) {
+    List<Cube> result = new ArrayList<>(cover);
+    Collections.sort(result, BY_LITERALS);
+
+    for (int i = 0; i < result.size();) {
+      List<Cube> rest = new ArrayList<>(result);
+      Cube cube = rest.remove(i);
+      rest.addAll(dontCares);
+
+      Cube bound = Covers.supercubeOfComplement(Covers.cofactor(rest, cube), cube.size);
+      if (bound == null) {
+        result.remove(i);
+      } else {
+        result.set(i, cube.intersect(bound));
+        i++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Cost of the cover. Covers with fewer cubes are cheaper, and among them the ones with fewer
+   * literals.
+   *
+   * @param cover cover to evaluate.
+   * @return cost of the cover.
+   */
+  private static long cost(List<Cube> cover) {
+    long literals = 0;
+    for (Cube cube : cover) {
+      literals += cube.literalCount();
+    }
+    return ((long) cover.size() << 32) + literals;
+  }
+
+  /** Converts masks to cubes. */
+  private static List<Cube> toCubes(List<Mask> masks) {
+    List<Cube> cubes = new ArrayList<>(masks.size());
+    for (Mask mask : masks) {
+      cubes.add(Cube.fromMask(mask));
+    }
+    return cubes;
+  }
+
+  /** Converts cubes to masks. */
+  private static List<Mask> toMasks(List<Cube> cubes) {
+    List<Mask> masks = new ArrayList<>(cubes.size());
+    for (Cube cube : cubes) {
+      masks.add(cube.toMask());
+    }
+    return masks;
+  }
+}
@@ -8,35 +8,42 @@ import hr.fer.zemris.bool.BooleanVariable;
 import hr.fer.zemris.bool.misc.BooleanSwissKnife;
 import hr.fer.zemris.bool.opimpl.BooleanOperators;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Helper class that get's most of the different {@link BooleanFunction} implementations common
  * functionalities in one place and reduces the code duplication.
+ * <p>
+ * Function is kept as a truth table of two bit planes, one marking minterms and the other marking
+ * don't cares. Row of the table is a maxterm if it is in neither plane. Membership queries are
+ * therefore constant time, and the table is built in time linear in its size. Sorted lists of
+ * indices are views which scan the planes.
+ * </p>
  * 
  * @author Antonio Paunovic
  */
 public class BFGrandUnifier {
 
   private List<BooleanVariable> domain;
-  private List<Integer> mintermIndexes;
-  private List<Integer> maxtermIndexes;
-  private List<Integer> dontCareIndexes;
   private boolean indexesAreMinterms;
 
-  // Default first element of collections.
-  private static final int START = 0;
-  // Step used in range sequence used to get range of possible indices.
-  private static final int STEP = 1;
   // Number of rows in domain's truth table.
   private int tableSize;
-  // All indices that are not in property indexes.
-  private List<Integer> otherIndexes;
+  // Bit plane of minterm rows.
+  private long[] mintermPlane;
+  // Bit plane of dontcare rows.
+  private long[] dontCarePlane;
+  // Sorted minterm indices, created when first needed.
+  private List<Integer> mintermIndexes;
 
   /**
-   * Constructor for this class. Initializes all the needed values for further computations
+   * Constructor for this class. Initializes all the needed values for further computations. Indices
+   * outside of the truth table are ignored.
    * 
    * @param domain variables.
    * @param indexes minterms or maxterms.
@@ -45,27 +52,72 @@ public class BFGrandUnifier {
    */
   public BFGrandUnifier(List<BooleanVariable> domain, List<Integer> indexes,
       List<Integer> dontCares, boolean indexesAreMinterms) {
+    this(domain, plane(domain.size(), indexes), plane(domain.size(), dontCares),
+        indexesAreMinterms);
+  }
+
+  /**
+   * Constructor which takes ownership of already computed planes. Minterm and dontcare planes must
+   * be disjoint and have no bits set outside of the truth table.
+   * 
+   * @param domain variables.
+   * @param mintermPlane plane of minterm rows.
+   * @param dontCarePlane plane of dontcare rows.
+   */
+  BFGrandUnifier(List<BooleanVariable> domain, long[] mintermPlane, long[] dontCarePlane) {
+    this(domain, mintermPlane, dontCarePlane, true);
+  }
 
+  /**
+   * Constructor which takes ownership of already computed planes of indexes. Planes must have no
+   * bits set outside of the truth table. If indexes are maxterms, their plane is turned into the
+   * plane of minterms in place.
+   * 
+   * @param domain variables.
+   * @param indexPlane plane of minterm or maxterm rows.
+   * @param dontCarePlane plane of dontcare rows.
+   * @param indexesAreMinterms are indexes minterms or maxterms?
+   */
+  BFGrandUnifier(List<BooleanVariable> domain, long[] indexPlane, long[] dontCarePlane,
+      boolean indexesAreMinterms) {
     this.domain = BooleanSwissKnife.copyBooleanVariableList(domain);
     this.indexesAreMinterms = indexesAreMinterms;
+    this.tableSize = BooleanSwissKnife.binaryVariationsCount(domain.size());
+    this.mintermPlane = indexPlane;
+    this.dontCarePlane = dontCarePlane;
+
+    if (!indexesAreMinterms) {
+      // Minterms are the rows which are neither maxterms nor dontcares.
+      final int words = mintermPlane.length;
+      for (int word = 0; word < words; word++) {
+        mintermPlane[word] = ~(mintermPlane[word] | dontCarePlane[word]);
+      }
+      if ((tableSize & 63) != 0) {
+        mintermPlane[words - 1] &= (1L << tableSize) - 1;
+      }
+    }
+  }
 
-    tableSize = BooleanSwissKnife.binaryVariationsCount(domain.size());
-    otherIndexes = BooleanSwissKnife.range(START, tableSize, STEP);
-    otherIndexes.removeAll(indexes);
-    otherIndexes.removeAll(dontCares);
+  /**
+   * Empty plane big enough for the truth table of the domain.
+   * 
+   * @param domainSize number of variables.
+   * @return plane without rows.
+   */
+  static long[] emptyPlane(int domainSize) {
+    return new long[(BooleanSwissKnife.binaryVariationsCount(domainSize) + 63) >>> 6];
+  }
 
-    if (indexesAreMinterms) {
-      mintermIndexes = BooleanSwissKnife.copyIntList(indexes);
-      maxtermIndexes = BooleanSwissKnife.copyIntList(otherIndexes);
-    } else {
-      mintermIndexes = BooleanSwissKnife.copyIntList(otherIndexes);
-      maxtermIndexes = BooleanSwissKnife.copyIntList(indexes);
+  /** Plane of all given indices which are inside of the truth table. */
+  private static long[] plane(int domainSize, List<Integer> indexes) {
+    final int tableSize = BooleanSwissKnife.binaryVariationsCount(domainSize);
+    long[] plane = emptyPlane(domainSize);
+    for (Integer index : indexes) {
+      if (index >= 0 && index < tableSize) {
+        plane[index >>> 6] |= 1L << index;
+      }
     }
-    dontCareIndexes = dontCares;
-
-    Collections.sort(mintermIndexes);
-    Collections.sort(maxtermIndexes);
-    Collections.sort(dontCareIndexes);
+    return plane;
   }
 
   /**
@@ -74,7 +126,7 @@ public class BFGrandUnifier {
    * @return Iterable for minterm values.
    */
   public Iterable<Integer> mintermIterable() {
-    return Collections.unmodifiableList(mintermIndexes);
+    return new PlaneView(Plane.MINTERM);
   }
 
   /**
@@ -83,7 +135,7 @@ public class BFGrandUnifier {
    * @return Iterable for maxterm values.
    */
   public Iterable<Integer> maxtermIterable() {
-    return Collections.unmodifiableList(maxtermIndexes);
+    return new PlaneView(Plane.MAXTERM);
   }
 
   /**
@@ -92,8 +144,7 @@ public class BFGrandUnifier {
    * @return Iterable for dontcare values.
    */
   public Iterable<Integer> dontcareIterable() {
-    return Collections.unmodifiableList(dontCareIndexes);
-
+    return new PlaneView(Plane.DONT_CARE);
   }
 
   /**
@@ -111,7 +162,7 @@ public class BFGrandUnifier {
    * @return integer list of minterm indices.
    */
   public List<Integer> getMintermIndexes() {
-    return Collections.unmodifiableList(mintermIndexes);
+    return Collections.unmodifiableList(new ArrayList<>(new PlaneView(Plane.MINTERM)));
   }
 
   /**
@@ -120,7 +171,7 @@ public class BFGrandUnifier {
    * @return integer list of maxtermindices.
    */
   public List<Integer> getMaxtermIndexes() {
-    return Collections.unmodifiableList(maxtermIndexes);
+    return Collections.unmodifiableList(new ArrayList<>(new PlaneView(Plane.MAXTERM)));
   }
 
   /**
@@ -129,7 +180,7 @@ public class BFGrandUnifier {
    * @return integer list of dontcare indices.
    */
   public List<Integer> getDontCareIndexes() {
-    return Collections.unmodifiableList(dontCareIndexes);
+    return Collections.unmodifiableList(new ArrayList<>(new PlaneView(Plane.DONT_CARE)));
   }
 
   /**
@@ -141,7 +192,7 @@ public class BFGrandUnifier {
     // Else, dontCares are not empty so the function has to be computed
     // be it's formula.
 
-    return (dontCareIndexes.isEmpty()) ? getValueNoDontCares() : getValueWithDontCares();
+    return (isEmpty(dontCarePlane)) ? getValueNoDontCares() : getValueWithDontCares();
   }
 
   /*
@@ -172,21 +223,37 @@ public class BFGrandUnifier {
    * Check for existence of dontcare index.
    */
   public boolean hasDontCare(int index) {
-    return dontCareIndexes.contains(index);
+    return isSet(dontCarePlane, index);
   }
 
   /**
    * Check for existence of maxterm index.
    */
   public boolean hasMaxterm(int index) {
-    return maxtermIndexes.contains(index);
+    return index >= 0 && index < tableSize && !isSet(mintermPlane, index)
+        && !isSet(dontCarePlane, index);
   }
 
   /**
    * Check for existence of minterm index.
    */
   public boolean hasMinterm(int index) {
-    return mintermIndexes.contains(index);
+    return isSet(mintermPlane, index);
+  }
+
+  /** Checks if the row is set in the plane, rows outside of the table are never set. */
+  private boolean isSet(long[] plane, int index) {
+    return index >= 0 && index < tableSize && (plane[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /** Checks if no row is set in the plane. */
+  private static boolean isEmpty(long[] plane) {
+    for (long word : plane) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /*
@@ -195,6 +262,9 @@ public class BFGrandUnifier {
    */
   private BooleanValue getValueWithDontCares() {
 
+    if (mintermIndexes == null) {
+      mintermIndexes = getMintermIndexes();
+    }
     final int numOfIndexes = mintermIndexes.size();
     final int numOfVariables = domain.size();
     BooleanOperator[] products = new BooleanOperator[numOfIndexes];
@@ -228,4 +298,85 @@ public class BFGrandUnifier {
     return (indexesAreMinterms) ? computedResult : BooleanSwissKnife
         .complementBooleanValue(computedResult);
   }
+
+  /** Rows which a {@link PlaneView} iterates over. */
+  private enum Plane {
+    MINTERM, MAXTERM, DONT_CARE
+  }
+
+  /**
+   * Sorted view of the rows of one kind. It scans the planes word by word, so iteration takes time
+   * linear in the size of the table and doesn't keep the indices.
+   */
+  private class PlaneView extends AbstractCollection<Integer> {
+
+    /** Kind of rows in the view. */
+    private final Plane plane;
+
+    /**
+     * Constructor for the view.
+     * 
+     * @param plane kind of rows in the view.
+     */
+    PlaneView(Plane plane) {
+      this.plane = plane;
+    }
+
+    /** Bits of the word which belong to the view. */
+    private long word(int word) {
+      switch (plane) {
+        case MINTERM:
+          return mintermPlane[word];
+        case DONT_CARE:
+          return dontCarePlane[word];
+        default:
+          long rows = ~(mintermPlane[word] | dontCarePlane[word]);
+          final int rowsInWord = tableSize - (word << 6);
+          return rowsInWord >= 64 ? rows : rows & ((1L << rowsInWord) - 1);
+      }
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+        private int wordIndex = -1;
+        private long bits;
+
+        @Override
+        public boolean hasNext() {
+          while (bits == 0) {
+            if (++wordIndex >= mintermPlane.length) {
+              return false;
+            }
+            bits = word(wordIndex);
+          }
+          return true;
+        }
+
+        @Override
+        public Integer next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final int index = (wordIndex << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          return index;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException("View is read only.");
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (int word = 0; word < mintermPlane.length; word++) {
+        size += Long.bitCount(word(word));
+      }
+      return size;
+    }
+  }
 }
@@ -0,0 +1,202 @@
+package hr.fer.zemris.bool.fimpl;
+
+import hr.fer.zemris.bool.BooleanConstant;
+import hr.fer.zemris.bool.BooleanOperator;
+import hr.fer.zemris.bool.BooleanSource;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorAND;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorNOT;
+import hr.fer.zemris.bool.opimpl.BooleanOperatorOR;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operator tree flattened into a straight line program which evaluates 64 rows of the truth table
+ * at once. Every register holds two 64 bit planes, one marking rows where the value is
+ * {@link BooleanValue#TRUE} and the other marking rows where it is {@link BooleanValue#DONT_CARE}.
+ * Rows in neither plane are {@link BooleanValue#FALSE}. Variables are loaded as bit sliced patterns
+ * of the row indices, and n-ary operators become chains of binary instructions. Subtrees used more
+ * than once are compiled once.
+ * <p>
+ * Only the operators of the {@code opimpl} package, variables and constants can be compiled.
+ * Variables which are not in the domain are compiled as constants with their current values.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class CompiledOperatorTree {
+
+  private static final int LOAD_VARIABLE = 0;
+  private static final int LOAD_CONSTANT = 1;
+  private static final int NOT = 2;
+  private static final int AND = 3;
+  private static final int OR = 4;
+
+  /** Patterns of the six lowest bits of row indices 0 to 63. */
+  private static final long[] LOW_PATTERNS = {0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL,
+      0xF0F0F0F0F0F0F0F0L, 0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L};
+
+  /** Number of variables in the domain. */
+  private final int variableCount;
+  /** Positions of domain variables. */
+  private final Map<BooleanVariable, Integer> positions = new HashMap<>();
+  /** Register of every compiled subtree. */
+  private final Map<BooleanSource, Integer> compiled = new IdentityHashMap<>();
+
+  /** Opcode of every instruction. Result of instruction {@code i} is kept in register {@code i}. */
+  private int[] opcodes = new int[16];
+  /** First argument: register, variable position or constant value. */
+  private int[] firsts = new int[16];
+  /** Second argument register of binary instructions. */
+  private int[] seconds = new int[16];
+  /** Number of instructions. */
+  private int size;
+  /** Register of the result of the whole tree. */
+  private final int result;
+
+  /**
+   * Constructor which compiles the tree.
+   *
+   * @param tree tree to compile.
+   * @param domain variables, the first one being the most significant bit of the row index.
+   * @throws UnsupportedOperationException if tree contains sources which can't be compiled.
+   */
+  private CompiledOperatorTree(BooleanSource tree, List<BooleanVariable> domain) {
+    this.variableCount = domain.size();
+    for (int i = 0; i < variableCount; i++) {
+      positions.put(domain.get(i), i);
+    }
+    result = compile(tree);
+  }
+
+  /**
+   * Compiles the tree for the given domain.
+   *
+   * @param tree tree to compile.
+   * @param domain variables, the first one being the most significant bit of the row index.
+   * @return compiled tree.
+   * @throws UnsupportedOperationException if tree contains sources which can't be compiled.
+   */
+  public static CompiledOperatorTree compile(BooleanSource tree, List<BooleanVariable> domain) {
+    return new CompiledOperatorTree(tree, domain);
+  }
+
+  /**
+   * Compiles the source and returns register of its result.
+   *
+   * @param source source to compile.
+   * @return register of result.
+   */
+  private int compile(BooleanSource source) {
+    Integer register = compiled.get(source);
+    if (register != null) {
+      return register;
+    }
+
+    if (source instanceof BooleanVariable) {
+      Integer position = positions.get(source);
+      register =
+          position != null ? emit(LOAD_VARIABLE, position, -1) : emit(LOAD_CONSTANT, source
+              .getValue().ordinal(), -1);
+    } else if (source instanceof BooleanConstant) {
+      register = emit(LOAD_CONSTANT, source.getValue().ordinal(), -1);
+    } else if (source instanceof BooleanOperatorNOT) {
+      register = emit(NOT, compile(((BooleanOperator) source).getSources().get(0)), -1);
+    } else if (source instanceof BooleanOperatorAND || source instanceof BooleanOperatorOR) {
+      final int opcode = source instanceof BooleanOperatorAND ? AND : OR;
+      List<BooleanSource> sources = ((BooleanOperator) source).getSources();
+      register = compile(sources.get(0));
+      for (int i = 1; i < sources.size(); i++) {
+        register = emit(opcode, register, compile(sources.get(i)));
+      }
+    } else {
+      throw new UnsupportedOperationException("Can't compile source: " + source.getClass());
+    }
+
+    compiled.put(source, register);
+    return register;
+  }
+
+  /** Appends instruction to the program and returns its register. */
+  private int emit(int opcode, int first, int second) {
+    if (size == opcodes.length) {
+      opcodes = Arrays.copyOf(opcodes, size * 2);
+      firsts = Arrays.copyOf(firsts, size * 2);
+      seconds = Arrays.copyOf(seconds, size * 2);
+    }
+    opcodes[size] = opcode;
+    firsts[size] = first;
+    seconds[size] = second;
+    return size++;
+  }
+
+  /**
+   * Evaluates the program for every row of the truth table.
+   *
+   * @param truePlane plane of {@code 2^n / 64} words (at least one) which is filled with rows where
+   *        value is {@link BooleanValue#TRUE}.
+   * @param dontCarePlane plane of the same size which is filled with rows where value is
+   *        {@link BooleanValue#DONT_CARE}.
+   */
+  public void evaluate(long[] truePlane, long[] dontCarePlane) {
+    long[] trues = new long[size];
+    long[] dontCares = new long[size];
+    final long rows = 1L << variableCount;
+    final long lastMask = rows >= 64 ? -1L : (1L << rows) - 1;
+
+    for (int word = 0; word < truePlane.length; word++) {
+      final long base = (long) word << 6;
+
+      for (int i = 0; i < size; i++) {
+        final int first = firsts[i];
+        final int second = seconds[i];
+        switch (opcodes[i]) {
+          case LOAD_VARIABLE:
+            trues[i] = pattern(variableCount - 1 - first, base);
+            dontCares[i] = 0;
+            break;
+          case LOAD_CONSTANT:
+            trues[i] = first == BooleanValue.TRUE.ordinal() ? -1L : 0;
+            dontCares[i] = first == BooleanValue.DONT_CARE.ordinal() ? -1L : 0;
+            break;
+          case NOT:
+            trues[i] = ~trues[first] & ~dontCares[first];
+            dontCares[i] = dontCares[first];
+            break;
+          case AND:
+            trues[i] = trues[first] & trues[second];
+            dontCares[i] =
+                (trues[first] | dontCares[first]) & (trues[second] | dontCares[second])
+                    & ~trues[i];
+            break;
+          default:
+            trues[i] = trues[first] | trues[second];
+            dontCares[i] = (dontCares[first] | dontCares[second]) & ~trues[i];
+        }
+      }
+
+      truePlane[word] = trues[result] & lastMask;
+      dontCarePlane[word] = dontCares[result] & lastMask;
+    }
+  }
+
+  /**
+   * Bit of the row index for 64 rows starting at the given base.
+   *
+   * @param bit position of the bit, {@code 0} being the least significant.
+   * @param base first row, a multiple of 64.
+   * @return pattern which has ones for rows where the bit is set.
+   */
+  private static long pattern(int bit, long base) {
+    if (bit < LOW_PATTERNS.length) {
+      return LOW_PATTERNS[bit];
+    }
+    return ((base >>> bit) & 1) != 0 ? -1L : 0;
+  }
+}
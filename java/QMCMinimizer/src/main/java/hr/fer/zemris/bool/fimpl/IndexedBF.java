@@ -1,6 +1,7 @@
 package hr.fer.zemris.bool.fimpl;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import hr.fer.zemris.bool.BooleanFunction;
@@ -75,22 +76,23 @@ public class IndexedBF implements BooleanFunction {
 //    this.indexes = indexes;
 //    this.dontCares = dontCares;
 
-    traversalHelper = new BFGrandUnifier(this.domain, indexes, dontCares, indexesAreMinterms);
-
     if (!preconditionsIndexedBF(indexes, dontCares)) {
       throw new IllegalArgumentException(
           "Precondition violation: check your indexes and dontCares.");
     }
+
+    traversalHelper = new BFGrandUnifier(this.domain, indexes, dontCares, indexesAreMinterms);
   }
 
   // Precondition checker.
   private boolean preconditionsIndexedBF(List<Integer> indexes, List<Integer> dontCares) {
+    final int tableSize = BooleanSwissKnife.binaryVariationsCount(domain.size());
     // Predicate which is sent to functions below.
     // See javadoc constructor preconditions for clarifications.
     IIndexFilter<Integer> outOfBounds = new IIndexFilter<Integer>() {
       @Override
       public boolean accepts(Integer elem) {
-        return elem < 0 || elem >= traversalHelper.getTableSize();
+        return elem < 0 || elem >= tableSize;
       }
     };
 
@@ -98,7 +100,8 @@ public class IndexedBF implements BooleanFunction {
       return false;
     if (BooleanSwissKnife.any(outOfBounds, dontCares))
       return false;
-    if (!Collections.disjoint(indexes, dontCares))
+    // Set makes the check linear instead of quadratic.
+    if (!Collections.disjoint(new HashSet<>(indexes), dontCares))
       return false;
 
     return true;
@@ -2,11 +2,13 @@ package hr.fer.zemris.bool.fimpl;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import hr.fer.zemris.bool.BooleanFunction;
 import hr.fer.zemris.bool.BooleanValue;
 import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.IntIterator;
 import hr.fer.zemris.bool.Mask;
 import hr.fer.zemris.bool.MaskValue;
 import hr.fer.zemris.bool.misc.BooleanSwissKnife;
@@ -14,9 +16,16 @@ import hr.fer.zemris.bool.misc.BooleanSwissKnife;
 /**
  * This class is used to define function by string boolean masks. Depending on constructor
  * parameter, ones mark the minterms or maxterms.
+ * <p>
+ * By default masks are expanded into a truth table when the function is created. Function can
+ * also be created lazy, in which case only the masks are kept: membership of a row is answered by
+ * checking if some mask covers it, iterables generate the rows of the masks on demand, and the
+ * value is computed by checking the masks against the values of the domain variables. Memory used
+ * is then proportional to the number of masks, not to the size of the truth table.
+ * </p>
  * 
  * @author Antonio Paunovic
- * @version 0.3
+ * @version 0.4
  */
 
 public class MaskBasedBF implements BooleanFunction {
@@ -26,7 +35,9 @@ public class MaskBasedBF implements BooleanFunction {
   private boolean masksAreMinterms;
   private List<Mask> masks;
   private List<Mask> dontCareMasks;
+  private boolean lazy;
 
+  // Truth table, null if function is lazy.
   BFGrandUnifier traversalHelper;
 
   /**
@@ -45,6 +56,26 @@ public class MaskBasedBF implements BooleanFunction {
    */
   public MaskBasedBF(String name, List<BooleanVariable> domain, boolean masksAreMinterms,
       List<Mask> masks, List<Mask> dontCareMasks) {
+    this(name, domain, masksAreMinterms, masks, dontCareMasks, false);
+  }
+
+  /**
+   * Constructor for {@link MaskBasedBF} instance which can be lazy. Preconditions:
+   * <ul>
+   * <li>None of the arguments can be null.</li>
+   * </ul>
+   * 
+   * @param name of the function.
+   * @param domain a list of variables {@link BooleanVariable}.
+   * @param masksAreMinterms flag which indicates whether masks are minterms (true if they are).
+   *        Otherwise they are maxterms.
+   * @param masks list of minterm/maxterm masks which define the function.
+   * @param dontCareMasks list of dontcare masks which define the function.
+   * @param lazy if {@code true}, masks are never expanded into a truth table.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public MaskBasedBF(String name, List<BooleanVariable> domain, boolean masksAreMinterms,
+      List<Mask> masks, List<Mask> dontCareMasks, boolean lazy) {
     if (!preconditionsMaskBasedBf(name, domain, masksAreMinterms, masks, dontCareMasks)) {
       throw new IllegalArgumentException("Precondition violation: no null arguments are allowed.");
     }
@@ -54,10 +85,13 @@ public class MaskBasedBF implements BooleanFunction {
     this.masksAreMinterms = masksAreMinterms;
     this.masks = BooleanSwissKnife.copyMaskList(masks);
     this.dontCareMasks = BooleanSwissKnife.copyMaskList(dontCareMasks);
+    this.lazy = lazy;
 
-    traversalHelper =
-        new BFGrandUnifier(domain, indexesFromMasks(this.masks),
-            indexesFromMasks(this.dontCareMasks), masksAreMinterms);
+    if (!lazy) {
+      traversalHelper =
+          new BFGrandUnifier(domain, planeFromMasks(this.masks),
+              planeFromMasks(this.dontCareMasks), masksAreMinterms);
+    }
   }
 
   /** Precondition check for constructor. */
@@ -79,125 +113,72 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public BooleanValue getValue() {
-    return traversalHelper.getValue();
-  }
-
-  /**
-   * Creates list of indexes from given list of masks.
-   * 
-   * @param masks list of masks to be converted.
-   * @return list of integers representing indexes.
-   */
-  private List<Integer> indexesFromMasks(List<Mask> masks) {
-    List<Integer> indexes = new ArrayList<>();
-    for (Mask m : masks) {
-      for (List<MaskValue> listMask : possibleMasks(maskAsList(m))) {
-        indexes.add(listMaskToIndex(listMask));
-      }
+    if (!lazy) {
+      return traversalHelper.getValue();
     }
 
-    return indexes;
-  }
-
-  /**
-   * Creates a list of list of all possible mask values for some mask. That is it takes into account
-   * all unknown values of masks represented by an 'x' and extrapolates all other possible values.
-   * 
-   * @param maskList list of masks to extrapolate
-   * @return list of list of mask values that represent possible masks.
-   */
-  private List<List<MaskValue>> possibleMasks(List<MaskValue> maskList) {
-    // End of recursion: last element of mask, be it 'x' or empty.
-    if (maskList == null || !maskList.contains(MaskValue.DONT_CARE)) {
-      List<List<MaskValue>> ret = new ArrayList<>();
-      ret.add(maskList);
-      return ret;
+    MaskValue[] assignment = new MaskValue[domain.size()];
+    for (int i = 0; i < assignment.length; i++) {
+      assignment[i] =
+          domain.get(i).getValue() == BooleanValue.TRUE ? MaskValue.ONE : MaskValue.ZERO;
     }
-    // List to store all possible values.
-    List<List<MaskValue>> possible = new ArrayList<>();
-    // List for temporary computations.
-    List<MaskValue> newMaskValues = new ArrayList<>();
-
-    for (int i = 0, maskLen = maskList.size(); i < maskLen; i++) {
-
-      // If value is don't care, make a copy of list with that element
-      // changed with one and zero values and then enters the recursion
-      // searching for other don't cares.
-      if (maskList.get(i) == MaskValue.DONT_CARE) {
-
-        List<MaskValue> additionalMaskList = copyMaskValueList(newMaskValues);
-        additionalMaskList.add(MaskValue.ONE);
-        additionalMaskList.addAll(copyMaskValueList(maskList.subList(i + 1, maskLen)));
-
-        // Enter the recursion with one as changed element.
-        possible.addAll(possibleMasks(additionalMaskList));
-
-        additionalMaskList = copyMaskValueList(newMaskValues);
-        additionalMaskList.add(MaskValue.ZERO);
-        additionalMaskList.addAll(copyMaskValueList(maskList.subList(i + 1, maskLen)));
-
-        // Enter the recursion with zero as changed element.
-        possible.addAll(possibleMasks(additionalMaskList));
-
-        return possible;
-      } else {
-        newMaskValues.add(maskList.get(i));
-      }
+    final Mask row = new Mask(assignment);
 
+    final boolean inMasks = isCovered(masks, row);
+    final boolean inDontCares = isCovered(dontCareMasks, row);
+    if (masksAreMinterms) {
+      return inMasks ? BooleanValue.TRUE : inDontCares ? BooleanValue.DONT_CARE
+          : BooleanValue.FALSE;
     }
-    return null;
+    return inDontCares ? BooleanValue.DONT_CARE : inMasks ? BooleanValue.FALSE
+        : BooleanValue.TRUE;
   }
 
   /**
-   * For a given list of {@link MaskValue} return index describing it's binary value.
+   * Creates plane of the truth table rows covered by given masks. Rows of every mask are streamed
+   * by its {@link Mask#indexIterator()}, so indexes are never collected in a list.
    * 
-   * @param listMask mask
-   * @return index integer representing mask's value as index.
+   * @param masks list of masks to be converted.
+   * @return plane with bits set for covered rows.
    */
-  private Integer listMaskToIndex(List<MaskValue> listMask) {
-    final int numOfVariables = domain.size();
-    int bin = 0;
-
-    for (int i = 0, weight = (int) Math.pow(2, numOfVariables - 1), domLen = domain.size(); i < domLen; i++, weight /=
-        2) {
-
-      if (listMask.get(i) == MaskValue.ONE) {
-        bin += weight;
+  private long[] planeFromMasks(List<Mask> masks) {
+    final int tableSize = BooleanSwissKnife.binaryVariationsCount(domain.size());
+    long[] plane = BFGrandUnifier.emptyPlane(domain.size());
+    for (Mask m : masks) {
+      for (IntIterator rows = m.indexIterator(); rows.hasNext();) {
+        final int index = rows.nextInt();
+        if (index < tableSize) {
+          plane[index >>> 6] |= 1L << index;
+        }
       }
     }
 
-    return bin;
+    return plane;
   }
 
-  /**
-   * Takes mask an returns it as list of mask values.
-   * 
-   * @param m mask to transform.
-   * @return list of mask value representing mask.
-   */
-  private List<MaskValue> maskAsList(Mask m) {
-    List<MaskValue> mList = new ArrayList<>();
-    for (int i = 0, maskLen = m.getSize(); i < maskLen; i++) {
+  /** Checks if the index is a row of the truth table. */
+  private boolean isRow(int index) {
+    return index >= 0 && (domain.size() >= Integer.SIZE - 1 || index < 1 << domain.size());
+  }
 
-      mList.add(m.getValue(i));
+  /** Checks if some of the masks covers the row. */
+  private static boolean isCovered(List<Mask> cubes, int index) {
+    for (Mask m : cubes) {
+      if (m.covers(index)) {
+        return true;
+      }
     }
-
-    return mList;
+    return false;
   }
 
-  /**
-   * Copies a list of {@link MaskValue}.
-   * 
-   * @param ml list of mask values representing mask.
-   * @return a copy of parameter {@code ml}.
-   */
-  private List<MaskValue> copyMaskValueList(List<MaskValue> ml) {
-    List<MaskValue> newList = new ArrayList<>();
-    for (MaskValue mv : ml) {
-      newList.add(mv);
+  /** Checks if some of the masks covers the row given as a mask without don't cares. */
+  private static boolean isCovered(List<Mask> cubes, Mask row) {
+    for (Mask m : cubes) {
+      if (m.covers(row)) {
+        return true;
+      }
     }
-
-    return newList;
+    return false;
   }
 
   /**
@@ -213,7 +194,12 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public boolean hasMinterm(int index) {
-    return traversalHelper.hasMinterm(index);
+    if (!lazy) {
+      return traversalHelper.hasMinterm(index);
+    }
+    return isRow(index)
+        && (masksAreMinterms ? isCovered(masks, index) : !isCovered(masks, index)
+            && !isCovered(dontCareMasks, index));
   }
 
   /**
@@ -221,7 +207,11 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public boolean hasMaxterm(int index) {
-    return traversalHelper.hasMaxterm(index);
+    if (!lazy) {
+      return traversalHelper.hasMaxterm(index);
+    }
+    return isRow(index) && !isCovered(dontCareMasks, index)
+        && isCovered(masks, index) != masksAreMinterms;
   }
 
   /**
@@ -229,7 +219,10 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public boolean hasDontCare(int index) {
-    return traversalHelper.hasDontCare(index);
+    if (!lazy) {
+      return traversalHelper.hasDontCare(index);
+    }
+    return isRow(index) && isCovered(dontCareMasks, index);
   }
 
   /**
@@ -237,7 +230,7 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public Iterable<Integer> mintermIterable() {
-    return traversalHelper.mintermIterable();
+    return lazy ? new LazyRows(Rows.MINTERM) : traversalHelper.mintermIterable();
   }
 
   /**
@@ -245,7 +238,7 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public Iterable<Integer> maxtermIterable() {
-    return traversalHelper.maxtermIterable();
+    return lazy ? new LazyRows(Rows.MAXTERM) : traversalHelper.maxtermIterable();
   }
 
   /**
@@ -253,7 +246,7 @@ public class MaskBasedBF implements BooleanFunction {
    */
   @Override
   public Iterable<Integer> dontcareIterable() {
-    return traversalHelper.dontcareIterable();
+    return lazy ? new LazyRows(Rows.DONT_CARE) : traversalHelper.dontcareIterable();
   }
 
   /**
@@ -282,4 +275,70 @@ public class MaskBasedBF implements BooleanFunction {
   public boolean areMasksProducts() {
     return masksAreMinterms;
   }
+
+  /**
+   * Method returns flag telling whether the function is lazy, that is kept only as masks.
+   * 
+   * @return {@code true} if it is, otherwise {@code false}.
+   */
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  /** Rows which a {@link LazyRows} iterates over. */
+  private enum Rows {
+    MINTERM, MAXTERM, DONT_CARE
+  }
+
+  /**
+   * Rows of one kind of a lazy function, generated from the masks every time the view is iterated.
+   * Rows come in ascending order and without duplicates, even when masks overlap.
+   */
+  private class LazyRows implements Iterable<Integer> {
+
+    /** Kind of rows in the view. */
+    private final Rows rows;
+
+    /**
+     * Constructor for the view.
+     * 
+     * @param rows kind of rows in the view.
+     * @throws IllegalStateException if rows can't be addressed by {@code int} indexes.
+     */
+    LazyRows(Rows rows) {
+      if (domain.size() >= Integer.SIZE) {
+        throw new IllegalStateException("Too many variables for int indexes: " + domain.size());
+      }
+      this.rows = rows;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      final long rowCount = 1L << domain.size();
+      IntIterator stream;
+      switch (rows) {
+        case MINTERM:
+          stream =
+              masksAreMinterms ? RowStreams.union(masks) : RowStreams.complement(RowStreams
+                  .union(allMasks()), rowCount);
+          break;
+        case MAXTERM:
+          stream =
+              masksAreMinterms ? RowStreams.complement(RowStreams.union(allMasks()), rowCount)
+                  : RowStreams.difference(RowStreams.union(masks), RowStreams
+                      .union(dontCareMasks));
+          break;
+        default:
+          stream = RowStreams.union(dontCareMasks);
+      }
+      return RowStreams.boxed(stream);
+    }
+
+    /** Masks and dontcare masks together. */
+    private List<Mask> allMasks() {
+      List<Mask> all = new ArrayList<>(masks);
+      all.addAll(dontCareMasks);
+      return all;
+    }
+  }
 }
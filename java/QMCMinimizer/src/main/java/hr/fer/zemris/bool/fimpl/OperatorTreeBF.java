@@ -8,7 +8,6 @@ import hr.fer.zemris.bool.BooleanOperator;
 import hr.fer.zemris.bool.BooleanValue;
 import hr.fer.zemris.bool.BooleanVariable;
 import hr.fer.zemris.bool.misc.BooleanSwissKnife;
-import hr.fer.zemris.bool.misc.IIndexFilter;
 
 /**
  * This class is used to construct a boolean function by specifying an operator tree.
@@ -70,40 +69,32 @@ public class OperatorTreeBF implements BooleanFunction {
   }
 
   /**
-   * Helper object which stores lists of minterms, maxterms and dont cares.
+   * Helper object which stores the truth table. Operator tree is compiled by the
+   * {@link CompiledOperatorTree}, which evaluates 64 rows at once. Trees which can't be compiled are
+   * evaluated row by row.
    */
   private void initTraversalHelper() {
-    final int START = 0;
-    final int STEP = 1;
     final int tableLength = BooleanSwissKnife.binaryVariationsCount(domain.size());
-    final List<Integer> tableRange = BooleanSwissKnife.range(START, tableLength, STEP);
-
-    traversalHelper =
-        new BFGrandUnifier(domain, getIndexes(tableRange), getDontCares(tableRange), true);
-  }
-
-  // Compute minterms.
-  private List<Integer> getIndexes(List<Integer> tableRange) {
-    IIndexFilter<Integer> predicate = new IIndexFilter<Integer>() {
-      @Override
-      public boolean accepts(Integer elem) {
-        return hasMinterm(elem);
-      }
-    };
-
-    return BooleanSwissKnife.filterInts(predicate, tableRange);
-  }
-
-  // Compute dontcares.
-  private List<Integer> getDontCares(List<Integer> tableRange) {
-    IIndexFilter<Integer> predicate = new IIndexFilter<Integer>() {
-      @Override
-      public boolean accepts(Integer elem) {
-        return hasDontCare(elem);
+    long[] mintermPlane = new long[(tableLength + 63) >>> 6];
+    long[] dontCarePlane = new long[mintermPlane.length];
+
+    try {
+      CompiledOperatorTree.compile(operatorTree, domain).evaluate(mintermPlane, dontCarePlane);
+    } catch (UnsupportedOperationException e) {
+      for (int index = 0; index < tableLength; index++) {
+        switch (evaluateIndex(index)) {
+          case TRUE:
+            mintermPlane[index >>> 6] |= 1L << index;
+            break;
+          case DONT_CARE:
+            dontCarePlane[index >>> 6] |= 1L << index;
+            break;
+          default:
+        }
       }
-    };
+    }
 
-    return BooleanSwissKnife.filterInts(predicate, tableRange);
+    traversalHelper = new BFGrandUnifier(domain, mintermPlane, dontCarePlane);
   }
 
   /**
@@ -130,12 +121,21 @@ public class OperatorTreeBF implements BooleanFunction {
     return Collections.unmodifiableList(domain);
   }
 
+  /**
+   * Tree representing the function.
+   * 
+   * @return operator tree.
+   */
+  public BooleanOperator getOperatorTree() {
+    return operatorTree;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public boolean hasMinterm(int index) {
-    return evaluateIndex(index) == BooleanValue.TRUE;
+    return traversalHelper.hasMinterm(index);
   }
 
   /**
@@ -143,7 +143,7 @@ public class OperatorTreeBF implements BooleanFunction {
    */
   @Override
   public boolean hasMaxterm(int index) {
-    return evaluateIndex(index) == BooleanValue.FALSE;
+    return traversalHelper.hasMaxterm(index);
   }
 
   /**
@@ -151,7 +151,7 @@ public class OperatorTreeBF implements BooleanFunction {
    */
   @Override
   public boolean hasDontCare(int index) {
-    return evaluateIndex(index) == BooleanValue.DONT_CARE;
+    return traversalHelper.hasDontCare(index);
   }
 
   /**
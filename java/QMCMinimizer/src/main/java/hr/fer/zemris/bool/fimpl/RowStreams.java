@@ -0,0 +1,296 @@
+package hr.fer.zemris.bool.fimpl;
+
+import hr.fer.zemris.bool.IntIterator;
+import hr.fer.zemris.bool.Mask;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams of truth table rows in ascending order, without duplicates. Rows of a cover are never
+ * collected: rows of every cube come from its {@link Mask#indexIterator()}, and streams are merged,
+ * subtracted and complemented one row at a time. Functions given by cubes use them for lazy
+ * iteration.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class RowStreams {
+
+  private RowStreams() {}
+
+  /**
+   * Rows covered by at least one of the masks.
+   *
+   * @param masks cubes, each of at most 31 positions.
+   * @return ascending stream of covered rows.
+   */
+  static IntIterator union(List<Mask> masks) {
+    return new Union(masks);
+  }
+
+  /**
+   * Rows of the first stream which are not in the second one.
+   *
+   * @param rows ascending stream.
+   * @param removed ascending stream of rows to leave out.
+   * @return ascending stream of the difference.
+   */
+  static IntIterator difference(IntIterator rows, IntIterator removed) {
+    return new Difference(rows, removed);
+  }
+
+  /**
+   * Rows of the truth table which are not in the stream.
+   *
+   * @param rows ascending stream.
+   * @param rowCount number of rows in the truth table.
+   * @return ascending stream of the remaining rows.
+   */
+  static IntIterator complement(IntIterator rows, long rowCount) {
+    return new Complement(rows, rowCount);
+  }
+
+  /**
+   * Stream as an iterator of boxed rows.
+   *
+   * @param rows stream.
+   * @return read only iterator.
+   */
+  static Iterator<Integer> boxed(final IntIterator rows) {
+    return new Iterator<Integer>() {
+      @Override
+      public boolean hasNext() {
+        return rows.hasNext();
+      }
+
+      @Override
+      public Integer next() {
+        return rows.nextInt();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("Rows are read only.");
+      }
+    };
+  }
+
+  /**
+   * K-way merge of the rows of several cubes. Every cube stream has its current row, and a binary
+   * heap keeps the streams ordered by it. Streams whose current row is the smallest one are all
+   * advanced together, which drops the duplicates.
+   */
+  private static final class Union implements IntIterator {
+
+    /** Row streams of the cubes. */
+    private final IntIterator[] sources;
+    /** Current row of every stream. */
+    private final int[] heads;
+    /** Heap of streams which are not exhausted, ordered by their current rows. */
+    private final int[] heap;
+    /** Number of streams in the heap. */
+    private int heapSize;
+
+    /**
+     * Constructor for the merge.
+     *
+     * @param masks cubes.
+     */
+    Union(List<Mask> masks) {
+      sources = new IntIterator[masks.size()];
+      heads = new int[sources.length];
+      heap = new int[sources.length];
+      for (int source = 0; source < sources.length; source++) {
+        sources[source] = masks.get(source).indexIterator();
+        if (sources[source].hasNext()) {
+          heads[source] = sources[source].nextInt();
+          heap[heapSize++] = source;
+        }
+      }
+      for (int position = heapSize / 2 - 1; position >= 0; position--) {
+        siftDown(position);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      return heapSize > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextInt() {
+      if (heapSize == 0) {
+        throw new NoSuchElementException();
+      }
+
+      final int row = heads[heap[0]];
+      while (heapSize > 0 && heads[heap[0]] == row) {
+        final int source = heap[0];
+        if (sources[source].hasNext()) {
+          heads[source] = sources[source].nextInt();
+        } else {
+          heap[0] = heap[--heapSize];
+        }
+        siftDown(0);
+      }
+      return row;
+    }
+
+    /** Moves the stream at the position down until the heap is ordered. */
+    private void siftDown(int position) {
+      while (true) {
+        int smallest = position;
+        final int left = 2 * position + 1;
+        final int right = left + 1;
+        if (left < heapSize && heads[heap[left]] < heads[heap[smallest]]) {
+          smallest = left;
+        }
+        if (right < heapSize && heads[heap[right]] < heads[heap[smallest]]) {
+          smallest = right;
+        }
+        if (smallest == position) {
+          return;
+        }
+        final int swap = heap[position];
+        heap[position] = heap[smallest];
+        heap[smallest] = swap;
+        position = smallest;
+      }
+    }
+  }
+
+  /**
+   * Difference of two ascending streams, computed by walking them side by side.
+   */
+  private static final class Difference implements IntIterator {
+
+    private final IntIterator rows;
+    private final IntIterator removed;
+    /** Smallest removed row not yet passed, valid if {@link #hasRemoved}. */
+    private int nextRemoved;
+    private boolean hasRemoved;
+    /** Next row of the difference, valid if {@link #hasNextRow}. */
+    private int nextRow;
+    private boolean hasNextRow;
+
+    Difference(IntIterator rows, IntIterator removed) {
+      this.rows = rows;
+      this.removed = removed;
+      pullRemoved();
+      advance();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      return hasNextRow;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextInt() {
+      if (!hasNextRow) {
+        throw new NoSuchElementException();
+      }
+      final int row = nextRow;
+      advance();
+      return row;
+    }
+
+    /** Finds the next row which is not removed. */
+    private void advance() {
+      while (rows.hasNext()) {
+        final int row = rows.nextInt();
+        while (hasRemoved && nextRemoved < row) {
+          pullRemoved();
+        }
+        if (!hasRemoved || nextRemoved != row) {
+          nextRow = row;
+          hasNextRow = true;
+          return;
+        }
+      }
+      hasNextRow = false;
+    }
+
+    /** Takes the next removed row. */
+    private void pullRemoved() {
+      hasRemoved = removed.hasNext();
+      if (hasRemoved) {
+        nextRemoved = removed.nextInt();
+      }
+    }
+  }
+
+  /**
+   * Rows of the truth table which are not in an ascending stream.
+   */
+  private static final class Complement implements IntIterator {
+
+    private final IntIterator rows;
+    private final long rowCount;
+    /** Next candidate row. */
+    private long candidate;
+    /** Smallest row of the stream not yet passed, valid if {@link #hasCovered}. */
+    private int nextCovered;
+    private boolean hasCovered;
+
+    Complement(IntIterator rows, long rowCount) {
+      this.rows = rows;
+      this.rowCount = rowCount;
+      pullCovered();
+      skipCovered();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      return candidate < rowCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextInt() {
+      if (candidate >= rowCount) {
+        throw new NoSuchElementException();
+      }
+      final int row = (int) candidate++;
+      skipCovered();
+      return row;
+    }
+
+    /** Moves the candidate past the rows of the stream. */
+    private void skipCovered() {
+      while (hasCovered && nextCovered <= candidate) {
+        if (nextCovered == candidate) {
+          candidate++;
+        }
+        pullCovered();
+      }
+    }
+
+    /** Takes the next row of the stream. */
+    private void pullCovered() {
+      hasCovered = rows.hasNext();
+      if (hasCovered) {
+        nextCovered = rows.nextInt();
+      }
+    }
+  }
+}
@@ -0,0 +1,451 @@
+package hr.fer.zemris.bool.fimpl;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.misc.BooleanSwissKnife;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Boolean function kept as a truth table in a memory mapped file. Every row takes two bits, one
+ * which marks a minterm and one which marks a don't care, so a table of 32 variables takes 1 GB of
+ * file and none of the heap. File is mapped in chunks of {@value #CHUNK_BYTES} bytes, and rows are
+ * read and written directly in the mapping, so loading and saving don't copy the table. The same
+ * file can be mapped by several processes at once.
+ * <p>
+ * File starts with a header of {@value #HEADER_BYTES} bytes holding a magic number and the number
+ * of variables. Row {@code r} follows in byte {@code r / 4} of the table, at bits
+ * {@code 2 * (r % 4)} (minterm) and {@code 2 * (r % 4) + 1} (don't care). Rows are numbered like
+ * everywhere else, the first variable of the domain being the most significant bit.
+ * </p>
+ * <p>
+ * Methods of {@link BooleanFunction} take {@code int} indices, so they reach only the first
+ * {@code 2^31} rows, and the iterables refuse tables bigger than that. Methods taking {@code long}
+ * rows work for the whole table.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class TruthTableBF implements BooleanFunction, Closeable {
+
+  /** Maximal number of variables. */
+  public static final int MAX_VARIABLES = 40;
+
+  /** Marks the files of this class. */
+  private static final int MAGIC = 0x54544246;
+  /** Bytes before the table. */
+  private static final int HEADER_BYTES = 16;
+  /** Bytes in one mapped chunk, a multiple of {@code 8}. */
+  private static final int CHUNK_BYTES = 1 << 30;
+  /** Bits of all minterm marks in a word of 32 rows. */
+  private static final long MINTERM_BITS = 0x5555555555555555L;
+
+  private String name;
+  private List<BooleanVariable> domain;
+  private FileChannel channel;
+  /** Mapped chunks of the table. */
+  private MappedByteBuffer[] chunks;
+  /** Number of rows in the table. */
+  private long rowCount;
+
+  /**
+   * Constructor which maps the table of an opened file.
+   *
+   * @param name of the function.
+   * @param domain variables of the function.
+   * @param channel channel of the file.
+   * @param mode mode of the mapping.
+   * @throws IOException if file can't be mapped.
+   */
+  private TruthTableBF(String name, List<BooleanVariable> domain, FileChannel channel, MapMode mode)
+      throws IOException {
+    this.name = name;
+    this.domain = BooleanSwissKnife.copyBooleanVariableList(domain);
+    this.channel = channel;
+    this.rowCount = 1L << domain.size();
+
+    final long tableBytes = tableBytes(domain.size());
+    chunks = new MappedByteBuffer[(int) ((tableBytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+    for (int chunk = 0; chunk < chunks.length; chunk++) {
+      final long offset = (long) chunk * CHUNK_BYTES;
+      chunks[chunk] =
+          channel.map(mode, HEADER_BYTES + offset, Math.min(CHUNK_BYTES, tableBytes - offset));
+      chunks[chunk].order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /**
+   * Creates a new file with the table in which every row is a maxterm. Existing file is
+   * overwritten. Preconditions:
+   * <ul>
+   * <li>None of the arguments can be null.</li>
+   * <li>Domain can have at most {@value #MAX_VARIABLES} variables.</li>
+   * </ul>
+   *
+   * @param name of the function.
+   * @param domain variables of the function.
+   * @param file file which keeps the table.
+   * @return function mapped to the file, ready for writing.
+   * @throws IOException if file can't be created.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static TruthTableBF create(String name, List<BooleanVariable> domain, Path file)
+      throws IOException {
+    checkPreconditions(name, domain, file);
+
+    FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC).putInt(domain.size()).rewind();
+      channel.write(header, 0);
+      // Mapping extends the file, and new bytes are zero, that is maxterms.
+      return new TruthTableBF(name, domain, channel, MapMode.READ_WRITE);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the table in the existing file. Preconditions:
+   * <ul>
+   * <li>None of the arguments can be null.</li>
+   * <li>Domain has the number of variables written in the file.</li>
+   * </ul>
+   *
+   * @param name of the function.
+   * @param domain variables of the function.
+   * @param file file which keeps the table.
+   * @param writable whether rows can be changed.
+   * @return function mapped to the file.
+   * @throws IOException if file can't be read or isn't a truth table.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static TruthTableBF open(String name, List<BooleanVariable> domain, Path file,
+      boolean writable) throws IOException {
+    checkPreconditions(name, domain, file);
+
+    FileChannel channel =
+        writable ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        // Read the whole header.
+      }
+      header.flip();
+      if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+        throw new IOException("Not a truth table file: " + file);
+      }
+      final int variables = header.getInt();
+      if (variables != domain.size()) {
+        throw new IllegalArgumentException("Precondition violation: file has " + variables
+            + " variables, domain has " + domain.size() + ".");
+      }
+      if (channel.size() < HEADER_BYTES + tableBytes(variables)) {
+        throw new IOException("Truth table file is truncated: " + file);
+      }
+      return new TruthTableBF(name, domain, channel, writable ? MapMode.READ_WRITE
+          : MapMode.READ_ONLY);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Precondition check for factory methods. */
+  private static void checkPreconditions(String name, List<BooleanVariable> domain, Path file) {
+    if (name == null || domain == null || file == null) {
+      throw new IllegalArgumentException("Precondition violation: no null arguments are allowed.");
+    }
+    if (domain.size() > MAX_VARIABLES) {
+      throw new IllegalArgumentException("Precondition violation: at most " + MAX_VARIABLES
+          + " variables are allowed, got " + domain.size() + ".");
+    }
+  }
+
+  /** Number of table bytes for given number of variables, rounded up to whole words. */
+  private static long tableBytes(int variables) {
+    return Math.max(8, (1L << variables) >>> 2);
+  }
+
+  /**
+   * Number of rows in the table.
+   *
+   * @return {@code 2^n} for {@code n} variables.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Value of the function in the given row.
+   *
+   * @param row row of the table.
+   * @return {@link BooleanValue#TRUE} for minterms, {@link BooleanValue#DONT_CARE} for don't cares
+   *         and {@link BooleanValue#FALSE} for maxterms.
+   * @throws IndexOutOfBoundsException if row is outside of the table.
+   */
+  public BooleanValue getValue(long row) {
+    checkRow(row);
+    switch (bits(row)) {
+      case 1:
+        return BooleanValue.TRUE;
+      case 0:
+        return BooleanValue.FALSE;
+      default:
+        return BooleanValue.DONT_CARE;
+    }
+  }
+
+  /**
+   * Sets value of the function in the given row.
+   *
+   * @param row row of the table.
+   * @param value new value of the row.
+   * @throws IndexOutOfBoundsException if row is outside of the table.
+   * @throws java.nio.ReadOnlyBufferException if table was opened read only.
+   */
+  public void setValue(long row, BooleanValue value) {
+    checkRow(row);
+    final int bits;
+    switch (value) {
+      case TRUE:
+        bits = 1;
+        break;
+      case FALSE:
+        bits = 0;
+        break;
+      default:
+        bits = 2;
+    }
+
+    final long offset = row >>> 2;
+    final int shift = (int) (row & 3) << 1;
+    ByteBuffer chunk = chunks[(int) (offset / CHUNK_BYTES)];
+    final int position = (int) (offset % CHUNK_BYTES);
+    chunk.put(position, (byte) ((chunk.get(position) & ~(3 << shift)) | (bits << shift)));
+  }
+
+  /**
+   * Finds the first row with the given value, starting from the given row. Rows are scanned 32 at a
+   * time, so scanning a sparse table is fast.
+   *
+   * @param from first row to check.
+   * @param value value to look for.
+   * @return first row with the value, or {@code -1} if there are none.
+   */
+  public long nextRow(long from, BooleanValue value) {
+    long row = Math.max(from, 0) & ~31L;
+    while (row < rowCount) {
+      final long offset = row >>> 2;
+      long word = chunks[(int) (offset / CHUNK_BYTES)].getLong((int) (offset % CHUNK_BYTES));
+      long marks;
+      switch (value) {
+        case TRUE:
+          marks = word & ~(word >>> 1) & MINTERM_BITS;
+          break;
+        case FALSE:
+          marks = ~word & ~(word >>> 1) & MINTERM_BITS;
+          break;
+        default:
+          marks = (word >>> 1) & MINTERM_BITS;
+      }
+      if (from > row) {
+        marks &= -1L << ((from - row) << 1);
+      }
+      if (rowCount - row < 32) {
+        marks &= (1L << ((rowCount - row) << 1)) - 1;
+      }
+      if (marks != 0) {
+        return row + (Long.numberOfTrailingZeros(marks) >>> 1);
+      }
+      row += 32;
+    }
+    return -1;
+  }
+
+  /**
+   * Writes changes of the table to the file.
+   */
+  public void force() {
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+  }
+
+  /**
+   * Closes the file. Mapping itself is released by the garbage collector, and function mustn't be
+   * used after closing.
+   *
+   * @throws IOException if file can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Two bits of the row. */
+  private int bits(long row) {
+    final long offset = row >>> 2;
+    final int b = chunks[(int) (offset / CHUNK_BYTES)].get((int) (offset % CHUNK_BYTES));
+    return (b >>> ((int) (row & 3) << 1)) & 3;
+  }
+
+  /** Checks if row is in the table. */
+  private void checkRow(long row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row + " is not in a table of " + rowCount
+          + " rows.");
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Computes the value when function is applied to it's domain's values.
+   */
+  @Override
+  public BooleanValue getValue() {
+    long row = 0;
+    for (BooleanVariable variable : domain) {
+      row = (row << 1) | (variable.getValue() == BooleanValue.TRUE ? 1 : 0);
+    }
+    return getValue(row);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<BooleanVariable> getDomain() {
+    return Collections.unmodifiableList(domain);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasMinterm(int index) {
+    return index >= 0 && index < rowCount && bits(index) == 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasMaxterm(int index) {
+    return index >= 0 && index < rowCount && bits(index) == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasDontCare(int index) {
+    return index >= 0 && index < rowCount && bits(index) >= 2;
+  }
+
+  /**
+   * {@inheritDoc} Rows are scanned when iterating, nothing is kept in memory.
+   *
+   * @throws IllegalStateException if table has more than {@code 2^31} rows.
+   */
+  @Override
+  public Iterable<Integer> mintermIterable() {
+    return new RowIterable(BooleanValue.TRUE);
+  }
+
+  /**
+   * {@inheritDoc} Rows are scanned when iterating, nothing is kept in memory.
+   *
+   * @throws IllegalStateException if table has more than {@code 2^31} rows.
+   */
+  @Override
+  public Iterable<Integer> maxtermIterable() {
+    return new RowIterable(BooleanValue.FALSE);
+  }
+
+  /**
+   * {@inheritDoc} Rows are scanned when iterating, nothing is kept in memory.
+   *
+   * @throws IllegalStateException if table has more than {@code 2^31} rows.
+   */
+  @Override
+  public Iterable<Integer> dontcareIterable() {
+    return new RowIterable(BooleanValue.DONT_CARE);
+  }
+
+  /**
+   * Iterable over rows with some value, implemented by {@link TruthTableBF#nextRow(long,
+   * BooleanValue)}.
+   */
+  private class RowIterable implements Iterable<Integer> {
+
+    /** Value of rows. */
+    private final BooleanValue value;
+
+    /**
+     * Constructor for the iterable.
+     *
+     * @param value value of rows.
+     * @throws IllegalStateException if rows can't be represented by integers.
+     */
+    RowIterable(BooleanValue value) {
+      if (rowCount > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Table of " + rowCount
+            + " rows can't be iterated by integer indices.");
+      }
+      this.value = value;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+        private long next = nextRow(0, value);
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public Integer next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          final int row = (int) next;
+          next = nextRow(next + 1, value);
+          return row;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException("Rows can't be removed.");
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,559 @@
+package hr.fer.zemris.bool.pla;
+
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+import hr.fer.zemris.bool.fimpl.TruthTableBF;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming reader of the Berkeley PLA format, used by Espresso. Header is read when the reader is
+ * created, and cubes are then read one line at a time with {@link #nextCube()}, so a file of any
+ * size is read with a single buffer of {@value #BUFFER_BYTES} bytes and one line. Cubes are
+ * scanned byte by byte, without regular expressions or strings.
+ * <p>
+ * Supported keywords are {@code .i}, {@code .o}, {@code .ilb}, {@code .ob}, {@code .p},
+ * {@code .type} and {@code .e}; other keywords and {@code #} comments are skipped. Types
+ * {@code f} and {@code fd} are supported, the latter being the default. Input parts of cubes use
+ * {@code 0}, {@code 1} and {@code -}. In output parts, {@code 1} puts the cube in the on-set of the
+ * output, {@code -} or {@code 2} in its don't care set if the type is {@code fd}, and {@code 0} or
+ * {@code ~} in neither. Parts can be written with or without a space between them.
+ * </p>
+ * <p>
+ * Whole covers are read by {@link #readCovers()}, into lazy {@link MaskBasedBF} functions which
+ * keep the cubes, or by {@link #readTruthTables(List)}, into {@link TruthTableBF} files whose rows
+ * are set directly from the cubes, without collecting them.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class PlaReader implements Closeable {
+
+  /** Size of the read buffer. */
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  /** Channel the file is read from. */
+  private final ReadableByteChannel channel;
+  /** Read buffer. */
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  /** Bytes of the current line. */
+  private byte[] line = new byte[256];
+  /** Length of the current line. */
+  private int lineLength;
+  /** Number of the current line, starting with one. */
+  private long lineNumber;
+  /** Flag telling whether the current line is the first cube, read together with the header. */
+  private boolean pending;
+  /** Flag telling whether the end of the cubes was reached. */
+  private boolean finished;
+  /** Flag telling whether there is a current cube. */
+  private boolean cube;
+
+  /** Input variables. */
+  private List<BooleanVariable> inputs;
+  /** Names of the outputs. */
+  private List<String> outputs;
+  /** Flag telling whether don't care sets are given. */
+  private boolean dontCares = true;
+  /** Input values of the current cube. */
+  private MaskValue[] cubeInputs;
+  /** Output values of the current cube. */
+  private MaskValue[] cubeOutputs;
+
+  /**
+   * Opens the file and reads its header.
+   *
+   * @param file PLA file.
+   * @return reader positioned before the first cube.
+   * @throws IOException if file can't be read or its header is malformed.
+   * @throws IllegalArgumentException if file is null reference.
+   */
+  public static PlaReader open(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new PlaReader(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Constructor which reads the header from the channel. Channel is closed with the reader.
+   *
+   * @param channel channel of the PLA file.
+   * @throws IOException if channel can't be read or header is malformed.
+   * @throws IllegalArgumentException if channel is null reference.
+   */
+  public PlaReader(ReadableByteChannel channel) throws IOException {
+    if (channel == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    this.channel = channel;
+    buffer.flip();
+    readHeader();
+  }
+
+  /**
+   * Input variables, named by {@code .ilb}, or {@code x0} to {@code x(n-1)} if there are no names.
+   *
+   * @return unmodifiable list of inputs; the first one is the most significant bit of the rows.
+   */
+  public List<BooleanVariable> getInputs() {
+    return inputs;
+  }
+
+  /**
+   * Names of the outputs, given by {@code .ob}, or {@code f0} to {@code f(m-1)} if there are no
+   * names.
+   *
+   * @return unmodifiable list of output names.
+   */
+  public List<String> getOutputs() {
+    return outputs;
+  }
+
+  /**
+   * Reads the next cube.
+   *
+   * @return {@code true} if there was one, {@code false} at the end of the cubes.
+   * @throws IOException if file can't be read or cube is malformed.
+   */
+  public boolean nextCube() throws IOException {
+    cube = false;
+    while (!finished) {
+      if (pending) {
+        pending = false;
+      } else if (!nextLine()) {
+        finished = true;
+        break;
+      }
+
+      final int start = skipSpaces(0);
+      if (start == lineLength || line[start] == '#') {
+        continue;
+      }
+      if (line[start] == '.') {
+        if (isKeyword(start, ".e") || isKeyword(start, ".end")) {
+          finished = true;
+        }
+        continue;
+      }
+      parseCube(start);
+      cube = true;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Input part of the current cube.
+   *
+   * @return mask of the cube.
+   * @throws IllegalStateException if there is no current cube.
+   */
+  public Mask getCubeInputs() {
+    checkCube();
+    return new Mask(cubeInputs);
+  }
+
+  /**
+   * Output part of the current cube for the output.
+   *
+   * @param output index of the output.
+   * @return {@link MaskValue#ONE} if the cube is in the on-set of the output,
+   *         {@link MaskValue#DONT_CARE} if it is in its don't care set, and {@link MaskValue#ZERO}
+   *         otherwise.
+   * @throws IllegalStateException if there is no current cube.
+   * @throws IndexOutOfBoundsException if there is no such output.
+   */
+  public MaskValue getCubeOutput(int output) {
+    checkCube();
+    return cubeOutputs[output];
+  }
+
+  /**
+   * Reads the remaining cubes into one lazy function of the inputs for every output. Masks of the
+   * functions are the cubes, which are never expanded into rows. Rows which are in both on-set and
+   * don't care set of an output are don't cares, as in {@link #readTruthTables(List)}: on-set cubes
+   * which meet don't care cubes are split into the disjoint cubes of the remaining rows.
+   *
+   * @return list of functions, one for every output.
+   * @throws IOException if file can't be read or a cube is malformed.
+   */
+  public List<MaskBasedBF> readCovers() throws IOException {
+    List<List<Mask>> masks = new ArrayList<>();
+    List<List<Mask>> dontCareMasks = new ArrayList<>();
+    for (int output = 0; output < outputs.size(); output++) {
+      masks.add(new ArrayList<Mask>());
+      dontCareMasks.add(new ArrayList<Mask>());
+    }
+
+    while (nextCube()) {
+      Mask mask = null;
+      for (int output = 0; output < outputs.size(); output++) {
+        if (cubeOutputs[output] != MaskValue.ZERO) {
+          mask = mask == null ? new Mask(cubeInputs) : mask;
+          (cubeOutputs[output] == MaskValue.ONE ? masks : dontCareMasks).get(output).add(mask);
+        }
+      }
+    }
+
+    List<MaskBasedBF> functions = new ArrayList<>(outputs.size());
+    for (int output = 0; output < outputs.size(); output++) {
+      List<Mask> onSet = masks.get(output);
+      for (Mask dontCare : dontCareMasks.get(output)) {
+        onSet = subtract(onSet, dontCare);
+      }
+      functions.add(new MaskBasedBF(outputs.get(output), inputs, true, onSet,
+          dontCareMasks.get(output), true));
+    }
+    return functions;
+  }
+
+  /**
+   * Cubes of the rows of the cover which are not in the removed cube. Cube meeting the removed one
+   * is split over its free positions where the removed cube is fixed, each part taking the opposite
+   * value at one of them and the removed cube's values at the ones before, so parts are disjoint.
+   */
+  private static List<Mask> subtract(List<Mask> cover, Mask removed) {
+    List<Mask> result = new ArrayList<>(cover.size());
+    for (Mask cube : cover) {
+      if (!meets(cube, removed)) {
+        result.add(cube);
+        continue;
+      }
+
+      MaskValue[] values = new MaskValue[cube.getSize()];
+      for (int position = 0; position < values.length; position++) {
+        values[position] = cube.getValue(position);
+      }
+      for (int position = 0; position < values.length; position++) {
+        final MaskValue value = removed.getValue(position);
+        if (values[position] == MaskValue.DONT_CARE && value != MaskValue.DONT_CARE) {
+          values[position] = value == MaskValue.ONE ? MaskValue.ZERO : MaskValue.ONE;
+          result.add(new Mask(values));
+          values[position] = value;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** Checks if the cubes have a common row. */
+  private static boolean meets(Mask first, Mask second) {
+    for (int position = 0; position < first.getSize(); position++) {
+      final MaskValue a = first.getValue(position);
+      final MaskValue b = second.getValue(position);
+      if (a != MaskValue.DONT_CARE && b != MaskValue.DONT_CARE && a != b) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the remaining cubes into truth tables, one for every output, created in the given files.
+   * Rows of every cube are set directly in the mapped tables. Rows which are in both on-set and
+   * don't care set of an output are don't cares, as in Espresso. Preconditions:
+   * <ul>
+   * <li>There is a file for every output.</li>
+   * <li>There are at most {@value TruthTableBF#MAX_VARIABLES} inputs.</li>
+   * </ul>
+   *
+   * @param files files which keep the tables; existing files are overwritten.
+   * @return list of functions, one for every output. Caller closes them.
+   * @throws IOException if file can't be read, a cube is malformed or a table can't be created.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public List<TruthTableBF> readTruthTables(List<Path> files) throws IOException {
+    if (files == null || files.size() != outputs.size()) {
+      throw new IllegalArgumentException("Precondition violation: a file is needed per output.");
+    }
+
+    List<TruthTableBF> tables = new ArrayList<>(outputs.size());
+    try {
+      for (int output = 0; output < outputs.size(); output++) {
+        tables.add(TruthTableBF.create(outputs.get(output), inputs, files.get(output)));
+      }
+      while (nextCube()) {
+        long base = 0;
+        long free = 0;
+        for (MaskValue value : cubeInputs) {
+          base = base << 1 | (value == MaskValue.ONE ? 1 : 0);
+          free = free << 1 | (value == MaskValue.DONT_CARE ? 1 : 0);
+        }
+        for (int output = 0; output < outputs.size(); output++) {
+          if (cubeOutputs[output] != MaskValue.ZERO) {
+            setRows(tables.get(output), base, free, cubeOutputs[output] == MaskValue.ONE);
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      for (TruthTableBF table : tables) {
+        table.close();
+      }
+      throw e;
+    }
+    return tables;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Sets the rows of the cube, leaving don't cares as they are when setting minterms. */
+  private static void setRows(TruthTableBF table, long base, long free, boolean minterm) {
+    for (long subset = 0;; subset = (subset - free) & free) {
+      final long row = base | subset;
+      if (!minterm) {
+        table.setValue(row, BooleanValue.DONT_CARE);
+      } else if (table.getValue(row) != BooleanValue.DONT_CARE) {
+        table.setValue(row, BooleanValue.TRUE);
+      }
+      if (subset == free) {
+        return;
+      }
+    }
+  }
+
+  /** Reads keywords up to the first cube, which is left pending. */
+  private void readHeader() throws IOException {
+    int inputCount = -1;
+    int outputCount = -1;
+    List<String> inputNames = null;
+    List<String> outputNames = null;
+
+    while (nextLine()) {
+      final int start = skipSpaces(0);
+      if (start == lineLength || line[start] == '#') {
+        continue;
+      }
+      if (line[start] != '.') {
+        pending = true;
+        break;
+      }
+
+      if (isKeyword(start, ".i")) {
+        inputCount = parseCount(start + 2);
+      } else if (isKeyword(start, ".o")) {
+        outputCount = parseCount(start + 2);
+      } else if (isKeyword(start, ".ilb")) {
+        inputNames = parseNames(start + 4);
+      } else if (isKeyword(start, ".ob")) {
+        outputNames = parseNames(start + 3);
+      } else if (isKeyword(start, ".type")) {
+        final List<String> type = parseNames(start + 5);
+        if (type.size() != 1 || !type.get(0).equals("f") && !type.get(0).equals("fd")) {
+          throw malformed("unsupported type " + type);
+        }
+        dontCares = type.get(0).equals("fd");
+      } else if (isKeyword(start, ".e") || isKeyword(start, ".end")) {
+        finished = true;
+        break;
+      }
+    }
+
+    if (inputCount < 0 || outputCount < 0) {
+      throw malformed("missing .i or .o");
+    }
+    if (inputNames != null && inputNames.size() != inputCount || outputNames != null
+        && outputNames.size() != outputCount) {
+      throw malformed("number of names differs from .i or .o");
+    }
+
+    List<BooleanVariable> variables = new ArrayList<>(inputCount);
+    for (int input = 0; input < inputCount; input++) {
+      variables.add(new BooleanVariable(inputNames == null ? "x" + input : inputNames.get(input)));
+    }
+    if (outputNames == null) {
+      outputNames = new ArrayList<>(outputCount);
+      for (int output = 0; output < outputCount; output++) {
+        outputNames.add("f" + output);
+      }
+    }
+    inputs = Collections.unmodifiableList(variables);
+    outputs = Collections.unmodifiableList(outputNames);
+    cubeInputs = new MaskValue[inputCount];
+    cubeOutputs = new MaskValue[outputCount];
+  }
+
+  /** Parses the cube of the current line into the current cube arrays. */
+  private void parseCube(int start) throws IOException {
+    int count = 0;
+    for (int position = start; position < lineLength; position++) {
+      final byte c = line[position];
+      if (c == ' ' || c == '\t' || c == '|') {
+        continue;
+      }
+      if (c == '#') {
+        break;
+      }
+
+      if (count < cubeInputs.length) {
+        switch (c) {
+          case '0':
+            cubeInputs[count] = MaskValue.ZERO;
+            break;
+          case '1':
+            cubeInputs[count] = MaskValue.ONE;
+            break;
+          case '-':
+            cubeInputs[count] = MaskValue.DONT_CARE;
+            break;
+          default:
+            throw malformed("bad input value '" + (char) c + "'");
+        }
+      } else if (count < cubeInputs.length + cubeOutputs.length) {
+        final MaskValue value;
+        switch (c) {
+          case '1':
+            value = MaskValue.ONE;
+            break;
+          case '-':
+          case '2':
+            value = dontCares ? MaskValue.DONT_CARE : MaskValue.ZERO;
+            break;
+          case '0':
+          case '~':
+            value = MaskValue.ZERO;
+            break;
+          default:
+            throw malformed("bad output value '" + (char) c + "'");
+        }
+        cubeOutputs[count - cubeInputs.length] = value;
+      } else {
+        throw malformed("cube is too long");
+      }
+      count++;
+    }
+
+    if (count != cubeInputs.length + cubeOutputs.length) {
+      throw malformed("cube is too short");
+    }
+  }
+
+  /** Parses a non-negative number after the keyword. */
+  private int parseCount(int position) throws IOException {
+    position = skipSpaces(position);
+    int count = 0;
+    int digits = 0;
+    for (; position < lineLength && line[position] >= '0' && line[position] <= '9'; position++) {
+      count = count * 10 + line[position] - '0';
+      digits++;
+      if (count > (Integer.MAX_VALUE - 9) / 10) {
+        throw malformed("count is too large");
+      }
+    }
+    if (digits == 0 || skipSpaces(position) != lineLength) {
+      throw malformed("bad count");
+    }
+    return count;
+  }
+
+  /** Parses names separated by spaces after the keyword. */
+  private List<String> parseNames(int position) {
+    List<String> names = new ArrayList<>();
+    position = skipSpaces(position);
+    while (position < lineLength) {
+      int end = position;
+      while (end < lineLength && line[end] != ' ' && line[end] != '\t') {
+        end++;
+      }
+      names.add(new String(line, position, end - position, StandardCharsets.US_ASCII));
+      position = skipSpaces(end);
+    }
+    return names;
+  }
+
+  /** Checks if the line has the keyword at the position, followed by a space or line end. */
+  private boolean isKeyword(int position, String keyword) {
+    final int end = position + keyword.length();
+    if (end > lineLength || end < lineLength && line[end] != ' ' && line[end] != '\t') {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      if (line[position + i] != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int skipSpaces(int position) {
+    while (position < lineLength && (line[position] == ' ' || line[position] == '\t')) {
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Reads the next line into the line array, without the line terminator.
+   *
+   * @return {@code false} if there are no more lines.
+   */
+  private boolean nextLine() throws IOException {
+    lineLength = 0;
+    boolean read = false;
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        buffer.clear();
+        final int bytes = channel.read(buffer);
+        buffer.flip();
+        if (bytes < 0) {
+          break;
+        }
+        continue;
+      }
+
+      read = true;
+      final byte c = buffer.get();
+      if (c == '\n') {
+        break;
+      }
+      if (c != '\r') {
+        if (lineLength == line.length) {
+          line = Arrays.copyOf(line, 2 * line.length);
+        }
+        line[lineLength++] = c;
+      }
+    }
+    if (read) {
+      lineNumber++;
+    }
+    return read;
+  }
+
+  private void checkCube() {
+    if (!cube) {
+      throw new IllegalStateException("There is no current cube.");
+    }
+  }
+
+  private IOException malformed(String reason) {
+    return new IOException("Malformed PLA at line " + lineNumber + ": " + reason + ".");
+  }
+}
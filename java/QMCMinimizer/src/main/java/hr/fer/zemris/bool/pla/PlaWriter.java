@@ -0,0 +1,259 @@
+package hr.fer.zemris.bool.pla;
+
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming writer of the Berkeley PLA format, the counterpart of {@link PlaReader}. Header with
+ * the inputs and outputs is written when the writer is created, cubes are written one at a time
+ * through a buffer of {@value #BUFFER_BYTES} bytes, and {@code .e} is written when the writer is
+ * closed. Number of cubes is not known in advance, so {@code .p} is left out. File has type
+ * {@code fd}: output part of a cube has {@code 1} for outputs whose on-set it is in, {@code -} for
+ * outputs whose don't care set it is in, and {@code 0} for the others.
+ * <p>
+ * Results of {@link hr.fer.zemris.bool.qmc.QMCMinimizer} are written by {@link #write(List)}, one
+ * function for every output, so that a cover shared by several outputs is written once.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class PlaWriter implements Closeable {
+
+  /** Size of the write buffer. */
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  /** Channel the file is written to. */
+  private final WritableByteChannel channel;
+  /** Write buffer. */
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  /** Number of inputs. */
+  private final int inputCount;
+  /** Number of outputs. */
+  private final int outputCount;
+
+  /**
+   * Creates the file and writes the header. Existing file is overwritten.
+   *
+   * @param file PLA file.
+   * @param inputs input variables.
+   * @param outputs names of the outputs.
+   * @return writer positioned after the header.
+   * @throws IOException if file can't be written.
+   * @throws IllegalArgumentException on precondition violation, see
+   *         {@link #PlaWriter(WritableByteChannel, List, List)}.
+   */
+  public static PlaWriter create(Path file, List<BooleanVariable> inputs, List<String> outputs)
+      throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+
+    FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    try {
+      return new PlaWriter(channel, inputs, outputs);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Constructor which writes the header to the channel. Channel is closed with the writer.
+   * Preconditions:
+   * <ul>
+   * <li>None of the arguments can be null reference.</li>
+   * <li>Names of the inputs and outputs can't be empty or contain white space.</li>
+   * </ul>
+   *
+   * @param channel channel of the PLA file.
+   * @param inputs input variables.
+   * @param outputs names of the outputs.
+   * @throws IOException if channel can't be written.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public PlaWriter(WritableByteChannel channel, List<BooleanVariable> inputs, List<String> outputs)
+      throws IOException {
+    if (channel == null || inputs == null || outputs == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    List<String> inputNames = new ArrayList<>(inputs.size());
+    for (BooleanVariable input : inputs) {
+      inputNames.add(input.getName());
+    }
+    checkNames(inputNames);
+    checkNames(outputs);
+
+    this.channel = channel;
+    this.inputCount = inputs.size();
+    this.outputCount = outputs.size();
+
+    put(".i ").put(Integer.toString(inputCount)).put("\n.o ").put(Integer.toString(outputCount));
+    put("\n.ilb");
+    for (String name : inputNames) {
+      put(" ").put(name);
+    }
+    put("\n.ob");
+    for (String name : outputs) {
+      put(" ").put(name);
+    }
+    put("\n.type fd\n");
+  }
+
+  /**
+   * Writes a cube. Preconditions:
+   * <ul>
+   * <li>Mask has a position for every input.</li>
+   * <li>There is a value for every output.</li>
+   * </ul>
+   *
+   * @param inputs input part of the cube.
+   * @param outputs output part of the cube: {@link MaskValue#ONE} for on-set,
+   *        {@link MaskValue#DONT_CARE} for don't care set and {@link MaskValue#ZERO} for neither.
+   * @throws IOException if channel can't be written.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public void writeCube(Mask inputs, MaskValue[] outputs) throws IOException {
+    if (inputs == null || outputs == null || inputs.getSize() != inputCount
+        || outputs.length != outputCount) {
+      throw new IllegalArgumentException("Precondition violation: cube doesn't fit the header.");
+    }
+
+    for (int input = 0; input < inputCount; input++) {
+      put(inputs.getValue(input));
+    }
+    put((byte) ' ');
+    for (MaskValue output : outputs) {
+      put(output);
+    }
+    put((byte) '\n');
+  }
+
+  /**
+   * Writes the covers of the functions, one for every output. Cubes which are in covers of several
+   * outputs are written once, with all of them in the output part. Preconditions:
+   * <ul>
+   * <li>There is a function for every output.</li>
+   * <li>Functions are given by minterm masks with a position for every input.</li>
+   * </ul>
+   *
+   * @param functions functions of the outputs, such as the first cover returned by
+   *        {@link hr.fer.zemris.bool.qmc.QMCMinimizer#minimize(hr.fer.zemris.bool.BooleanFunction)}
+   *        for each of them.
+   * @throws IOException if channel can't be written.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public void write(List<MaskBasedBF> functions) throws IOException {
+    if (functions == null || functions.size() != outputCount) {
+      throw new IllegalArgumentException(
+          "Precondition violation: a function is needed per output.");
+    }
+
+    Map<Mask, MaskValue[]> cubes = new LinkedHashMap<>();
+    for (int output = 0; output < outputCount; output++) {
+      MaskBasedBF function = functions.get(output);
+      if (!function.areMasksProducts()) {
+        throw new IllegalArgumentException("Precondition violation: masks must be minterms.");
+      }
+      addCubes(cubes, function.getMasks(), output, MaskValue.ONE);
+      addCubes(cubes, function.getDontCareMasks(), output, MaskValue.DONT_CARE);
+    }
+    for (Map.Entry<Mask, MaskValue[]> cube : cubes.entrySet()) {
+      writeCube(cube.getKey(), cube.getValue());
+    }
+  }
+
+  /**
+   * Writes the buffered bytes to the channel.
+   *
+   * @throws IOException if channel can't be written.
+   */
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes {@code .e} and the buffered bytes, and closes the channel.
+   *
+   * @throws IOException if channel can't be written.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      put(".e\n");
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /** Adds the masks to the output parts of the cubes. */
+  private void addCubes(Map<Mask, MaskValue[]> cubes, List<Mask> masks, int output,
+      MaskValue value) {
+    for (Mask mask : masks) {
+      MaskValue[] outputs = cubes.get(mask);
+      if (outputs == null) {
+        outputs = new MaskValue[outputCount];
+        Arrays.fill(outputs, MaskValue.ZERO);
+        cubes.put(mask, outputs);
+      }
+      if (outputs[output] != MaskValue.ONE) {
+        outputs[output] = value;
+      }
+    }
+  }
+
+  private void put(MaskValue value) throws IOException {
+    put((byte) (value == MaskValue.ONE ? '1' : value == MaskValue.ZERO ? '0' : '-'));
+  }
+
+  private void put(byte b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      flush();
+    }
+    buffer.put(b);
+  }
+
+  private PlaWriter put(String text) throws IOException {
+    for (byte b : text.getBytes(StandardCharsets.US_ASCII)) {
+      put(b);
+    }
+    return this;
+  }
+
+  /** Precondition check for the names. */
+  private static void checkNames(List<String> names) {
+    for (String name : names) {
+      if (name == null || name.isEmpty()) {
+        throw new IllegalArgumentException("Precondition violation: names can't be empty.");
+      }
+      for (int i = 0; i < name.length(); i++) {
+        if (Character.isWhitespace(name.charAt(i))) {
+          throw new IllegalArgumentException("Precondition violation: names can't have spaces.");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+/**
+ * Callback of a {@link BatchMinimizer}, notified when minimization of each function of a batch is
+ * over. Callback is called on a worker thread of the minimizer, but never concurrently for the same
+ * batch. Callback can submit follow-up functions to the same minimizer without waiting for the
+ * bound of functions in flight. Index of a function is its position in the batch, or its submission
+ * number when functions are submitted one by one. Exceptions thrown by the callback are ignored.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public interface BatchCallback {
+
+  /**
+   * Called when the function is minimized.
+   *
+   * @param index index of the function.
+   * @param bf minimized function.
+   * @param result minimal covers of the function, as returned by
+   *        {@link QMCMinimizer#minimize(BooleanFunction, MinimizerOptions)}.
+   * @param statistics statistics of the minimization. Covers are not proven minimal if the
+   *        deadline of the task passed.
+   */
+  void completed(long index, BooleanFunction bf, MaskBasedBF[] result,
+      MinimizationStatistics statistics);
+
+  /**
+   * Called when minimization of the function failed or was cancelled.
+   *
+   * @param index index of the function.
+   * @param bf function which wasn't minimized.
+   * @param cause exception thrown by the minimizer, or
+   *        {@link java.util.concurrent.CancellationException} if the task was cancelled.
+   */
+  void failed(long index, BooleanFunction bf, Throwable cause);
+}
@@ -0,0 +1,465 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimizer of many functions at once. Functions are minimized concurrently on a work-stealing
+ * {@link ForkJoinPool}, each one by {@link QMCMinimizer#minimize(BooleanFunction, MinimizerOptions,
+ * MinimizationStatistics)} with the options of the batch minimizer. Results are delivered as
+ * {@link Future}s and to a {@link BatchCallback}, either as they complete or in the order of
+ * submission.
+ * <p>
+ * Number of functions in flight, submitted but not yet delivered, is bounded, and submitting
+ * blocks while the bound is reached. This bounds the memory held by the pending functions and
+ * their results, however long the stream of functions is. Every task has its own
+ * {@link MinimizationBudget}, which replaces the budget of the options: it runs out when the
+ * deadline of the task passes, and the minimization stops with the best cover found, or when the
+ * future is cancelled, and the result is discarded. Worker threads are never interrupted.
+ * </p>
+ * <p>
+ * Callback can submit follow-up functions. Only deliveries free the bound, so submissions from a
+ * callback never wait for it: they take a free place if there is one, and otherwise go over the
+ * bound.
+ * </p>
+ * <p>
+ * Functions are minimized sequentially, since the pool already keeps all threads busy, so
+ * parallelism of the options is ignored. Cache and listener of the options are shared by all
+ * tasks and must be thread safe; {@link MinimizationCache} is.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class BatchMinimizer implements AutoCloseable {
+
+  /** Options of every minimization. */
+  private final MinimizerOptions options;
+  /** Pool running the minimizations. */
+  private final ForkJoinPool pool;
+  /** Permits for functions in flight. */
+  private final Semaphore inFlight;
+  /** Aggregate statistics. */
+  private final BatchStatistics statistics = new BatchStatistics();
+  /** Deadline of every task in nanoseconds since its start, or zero if tasks have none. */
+  private volatile long taskTimeout;
+  /** Flag telling whether the current thread is running a callback of this minimizer. */
+  private final ThreadLocal<Boolean> inCallback = new ThreadLocal<>();
+  /** Number of functions submitted one by one. */
+  private long submissions;
+
+  /**
+   * Constructor for a minimizer with one thread for every available processor, and with four
+   * functions in flight for every thread.
+   *
+   * @param options options of every minimization.
+   * @throws IllegalArgumentException if options are null reference.
+   */
+  public BatchMinimizer(MinimizerOptions options) {
+    this(options, Runtime.getRuntime().availableProcessors(),
+        4 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor for the minimizer. Preconditions:
+   * <ul>
+   * <li>Options can't be null reference.</li>
+   * <li>Parallelism and in-flight bound must be positive.</li>
+   * </ul>
+   *
+   * @param options options of every minimization.
+   * @param parallelism number of worker threads.
+   * @param maxInFlight greatest number of functions submitted but not yet delivered.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public BatchMinimizer(MinimizerOptions options, int parallelism, int maxInFlight) {
+    if (options == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    if (parallelism < 1 || maxInFlight < 1) {
+      throw new IllegalArgumentException(
+          "Precondition violation: parallelism and in-flight bound must be positive.");
+    }
+
+    this.options = options.copy();
+    this.options.setParallelism(1);
+    this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+        null, true);
+    this.inFlight = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * Sets the deadline of every task submitted from now on, measured from the start of its
+   * minimization.
+   *
+   * @param timeout time until the deadline, or zero for no deadline.
+   * @param unit unit of the timeout.
+   * @throws IllegalArgumentException if timeout is negative or unit is null reference.
+   */
+  public void setTaskTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 0 || unit == null) {
+      throw new IllegalArgumentException(
+          "Precondition violation: timeout must be non-negative and unit non-null.");
+    }
+    this.taskTimeout = unit.toNanos(timeout);
+  }
+
+  /**
+   * Aggregate statistics of all functions submitted to the minimizer.
+   *
+   * @return statistics, updated as results are delivered.
+   */
+  public BatchStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Submits the function for minimization. Blocks while the bound of functions in flight is
+   * reached, unless it is called from a callback.
+   *
+   * @param bf function to minimize.
+   * @return future result of the minimization.
+   * @throws InterruptedException if interrupted while waiting for the bound.
+   * @throws IllegalArgumentException if function is null reference.
+   */
+  public Future<MaskBasedBF[]> submit(BooleanFunction bf) throws InterruptedException {
+    return submit(bf, null);
+  }
+
+  /**
+   * Submits the function for minimization, and notifies the callback when it is over. Blocks while
+   * the bound of functions in flight is reached, unless it is called from a callback. Index given
+   * to the callback is the number of the functions submitted one by one before this one.
+   *
+   * @param bf function to minimize.
+   * @param callback callback notified of the result, or {@code null} if there is none.
+   * @return future result of the minimization.
+   * @throws InterruptedException if interrupted while waiting for the bound.
+   * @throws IllegalArgumentException if function is null reference.
+   */
+  public Future<MaskBasedBF[]> submit(BooleanFunction bf, BatchCallback callback)
+      throws InterruptedException {
+    final long index;
+    synchronized (this) {
+      index = submissions++;
+    }
+    return schedule(bf, index, new Batch(callback, false));
+  }
+
+  /**
+   * Minimizes all functions and notifies the callback of every result. Functions are taken from
+   * the iterable one by one, as the bound of functions in flight allows, so the iterable can be a
+   * long lazy stream. Method returns when all results have been delivered. If it throws, functions
+   * already submitted are cancelled.
+   *
+   * @param functions functions to minimize.
+   * @param callback callback notified of the results.
+   * @param ordered {@code true} if results should be delivered in the order of the functions,
+   *        {@code false} if they should be delivered as they complete.
+   * @return number of functions.
+   * @throws InterruptedException if interrupted while waiting.
+   * @throws IllegalArgumentException if any of the arguments or functions is null reference.
+   * @throws java.util.concurrent.RejectedExecutionException if the minimizer is closed.
+   */
+  public long minimizeAll(Iterable<? extends BooleanFunction> functions, BatchCallback callback,
+      boolean ordered) throws InterruptedException {
+    if (functions == null || callback == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+
+    Batch batch = new Batch(callback, ordered);
+    long index = 0;
+    try {
+      for (BooleanFunction bf : functions) {
+        schedule(bf, index++, batch);
+      }
+      batch.await(index);
+    } catch (InterruptedException | RuntimeException e) {
+      batch.cancel();
+      throw e;
+    }
+    return index;
+  }
+
+  /**
+   * Stops accepting functions and waits until the submitted ones are minimized. If interrupted
+   * while waiting, running minimizations are stopped.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for a permit and schedules the task of the function. Callback takes a permit only if one
+   * is free, since permits are released by deliveries and the callback would wait for itself.
+   */
+  private Task schedule(BooleanFunction bf, long index, Batch batch) throws InterruptedException {
+    if (bf == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+
+    final boolean permit;
+    if (inCallback.get() != null) {
+      permit = inFlight.tryAcquire();
+    } else {
+      inFlight.acquire();
+      permit = true;
+    }
+    Task task = new Task(new Minimization(bf, taskTimeout), index, batch, permit);
+    statistics.submitted();
+    batch.add(task);
+    try {
+      pool.execute(task);
+    } catch (RuntimeException e) {
+      task.cancel(false);
+      throw e;
+    }
+    return task;
+  }
+
+  /**
+   * Minimization of a single function.
+   */
+  private class Minimization implements Callable<MaskBasedBF[]> {
+    /** Function to minimize. */
+    private final BooleanFunction bf;
+    /** Deadline since the start, or zero if there is none. */
+    private final long timeout;
+    /** Statistics of the minimization. */
+    private final MinimizationStatistics taskStatistics = new MinimizationStatistics();
+    /** Budget of the minimization. Timed budget is created when minimization starts. */
+    private volatile MinimizationBudget budget;
+    /** Flag telling whether minimization was cancelled. */
+    private volatile boolean cancelled;
+    /** Wall time of the minimization. */
+    private long nanos;
+
+    Minimization(BooleanFunction bf, long timeout) {
+      this.bf = bf;
+      this.timeout = timeout;
+      this.budget = timeout > 0 ? null : new MinimizationBudget();
+    }
+
+    @Override
+    public MaskBasedBF[] call() {
+      if (timeout > 0) {
+        budget = new MinimizationBudget(timeout, TimeUnit.NANOSECONDS);
+        if (cancelled) {
+          budget.cancel();
+        }
+      }
+      MinimizerOptions taskOptions = options.copy();
+      taskOptions.setBudget(budget);
+
+      final long start = System.nanoTime();
+      try {
+        return QMCMinimizer.minimize(bf, taskOptions, taskStatistics);
+      } finally {
+        nanos = System.nanoTime() - start;
+      }
+    }
+
+    /** Stops the running minimization. */
+    void cancel() {
+      cancelled = true;
+      MinimizationBudget running = budget;
+      if (running != null) {
+        running.cancel();
+      }
+    }
+  }
+
+  /**
+   * Task of a function, which hands its result to the batch when it is done.
+   */
+  private class Task extends FutureTask<MaskBasedBF[]> {
+    /** Minimization of the function. */
+    private final Minimization minimization;
+    /** Index of the function. */
+    private final long index;
+    /** Batch of the function. */
+    private final Batch batch;
+    /** Flag telling whether the task holds a permit. */
+    private final boolean permit;
+
+    Task(Minimization minimization, long index, Batch batch, boolean permit) {
+      super(minimization);
+      this.minimization = minimization;
+      this.index = index;
+      this.batch = batch;
+      this.permit = permit;
+    }
+
+    /**
+     * {@inheritDoc} Running minimization is stopped by its budget, so the worker thread is never
+     * interrupted.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      minimization.cancel();
+      return super.cancel(false);
+    }
+
+    @Override
+    protected void done() {
+      batch.done(this);
+    }
+
+    /** Notifies the callback of the result and releases the permit. */
+    void deliver(BatchCallback callback) {
+      boolean nested = inCallback.get() != null;
+      inCallback.set(Boolean.TRUE);
+      try {
+        MaskBasedBF[] result;
+        try {
+          result = get();
+        } catch (CancellationException e) {
+          statistics.failed(true);
+          if (callback != null) {
+            callback.failed(index, minimization.bf, e);
+          }
+          return;
+        } catch (ExecutionException e) {
+          statistics.failed(false);
+          if (callback != null) {
+            callback.failed(index, minimization.bf, e.getCause());
+          }
+          return;
+        } catch (InterruptedException e) {
+          throw new IllegalStateException("Result of a done task is not available.", e);
+        }
+
+        statistics.completed(minimization.nanos, minimization.taskStatistics.isProvenMinimal());
+        if (callback != null) {
+          callback.completed(index, minimization.bf, result, minimization.taskStatistics);
+        }
+      } finally {
+        if (!nested) {
+          inCallback.remove();
+        }
+        if (permit) {
+          inFlight.release();
+        }
+      }
+    }
+  }
+
+  /**
+   * Functions submitted together, whose results are delivered to the same callback. Tasks ready
+   * for delivery are queued under the lock of the batch, and delivered outside of it by one thread
+   * at a time: the thread which finds nobody delivering delivers until the queue is empty, and the
+   * others leave their tasks in the queue. So the callback is never called concurrently, and no
+   * worker waits while it runs. In ordered batches, results which complete early wait for the ones
+   * before them; they still hold their permits, so at most the bound of functions in flight waits.
+   */
+  private static class Batch {
+    /** Callback of the batch, or {@code null}. */
+    private final BatchCallback callback;
+    /** Flag telling whether results are delivered in order. */
+    private final boolean ordered;
+    /** Tasks in flight by index. */
+    private final Map<Long, Task> tasks = new HashMap<>();
+    /** Completed tasks of an ordered batch waiting for the ones before them. */
+    private final Map<Long, Task> completed = new HashMap<>();
+    /** Tasks ready for delivery, in the order of delivery. */
+    private final Queue<Task> ready = new ArrayDeque<>();
+    /** Flag telling whether some thread is delivering the ready tasks. */
+    private boolean delivering;
+    /** Index of the next task to deliver in an ordered batch. */
+    private long next;
+    /** Number of delivered tasks. */
+    private long delivered;
+
+    Batch(BatchCallback callback, boolean ordered) {
+      this.callback = callback;
+      this.ordered = ordered;
+    }
+
+    synchronized void add(Task task) {
+      tasks.put(task.index, task);
+    }
+
+    void done(Task task) {
+      synchronized (this) {
+        if (!ordered) {
+          enqueue(task);
+        } else {
+          completed.put(task.index, task);
+          for (Task head = completed.remove(next); head != null; head = completed.remove(next)) {
+            enqueue(head);
+          }
+        }
+        if (delivering) {
+          return;
+        }
+        delivering = true;
+      }
+
+      while (true) {
+        Task head;
+        synchronized (this) {
+          head = ready.poll();
+          if (head == null) {
+            delivering = false;
+            return;
+          }
+        }
+        try {
+          head.deliver(callback);
+        } catch (RuntimeException ignorable) {
+          // Callback failed, which mustn't stop the delivery of other results.
+        } finally {
+          synchronized (this) {
+            delivered++;
+            notifyAll();
+          }
+        }
+      }
+    }
+
+    /** Takes the task out of flight and queues it for delivery. */
+    private void enqueue(Task task) {
+      tasks.remove(task.index);
+      next++;
+      ready.add(task);
+    }
+
+    /** Waits until the given number of tasks is delivered. */
+    synchronized void await(long count) throws InterruptedException {
+      while (delivered < count) {
+        wait();
+      }
+    }
+
+    /** Cancels tasks in flight. */
+    void cancel() {
+      Task[] pending;
+      synchronized (this) {
+        pending = tasks.values().toArray(new Task[tasks.size()]);
+      }
+      for (Task task : pending) {
+        task.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregate counters of a {@link BatchMinimizer}: how many functions were submitted and how each of
+ * them ended, how much time was spent minimizing them, and the throughput of the minimizer between
+ * the first submission and the last delivered result.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class BatchStatistics {
+
+  /** Number of submitted functions. */
+  private AtomicLong submittedCount = new AtomicLong();
+  /** Number of minimized functions. */
+  private AtomicLong completedCount = new AtomicLong();
+  /** Number of minimized functions whose covers are not proven minimal. */
+  private AtomicLong unprovenCount = new AtomicLong();
+  /** Number of functions whose minimization failed. */
+  private AtomicLong failedCount = new AtomicLong();
+  /** Number of cancelled functions. */
+  private AtomicLong cancelledCount = new AtomicLong();
+  /** Wall time of all minimizations, summed over the worker threads, in nanoseconds. */
+  private AtomicLong minimizationNanos = new AtomicLong();
+  /** Time of the first submission as given by {@link System#nanoTime()}. */
+  private AtomicLong firstSubmission = new AtomicLong();
+  /** Time of the last delivered result as given by {@link System#nanoTime()}. */
+  private AtomicLong lastDelivery = new AtomicLong();
+
+  /**
+   * Number of functions submitted to the minimizer.
+   *
+   * @return submitted count.
+   */
+  public long getSubmittedCount() {
+    return submittedCount.get();
+  }
+
+  /**
+   * Number of functions which were minimized, including those whose deadline passed.
+   *
+   * @return completed count.
+   */
+  public long getCompletedCount() {
+    return completedCount.get();
+  }
+
+  /**
+   * Number of minimized functions whose deadline passed, so that their covers are not proven
+   * minimal.
+   *
+   * @return unproven count.
+   */
+  public long getUnprovenCount() {
+    return unprovenCount.get();
+  }
+
+  /**
+   * Number of functions whose minimization threw an exception.
+   *
+   * @return failed count.
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Number of functions which were cancelled.
+   *
+   * @return cancelled count.
+   */
+  public long getCancelledCount() {
+    return cancelledCount.get();
+  }
+
+  /**
+   * Number of functions submitted but not yet delivered.
+   *
+   * @return in-flight count.
+   */
+  public long getInFlightCount() {
+    return getSubmittedCount() - getCompletedCount() - getFailedCount() - getCancelledCount();
+  }
+
+  /**
+   * Wall time spent minimizing, summed over all functions.
+   *
+   * @return time in nanoseconds.
+   */
+  public long getMinimizationNanos() {
+    return minimizationNanos.get();
+  }
+
+  /**
+   * Number of completed functions per second, between the first submission and the last
+   * delivered result.
+   *
+   * @return throughput, or zero if nothing was completed yet.
+   */
+  public double getThroughput() {
+    final long elapsed = lastDelivery.get() - firstSubmission.get();
+    final long completed = getCompletedCount();
+    return completed == 0 || elapsed <= 0 ? 0 : completed * 1e9 / elapsed;
+  }
+
+  /**
+   * Records a submission.
+   */
+  void submitted() {
+    firstSubmission.compareAndSet(0, System.nanoTime());
+    submittedCount.incrementAndGet();
+  }
+
+  /**
+   * Records a delivered result.
+   *
+   * @param nanos wall time of the minimization.
+   * @param provenMinimal {@code true} if covers are proven minimal.
+   */
+  void completed(long nanos, boolean provenMinimal) {
+    minimizationNanos.addAndGet(nanos);
+    if (!provenMinimal) {
+      unprovenCount.incrementAndGet();
+    }
+    completedCount.incrementAndGet();
+    lastDelivery.set(System.nanoTime());
+  }
+
+  /**
+   * Records a failure.
+   *
+   * @param cancelled {@code true} if the function was cancelled.
+   */
+  void failed(boolean cancelled) {
+    (cancelled ? cancelledCount : failedCount).incrementAndGet();
+    lastDelivery.set(System.nanoTime());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "BatchStatistics [submittedCount=" + submittedCount + ", completedCount="
+        + completedCount + ", unprovenCount=" + unprovenCount + ", failedCount=" + failedCount
+        + ", cancelledCount=" + cancelledCount + ", minimizationNanos=" + minimizationNanos
+        + ", throughput=" + getThroughput() + "]";
+  }
+}
@@ -0,0 +1,141 @@
+package hr.fer.zemris.bool.qmc;
+
+/**
+ * Operations on bitsets kept in {@code long} arrays. Bit {@code i} is bit {@code i % 64} of the
+ * word {@code i / 64}. Covering algorithms use them for sets of implicant ids and minterm rows.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class Bitsets {
+
+  private Bitsets() {}
+
+  /**
+   * Number of words needed for bitset of given size.
+   *
+   * @param bits number of bits.
+   * @return number of words.
+   */
+  static int words(int bits) {
+    return (bits + 63) >>> 6;
+  }
+
+  /**
+   * Sets bit in bitset.
+   *
+   * @param bits bitset.
+   * @param bit position of bit.
+   */
+  static void set(long[] bits, int bit) {
+    bits[bit >>> 6] |= 1L << bit;
+  }
+
+  /**
+   * Clears bit in bitset.
+   *
+   * @param bits bitset.
+   * @param bit position of bit.
+   */
+  static void clear(long[] bits, int bit) {
+    bits[bit >>> 6] &= ~(1L << bit);
+  }
+
+  /**
+   * Checks if bit is set in bitset.
+   *
+   * @param bits bitset.
+   * @param bit position of bit.
+   * @return {@code true} if bit is set.
+   */
+  static boolean isSet(long[] bits, int bit) {
+    return (bits[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  /**
+   * Checks if no bit is set in bitset.
+   *
+   * @param bits bitset.
+   * @return {@code true} if bitset is empty.
+   */
+  static boolean isEmpty(long[] bits) {
+    for (long word : bits) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if every bit of the first bitset is set in the second one. Bitsets have the same number
+   * of words.
+   *
+   * @param first first bitset.
+   * @param second second bitset.
+   * @return {@code true} if first bitset is a subset of the second one.
+   */
+  static boolean isSubset(long[] first, long[] second) {
+    for (int i = 0; i < first.length; i++) {
+      if ((first[i] & ~second[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if two bitsets have a common bit. Bitsets have the same number of words.
+   *
+   * @param first first bitset.
+   * @param second second bitset.
+   * @return {@code true} if bitsets intersect.
+   */
+  static boolean intersects(long[] first, long[] second) {
+    for (int i = 0; i < first.length; i++) {
+      if ((first[i] & second[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Number of set bits.
+   *
+   * @param bits bitset.
+   * @return cardinality of bitset.
+   */
+  static int count(long[] bits) {
+    int count = 0;
+    for (long word : bits) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Position of the first set bit starting from the given one.
+   *
+   * @param bits bitset.
+   * @param from first position to check.
+   * @return position of the set bit, or {@code -1} if there are none.
+   */
+  static int nextSet(long[] bits, int from) {
+    int word = from >>> 6;
+    if (word >= bits.length) {
+      return -1;
+    }
+
+    long remaining = bits[word] & (-1L << from);
+    while (true) {
+      if (remaining != 0) {
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+      }
+      if (++word == bits.length) {
+        return -1;
+      }
+      remaining = bits[word];
+    }
+  }
+}
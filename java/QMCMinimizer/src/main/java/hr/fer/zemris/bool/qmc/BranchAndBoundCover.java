@@ -0,0 +1,318 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exact solver for the covering problem of the prime implicant chart. It is an alternative to
+ * Petrick's method which doesn't expand the whole product of sums. Instead, it does a depth first
+ * search over the choices of primes for the least covered minterm and prunes every branch whose
+ * lower bound isn't better than the best cover found so far.
+ * <p>
+ * Every prime costs the same, so the cost of a cover is the number of primes in it. Lower bound of
+ * a branch is its current cost plus the size of a maximal independent set of uncovered minterms,
+ * that is minterms no two of which can be covered by the same prime. Rows and columns of the chart
+ * are kept as bitsets in {@code long} words, so search takes memory proportional to its depth.
+ * </p>
+ * <p>
+ * Search can be bounded by a {@link MinimizationBudget}. When it runs out, search stops with the
+ * best covers found so far, which are valid but not proven optimal. For charts on which search
+ * didn't find any cover, {@link #greedyCover()} gives a quick one.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.2
+ */
+class BranchAndBoundCover {
+
+  /** Primes which are columns of the chart. */
+  private List<Implicant> primes;
+  /** Number of minterms, rows of the chart. */
+  private int rowCount;
+  /** For each prime, bitset of minterm rows it covers. */
+  private long[][] columnRows;
+  /** For each minterm row, bitset of primes which cover it. */
+  private long[][] rowColumns;
+
+  /** Whether all optimal covers are collected, or just one. */
+  private boolean allCovers;
+  /** Cost of the best cover found so far. */
+  private int bestCost;
+  /** Best covers found so far, each as a list of prime positions. */
+  private List<int[]> bestCovers = new ArrayList<>();
+  /** Number of search nodes visited. */
+  private long nodes;
+  /** Budget of the search, or {@code null} if it is unbounded. */
+  private MinimizationBudget budget;
+  /** Flag telling whether the search was stopped by the budget. */
+  private boolean stopped;
+
+  /**
+   * Constructor which builds bitset chart for given primes and minterms.
+   *
+   * @param primes primes which can be used in cover.
+   * @param minterms minterms which have to be covered.
+   */
+  public BranchAndBoundCover(List<Implicant> primes, Collection<Integer> minterms) {
+    this(primes, minterms.size());
+
+    // Row of a minterm is its position in the sorted array of minterms.
+    int[] rowMinterms = new int[minterms.size()];
+    int row = 0;
+    for (Integer minterm : minterms) {
+      rowMinterms[row++] = minterm;
+    }
+    Arrays.sort(rowMinterms);
+
+    for (int column = 0, columnCount = primes.size(); column < columnCount; column++) {
+      MintermSet covered = primes.get(column).getMinterms();
+      for (int i = 0, size = covered.size(); i < size; i++) {
+        row = Arrays.binarySearch(rowMinterms, covered.get(i));
+        if (row >= 0) {
+          setCovers(column, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Constructor for an empty chart with given columns and number of rows. Which rows are covered by
+   * which column is then set by {@link #setCovers(int, int)}.
+   *
+   * @param primes primes which can be used in cover.
+   * @param rowCount number of rows which have to be covered.
+   */
+  public BranchAndBoundCover(List<Implicant> primes, int rowCount) {
+    this.primes = primes;
+    this.rowCount = rowCount;
+
+    final int columnCount = primes.size();
+    columnRows = new long[columnCount][Bitsets.words(rowCount)];
+    rowColumns = new long[rowCount][Bitsets.words(columnCount)];
+  }
+
+  /**
+   * Marks that prime in the given column covers the given row.
+   *
+   * @param column position of prime.
+   * @param row position of row.
+   */
+  public void setCovers(int column, int row) {
+    Bitsets.set(columnRows[column], row);
+    Bitsets.set(rowColumns[row], column);
+  }
+
+  /**
+   * Finds optimal covers of the chart.
+   *
+   * @param allCovers {@code true} if all optimal covers should be found, otherwise only one.
+   * @return list of optimal covers, each being a list of primes. If some minterm can't be covered
+   *         the list is empty.
+   */
+  public List<List<Implicant>> solve(boolean allCovers) {
+    return solve(allCovers, null);
+  }
+
+  /**
+   * Finds optimal covers of the chart, unless the budget runs out first. In that case the best
+   * covers found so far are returned, and {@link #isStopped()} tells that they are not proven
+   * optimal.
+   *
+   * @param allCovers {@code true} if all optimal covers should be found, otherwise only one.
+   * @param budget budget of the search, or {@code null} if it is unbounded.
+   * @return list of best covers found, each being a list of primes. List is empty if some minterm
+   *         can't be covered, or if search was stopped before finding any cover.
+   */
+  public List<List<Implicant>> solve(boolean allCovers, MinimizationBudget budget) {
+    this.allCovers = allCovers;
+    this.bestCost = primes.size() + 1;
+    this.bestCovers.clear();
+    this.nodes = 0;
+    this.budget = budget;
+    this.stopped = false;
+
+    long[] uncovered = new long[Bitsets.words(rowCount)];
+    for (int row = 0; row < rowCount; row++) {
+      Bitsets.set(uncovered, row);
+    }
+
+    search(uncovered, new long[Bitsets.words(primes.size())], new int[primes.size()], 0);
+
+    List<List<Implicant>> covers = new ArrayList<>();
+    for (int[] cover : bestCovers) {
+      List<Implicant> implicants = new ArrayList<>();
+      for (int column : cover) {
+        implicants.add(primes.get(column));
+      }
+      covers.add(implicants);
+    }
+    return covers;
+  }
+
+  /**
+   * Method returns flag telling whether the last call of
+   * {@link #solve(boolean, MinimizationBudget)} was stopped by its budget.
+   *
+   * @return {@code true} if it was, otherwise {@code false}.
+   */
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * Quick cover of the chart, not necessarily optimal. Prime which covers the most uncovered
+   * minterms is chosen until all of them are covered.
+   *
+   * @return list of primes of the cover. If some minterm can't be covered, primes chosen until
+   *         then.
+   */
+  public List<Implicant> greedyCover() {
+    long[] uncovered = new long[Bitsets.words(rowCount)];
+    for (int row = 0; row < rowCount; row++) {
+      Bitsets.set(uncovered, row);
+    }
+
+    List<Implicant> cover = new ArrayList<>();
+    while (!Bitsets.isEmpty(uncovered)) {
+      int bestColumn = -1;
+      int bestCount = 0;
+      for (int column = 0; column < columnRows.length; column++) {
+        int count = 0;
+        for (int word = 0; word < uncovered.length; word++) {
+          count += Long.bitCount(columnRows[column][word] & uncovered[word]);
+        }
+        if (count > bestCount) {
+          bestCount = count;
+          bestColumn = column;
+        }
+      }
+      if (bestColumn < 0) {
+        break;
+      }
+
+      cover.add(primes.get(bestColumn));
+      for (int word = 0; word < uncovered.length; word++) {
+        uncovered[word] &= ~columnRows[bestColumn][word];
+      }
+    }
+    return cover;
+  }
+
+  /**
+   * Number of search nodes visited by the last call of {@link #solve(boolean)}.
+   *
+   * @return number of nodes.
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  /**
+   * One node of the search. Branches on every allowed prime which covers the uncovered minterm with
+   * the fewest allowed primes. Primes tried in earlier branches are forbidden in the later ones, so
+   * no cover is found twice.
+   *
+   * @param uncovered bitset of minterms which are not covered yet.
+   * @param forbidden bitset of primes which mustn't be used in this branch.
+   * @param chosen primes chosen so far.
+   * @param cost number of primes chosen so far.
+   */
+  private void search(long[] uncovered, long[] forbidden, int[] chosen, int cost) {
+    // Budget is checked every 256 nodes, and once it runs out the whole search unwinds.
+    if (stopped || (budget != null && (nodes & 0xFF) == 0 && budget.isExhausted())) {
+      stopped = true;
+      return;
+    }
+    nodes++;
+
+    if (Bitsets.isEmpty(uncovered)) {
+      if (cost < bestCost) {
+        bestCost = cost;
+        bestCovers.clear();
+      }
+      bestCovers.add(Arrays.copyOf(chosen, cost));
+      return;
+    }
+
+    int bound = cost + independentRowsBound(uncovered, forbidden);
+    if (bound > bestCost || (bound == bestCost && !allCovers)) {
+      return;
+    }
+
+    int branchRow = -1;
+    int branchWidth = Integer.MAX_VALUE;
+    for (int row = Bitsets.nextSet(uncovered, 0); row >= 0;
+        row = Bitsets.nextSet(uncovered, row + 1)) {
+      int width = countAllowed(rowColumns[row], forbidden);
+      if (width < branchWidth) {
+        branchWidth = width;
+        branchRow = row;
+      }
+    }
+    if (branchWidth == 0) {
+      // Some minterm can't be covered any more in this branch.
+      return;
+    }
+
+    long[] branchForbidden = Arrays.copyOf(forbidden, forbidden.length);
+    long[] columns = rowColumns[branchRow];
+    for (int column = Bitsets.nextSet(columns, 0); column >= 0;
+        column = Bitsets.nextSet(columns, column + 1)) {
+      if (Bitsets.isSet(forbidden, column)) {
+        continue;
+      }
+
+      long[] branchUncovered = new long[uncovered.length];
+      for (int word = 0; word < uncovered.length; word++) {
+        branchUncovered[word] = uncovered[word] & ~columnRows[column][word];
+      }
+      chosen[cost] = column;
+      search(branchUncovered, branchForbidden, chosen, cost + 1);
+
+      Bitsets.set(branchForbidden, column);
+    }
+  }
+
+  /**
+   * Lower bound on number of primes needed for covering the given minterms. Minterms are greedily
+   * picked so that no two of them share an allowed prime, and every one of them needs a different
+   * prime.
+   *
+   * @param uncovered bitset of minterms which are not covered yet.
+   * @param forbidden bitset of primes which mustn't be used.
+   * @return size of the independent set of minterms.
+   */
+  private int independentRowsBound(long[] uncovered, long[] forbidden) {
+    long[] used = new long[forbidden.length];
+    int independent = 0;
+
+    for (int row = Bitsets.nextSet(uncovered, 0); row >= 0;
+        row = Bitsets.nextSet(uncovered, row + 1)) {
+      long[] columns = rowColumns[row];
+      boolean disjoint = true;
+      for (int word = 0; word < used.length && disjoint; word++) {
+        disjoint = (columns[word] & ~forbidden[word] & used[word]) == 0;
+      }
+
+      if (disjoint) {
+        independent++;
+        for (int word = 0; word < used.length; word++) {
+          used[word] |= columns[word] & ~forbidden[word];
+        }
+      }
+    }
+
+    return independent;
+  }
+
+  /** Number of columns in the row which are not forbidden. */
+  private static int countAllowed(long[] columns, long[] forbidden) {
+    int count = 0;
+    for (int word = 0; word < columns.length; word++) {
+      count += Long.bitCount(columns[word] & ~forbidden[word]);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,333 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Truth table brought to a canonical form by negating and permuting its inputs. Functions which
+ * differ only in the order and polarity of their inputs usually get the same canonical table, so
+ * results cached for one of them serve all the others. Transform maps row {@code x} of the
+ * function to row {@code permute(x ^ phase)} of the canonical table, and cubes are mapped the same
+ * way, so minimal covers of the function and of its canonical table map one to one.
+ * <p>
+ * Every input is first negated so that more minterms, or else more don't cares, have it true, and
+ * inputs are then sorted by those counts. Inputs which can't be told apart by the counts are tried
+ * in every order and polarity, and the smallest table is chosen, as long as there are at most
+ * {@value #MAX_CANDIDATES} such choices. Otherwise the form is still a valid transform of the
+ * function, it is just not guaranteed to be shared by all of its equivalents.
+ * </p>
+ * <p>
+ * Output is never negated: minimal covers of a function's complement can't be mapped back to
+ * covers of the function.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class CanonicalForm {
+
+  /** Greatest number of variables for which canonical form is computed. */
+  static final int MAX_VARIABLES = 16;
+  /** Greatest number of tied transforms which are tried. */
+  private static final int MAX_CANDIDATES = 120;
+
+  /** Number of variables. */
+  private final int variableCount;
+  /** Row bits of the function which are negated. */
+  private final int phase;
+  /** Row bit of the canonical table for every row bit of the function. */
+  private final int[] bitMap;
+  /** Minterm plane of the canonical table. */
+  private final long[] minterms;
+  /** Don't care plane of the canonical table. */
+  private final long[] dontCares;
+
+  /**
+   * Constructor for the form.
+   *
+   * @param variableCount number of variables.
+   * @param phase row bits which are negated.
+   * @param bitMap row bit of the canonical table for every row bit of the function.
+   * @param minterms minterm plane of the canonical table.
+   * @param dontCares don't care plane of the canonical table.
+   */
+  private CanonicalForm(int variableCount, int phase, int[] bitMap, long[] minterms,
+      long[] dontCares) {
+    this.variableCount = variableCount;
+    this.phase = phase;
+    this.bitMap = bitMap;
+    this.minterms = minterms;
+    this.dontCares = dontCares;
+  }
+
+  /**
+   * Canonical form of the truth table. Precondition: there are at most {@value #MAX_VARIABLES}
+   * variables.
+   *
+   * @param variableCount number of variables.
+   * @param minterms minterm plane.
+   * @param dontCares don't care plane.
+   * @return canonical form.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  static CanonicalForm of(int variableCount, long[] minterms, long[] dontCares) {
+    if (variableCount > MAX_VARIABLES) {
+      throw new IllegalArgumentException("Precondition violation: too many variables.");
+    }
+
+    final long rowCount = 1L << variableCount;
+    final long mintermCount = Bitsets.count(minterms);
+    final long dontCareCount = Bitsets.count(dontCares);
+    long[] mintermsWithBit = new long[variableCount];
+    long[] dontCaresWithBit = new long[variableCount];
+    for (int bit = 0; bit < variableCount; bit++) {
+      mintermsWithBit[bit] = countWithBit(minterms, bit);
+      dontCaresWithBit[bit] = countWithBit(dontCares, bit);
+    }
+
+    // Negate every input which is true for fewer rows than it is false.
+    int phase = 0;
+    int freePhases = 0;
+    for (int bit = 0; bit < variableCount; bit++) {
+      int order = Long.compare(2 * mintermsWithBit[bit], mintermCount);
+      if (order == 0) {
+        order = Long.compare(2 * dontCaresWithBit[bit], dontCareCount);
+      }
+      if (order < 0) {
+        phase |= 1 << bit;
+        mintermsWithBit[bit] = mintermCount - mintermsWithBit[bit];
+        dontCaresWithBit[bit] = dontCareCount - dontCaresWithBit[bit];
+      } else if (order == 0) {
+        freePhases |= 1 << bit;
+      }
+    }
+
+    // Sort inputs by their counts. Input with the largest counts gets the highest row bit.
+    Integer[] order = new Integer[variableCount];
+    for (int bit = 0; bit < variableCount; bit++) {
+      order[bit] = bit;
+    }
+    final long[] keys = new long[variableCount];
+    for (int bit = 0; bit < variableCount; bit++) {
+      keys[bit] = mintermsWithBit[bit] * (rowCount + 1) + dontCaresWithBit[bit];
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer b1, Integer b2) {
+        return Long.compare(keys[b1], keys[b2]);
+      }
+    });
+
+    // Groups of inputs with equal counts, which can be in any order.
+    List<int[]> groups = new ArrayList<>();
+    long candidates = Long.bitCount(freePhases) < 31 ? 1L << Long.bitCount(freePhases) : -1;
+    for (int start = 0; start < variableCount;) {
+      int end = start + 1;
+      while (end < variableCount && keys[order[end]] == keys[order[start]]) {
+        end++;
+      }
+      int[] group = new int[end - start];
+      for (int i = start; i < end; i++) {
+        group[i - start] = order[i];
+      }
+      groups.add(group);
+      for (int k = 2; k <= group.length && candidates > 0; k++) {
+        candidates = candidates * k > MAX_CANDIDATES ? -1 : candidates * k;
+      }
+      start = end;
+    }
+
+    int[] bitMap = new int[variableCount];
+    for (int position = 0; position < variableCount; position++) {
+      bitMap[order[position]] = position;
+    }
+    CanonicalForm best = transform(variableCount, phase, bitMap.clone(), minterms, dontCares);
+
+    if (candidates > 1 && candidates <= MAX_CANDIDATES) {
+      // Try every polarity of the free inputs and every order inside of the groups.
+      for (int subset = freePhases;; subset = (subset - 1) & freePhases) {
+        best = bestOfGroups(best, groups, 0, 0, phase | subset, bitMap, minterms, dontCares);
+        if (subset == 0) {
+          break;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Canonical table.
+   *
+   * @return minterm plane of the canonical table.
+   */
+  long[] getMinterms() {
+    return minterms;
+  }
+
+  /**
+   * Canonical table.
+   *
+   * @return don't care plane of the canonical table.
+   */
+  long[] getDontCares() {
+    return dontCares;
+  }
+
+  /**
+   * Maps a cube of the function to the cube of the canonical table.
+   *
+   * @param mask cube of the function.
+   * @return cube of the canonical table.
+   */
+  Mask toCanonical(Mask mask) {
+    MaskValue[] values = new MaskValue[variableCount];
+    for (int bit = 0; bit < variableCount; bit++) {
+      values[variableCount - 1 - bitMap[bit]] =
+          negate(mask.getValue(variableCount - 1 - bit), (phase >>> bit & 1) != 0);
+    }
+    return new Mask(values);
+  }
+
+  /**
+   * Maps a cube of the canonical table back to the cube of the function.
+   *
+   * @param mask cube of the canonical table.
+   * @return cube of the function.
+   */
+  Mask fromCanonical(Mask mask) {
+    MaskValue[] values = new MaskValue[variableCount];
+    for (int bit = 0; bit < variableCount; bit++) {
+      values[variableCount - 1 - bit] =
+          negate(mask.getValue(variableCount - 1 - bitMap[bit]), (phase >>> bit & 1) != 0);
+    }
+    return new Mask(values);
+  }
+
+  /** Complement of the value if it has to be negated. */
+  private static MaskValue negate(MaskValue value, boolean negated) {
+    if (!negated || value == MaskValue.DONT_CARE) {
+      return value;
+    }
+    return value == MaskValue.ONE ? MaskValue.ZERO : MaskValue.ONE;
+  }
+
+  /**
+   * Tries every order of the groups from the given one on, and returns the form with the smallest
+   * table.
+   */
+  private static CanonicalForm bestOfGroups(CanonicalForm best, List<int[]> groups, int group,
+      int position, int phase, int[] bitMap, long[] minterms, long[] dontCares) {
+    if (group == groups.size()) {
+      CanonicalForm candidate =
+          transform(best.variableCount, phase, bitMap.clone(), minterms, dontCares);
+      return candidate.isSmallerThan(best) ? candidate : best;
+    }
+
+    int[] bits = groups.get(group);
+    return permute(best, groups, group, position, bits, 0, phase, bitMap, minterms, dontCares);
+  }
+
+  /** Tries every order of the bits of one group, Heap's style by swapping in place. */
+  private static CanonicalForm permute(CanonicalForm best, List<int[]> groups, int group,
+      int position, int[] bits, int from, int phase, int[] bitMap, long[] minterms,
+      long[] dontCares) {
+    if (from == bits.length) {
+      for (int i = 0; i < bits.length; i++) {
+        bitMap[bits[i]] = position + i;
+      }
+      return bestOfGroups(best, groups, group + 1, position + bits.length, phase, bitMap,
+          minterms, dontCares);
+    }
+
+    for (int i = from; i < bits.length; i++) {
+      swap(bits, from, i);
+      best = permute(best, groups, group, position, bits, from + 1, phase, bitMap, minterms,
+          dontCares);
+      swap(bits, from, i);
+    }
+    return best;
+  }
+
+  private static void swap(int[] array, int i, int j) {
+    final int temp = array[i];
+    array[i] = array[j];
+    array[j] = temp;
+  }
+
+  /**
+   * Applies the transform to the planes. Every row is mapped by two table lookups, one for each
+   * byte of its index.
+   */
+  private static CanonicalForm transform(int variableCount, int phase, int[] bitMap,
+      long[] minterms, long[] dontCares) {
+    int[] lowTable = new int[256];
+    int[] highTable = new int[256];
+    for (int value = 0; value < 256; value++) {
+      for (int bit = 0; bit < 8; bit++) {
+        if ((value >>> bit & 1) != 0) {
+          if (bit < variableCount) {
+            lowTable[value] |= 1 << bitMap[bit];
+          }
+          if (bit + 8 < variableCount) {
+            highTable[value] |= 1 << bitMap[bit + 8];
+          }
+        }
+      }
+    }
+
+    return new CanonicalForm(variableCount, phase, bitMap, map(minterms, phase, lowTable,
+        highTable), map(dontCares, phase, lowTable, highTable));
+  }
+
+  /** Plane with every row mapped. */
+  private static long[] map(long[] plane, int phase, int[] lowTable, int[] highTable) {
+    long[] mapped = new long[plane.length];
+    for (int row = Bitsets.nextSet(plane, 0); row >= 0; row = Bitsets.nextSet(plane, row + 1)) {
+      final int x = row ^ phase;
+      Bitsets.set(mapped, lowTable[x & 0xFF] | highTable[x >>> 8]);
+    }
+    return mapped;
+  }
+
+  /** Number of rows of the plane which have the bit set. */
+  private static long countWithBit(long[] plane, int bit) {
+    long count = 0;
+    if (bit < 6) {
+      final long pattern = BIT_PATTERNS[bit];
+      for (long word : plane) {
+        count += Long.bitCount(word & pattern);
+      }
+    } else {
+      for (int word = 0; word < plane.length; word++) {
+        if ((word >>> (bit - 6) & 1) != 0) {
+          count += Long.bitCount(plane[word]);
+        }
+      }
+    }
+    return count;
+  }
+
+  /** Patterns of the six lowest bits of row indices 0 to 63. */
+  private static final long[] BIT_PATTERNS = {0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL,
+      0xF0F0F0F0F0F0F0F0L, 0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L};
+
+  /** Orders forms by their planes, word by word. */
+  private boolean isSmallerThan(CanonicalForm other) {
+    for (int word = 0; word < minterms.length; word++) {
+      if (minterms[word] != other.minterms[word]) {
+        return minterms[word] < other.minterms[word];
+      }
+    }
+    for (int word = 0; word < dontCares.length; word++) {
+      if (dontCares[word] != other.dontCares[word]) {
+        return dontCares[word] < other.dontCares[word];
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,96 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.Mask;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task which combines a range of implicants from the lower one-count group with all of
+ * the implicants from the adjacent upper group. Large ranges are split in halves until the number
+ * of pairs is small enough to be combined directly. Combined implicants are merged into a shared
+ * concurrent map keyed by mask, which removes duplicates produced by different pairs.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+class CombineTask extends RecursiveAction {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Number of pairs under which task stops splitting. */
+  private static final int THRESHOLD = 2048;
+
+  private Implicant[] lowerGroup;
+  private int from;
+  private int to;
+  private Implicant[] upperGroup;
+  private ConcurrentMap<Mask, Implicant> combinations;
+  private Set<Mask> combined;
+  private MinimizationStatistics statistics;
+
+  /**
+   * Constructor for the task.
+   *
+   * @param lowerGroup implicants with some number of ones.
+   * @param from first index in lower group, inclusive.
+   * @param to last index in lower group, exclusive.
+   * @param upperGroup implicants with the same don't care pattern and one more one.
+   * @param combinations map to which combined implicants are added.
+   * @param combined concurrent set to which masks of implicants that took part in some combination
+   *        are added.
+   * @param statistics statistics to record combine attempts in.
+   */
+  public CombineTask(Implicant[] lowerGroup, int from, int to, Implicant[] upperGroup,
+      ConcurrentMap<Mask, Implicant> combinations, Set<Mask> combined,
+      MinimizationStatistics statistics) {
+    this.lowerGroup = lowerGroup;
+    this.from = from;
+    this.to = to;
+    this.upperGroup = upperGroup;
+    this.combinations = combinations;
+    this.combined = combined;
+    this.statistics = statistics;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void compute() {
+    if (to - from > 1 && (long) (to - from) * upperGroup.length > THRESHOLD) {
+      final int middle = (from + to) >>> 1;
+      invokeAll(new CombineTask(lowerGroup, from, middle, upperGroup, combinations, combined,
+          statistics), new CombineTask(lowerGroup, middle, to, upperGroup, combinations, combined,
+          statistics));
+      return;
+    }
+
+    long attempts = 0;
+    long successes = 0;
+
+    for (int i = from; i < to; i++) {
+      Implicant lowerImplicant = lowerGroup[i];
+
+      for (Implicant upperImplicant : upperGroup) {
+        attempts++;
+        Mask maskCombo = Mask.combine(lowerImplicant.getMask(), upperImplicant.getMask());
+
+        if (maskCombo != null) {
+          successes++;
+          combined.add(lowerImplicant.getMask());
+          combined.add(upperImplicant.getMask());
+
+          if (!combinations.containsKey(maskCombo)) {
+            MintermSet mintermsCombo =
+                lowerImplicant.getMinterms().union(upperImplicant.getMinterms());
+            combinations.putIfAbsent(maskCombo, new Implicant(mintermsCombo, maskCombo));
+          }
+        }
+      }
+    }
+
+    statistics.addCombines(attempts, successes);
+  }
+}
@@ -0,0 +1,15 @@
+package hr.fer.zemris.bool.qmc;
+
+/**
+ * Strategies which {@link QMCMinimizer} can use for choosing the minimal set of prime implicants
+ * from the cyclic core of the prime implicant chart.
+ * 
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public enum CoveringStrategy {
+  /** Symbolic expansion of the product of sums by Petrick's method. */
+  PETRICK,
+  /** Branch and bound search over the bitset chart. */
+  BRANCH_AND_BOUND
+}
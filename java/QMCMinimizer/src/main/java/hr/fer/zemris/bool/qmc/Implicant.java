@@ -7,9 +7,11 @@ import java.util.Set;
 
 /**
  * This class represents implicant in the table of implicants used by the {@link QMCMinimizer}.
- * Every implicant contains a mask, a set of minterms, and an alias. Alias is used during symbolic
- * manipulation of the Pyne-McCluskey algorithm for finding minimal set of implicants. Conceptually,
- * it is substitution of some implicant by symbolic string value.
+ * Every implicant contains a mask, a set of minterms, an id and an alias. Minterms are kept in a
+ * compact {@link MintermSet}. Id is used during symbolic manipulation of the Pyne-McCluskey
+ * algorithm for finding minimal set of implicants. Conceptually, it is substitution of some
+ * implicant by a symbol, and ids are dense, so symbols map back to implicants by array lookup.
+ * Alias is an older, string valued, substitute for the id.
  * 
  * @author Antonio Paunovic
  * @version 0.1
@@ -17,20 +19,22 @@ import java.util.Set;
 public class Implicant {
 
   /** Minterms associated with this implicant. */
-  private Set<Integer> minterms;
+  private MintermSet minterms;
   /** Mask associated with this implicant. */
   private Mask mask;
   /** Alias associated with this implicant. */
   private String alias;
+  /** Id associated with this implicant, {@code -1} if none was set. */
+  private int id = -1;
 
   /**
    * Constructor for implicant. Initializes minterm set and mask.
    * 
-   * @param minterms set of minterms.
+   * @param minterms set of minterms, copied to a {@link MintermSet} unless it already is one.
    * @param mask 
    */
   public Implicant(Set<Integer> minterms, Mask mask) {
-    this.minterms = minterms;
+    this.minterms = MintermSet.copyOf(minterms);
     this.mask = mask;
   }
 
@@ -39,7 +43,7 @@ public class Implicant {
    * 
    * @return set of minterms for this implicant.
    */
-  public Set<Integer> getMinterms() {
+  public MintermSet getMinterms() {
     return minterms;
   }
 
@@ -52,6 +56,25 @@ public class Implicant {
     return mask;
   }
 
+  /**
+   * Get implicants id.
+   * 
+   * @return id, or {@code -1} if none was set.
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Set implicants id to the given argument. Ids of implicants taking part in the same minimization
+   * should be positions of the implicants in some list.
+   * 
+   * @param id
+   */
+  public void setId(int id) {
+    this.id = id;
+  }
+
   /**
    * Get implicants alias.
    * 
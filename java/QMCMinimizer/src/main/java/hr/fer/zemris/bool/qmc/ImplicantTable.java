@@ -0,0 +1,99 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.Mask;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * One level of the Quine-McCluskey implicant table. Implicants are grouped first by their don't
+ * care pattern and then by the number of ones in their masks. Only implicants with equal don't care
+ * patterns whose number of ones differ by exactly one can be combined, so the minimizer only has to
+ * try pairs from adjacent groups of the same pattern.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+class ImplicantTable {
+
+  /** Implicants grouped by don't care pattern and then by number of ones. */
+  private Map<Mask, SortedMap<Integer, Set<Implicant>>> groups = new HashMap<>();
+  /** Number of implicants in the table. */
+  private int size;
+
+  /**
+   * Adds implicant to the group it belongs to. Implicant equal to an existing one is ignored.
+   *
+   * @param implicant implicant to add.
+   * @return {@code true} if table changed.
+   */
+  public boolean add(Implicant implicant) {
+    final Mask mask = implicant.getMask();
+    final Mask pattern = mask.getDontCarePattern();
+
+    SortedMap<Integer, Set<Implicant>> patternGroups = groups.get(pattern);
+    if (patternGroups == null) {
+      patternGroups = new TreeMap<>();
+      groups.put(pattern, patternGroups);
+    }
+
+    final Integer oneCount = mask.getNumberOfOnes();
+    Set<Implicant> group = patternGroups.get(oneCount);
+    if (group == null) {
+      group = new HashSet<>();
+      patternGroups.put(oneCount, group);
+    }
+
+    if (group.add(implicant)) {
+      size++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Don't care patterns present in this table.
+   *
+   * @return set of don't care patterns.
+   */
+  public Set<Mask> getDontCarePatterns() {
+    return Collections.unmodifiableSet(groups.keySet());
+  }
+
+  /**
+   * Groups of implicants with given don't care pattern, keyed by number of ones.
+   *
+   * @param pattern don't care pattern.
+   * @return groups sorted by number of ones, empty map if there are none.
+   */
+  public SortedMap<Integer, Set<Implicant>> getGroups(Mask pattern) {
+    SortedMap<Integer, Set<Implicant>> patternGroups = groups.get(pattern);
+    if (patternGroups == null) {
+      return Collections.unmodifiableSortedMap(new TreeMap<Integer, Set<Implicant>>());
+    }
+    return Collections.unmodifiableSortedMap(patternGroups);
+  }
+
+  /**
+   * Number of implicants in the table.
+   *
+   * @return number of implicants.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if table has no implicants.
+   *
+   * @return {@code true} if table is empty.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
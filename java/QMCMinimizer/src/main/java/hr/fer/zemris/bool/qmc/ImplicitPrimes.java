@@ -0,0 +1,122 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.bdd.BddBF;
+import hr.fer.zemris.bool.bdd.BddManager;
+import hr.fer.zemris.bool.bdd.CubeSets;
+import hr.fer.zemris.bool.bdd.ZddManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prime implicant generation for the {@link QMCMinimizer} which never lists implicants that are
+ * not prime. Function is turned into decision diagrams of its on set and don't cares, primes of
+ * their union are computed as a cube set by {@link CubeSets#primes(BddManager, int, ZddManager)},
+ * and primes which cover no minterm are dropped from the cube set before it is expanded. Only the
+ * remaining primes become {@link Implicant} instances, each holding just the minterms it covers.
+ * Rows of the on set and don't cares are each read once, when the diagrams are built by
+ * {@link BddBF#fromFunction(BooleanFunction)}, but implicants of don't cares are never combined.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class ImplicitPrimes {
+
+  private ImplicitPrimes() {}
+
+  /**
+   * Prime implicants of the function which cover at least one of its minterms.
+   *
+   * @param bf function.
+   * @return list of prime implicants.
+   */
+  static List<Implicant> generate(BooleanFunction bf) {
+    final int variableCount = bf.getDomain().size();
+    BddBF diagrams = BddBF.fromFunction(bf);
+    BddManager bdd = diagrams.getManager();
+    final int onSet = diagrams.getOnSet();
+    final int upper = bdd.ref(bdd.or(onSet, diagrams.getDontCareSet()));
+
+    ZddManager zdd = new ZddManager(2 * variableCount);
+    final int primes =
+        CubeSets.intersecting(bdd, onSet, zdd, CubeSets.primes(bdd, upper, zdd));
+
+    List<Implicant> implicants = new ArrayList<>();
+    for (int[] literals : zdd.sets(primes)) {
+      MaskValue[] values = new MaskValue[variableCount];
+      Arrays.fill(values, MaskValue.DONT_CARE);
+      for (int literal : literals) {
+        values[CubeSets.variableOf(literal)] =
+            CubeSets.isComplemented(literal) ? MaskValue.ZERO : MaskValue.ONE;
+      }
+
+      Rows rows = new Rows();
+      collectRows(bdd, onSet, values, 0, 0, rows);
+      implicants.add(new Implicant(MintermSet.ofSorted(rows.toArray()), new Mask(values)));
+    }
+
+    bdd.deref(upper);
+    diagrams.release();
+    return implicants;
+  }
+
+  /**
+   * Adds the rows of the function inside the cube, in ascending order. Only paths which agree with
+   * the cube are followed.
+   *
+   * @param bdd manager of the function.
+   * @param node current node.
+   * @param cube value of every variable in the cube.
+   * @param level position of the next variable to decide.
+   * @param prefix row bits decided so far.
+   * @param rows rows found so far.
+   */
+  private static void collectRows(BddManager bdd, int node, MaskValue[] cube, int level,
+      int prefix, Rows rows) {
+    if (node == BddManager.FALSE) {
+      return;
+    }
+    if (level == cube.length) {
+      rows.add(prefix);
+      return;
+    }
+
+    int low = node;
+    int high = node;
+    if (bdd.getVariable(node) == level) {
+      low = bdd.getLow(node);
+      high = bdd.getHigh(node);
+    }
+    final int bit = 1 << (cube.length - 1 - level);
+    if (cube[level] != MaskValue.ONE) {
+      collectRows(bdd, low, cube, level + 1, prefix, rows);
+    }
+    if (cube[level] != MaskValue.ZERO) {
+      collectRows(bdd, high, cube, level + 1, prefix | bit, rows);
+    }
+  }
+
+  /**
+   * Growing array of rows.
+   */
+  private static class Rows {
+
+    private int[] rows = new int[8];
+    private int size;
+
+    void add(int row) {
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+      }
+      rows[size++] = row;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(rows, size);
+    }
+  }
+}
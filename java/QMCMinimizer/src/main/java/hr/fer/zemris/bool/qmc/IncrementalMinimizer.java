@@ -0,0 +1,417 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.IntIterator;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.IndexedBF;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimizer of a truth table which changes a few rows at a time. Prime implicants of the table are
+ * generated once, by the {@link QMCMinimizer}, and then kept between the changes: every change
+ * repairs only the primes which contain the changed row, and the minimal covers are computed again
+ * from the kept primes when they are asked for. Results are the same as the ones of
+ * {@link QMCMinimizer#minimize(BooleanFunction, MinimizerOptions)} on the current table.
+ * <p>
+ * Primes are cubes inside the rows which are minterms or don't cares. When a row joins them, new
+ * primes are the maximal cubes around the row, and they absorb the old primes they contain. When
+ * a row leaves them, every prime around the row is split into the cubes which have one of its free
+ * variables fixed against the row, and those which are not contained in other primes are the new
+ * primes. Changes between minterm and don't care don't change the primes at all.
+ * </p>
+ * <p>
+ * Budget of the options bounds only the covering. Primes of the first table are always generated
+ * completely and explicitly, since the repairs rely on all primes of the minterms and don't cares;
+ * implicit generation leaves out the primes which cover only don't cares.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class IncrementalMinimizer {
+
+  /** Greatest number of variables of the table. */
+  public static final int MAX_VARIABLES = 24;
+
+  /** Name of the function. */
+  private final String name;
+  /** Variables of the function. */
+  private final List<BooleanVariable> domain;
+  /** Options of the covering. */
+  private final MinimizerOptions options;
+  /** Minterm plane. */
+  private final long[] minterms;
+  /** Don't care plane. */
+  private final long[] dontCares;
+  /** Primes as cubes, see {@link #cube(int, int)}. */
+  private final Set<Long> primes = new LinkedHashSet<>();
+  /** Covers of the current table, or {@code null} if table changed since they were computed. */
+  private List<List<Mask>> covers;
+
+  /**
+   * Constructor for the minimizer of the function's table, with default options.
+   *
+   * @param bf function whose table is minimized.
+   * @throws IllegalArgumentException on precondition violation, see
+   *         {@link #IncrementalMinimizer(BooleanFunction, MinimizerOptions)}.
+   */
+  public IncrementalMinimizer(BooleanFunction bf) {
+    this(bf, new MinimizerOptions());
+  }
+
+  /**
+   * Constructor for the minimizer of the function's table. Preconditions:
+   * <ul>
+   * <li>None of the arguments can be null reference.</li>
+   * <li>Function has at most {@value #MAX_VARIABLES} variables.</li>
+   * </ul>
+   *
+   * @param bf function whose table is minimized. Later changes of the function are not seen.
+   * @param options options of the minimization.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public IncrementalMinimizer(BooleanFunction bf, MinimizerOptions options) {
+    if (bf == null || options == null) {
+      throw new IllegalArgumentException("Precondition violation: null pointers are not allowed.");
+    }
+    if (bf.getDomain().size() > MAX_VARIABLES) {
+      throw new IllegalArgumentException("Precondition violation: too many variables.");
+    }
+
+    this.name = bf.getName();
+    this.domain = new ArrayList<>(bf.getDomain());
+    this.options = options;
+    this.minterms = new long[Bitsets.words(1 << domain.size())];
+    this.dontCares = new long[minterms.length];
+    for (Integer row : bf.mintermIterable()) {
+      Bitsets.set(minterms, row);
+    }
+    for (Integer row : bf.dontcareIterable()) {
+      Bitsets.set(dontCares, row);
+    }
+
+    MinimizerOptions primeOptions = new MinimizerOptions();
+    primeOptions.setParallelism(options.getParallelism());
+    for (Implicant prime : QMCMinimizer.primeImplicants(bf, primeOptions,
+        new MinimizationStatistics())) {
+      primes.add(cubeOf(prime.getMask()));
+    }
+  }
+
+  /**
+   * Makes the row a minterm.
+   *
+   * @param index row of the table.
+   * @throws IllegalArgumentException if row is not in the table.
+   */
+  public void addMinterm(int index) {
+    checkRow(index);
+    if (Bitsets.isSet(minterms, index)) {
+      return;
+    }
+
+    final boolean included = Bitsets.isSet(dontCares, index);
+    Bitsets.clear(dontCares, index);
+    Bitsets.set(minterms, index);
+    if (!included) {
+      include(index);
+    }
+    covers = null;
+  }
+
+  /**
+   * Makes the minterm a maxterm. Rows which are not minterms are left as they are, so a don't care
+   * stays a don't care; use {@link #setMaxterm(int)} for those.
+   *
+   * @param index row of the table.
+   * @throws IllegalArgumentException if row is not in the table.
+   */
+  public void removeMinterm(int index) {
+    checkRow(index);
+    if (!Bitsets.isSet(minterms, index)) {
+      return;
+    }
+
+    Bitsets.clear(minterms, index);
+    exclude(index);
+    covers = null;
+  }
+
+  /**
+   * Makes the row a maxterm, whether it was a minterm or a don't care.
+   *
+   * @param index row of the table.
+   * @throws IllegalArgumentException if row is not in the table.
+   */
+  public void setMaxterm(int index) {
+    checkRow(index);
+    if (!Bitsets.isSet(minterms, index) && !Bitsets.isSet(dontCares, index)) {
+      return;
+    }
+
+    Bitsets.clear(minterms, index);
+    Bitsets.clear(dontCares, index);
+    exclude(index);
+    covers = null;
+  }
+
+  /**
+   * Makes the row a don't care.
+   *
+   * @param index row of the table.
+   * @throws IllegalArgumentException if row is not in the table.
+   */
+  public void setDontCare(int index) {
+    checkRow(index);
+    if (Bitsets.isSet(dontCares, index)) {
+      return;
+    }
+
+    final boolean included = Bitsets.isSet(minterms, index);
+    Bitsets.clear(minterms, index);
+    Bitsets.set(dontCares, index);
+    if (!included) {
+      include(index);
+    }
+    covers = null;
+  }
+
+  /**
+   * Current table as a function.
+   *
+   * @return function with the current minterms and don't cares.
+   */
+  public BooleanFunction getFunction() {
+    return new IndexedBF(name, domain, true, rows(minterms), rows(dontCares));
+  }
+
+  /**
+   * Current prime implicants.
+   *
+   * @return unmodifiable list of masks of the primes.
+   */
+  public List<Mask> getPrimes() {
+    List<Mask> masks = new ArrayList<>(primes.size());
+    for (long prime : primes) {
+      masks.add(maskOf(prime));
+    }
+    return Collections.unmodifiableList(masks);
+  }
+
+  /**
+   * Minimizes the current table.
+   *
+   * @return array of {@link MaskBasedBF} instances, one for every minimal cover.
+   */
+  public MaskBasedBF[] minimize() {
+    return minimize(new MinimizationStatistics());
+  }
+
+  /**
+   * Minimizes the current table and records how much work was done in the given statistics.
+   * Covers are computed only if the table changed since the last call.
+   *
+   * @param statistics statistics to fill during minimization.
+   * @return array of {@link MaskBasedBF} instances, one for every minimal cover.
+   */
+  public MaskBasedBF[] minimize(MinimizationStatistics statistics) {
+    List<List<Mask>> result = covers;
+    if (result == null) {
+      List<Implicant> implicants = new ArrayList<>(primes.size());
+      for (long prime : primes) {
+        implicants.add(new Implicant(MintermSet.ofSorted(rowsOf(prime)), maskOf(prime)));
+      }
+      statistics.setPrimeCount(implicants.size());
+      result = QMCMinimizer.coversOf(implicants, rows(minterms), options, statistics);
+      if (statistics.isProvenMinimal()) {
+        covers = result;
+      }
+    }
+    return QMCMinimizer.functionsOf(result, domain, options, statistics);
+  }
+
+  /**
+   * Repairs the primes after the row became a minterm or a don't care. New primes are the maximal
+   * cubes containing the row, found by freeing one variable at a time, and old primes inside them
+   * are no longer prime.
+   */
+  private void include(int row) {
+    List<Long> found = new ArrayList<>();
+    Set<Integer> visited = new HashSet<>();
+    Deque<Integer> pending = new ArrayDeque<>();
+    visited.add(0);
+    pending.push(0);
+    while (!pending.isEmpty()) {
+      final int free = pending.pop();
+      boolean maximal = true;
+      for (int bit = 0; bit < domain.size(); bit++) {
+        if ((free >>> bit & 1) == 0 && isIncluded((row ^ 1 << bit) & ~free, free)) {
+          maximal = false;
+          if (visited.add(free | 1 << bit)) {
+            pending.push(free | 1 << bit);
+          }
+        }
+      }
+      if (maximal) {
+        found.add(cube(row & ~free, free));
+      }
+    }
+
+    for (Iterator<Long> iterator = primes.iterator(); iterator.hasNext();) {
+      final long prime = iterator.next();
+      for (long cube : found) {
+        if (contains(cube, prime)) {
+          iterator.remove();
+          break;
+        }
+      }
+    }
+    primes.addAll(found);
+  }
+
+  /**
+   * Repairs the primes after the row became a maxterm. Primes containing the row are split into
+   * cubes which fix one of their free variables against the row, and the cubes which are not
+   * inside other primes or cubes become primes.
+   */
+  private void exclude(int row) {
+    Set<Long> candidates = new LinkedHashSet<>();
+    for (Iterator<Long> iterator = primes.iterator(); iterator.hasNext();) {
+      final long prime = iterator.next();
+      final int base = baseOf(prime);
+      final int free = freeOf(prime);
+      if (((row ^ base) & ~free) != 0) {
+        continue;
+      }
+
+      iterator.remove();
+      for (int bit = 0; bit < domain.size(); bit++) {
+        if ((free >>> bit & 1) != 0) {
+          candidates.add(cube(base | (~row & 1 << bit), free & ~(1 << bit)));
+        }
+      }
+    }
+
+    for (long candidate : candidates) {
+      if (!isContainedInOther(candidate, primes) && !isContainedInOther(candidate, candidates)) {
+        primes.add(candidate);
+      }
+    }
+  }
+
+  /** Checks if some other cube contains the cube. */
+  private static boolean isContainedInOther(long cube, Set<Long> cubes) {
+    for (long other : cubes) {
+      if (other != cube && contains(other, cube)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Checks if every row of the cube is a minterm or a don't care. */
+  private boolean isIncluded(int base, int free) {
+    for (int subset = 0;; subset = (subset - free) & free) {
+      final int row = base | subset;
+      if (!Bitsets.isSet(minterms, row) && !Bitsets.isSet(dontCares, row)) {
+        return false;
+      }
+      if (subset == free) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Cube with the given free row bits. Base has the values of the other bits and zeros on the free
+   * ones. Cube is kept as a {@code long}, free bits in the high word and base in the low one.
+   */
+  private static long cube(int base, int free) {
+    return (long) free << 32 | base;
+  }
+
+  private static int baseOf(long cube) {
+    return (int) cube;
+  }
+
+  private static int freeOf(long cube) {
+    return (int) (cube >>> 32);
+  }
+
+  /** Checks if the first cube contains the second one. */
+  private static boolean contains(long outer, long inner) {
+    final int outerFree = freeOf(outer);
+    return (freeOf(inner) & ~outerFree) == 0 && ((baseOf(inner) ^ baseOf(outer)) & ~outerFree) == 0;
+  }
+
+  /** Cube of the mask. First position of the mask is the highest row bit. */
+  private long cubeOf(Mask mask) {
+    int base = 0;
+    int free = 0;
+    for (int position = 0; position < domain.size(); position++) {
+      final int bit = 1 << (domain.size() - 1 - position);
+      switch (mask.getValue(position)) {
+        case ONE:
+          base |= bit;
+          break;
+        case DONT_CARE:
+          free |= bit;
+          break;
+        default:
+      }
+    }
+    return cube(base, free);
+  }
+
+  /** Mask of the cube. */
+  private Mask maskOf(long cube) {
+    MaskValue[] values = new MaskValue[domain.size()];
+    for (int position = 0; position < values.length; position++) {
+      final int bit = 1 << (values.length - 1 - position);
+      if ((freeOf(cube) & bit) != 0) {
+        values[position] = MaskValue.DONT_CARE;
+      } else {
+        values[position] = (baseOf(cube) & bit) != 0 ? MaskValue.ONE : MaskValue.ZERO;
+      }
+    }
+    return new Mask(values);
+  }
+
+  /** Ascending rows of the cube. */
+  private int[] rowsOf(long cube) {
+    int[] rows = new int[1 << Integer.bitCount(freeOf(cube))];
+    int count = 0;
+    for (IntIterator iterator = maskOf(cube).indexIterator(); iterator.hasNext();) {
+      rows[count++] = iterator.nextInt();
+    }
+    return rows;
+  }
+
+  /** Rows of the plane. */
+  private static List<Integer> rows(long[] plane) {
+    List<Integer> rows = new ArrayList<>();
+    for (int row = Bitsets.nextSet(plane, 0); row >= 0; row = Bitsets.nextSet(plane, row + 1)) {
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /** Checks that the index is a row of the table. */
+  private void checkRow(int index) {
+    if (index < 0 || index >= 1 << domain.size()) {
+      throw new IllegalArgumentException("Precondition violation: no such row: " + index);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budget of a minimization, given to the minimizer by
+ * {@link MinimizerOptions#setBudget(MinimizationBudget)}. Budget runs out when its deadline passes,
+ * when it is cancelled, or when the minimizing thread is interrupted. Minimizer checks the budget
+ * while combining implicants and while covering the prime implicant chart, and when it runs out
+ * it stops and returns the best valid cover it has: the exact search's best cover so far, or the
+ * essential primes completed by a greedy choice of the remaining implicants. Such result is not
+ * proven minimal, see {@link MinimizationStatistics#isProvenMinimal()}.
+ * <p>
+ * Budget can be cancelled from any thread, and can be shared by several minimizations which
+ * should all stop together.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public class MinimizationBudget {
+
+  /** Deadline as given by {@link System#nanoTime()}, valid if {@link #timed}. */
+  private final long deadline;
+  /** Flag telling whether budget has a deadline. */
+  private final boolean timed;
+  /** Flag telling whether budget was cancelled. */
+  private volatile boolean cancelled;
+
+  /**
+   * Constructor for a budget without a deadline, which runs out only when it is cancelled or the
+   * thread is interrupted.
+   */
+  public MinimizationBudget() {
+    this.deadline = 0;
+    this.timed = false;
+  }
+
+  /**
+   * Constructor for a budget with a deadline, measured from now. Preconditions:
+   * <ul>
+   * <li>Timeout can't be negative.</li>
+   * <li>Unit can't be null reference.</li>
+   * </ul>
+   *
+   * @param timeout time until the deadline.
+   * @param unit unit of the timeout.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public MinimizationBudget(long timeout, TimeUnit unit) {
+    if (timeout < 0 || unit == null) {
+      throw new IllegalArgumentException(
+          "Precondition violation: timeout must be non-negative and unit non-null.");
+    }
+    this.deadline = System.nanoTime() + unit.toNanos(timeout);
+    this.timed = true;
+  }
+
+  /**
+   * Cancels the budget, so that minimizations using it stop as soon as they check it.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Method returns flag telling whether the budget was cancelled.
+   *
+   * @return {@code true} if it was, otherwise {@code false}.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Method returns flag telling whether the budget has run out: it was cancelled, its deadline
+   * passed, or the current thread is interrupted. Interrupt status is not cleared.
+   *
+   * @return {@code true} if minimization should stop, otherwise {@code false}.
+   */
+  public boolean isExhausted() {
+    return cancelled || Thread.currentThread().isInterrupted()
+        || (timed && System.nanoTime() - deadline >= 0);
+  }
+}
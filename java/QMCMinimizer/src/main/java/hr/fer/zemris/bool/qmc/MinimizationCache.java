@@ -0,0 +1,432 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.Mask;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of minimization results. Results are minimal covers of the function, kept as
+ * lists of masks, and looked up by a SHA-256 digest of the function's truth table: its domain
+ * size and the planes of minterms and don't cares. Options which change the covers that are
+ * returned are part of the key too. Names of the function and its variables are not, so a cached
+ * result is reused for any function with the same table. When the cache is full, the least
+ * recently used result is evicted. Functions of more than {@value #MAX_VARIABLES} variables are
+ * never cached.
+ * <p>
+ * Canonical cache keys functions of at most {@value CanonicalForm#MAX_VARIABLES} variables by the
+ * table they get when their inputs are negated and permuted into a canonical order. Results are
+ * kept for the canonical table and mapped back to the function on every hit, so functions which
+ * differ only in the order and polarity of their inputs share one result.
+ * </p>
+ * <p>
+ * Cache is given to the minimizer by {@link MinimizerOptions#setCache(MinimizationCache)}, and can
+ * be shared by concurrent minimizations. Two minimizations which miss the same key at the same
+ * time both compute the result. Cache can be saved to a file and loaded back, so that results
+ * survive restarts.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.2
+ */
+public class MinimizationCache {
+
+  /**
+   * Greatest number of variables of a cached function. Key is a digest of the dense planes of the
+   * table, which take 2 MiB each at this size.
+   */
+  static final int MAX_VARIABLES = 24;
+  /** Size of the buffer through which planes are fed to the digest. */
+  private static final int DIGEST_BUFFER_BYTES = 1 << 13;
+  /** First int of a saved cache file. */
+  private static final int MAGIC = 0x514D4343;
+
+  /** Greatest number of results kept. */
+  private final int capacity;
+  /** Flag telling whether functions are keyed by their canonical tables. */
+  private final boolean canonical;
+  /** Results in order of use, least recently used first. */
+  private final Map<Key, List<List<Mask>>> results;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Constructor for the cache. Precondition: capacity must be positive.
+   *
+   * @param capacity greatest number of results kept.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public MinimizationCache(final int capacity) {
+    this(capacity, false);
+  }
+
+  /**
+   * Constructor for the cache which can key functions by their canonical tables. Precondition:
+   * capacity must be positive.
+   *
+   * @param capacity greatest number of results kept.
+   * @param canonical if {@code true}, functions which differ only in the order and polarity of
+   *        their inputs share results.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public MinimizationCache(final int capacity, boolean canonical) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Precondition violation: capacity must be positive.");
+    }
+    this.capacity = capacity;
+    this.canonical = canonical;
+    this.results = new LinkedHashMap<Key, List<List<Mask>>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, List<List<Mask>>> eldest) {
+        if (size() > capacity) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Greatest number of results kept.
+   *
+   * @return capacity of the cache.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Method returns flag telling whether functions are keyed by their canonical tables.
+   *
+   * @return {@code true} if they are, otherwise {@code false}.
+   */
+  public boolean isCanonical() {
+    return canonical;
+  }
+
+  /**
+   * Number of results in the cache.
+   *
+   * @return number of results.
+   */
+  public synchronized int size() {
+    return results.size();
+  }
+
+  /**
+   * Number of lookups which found a result.
+   *
+   * @return hit count.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Number of lookups which didn't find a result.
+   *
+   * @return miss count.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Number of results evicted to keep the cache within its capacity.
+   *
+   * @return eviction count.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Removes all results. Statistics are kept.
+   */
+  public synchronized void clear() {
+    results.clear();
+  }
+
+  /**
+   * Saves all results to the file, replacing it.
+   *
+   * @param file file to write.
+   * @throws IOException if file can't be written.
+   */
+  public void save(Path file) throws IOException {
+    Map<Key, List<List<Mask>>> snapshot;
+    synchronized (this) {
+      snapshot = new LinkedHashMap<>(results);
+    }
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(snapshot.size());
+      for (Map.Entry<Key, List<List<Mask>>> entry : snapshot.entrySet()) {
+        out.writeInt(entry.getKey().digest.length);
+        out.write(entry.getKey().digest);
+        out.writeInt(entry.getValue().size());
+        for (List<Mask> cover : entry.getValue()) {
+          out.writeInt(cover.size());
+          for (Mask mask : cover) {
+            out.writeUTF(mask.toString());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads results saved by {@link #save(Path)}, in addition to the ones already in the cache.
+   *
+   * @param file file to read.
+   * @throws IOException if file can't be read or is not a saved cache.
+   */
+  public void load(Path file) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a minimization cache file: " + file);
+      }
+
+      final int count = in.readInt();
+      for (int entry = 0; entry < count; entry++) {
+        byte[] digest = new byte[in.readInt()];
+        in.readFully(digest);
+
+        final int coverCount = in.readInt();
+        List<List<Mask>> covers = new ArrayList<>(coverCount);
+        for (int cover = 0; cover < coverCount; cover++) {
+          final int maskCount = in.readInt();
+          List<Mask> masks = new ArrayList<>(maskCount);
+          for (int mask = 0; mask < maskCount; mask++) {
+            masks.add(Mask.parse(in.readUTF()));
+          }
+          covers.add(masks);
+        }
+        store(new Key(digest), covers);
+      }
+    }
+  }
+
+  /**
+   * Lookup of the function's results for the given options.
+   *
+   * @param bf function.
+   * @param options options of the minimization.
+   * @return lookup to pass to {@link #get(Lookup)} and {@link #put(Lookup, List)}, or {@code null}
+   *         if function has more than {@value #MAX_VARIABLES} variables.
+   */
+  Lookup lookup(BooleanFunction bf, MinimizerOptions options) {
+    final int domainSize = bf.getDomain().size();
+    if (domainSize > MAX_VARIABLES) {
+      return null;
+    }
+    long[] minterms = plane(bf.mintermIterable(), domainSize);
+    long[] dontCares = plane(bf.dontcareIterable(), domainSize);
+    if (!canonical || domainSize > CanonicalForm.MAX_VARIABLES) {
+      return new Lookup(keyOf(domainSize, minterms, dontCares, options), null);
+    }
+
+    CanonicalForm form = CanonicalForm.of(domainSize, minterms, dontCares);
+    return new Lookup(keyOf(domainSize, form.getMinterms(), form.getDontCares(), options), form);
+  }
+
+  /**
+   * Key of the truth table's results for the given options.
+   *
+   * @param domainSize number of variables.
+   * @param minterms plane of minterm rows.
+   * @param dontCares plane of don't care rows.
+   * @param options options of the minimization.
+   * @return key of the results.
+   */
+  static Key keyOf(int domainSize, long[] minterms, long[] dontCares, MinimizerOptions options) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_BYTES);
+    buffer.putInt(domainSize);
+    buffer.putInt(options.isAllMinimalCovers() ? 1 : 0);
+    buffer.putInt(options.getCoveringStrategy().ordinal());
+    update(digest, buffer, minterms);
+    update(digest, buffer, dontCares);
+    digest.update(buffer.array(), 0, buffer.position());
+    return new Key(digest.digest());
+  }
+
+  /** Feeds words of the plane to the digest through the buffer, which is emptied when full. */
+  private static void update(MessageDigest digest, ByteBuffer buffer, long[] plane) {
+    for (long word : plane) {
+      if (buffer.remaining() < Long.SIZE / Byte.SIZE) {
+        digest.update(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+      buffer.putLong(word);
+    }
+  }
+
+  /**
+   * Covers cached for the lookup, mapped back to the function if it was keyed by its canonical
+   * table.
+   *
+   * @param lookup lookup of the results.
+   * @return list of covers, or {@code null} if there are none.
+   */
+  List<List<Mask>> get(Lookup lookup) {
+    List<List<Mask>> covers;
+    synchronized (this) {
+      covers = results.get(lookup.key);
+    }
+    if (covers == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    if (lookup.form == null) {
+      return covers;
+    }
+
+    List<List<Mask>> mapped = new ArrayList<>(covers.size());
+    for (List<Mask> cover : covers) {
+      List<Mask> masks = new ArrayList<>(cover.size());
+      for (Mask mask : cover) {
+        masks.add(lookup.form.fromCanonical(mask));
+      }
+      mapped.add(masks);
+    }
+    return mapped;
+  }
+
+  /**
+   * Caches covers of the function for the lookup.
+   *
+   * @param lookup lookup of the results.
+   * @param covers covers of the function, copied.
+   */
+  void put(Lookup lookup, List<List<Mask>> covers) {
+    if (lookup.form == null) {
+      store(lookup.key, covers);
+      return;
+    }
+
+    List<List<Mask>> mapped = new ArrayList<>(covers.size());
+    for (List<Mask> cover : covers) {
+      List<Mask> masks = new ArrayList<>(cover.size());
+      for (Mask mask : cover) {
+        masks.add(lookup.form.toCanonical(mask));
+      }
+      mapped.add(masks);
+    }
+    store(lookup.key, mapped);
+  }
+
+  /** Keeps unmodifiable copy of the covers under the key. */
+  private synchronized void store(Key key, List<List<Mask>> covers) {
+    List<List<Mask>> copy = new ArrayList<>(covers.size());
+    for (List<Mask> cover : covers) {
+      copy.add(Collections.unmodifiableList(new ArrayList<>(cover)));
+    }
+    results.put(key, Collections.unmodifiableList(copy));
+  }
+
+  /** Plane of the rows. Domain has at most {@value #MAX_VARIABLES} variables. */
+  private static long[] plane(Iterable<Integer> rows, int domainSize) {
+    long[] plane = new long[Bitsets.words((int) (1L << domainSize))];
+    for (Integer row : rows) {
+      Bitsets.set(plane, row);
+    }
+    return plane;
+  }
+
+  /**
+   * Key of a function's results, with the transform to its canonical table if it was used.
+   */
+  static final class Lookup {
+
+    /** Key of the results. */
+    private final Key key;
+    /** Canonical form of the function, or {@code null} if it is keyed by its own table. */
+    private final CanonicalForm form;
+
+    /**
+     * Constructor for the lookup.
+     *
+     * @param key key of the results.
+     * @param form canonical form of the function, or {@code null}.
+     */
+    Lookup(Key key, CanonicalForm form) {
+      this.key = key;
+      this.form = form;
+    }
+  }
+
+  /**
+   * Digest of a truth table and the options.
+   */
+  static final class Key {
+
+    /** SHA-256 digest. */
+    private final byte[] digest;
+    /** Hash code, taken from the digest. */
+    private final int hash;
+
+    /**
+     * Constructor for the key.
+     *
+     * @param digest digest, not copied.
+     */
+    Key(byte[] digest) {
+      this.digest = digest;
+      this.hash = Arrays.hashCode(digest);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      return Arrays.equals(digest, ((Key) obj).digest);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package hr.fer.zemris.bool.qmc;
+
+/**
+ * Listener notified by {@link QMCMinimizer} when it starts and finishes each phase of the
+ * minimization. Listener is given to the minimizer by
+ * {@link MinimizerOptions#setListener(MinimizationListener)}, and is called on the minimizing
+ * thread. Statistics passed to the listener hold the counts collected so far, so a listener can see
+ * how far a long minimization got, or forward the phases to a profiler or a metrics system.
+ * <p>
+ * When there is no listener, phases are only timed into the statistics.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public interface MinimizationListener {
+
+  /**
+   * Called when the phase starts.
+   *
+   * @param phase phase which starts.
+   * @param statistics statistics of the minimization so far.
+   */
+  void phaseStarted(MinimizationPhase phase, MinimizationStatistics statistics);
+
+  /**
+   * Called when the phase finishes.
+   *
+   * @param phase phase which finished.
+   * @param nanos wall time of the phase, in nanoseconds.
+   * @param statistics statistics of the minimization, including the counts of the phase.
+   */
+  void phaseFinished(MinimizationPhase phase, long nanos, MinimizationStatistics statistics);
+}
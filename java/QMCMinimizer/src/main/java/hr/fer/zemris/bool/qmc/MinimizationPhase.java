@@ -0,0 +1,22 @@
+package hr.fer.zemris.bool.qmc;
+
+/**
+ * Phases of a single {@link QMCMinimizer} run, in the order in which they are done. Phases which
+ * are not needed are skipped: when result is found in the cache, minimization goes straight to
+ * building of the result.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public enum MinimizationPhase {
+  /** Looking up the function in the cache of results. */
+  CACHE_LOOKUP,
+  /** Reading rows of the function and generating its prime implicants. */
+  PRIME_GENERATION,
+  /** Taking out essential primes and reducing the prime implicant chart to its cyclic core. */
+  CHART_REDUCTION,
+  /** Choosing minimal covers of the cyclic core, by Petrick's method or branch and bound. */
+  COVERING,
+  /** Building functions of the resulting covers. */
+  RESULT_BUILDING
+}
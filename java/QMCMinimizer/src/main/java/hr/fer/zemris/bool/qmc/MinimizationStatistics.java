@@ -0,0 +1,245 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters collected during a single {@link QMCMinimizer} run. Instance is passed to the minimizer
+ * by the client, and after the minimization it holds how much work was done: wall time of every
+ * {@link MinimizationPhase}, size of the input, number of implicants on every combining level and
+ * of the primes, work done by Petrick's method, and number of minimal covers found. Counters of
+ * the phases which were skipped stay zero. When the {@link MinimizationBudget} runs out, statistics
+ * also tell that the result is not proven minimal.
+ *
+ * @author Antonio Paunovic
+ * @version 0.2
+ */
+public class MinimizationStatistics {
+
+  /** Number of mask pairs that were tried to be combined. */
+  private AtomicLong combineAttempts = new AtomicLong();
+  /** Number of mask pairs that were successfully combined. */
+  private AtomicLong combineSuccesses = new AtomicLong();
+  /** Wall time of every phase in nanoseconds, indexed by ordinal of the phase. */
+  private AtomicLongArray phaseNanos = new AtomicLongArray(MinimizationPhase.values().length);
+  /** Number of minterms of the function. */
+  private AtomicLong mintermCount = new AtomicLong();
+  /** Number of don't cares of the function. */
+  private AtomicLong dontCareCount = new AtomicLong();
+  /** Number of implicants on every combining level, starting with the rows. */
+  private List<Integer> levelSizes = new ArrayList<>();
+  /** Number of prime implicants. */
+  private AtomicLong primeCount = new AtomicLong();
+  /** Number of products formed by Petrick's method, before absorption removed any. */
+  private AtomicLong productsBeforeAbsorption = new AtomicLong();
+  /** Number of products of Petrick's method left after absorption. */
+  private AtomicLong productsAfterAbsorption = new AtomicLong();
+  /** Number of minimal covers found. */
+  private AtomicLong coverCount = new AtomicLong();
+  /** Flag telling whether the covers are proven minimal. */
+  private volatile boolean provenMinimal = true;
+
+  /**
+   * Number of mask pairs for which combining was tried.
+   *
+   * @return combine attempts count.
+   */
+  public long getCombineAttempts() {
+    return combineAttempts.get();
+  }
+
+  /**
+   * Number of mask pairs which combined into a new implicant.
+   *
+   * @return combine successes count.
+   */
+  public long getCombineSuccesses() {
+    return combineSuccesses.get();
+  }
+
+  /**
+   * Wall time spent in the phase.
+   *
+   * @param phase phase of the minimization.
+   * @return time in nanoseconds.
+   */
+  public long getPhaseNanos(MinimizationPhase phase) {
+    return phaseNanos.get(phase.ordinal());
+  }
+
+  /**
+   * Number of minterms of the minimized function.
+   *
+   * @return minterm count.
+   */
+  public long getMintermCount() {
+    return mintermCount.get();
+  }
+
+  /**
+   * Number of don't cares of the minimized function.
+   *
+   * @return don't care count.
+   */
+  public long getDontCareCount() {
+    return dontCareCount.get();
+  }
+
+  /**
+   * Number of implicants on every level of combining, the first level being the rows of the
+   * function. Empty when primes are generated implicitly.
+   *
+   * @return list of level sizes.
+   */
+  public synchronized List<Integer> getLevelSizes() {
+    return new ArrayList<>(levelSizes);
+  }
+
+  /**
+   * Number of prime implicants of the function.
+   *
+   * @return prime count.
+   */
+  public long getPrimeCount() {
+    return primeCount.get();
+  }
+
+  /**
+   * Number of products formed while expanding the formula of Petrick's method, summed over all
+   * multiplications, before absorption.
+   *
+   * @return product count before absorption.
+   */
+  public long getProductsBeforeAbsorption() {
+    return productsBeforeAbsorption.get();
+  }
+
+  /**
+   * Number of products left after absorption, summed over all multiplications of Petrick's
+   * method.
+   *
+   * @return product count after absorption.
+   */
+  public long getProductsAfterAbsorption() {
+    return productsAfterAbsorption.get();
+  }
+
+  /**
+   * Number of minimal covers the minimizer returned.
+   *
+   * @return cover count.
+   */
+  public long getCoverCount() {
+    return coverCount.get();
+  }
+
+  /**
+   * Method returns flag telling whether the returned covers are proven minimal. They are not if
+   * the budget ran out before the minimization finished, in which case they are valid covers but
+   * possibly larger than minimal ones.
+   *
+   * @return {@code true} if covers are minimal, otherwise {@code false}.
+   */
+  public boolean isProvenMinimal() {
+    return provenMinimal;
+  }
+
+  /**
+   * Adds results of combining one pair of groups.
+   *
+   * @param attempts number of pairs tried.
+   * @param successes number of pairs combined.
+   */
+  void addCombines(long attempts, long successes) {
+    combineAttempts.addAndGet(attempts);
+    combineSuccesses.addAndGet(successes);
+  }
+
+  /**
+   * Adds wall time of the phase.
+   *
+   * @param phase phase of the minimization.
+   * @param nanos time in nanoseconds.
+   */
+  void addPhaseNanos(MinimizationPhase phase, long nanos) {
+    phaseNanos.addAndGet(phase.ordinal(), nanos);
+  }
+
+  /**
+   * Sets size of the input.
+   *
+   * @param minterms number of minterms.
+   * @param dontCares number of don't cares.
+   */
+  void setRowCounts(long minterms, long dontCares) {
+    mintermCount.set(minterms);
+    dontCareCount.set(dontCares);
+  }
+
+  /**
+   * Adds size of the next combining level.
+   *
+   * @param implicants number of implicants on the level.
+   */
+  synchronized void addLevelSize(int implicants) {
+    levelSizes.add(implicants);
+  }
+
+  /**
+   * Sets number of prime implicants.
+   *
+   * @param primes prime count.
+   */
+  void setPrimeCount(long primes) {
+    primeCount.set(primes);
+  }
+
+  /**
+   * Adds products of Petrick's method.
+   *
+   * @param before number of products before absorption.
+   * @param after number of products after absorption.
+   */
+  void addProducts(long before, long after) {
+    productsBeforeAbsorption.addAndGet(before);
+    productsAfterAbsorption.addAndGet(after);
+  }
+
+  /**
+   * Sets number of minimal covers.
+   *
+   * @param covers cover count.
+   */
+  void setCoverCount(long covers) {
+    coverCount.set(covers);
+  }
+
+  /**
+   * Sets flag telling whether the returned covers are proven minimal.
+   *
+   * @param provenMinimal {@code true} if they are.
+   */
+  void setProvenMinimal(boolean provenMinimal) {
+    this.provenMinimal = provenMinimal;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    StringBuilder phases = new StringBuilder();
+    for (MinimizationPhase phase : MinimizationPhase.values()) {
+      phases.append(phases.length() == 0 ? "" : ", ").append(phase).append('=')
+          .append(getPhaseNanos(phase));
+    }
+    return "MinimizationStatistics [combineAttempts=" + combineAttempts + ", combineSuccesses="
+        + combineSuccesses + ", mintermCount=" + mintermCount + ", dontCareCount=" + dontCareCount
+        + ", levelSizes=" + getLevelSizes() + ", primeCount=" + primeCount
+        + ", productsBeforeAbsorption=" + productsBeforeAbsorption + ", productsAfterAbsorption="
+        + productsAfterAbsorption + ", coverCount=" + coverCount + ", provenMinimal="
+        + provenMinimal + ", phaseNanos={" + phases + "}]";
+  }
+}
@@ -0,0 +1,188 @@
+package hr.fer.zemris.bool.qmc;
+
+/**
+ * Options which control how {@link QMCMinimizer} does the minimization. Default options are the
+ * ones used by {@link QMCMinimizer#minimize(hr.fer.zemris.bool.BooleanFunction)}.
+ *
+ * @author Antonio Paunovic
+ * @version 0.2
+ */
+public class MinimizerOptions {
+
+  /** Number of threads used for generating prime implicants. */
+  private int parallelism = 1;
+  /** Whether all minimal covers are returned, or just one of them. */
+  private boolean allMinimalCovers = true;
+  /** Strategy used for covering the prime implicant chart. */
+  private CoveringStrategy coveringStrategy = CoveringStrategy.PETRICK;
+  /** Whether prime implicants are generated implicitly, with decision diagrams. */
+  private boolean implicitPrimes;
+  /** Cache of results, or {@code null} if results are not cached. */
+  private MinimizationCache cache;
+  /** Listener of the minimization phases, or {@code null} if there is none. */
+  private MinimizationListener listener;
+  /** Budget of the minimization, or {@code null} if it is unbounded. */
+  private MinimizationBudget budget;
+
+  /**
+   * Number of threads used for generating prime implicants. Value of one means that primes are
+   * generated sequentially on the calling thread.
+   *
+   * @return parallelism level.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Sets the number of threads used for generating prime implicants. Preconditions:
+   * <ul>
+   * <li>parallelism must be positive.</li>
+   * </ul>
+   *
+   * @param parallelism parallelism level.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Precondition violation: parallelism must be positive.");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Whether minimizer returns all minimal covers of the function, or just one of them. Looking for a
+   * single cover allows more reductions of the prime implicant chart.
+   *
+   * @return {@code true} if all minimal covers are returned.
+   */
+  public boolean isAllMinimalCovers() {
+    return allMinimalCovers;
+  }
+
+  /**
+   * Sets whether minimizer returns all minimal covers of the function, or just one of them.
+   *
+   * @param allMinimalCovers {@code true} if all minimal covers should be returned.
+   */
+  public void setAllMinimalCovers(boolean allMinimalCovers) {
+    this.allMinimalCovers = allMinimalCovers;
+  }
+
+  /**
+   * Strategy used for choosing the minimal set of prime implicants.
+   *
+   * @return covering strategy.
+   */
+  public CoveringStrategy getCoveringStrategy() {
+    return coveringStrategy;
+  }
+
+  /**
+   * Sets strategy used for choosing the minimal set of prime implicants. Preconditions:
+   * <ul>
+   * <li>strategy mustn't be {@code null}.</li>
+   * </ul>
+   *
+   * @param coveringStrategy covering strategy.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public void setCoveringStrategy(CoveringStrategy coveringStrategy) {
+    if (coveringStrategy == null) {
+      throw new IllegalArgumentException("Precondition violation: strategy mustn't be null.");
+    }
+    this.coveringStrategy = coveringStrategy;
+  }
+
+  /**
+   * Whether prime implicants are generated implicitly, as a cube set in a zero-suppressed decision
+   * diagram, instead of combining implicants level by level. Implicants are never listed level by
+   * level, which makes functions with many don't cares tractable. Parallelism is not used then.
+   *
+   * @return {@code true} if primes are generated implicitly.
+   */
+  public boolean isImplicitPrimes() {
+    return implicitPrimes;
+  }
+
+  /**
+   * Sets whether prime implicants are generated implicitly, with decision diagrams.
+   *
+   * @param implicitPrimes {@code true} if primes should be generated implicitly.
+   */
+  public void setImplicitPrimes(boolean implicitPrimes) {
+    this.implicitPrimes = implicitPrimes;
+  }
+
+  /**
+   * Cache in which minimizer looks for results before minimizing, and stores the results it
+   * computes.
+   *
+   * @return cache of results, or {@code null} if results are not cached.
+   */
+  public MinimizationCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Sets the cache of results. Cache can be shared by several options and threads.
+   *
+   * @param cache cache of results, or {@code null} if results shouldn't be cached.
+   */
+  public void setCache(MinimizationCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Listener which is notified of the minimization phases.
+   *
+   * @return listener, or {@code null} if there is none.
+   */
+  public MinimizationListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Sets the listener which is notified of the minimization phases.
+   *
+   * @param listener listener, or {@code null} if phases shouldn't be reported.
+   */
+  public void setListener(MinimizationListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Budget after which minimizer stops and returns the best cover it has.
+   *
+   * @return budget, or {@code null} if minimization is unbounded.
+   */
+  public MinimizationBudget getBudget() {
+    return budget;
+  }
+
+  /**
+   * Sets the budget after which minimizer stops and returns the best cover it has.
+   *
+   * @param budget budget, or {@code null} if minimization should be unbounded.
+   */
+  public void setBudget(MinimizationBudget budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Copy of the options. Cache, listener and budget are shared with the copy.
+   *
+   * @return new options with the same values.
+   */
+  MinimizerOptions copy() {
+    MinimizerOptions copy = new MinimizerOptions();
+    copy.parallelism = parallelism;
+    copy.allMinimalCovers = allMinimalCovers;
+    copy.coveringStrategy = coveringStrategy;
+    copy.implicitPrimes = implicitPrimes;
+    copy.cache = cache;
+    copy.listener = listener;
+    copy.budget = budget;
+    return copy;
+  }
+}
@@ -0,0 +1,240 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable set of minterm indices used by {@link Implicant}. Minterms are kept in a sorted
+ * {@code int} array, so an implicant with {@code k} don't cares takes {@code 2^k} ints no matter
+ * how big the truth table is. Union of two sets is a merge of their arrays and membership is a
+ * binary search, so combining implicants doesn't box a single index.
+ * <p>
+ * Set can be used wherever a {@code Set<Integer>} is expected, but its own methods with primitive
+ * arguments should be preferred in loops.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class MintermSet extends AbstractSet<Integer> {
+
+  /** Set without minterms. */
+  private static final MintermSet EMPTY = new MintermSet(new int[0]);
+
+  /** Sorted minterm indices, without duplicates. */
+  private final int[] minterms;
+
+  /**
+   * Constructor which takes ownership of the given sorted array.
+   *
+   * @param minterms sorted minterm indices without duplicates.
+   */
+  private MintermSet(int[] minterms) {
+    this.minterms = minterms;
+  }
+
+  /**
+   * Set with a single minterm.
+   *
+   * @param minterm minterm index.
+   * @return new set.
+   */
+  public static MintermSet of(int minterm) {
+    return new MintermSet(new int[] {minterm});
+  }
+
+  /**
+   * Set which takes ownership of the given array.
+   *
+   * @param minterms sorted minterm indices without duplicates.
+   * @return new set.
+   */
+  static MintermSet ofSorted(int[] minterms) {
+    return minterms.length == 0 ? EMPTY : new MintermSet(minterms);
+  }
+
+  /**
+   * Set with given minterms. Precondition: no argument can be null.
+   *
+   * @param minterms minterm indices in any order, duplicates are allowed.
+   * @return set of given minterms, or the same instance if it is already a {@link MintermSet}.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public static MintermSet copyOf(Set<Integer> minterms) {
+    if (minterms == null) {
+      throw new IllegalArgumentException("Precondition violation: minterms can't be null.");
+    }
+    if (minterms instanceof MintermSet) {
+      return (MintermSet) minterms;
+    }
+    if (minterms.isEmpty()) {
+      return EMPTY;
+    }
+
+    int[] indices = new int[minterms.size()];
+    int size = 0;
+    for (Integer minterm : minterms) {
+      indices[size++] = minterm;
+    }
+    Arrays.sort(indices);
+    return new MintermSet(indices);
+  }
+
+  /**
+   * Union of this and the other set.
+   *
+   * @param other other set.
+   * @return new set with minterms of both sets.
+   */
+  public MintermSet union(MintermSet other) {
+    int[] merged = new int[minterms.length + other.minterms.length];
+    int i = 0;
+    int j = 0;
+    int size = 0;
+
+    while (i < minterms.length && j < other.minterms.length) {
+      if (minterms[i] < other.minterms[j]) {
+        merged[size++] = minterms[i++];
+      } else if (minterms[i] > other.minterms[j]) {
+        merged[size++] = other.minterms[j++];
+      } else {
+        merged[size++] = minterms[i++];
+        j++;
+      }
+    }
+    while (i < minterms.length) {
+      merged[size++] = minterms[i++];
+    }
+    while (j < other.minterms.length) {
+      merged[size++] = other.minterms[j++];
+    }
+
+    return new MintermSet(size == merged.length ? merged : Arrays.copyOf(merged, size));
+  }
+
+  /**
+   * Checks if minterm is in the set.
+   *
+   * @param minterm minterm index.
+   * @return {@code true} if set contains the minterm.
+   */
+  public boolean contains(int minterm) {
+    return Arrays.binarySearch(minterms, minterm) >= 0;
+  }
+
+  /**
+   * Checks if every minterm of the other set is in this set.
+   *
+   * @param other other set.
+   * @return {@code true} if this set contains the other one.
+   */
+  public boolean containsAll(MintermSet other) {
+    if (other.minterms.length > minterms.length) {
+      return false;
+    }
+
+    int i = 0;
+    for (int minterm : other.minterms) {
+      while (i < minterms.length && minterms[i] < minterm) {
+        i++;
+      }
+      if (i == minterms.length || minterms[i] != minterm) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Minterm at the given position in ascending order.
+   *
+   * @param position position of minterm, from {@code 0} to {@code size() - 1}.
+   * @return minterm index.
+   */
+  public int get(int position) {
+    return minterms[position];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return minterms.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Integer && contains(((Integer) o).intValue());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean containsAll(Collection<?> c) {
+    if (c instanceof MintermSet) {
+      return containsAll((MintermSet) c);
+    }
+    return super.containsAll(c);
+  }
+
+  /**
+   * {@inheritDoc} Minterms are returned in ascending order.
+   */
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<Integer>() {
+      private int position;
+
+      @Override
+      public boolean hasNext() {
+        return position < minterms.length;
+      }
+
+      @Override
+      public Integer next() {
+        if (position == minterms.length) {
+          throw new NoSuchElementException();
+        }
+        return minterms[position++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("Minterm set is immutable.");
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    // Same as the hash code of any other set of integers.
+    int hash = 0;
+    for (int minterm : minterms) {
+      hash += minterm;
+    }
+    return hash;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof MintermSet) {
+      return Arrays.equals(minterms, ((MintermSet) obj).minterms);
+    }
+    return super.equals(obj);
+  }
+}
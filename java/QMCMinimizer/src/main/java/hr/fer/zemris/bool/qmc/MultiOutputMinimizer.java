@@ -0,0 +1,262 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Quine-McCluskey minimization of several functions over the same domain at once. Every implicant
+ * is tagged by the set of outputs in whose on set or don't care set it lies, and two implicants
+ * combine into one tagged by the outputs they have in common. Implicant is a multi-output prime if
+ * no combination keeps its whole tag. Primes are then chosen by a single covering problem whose
+ * rows are pairs of an output and its minterm, so a prime used by several outputs is paid for once.
+ * Chart of that problem is reduced like the single output one, and only its cyclic core is
+ * searched.
+ * <p>
+ * Tags are kept as bits of a {@code long}, so at most {@value #MAX_OUTPUTS} functions can be
+ * minimized together.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+class MultiOutputMinimizer {
+
+  /** Maximal number of functions minimized together. */
+  static final int MAX_OUTPUTS = 64;
+
+  /** Functions being minimized. */
+  private List<? extends BooleanFunction> functions;
+  /** Statistics to record combine attempts in. */
+  private MinimizationStatistics statistics;
+  /** For each implicant mask, bitset of outputs it can be used for. */
+  private Map<Mask, Long> tags = new HashMap<>();
+
+  /**
+   * Constructor for the minimizer. Preconditions:
+   * <ul>
+   * <li>There is at least one and at most {@value #MAX_OUTPUTS} functions.</li>
+   * <li>All functions have the same domain.</li>
+   * </ul>
+   *
+   * @param functions functions to minimize.
+   * @param statistics statistics to fill during minimization.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public MultiOutputMinimizer(List<? extends BooleanFunction> functions,
+      MinimizationStatistics statistics) {
+    if (!preconditionsMultiOutputMinimizer(functions)) {
+      throw new IllegalArgumentException("Precondition violation: between 1 and " + MAX_OUTPUTS
+          + " functions over the same domain are required.");
+    }
+
+    this.functions = functions;
+    this.statistics = statistics;
+  }
+
+  /** Precondition check for constructor. */
+  private static boolean preconditionsMultiOutputMinimizer(
+      List<? extends BooleanFunction> functions) {
+    if (functions == null || functions.isEmpty() || functions.size() > MAX_OUTPUTS) {
+      return false;
+    }
+    for (BooleanFunction bf : functions) {
+      if (!bf.getDomain().equals(functions.get(0).getDomain())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Minimizes the functions.
+   *
+   * @return one {@link MaskBasedBF} for each function, in the same order and with the same name.
+   *         Functions share masks wherever that makes the total number of masks smaller.
+   */
+  public MaskBasedBF[] minimize() {
+    List<Implicant> primes = new ArrayList<>();
+    ImplicantTable level = createPartitionTable();
+    while (!level.isEmpty()) {
+      level = toImplicantsStep(level, primes);
+    }
+
+    // Rows of the covering problem are pairs of output and one of its minterms.
+    List<Map<Integer, Integer>> rowsOfOutputs = new ArrayList<>();
+    int rowCount = 0;
+    for (BooleanFunction bf : functions) {
+      Map<Integer, Integer> rows = new HashMap<>();
+      for (Integer minterm : bf.mintermIterable()) {
+        rows.put(minterm, rowCount++);
+      }
+      rowsOfOutputs.add(rows);
+    }
+
+    PrimeImplicantChart chart = new PrimeImplicantChart(primes, rowCount);
+    for (int column = 0, columnCount = primes.size(); column < columnCount; column++) {
+      Implicant prime = primes.get(column);
+      long tag = tags.get(prime.getMask());
+      for (int output = 0; output < functions.size(); output++) {
+        if ((tag & (1L << output)) == 0) {
+          continue;
+        }
+        for (Integer minterm : prime.getMinterms()) {
+          Integer row = rowsOfOutputs.get(output).get(minterm);
+          if (row != null) {
+            chart.setCovers(column, row);
+          }
+        }
+      }
+    }
+
+    // Only one cover is needed, so dominated columns can go too. Branching is left for the core.
+    chart.reduce(true);
+    List<Implicant> cover = new ArrayList<>(chart.getEssentials());
+    if (!chart.isCoreEmpty()) {
+      cover.addAll(chart.getCoreCover().solve(false).get(0));
+    }
+
+    MaskBasedBF[] result = new MaskBasedBF[functions.size()];
+    for (int output = 0; output < functions.size(); output++) {
+      BooleanFunction bf = functions.get(output);
+      List<Mask> masks = new ArrayList<>();
+      for (Implicant implicant : cover) {
+        if (isUsedBy(implicant, output, rowsOfOutputs.get(output))) {
+          masks.add(implicant.getMask());
+        }
+      }
+      result[output] =
+          new MaskBasedBF(bf.getName(), bf.getDomain(), true, masks, new ArrayList<Mask>(), true);
+    }
+    return result;
+  }
+
+  /**
+   * Checks if the implicant can be used by the output and covers some of its minterms.
+   *
+   * @param implicant implicant to check.
+   * @param output position of the output.
+   * @param rows minterms of the output.
+   * @return {@code true} if implicant belongs to the output's cover.
+   */
+  private boolean isUsedBy(Implicant implicant, int output, Map<Integer, Integer> rows) {
+    if ((tags.get(implicant.getMask()) & (1L << output)) == 0) {
+      return false;
+    }
+    for (Integer minterm : implicant.getMinterms()) {
+      if (rows.containsKey(minterm)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Creates partition table of every index which is a minterm or don't care of some output. Each
+   * index is tagged by the outputs it belongs to.
+   *
+   * @return table of implicants, each holding a single index.
+   */
+  private ImplicantTable createPartitionTable() {
+    final int domainSize = functions.get(0).getDomain().size();
+    Map<Integer, Long> indexTags = new HashMap<>();
+
+    for (int output = 0; output < functions.size(); output++) {
+      BooleanFunction bf = functions.get(output);
+      addTag(indexTags, bf.mintermIterable(), output);
+      addTag(indexTags, bf.dontcareIterable(), output);
+    }
+
+    ImplicantTable partitionTable = new ImplicantTable();
+    for (Entry<Integer, Long> entry : indexTags.entrySet()) {
+      final Mask mask = Mask.fromIndex(domainSize, entry.getKey());
+      tags.put(mask, entry.getValue());
+      partitionTable.add(new Implicant(MintermSet.of(entry.getKey()), mask));
+    }
+    return partitionTable;
+  }
+
+  /** Adds output to the tags of all given indices. */
+  private static void addTag(Map<Integer, Long> indexTags, Iterable<Integer> indices, int output) {
+    for (Integer index : indices) {
+      Long tag = indexTags.get(index);
+      indexTags.put(index, (tag == null ? 0L : tag) | (1L << output));
+    }
+  }
+
+  /**
+   * Combines implicants of adjacent groups. Combination is tagged by the outputs both implicants
+   * have in common, and is dropped if there are none. Implicant is prime if no combination keeps
+   * all of its outputs.
+   *
+   * @param level implicants to combine, grouped by don't care pattern and number of ones.
+   * @param primes list to which primes are added.
+   * @return next level of implicants.
+   */
+  private ImplicantTable toImplicantsStep(ImplicantTable level, List<Implicant> primes) {
+    ImplicantTable combinations = new ImplicantTable();
+    Set<Implicant> covered = Collections.newSetFromMap(new IdentityHashMap<Implicant, Boolean>());
+    long attempts = 0;
+    long successes = 0;
+
+    for (Mask pattern : level.getDontCarePatterns()) {
+      SortedMap<Integer, Set<Implicant>> groups = level.getGroups(pattern);
+
+      for (Entry<Integer, Set<Implicant>> entry : groups.entrySet()) {
+        Set<Implicant> upperGroup = groups.get(entry.getKey() + 1);
+        if (upperGroup == null) {
+          continue;
+        }
+
+        for (Implicant lowerImplicant : entry.getValue()) {
+          final long lowerTag = tags.get(lowerImplicant.getMask());
+          for (Implicant upperImplicant : upperGroup) {
+            attempts++;
+            final long upperTag = tags.get(upperImplicant.getMask());
+            final long tag = lowerTag & upperTag;
+            if (tag == 0) {
+              continue;
+            }
+            Mask maskCombo = Mask.combine(lowerImplicant.getMask(), upperImplicant.getMask());
+            if (maskCombo == null) {
+              continue;
+            }
+
+            successes++;
+            MintermSet mintermsCombo =
+                lowerImplicant.getMinterms().union(upperImplicant.getMinterms());
+            tags.put(maskCombo, tag);
+            combinations.add(new Implicant(mintermsCombo, maskCombo));
+            if (tag == lowerTag) {
+              covered.add(lowerImplicant);
+            }
+            if (tag == upperTag) {
+              covered.add(upperImplicant);
+            }
+          }
+        }
+      }
+
+      for (Set<Implicant> group : groups.values()) {
+        for (Implicant implicant : group) {
+          if (!covered.contains(implicant)) {
+            primes.add(implicant);
+          }
+        }
+      }
+    }
+
+    statistics.addCombines(attempts, successes);
+    return combinations;
+  }
+}
@@ -0,0 +1,392 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prime implicant chart used for choosing the minimal set of prime implicants. Rows of the chart
+ * are minterms which have to be covered and columns are prime implicants. Prime implicants are
+ * identified by their position in the list given to the constructor.
+ * <p>
+ * Before the chart is given to Petrick's method it is reduced. Essential primes are taken out
+ * together with the minterms they cover, and dominating rows are removed. Optionally, dominated
+ * columns are removed too. Reduction is repeated until the chart stops changing, and what remains
+ * is the cyclic core of the chart.
+ * </p>
+ * <p>
+ * Rows and columns are kept as bitsets in {@code long} arrays, so dominance between two of them is
+ * checked a word at a time. Row of a minterm is its position in the sorted array of minterms.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+class PrimeImplicantChart {
+
+  /** Prime implicants, columns of the chart. */
+  private List<Implicant> primes;
+  /** Minterms of the rows, sorted. */
+  private int[] rowMinterms;
+  /** For each row, positions of primes which cover it, or {@code null} if row was removed. */
+  private long[][] rows;
+  /** For each column, rows it covers, or {@code null} if column was removed. */
+  private long[][] columns;
+  /** Rows which remain in the chart. */
+  private long[] remainingRows;
+  /** Columns which remain in the chart. */
+  private long[] remainingColumns;
+  /** Positions of primes found to be essential. */
+  private List<Integer> essentials = new ArrayList<>();
+
+  /**
+   * Constructor for the chart.
+   *
+   * @param primes prime implicants, both minterm and don't care ones.
+   * @param minterms minterms of the function which have to be covered.
+   */
+  public PrimeImplicantChart(List<Implicant> primes, Iterable<Integer> minterms) {
+    this(primes, sortedMinterms(minterms));
+
+    for (int column = 0, columnCount = primes.size(); column < columnCount; column++) {
+      MintermSet covered = primes.get(column).getMinterms();
+      for (int i = 0, size = covered.size(); i < size; i++) {
+        int row = Arrays.binarySearch(rowMinterms, covered.get(i));
+        if (row >= 0) {
+          setCovers(column, row);
+        }
+      }
+    }
+  }
+
+  /**
+   * Constructor for an empty chart with given columns and number of rows. Which rows are covered by
+   * which column is then set by {@link #setCovers(int, int)}. Rows stand for themselves, so
+   * {@link #getCoreMinterms()} returns positions of the remaining rows.
+   *
+   * @param primes primes which can be used in cover.
+   * @param rowCount number of rows which have to be covered.
+   */
+  public PrimeImplicantChart(List<Implicant> primes, int rowCount) {
+    this(primes, positions(rowCount));
+  }
+
+  /**
+   * Constructor for a chart without covered rows.
+   *
+   * @param primes columns of the chart.
+   * @param rowMinterms minterms of the rows, sorted.
+   */
+  private PrimeImplicantChart(List<Implicant> primes, int[] rowMinterms) {
+    this.primes = primes;
+    this.rowMinterms = rowMinterms;
+
+    final int rowCount = rowMinterms.length;
+    final int columnCount = primes.size();
+    rows = new long[rowCount][Bitsets.words(columnCount)];
+    columns = new long[columnCount][Bitsets.words(rowCount)];
+    remainingRows = new long[Bitsets.words(rowCount)];
+    remainingColumns = new long[Bitsets.words(columnCount)];
+    for (int row = 0; row < rowCount; row++) {
+      Bitsets.set(remainingRows, row);
+    }
+  }
+
+  /** Minterms in a sorted array. */
+  private static int[] sortedMinterms(Iterable<Integer> minterms) {
+    List<Integer> mintermList = new ArrayList<>();
+    for (Integer minterm : minterms) {
+      mintermList.add(minterm);
+    }
+    int[] sorted = new int[mintermList.size()];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = mintermList.get(i);
+    }
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /** Array of positions from zero to the given count. */
+  private static int[] positions(int count) {
+    int[] positions = new int[count];
+    for (int i = 0; i < count; i++) {
+      positions[i] = i;
+    }
+    return positions;
+  }
+
+  /**
+   * Marks that prime in the given column covers the given row. Chart must not be reduced yet.
+   *
+   * @param column position of prime.
+   * @param row position of row.
+   */
+  public void setCovers(int column, int row) {
+    Bitsets.set(rows[row], column);
+    Bitsets.set(columns[column], row);
+    Bitsets.set(remainingColumns, column);
+  }
+
+  /**
+   * Reduces the chart to its cyclic core. Row dominance and essential prime extraction keep every
+   * minimal cover of the chart. Column dominance keeps at least one minimal cover, but can drop the
+   * other ones, so it should be used only when a single minimal cover is needed.
+   *
+   * @param columnDominance whether dominated columns should be removed.
+   */
+  public void reduce(boolean columnDominance) {
+    boolean changed = true;
+
+    while (changed) {
+      changed = extractEssentials();
+      changed |= removeDominatingRows();
+      if (columnDominance) {
+        changed |= removeDominatedColumns();
+      }
+    }
+  }
+
+  /**
+   * Every prime which is the only one covering some minterm is essential. It is taken out of the
+   * chart together with all minterms it covers.
+   *
+   * @return {@code true} if chart changed.
+   */
+  private boolean extractEssentials() {
+    boolean changed = false;
+
+    // Selection only removes rows, so rows after the current one are still valid.
+    for (int row = Bitsets.nextSet(remainingRows, 0); row >= 0;
+        row = Bitsets.nextSet(remainingRows, row + 1)) {
+      if (Bitsets.count(rows[row]) == 1) {
+        selectColumn(Bitsets.nextSet(rows[row], 0));
+        changed = true;
+      }
+    }
+
+    return changed;
+  }
+
+  /**
+   * Puts prime in the cover, and removes it and all the minterms it covers from the chart.
+   *
+   * @param column position of the prime.
+   */
+  private void selectColumn(int column) {
+    essentials.add(column);
+
+    long[] covered = columns[column];
+    removeColumn(column);
+    for (int row = Bitsets.nextSet(covered, 0); row >= 0; row = Bitsets.nextSet(covered, row + 1)) {
+      removeRow(row);
+    }
+  }
+
+  /**
+   * Minterm whose row contains all the primes of some other row is covered whenever the other one
+   * is, so it is removed.
+   *
+   * @return {@code true} if chart changed.
+   */
+  private boolean removeDominatingRows() {
+    List<Integer> dominating = findRedundant(rows, remainingRows, true);
+
+    for (Integer row : dominating) {
+      removeRow(row);
+    }
+
+    return !dominating.isEmpty();
+  }
+
+  /**
+   * Prime whose column is contained in some other column can be replaced by that other prime
+   * without making cover bigger, so it is removed.
+   *
+   * @return {@code true} if chart changed.
+   */
+  private boolean removeDominatedColumns() {
+    List<Integer> dominated = findRedundant(columns, remainingColumns, false);
+
+    for (Integer column : dominated) {
+      long[] covered = columns[column];
+      removeColumn(column);
+      for (int row = Bitsets.nextSet(covered, 0); row >= 0;
+          row = Bitsets.nextSet(covered, row + 1)) {
+        Bitsets.clear(rows[row], column);
+      }
+    }
+
+    return !dominated.isEmpty();
+  }
+
+  /**
+   * Removes the row and clears it from the columns covering it. Columns left without rows are
+   * removed too.
+   *
+   * @param row position of the row.
+   */
+  private void removeRow(int row) {
+    long[] covering = rows[row];
+    rows[row] = null;
+    Bitsets.clear(remainingRows, row);
+
+    for (int column = Bitsets.nextSet(covering, 0); column >= 0;
+        column = Bitsets.nextSet(covering, column + 1)) {
+      if (columns[column] != null) {
+        Bitsets.clear(columns[column], row);
+        if (Bitsets.isEmpty(columns[column])) {
+          removeColumn(column);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the column without touching the rows.
+   *
+   * @param column position of the column.
+   */
+  private void removeColumn(int column) {
+    columns[column] = null;
+    Bitsets.clear(remainingColumns, column);
+  }
+
+  /**
+   * Finds positions whose sets contain (or are contained in) the set of some other position. Of two
+   * equal sets only one is reported, so one of them always stays.
+   *
+   * @param table sets to search.
+   * @param remaining positions of the sets which are still in the chart.
+   * @param supersets {@code true} to look for sets containing other sets, {@code false} to look for
+   *        sets contained in other sets.
+   * @return positions of the redundant sets.
+   */
+  private static List<Integer> findRedundant(long[][] table, long[] remaining, boolean supersets) {
+    List<Integer> redundant = new ArrayList<>();
+    long[] candidates = remaining.clone();
+    int[] counts = new int[table.length];
+    for (int i = Bitsets.nextSet(remaining, 0); i >= 0; i = Bitsets.nextSet(remaining, i + 1)) {
+      counts[i] = Bitsets.count(table[i]);
+    }
+
+    for (int i = Bitsets.nextSet(remaining, 0); i >= 0; i = Bitsets.nextSet(remaining, i + 1)) {
+      // Sets already found redundant are not compared with, so that of equal sets one stays.
+      for (int j = Bitsets.nextSet(candidates, 0); j >= 0; j = Bitsets.nextSet(candidates, j + 1)) {
+        if (i == j) {
+          continue;
+        }
+
+        boolean isRedundant =
+            supersets ? isDominated(table[j], table[i], counts[j], counts[i], j, i) : isDominated(
+                table[i], table[j], counts[i], counts[j], i, j);
+        if (isRedundant) {
+          redundant.add(i);
+          Bitsets.clear(candidates, i);
+          break;
+        }
+      }
+    }
+
+    return redundant;
+  }
+
+  /**
+   * Checks if the first set is contained in the second one. For equal sets, the one with bigger
+   * position is considered contained, so that exactly one of them is removed.
+   *
+   * @param first first set.
+   * @param second second set.
+   * @param firstCount number of elements of the first set.
+   * @param secondCount number of elements of the second set.
+   * @param firstPosition position of the first set.
+   * @param secondPosition position of the second set.
+   * @return {@code true} if first set is dominated by the second.
+   */
+  private static boolean isDominated(long[] first, long[] second, int firstCount, int secondCount,
+      int firstPosition, int secondPosition) {
+    if (firstCount > secondCount || !Bitsets.isSubset(first, second)) {
+      return false;
+    }
+    return firstCount < secondCount || firstPosition > secondPosition;
+  }
+
+  /**
+   * Essential primes found during reduction.
+   *
+   * @return list of essential prime implicants.
+   */
+  public List<Implicant> getEssentials() {
+    List<Implicant> essentialPrimes = new ArrayList<>();
+    for (Integer column : essentials) {
+      essentialPrimes.add(primes.get(column));
+    }
+    return essentialPrimes;
+  }
+
+  /**
+   * Primes which remain in the cyclic core of the chart.
+   *
+   * @return list of core prime implicants.
+   */
+  public List<Implicant> getCorePrimes() {
+    List<Implicant> corePrimes = new ArrayList<>();
+    for (int column = Bitsets.nextSet(remainingColumns, 0); column >= 0;
+        column = Bitsets.nextSet(remainingColumns, column + 1)) {
+      corePrimes.add(primes.get(column));
+    }
+    return corePrimes;
+  }
+
+  /**
+   * Minterms which remain in the cyclic core of the chart.
+   *
+   * @return set of core minterms.
+   */
+  public Set<Integer> getCoreMinterms() {
+    Set<Integer> coreMinterms = new LinkedHashSet<>();
+    for (int row = Bitsets.nextSet(remainingRows, 0); row >= 0;
+        row = Bitsets.nextSet(remainingRows, row + 1)) {
+      coreMinterms.add(rowMinterms[row]);
+    }
+    return Collections.unmodifiableSet(coreMinterms);
+  }
+
+  /**
+   * Covering problem of the cyclic core. Its columns are {@link #getCorePrimes()} and its rows are
+   * the remaining rows, both in the same order as here.
+   *
+   * @return solver for the cyclic core.
+   */
+  public BranchAndBoundCover getCoreCover() {
+    int[] coreRows = new int[rows.length];
+    int coreRowCount = 0;
+    for (int row = Bitsets.nextSet(remainingRows, 0); row >= 0;
+        row = Bitsets.nextSet(remainingRows, row + 1)) {
+      coreRows[row] = coreRowCount++;
+    }
+
+    BranchAndBoundCover cover = new BranchAndBoundCover(getCorePrimes(), coreRowCount);
+    int coreColumn = 0;
+    for (int column = Bitsets.nextSet(remainingColumns, 0); column >= 0;
+        column = Bitsets.nextSet(remainingColumns, column + 1), coreColumn++) {
+      long[] covered = columns[column];
+      for (int row = Bitsets.nextSet(covered, 0); row >= 0;
+          row = Bitsets.nextSet(covered, row + 1)) {
+        cover.setCovers(coreColumn, coreRows[row]);
+      }
+    }
+    return cover;
+  }
+
+  /**
+   * Checks if reduction covered all of the minterms.
+   *
+   * @return {@code true} if cyclic core is empty.
+   */
+  public boolean isCoreEmpty() {
+    return Bitsets.isEmpty(remainingRows);
+  }
+}
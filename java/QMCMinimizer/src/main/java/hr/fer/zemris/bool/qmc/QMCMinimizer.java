@@ -4,18 +4,21 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 
 import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanVariable;
 import hr.fer.zemris.bool.Mask;
 import hr.fer.zemris.bool.fimpl.MaskBasedBF;
-import hr.fer.zemris.bool.qmc.symbolic.Symbol;
-import hr.fer.zemris.bool.qmc.symbolic.SymbolicConjunction;
-import hr.fer.zemris.bool.qmc.symbolic.SymbolicDisjunction;
-import hr.fer.zemris.bool.qmc.symbolic.SymbolicExpression;
 
 /**
  * Class used for minimization of boolean functions which are defined by {@link BooleanFunction}
@@ -30,6 +33,13 @@ import hr.fer.zemris.bool.qmc.symbolic.SymbolicExpression;
  */
 public class QMCMinimizer {
 
+  /**
+   * Pools used for parallel generation of prime implicants, one for every parallelism level. They
+   * are created on first use and shared by all minimizations, so threads are not started anew for
+   * every call. Worker threads are daemons, so pools don't keep the virtual machine alive.
+   */
+  private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
   private QMCMinimizer() {}
 
   /**
@@ -40,45 +50,318 @@ public class QMCMinimizer {
    *         minimized function.
    */
   public static MaskBasedBF[] minimize(BooleanFunction bf) {
-    // From table extract minterm and dontcare rows.
-    // Transform rows to masks.
-    // Create table partitioned by the number of ones (these can be combined among themselves).
-    Map<Integer, Set<Implicant>> partitionTable = createPartitionTable(bf);
-    // Combine combinable masks until none resulting masks can combine.
-    // Construct essential prime implicant table.
-
-    Set<Implicant> implicants = partitionToImplicantTable(partitionTable);
-    int index = 0;
-    for (Implicant implicant : implicants) {
-      implicant.setAlias("P" + index);
-      index++;
-    }
+    return minimize(bf, new MinimizationStatistics());
+  }
 
-    Map<Integer, ArrayList<String>> mintermSymbols = new HashMap<>();
-    for (Integer minterm : bf.mintermIterable()) {
-      mintermSymbols.put(minterm, new ArrayList<String>());
-    }
+  /**
+   * This method minimizes the given function using the Quine-McCluskey algorithm and records how
+   * much work was done in the given statistics.
+   * 
+   * @param bf boolean function to minimize.
+   * @param statistics statistics to fill during minimization.
+   * @return array of {@link MaskBasedBF} instances where each instance represents a minterm of the
+   *         minimized function.
+   */
+  public static MaskBasedBF[] minimize(BooleanFunction bf, MinimizationStatistics statistics) {
+    return minimize(bf, new MinimizerOptions(), statistics);
+  }
 
-    // Do the Pyne-McCluskey minimization.
-    List<MaskBasedBF> maskFunctions = new ArrayList<>();
-    for (SymbolicExpression expr : pyne(implicants, mintermSymbols)) {
-      List<Mask> masksForFunction = new ArrayList<>();
+  /**
+   * This method minimizes the given function using the Quine-McCluskey algorithm with given
+   * options.
+   * 
+   * @param bf boolean function to minimize.
+   * @param options options which control the minimization.
+   * @return array of {@link MaskBasedBF} instances where each instance represents a minterm of the
+   *         minimized function.
+   */
+  public static MaskBasedBF[] minimize(BooleanFunction bf, MinimizerOptions options) {
+    return minimize(bf, options, new MinimizationStatistics());
+  }
 
-      // Get masks for resulting minimization.
-      for (SymbolicExpression symbol : expr.getOperands()) {
-        masksForFunction.add(Implicant.getMaskByAlias(implicants, symbol.toString()));
+  /**
+   * This method minimizes the given function using the Quine-McCluskey algorithm with given
+   * options and records how much work was done in the given statistics. If options have a
+   * {@link MinimizationBudget} which runs out, minimization stops early and returns a valid cover
+   * which is not necessarily minimal, see {@link MinimizationStatistics#isProvenMinimal()}. Such
+   * covers are never cached.
+   * 
+   * @param bf boolean function to minimize.
+   * @param options options which control the minimization.
+   * @param statistics statistics to fill during minimization.
+   * @return array of {@link MaskBasedBF} instances where each instance represents a minterm of the
+   *         minimized function.
+   */
+  public static MaskBasedBF[] minimize(BooleanFunction bf, MinimizerOptions options,
+      MinimizationStatistics statistics) {
+    List<List<Mask>> covers = null;
+    MinimizationCache cache = options.getCache();
+    MinimizationCache.Lookup lookup = null;
+    if (cache != null) {
+      final long start = startPhase(MinimizationPhase.CACHE_LOOKUP, options, statistics);
+      lookup = cache.lookup(bf, options);
+      if (lookup != null) {
+        covers = cache.get(lookup);
+      }
+      finishPhase(MinimizationPhase.CACHE_LOOKUP, start, options, statistics);
+    }
+    if (covers == null) {
+      covers = minimalCovers(bf, options, statistics);
+      if (lookup != null && statistics.isProvenMinimal()) {
+        cache.put(lookup, covers);
       }
+    }
+    return functionsOf(covers, bf.getDomain(), options, statistics);
+  }
+
+  /**
+   * Functions of the covers. Functions are lazy, so that they keep only the masks.
+   * 
+   * @param covers covers, each being a list of masks.
+   * @param domain domain of the functions.
+   * @param options options with the listener.
+   * @param statistics statistics to fill.
+   * @return array with one {@link MaskBasedBF} instance for every cover.
+   */
+  static MaskBasedBF[] functionsOf(List<List<Mask>> covers, List<BooleanVariable> domain,
+      MinimizerOptions options, MinimizationStatistics statistics) {
+    statistics.setCoverCount(covers.size());
 
-      // Generate functions.
+    final long start = startPhase(MinimizationPhase.RESULT_BUILDING, options, statistics);
+    List<MaskBasedBF> maskFunctions = new ArrayList<>();
+    for (List<Mask> masksForFunction : covers) {
       MaskBasedBF func =
-          new MaskBasedBF("f" + maskFunctions.size(), bf.getDomain(), true, masksForFunction,
-              new ArrayList<Mask>());
+          new MaskBasedBF("f" + maskFunctions.size(), domain, true, masksForFunction,
+              new ArrayList<Mask>(), true);
       maskFunctions.add(func);
     }
+    finishPhase(MinimizationPhase.RESULT_BUILDING, start, options, statistics);
 
     return (MaskBasedBF[]) maskFunctions.toArray(new MaskBasedBF[maskFunctions.size()]);
   }
 
+  /**
+   * Minimal covers of the function, computed by the Quine-McCluskey algorithm. If the budget
+   * runs out while implicants are combined, implicants of the current level are used as if they
+   * were primes. If it runs out before the exact cover is found, best cover found so far is
+   * returned, or essential primes completed by a greedy cover of the cyclic core.
+   * 
+   * @param bf boolean function to minimize.
+   * @param options options which control the minimization.
+   * @param statistics statistics to fill during minimization.
+   * @return list of minimal covers, each being a list of masks.
+   */
+  private static List<List<Mask>> minimalCovers(BooleanFunction bf, MinimizerOptions options,
+      MinimizationStatistics statistics) {
+    return coversOf(primeImplicants(bf, options, statistics), bf.mintermIterable(), options,
+        statistics);
+  }
+
+  /**
+   * Prime implicants of the function, generated by combining implicants or implicitly, as the
+   * options say. If the budget runs out while implicants are combined, implicants of the current
+   * level are returned with the primes found so far.
+   * 
+   * @param bf boolean function to minimize.
+   * @param options options which control the minimization.
+   * @param statistics statistics to fill during minimization.
+   * @return list of prime implicants.
+   */
+  static List<Implicant> primeImplicants(BooleanFunction bf, MinimizerOptions options,
+      MinimizationStatistics statistics) {
+    final long start = startPhase(MinimizationPhase.PRIME_GENERATION, options, statistics);
+    List<Implicant> implicants;
+    if (options.isImplicitPrimes()) {
+      // Primes come straight from the decision diagrams of the function.
+      statistics.setRowCounts(count(bf.mintermIterable()), count(bf.dontcareIterable()));
+      implicants = ImplicitPrimes.generate(bf);
+    } else {
+      // From table extract minterm and dontcare rows.
+      // Transform rows to masks.
+      // Create table partitioned by the number of ones (these can be combined among themselves).
+      ImplicantTable partitionTable = createPartitionTable(bf, statistics);
+      // Combine combinable masks until none resulting masks can combine.
+      // Construct essential prime implicant table.
+      implicants = new ArrayList<>(partitionToImplicantTable(partitionTable, options, statistics));
+    }
+    statistics.setPrimeCount(implicants.size());
+    if (isExhausted(options.getBudget())) {
+      statistics.setProvenMinimal(false);
+    }
+    finishPhase(MinimizationPhase.PRIME_GENERATION, start, options, statistics);
+    return implicants;
+  }
+
+  /**
+   * Minimal covers of the minterms by the prime implicants. If the budget runs out before the
+   * exact cover is found, best cover found so far is returned, or essential primes completed by a
+   * greedy cover of the cyclic core.
+   * 
+   * @param implicants prime implicants.
+   * @param minterms minterms to cover.
+   * @param options options which control the covering.
+   * @param statistics statistics to fill during minimization.
+   * @return list of minimal covers, each being a list of masks.
+   */
+  static List<List<Mask>> coversOf(List<Implicant> implicants, Iterable<Integer> minterms,
+      MinimizerOptions options, MinimizationStatistics statistics) {
+    final MinimizationBudget budget = options.getBudget();
+
+    // Take out essential primes and reduce the chart to its cyclic core.
+    long start = startPhase(MinimizationPhase.CHART_REDUCTION, options, statistics);
+    PrimeImplicantChart chart = new PrimeImplicantChart(implicants, minterms);
+    chart.reduce(!options.isAllMinimalCovers());
+
+    List<Mask> essentialMasks = new ArrayList<>();
+    for (Implicant essential : chart.getEssentials()) {
+      essentialMasks.add(essential.getMask());
+    }
+    finishPhase(MinimizationPhase.CHART_REDUCTION, start, options, statistics);
+
+    start = startPhase(MinimizationPhase.COVERING, options, statistics);
+    List<List<Mask>> covers = new ArrayList<>();
+    if (chart.isCoreEmpty()) {
+      covers.add(essentialMasks);
+    } else if (isExhausted(budget)) {
+      // No time left for the exact cover.
+    } else if (options.getCoveringStrategy() == CoveringStrategy.BRANCH_AND_BOUND) {
+      BranchAndBoundCover solver =
+          new BranchAndBoundCover(chart.getCorePrimes(), chart.getCoreMinterms());
+
+      for (List<Implicant> cover : solver.solve(options.isAllMinimalCovers(), budget)) {
+        List<Mask> masksForFunction = new ArrayList<>(essentialMasks);
+        for (Implicant implicant : cover) {
+          masksForFunction.add(implicant.getMask());
+        }
+        covers.add(masksForFunction);
+
+        if (solver.isStopped()) {
+          // Only the best cover found so far is returned, since it may not be minimal.
+          statistics.setProvenMinimal(false);
+          break;
+        }
+      }
+    } else {
+      List<Implicant> corePrimes = chart.getCorePrimes();
+      Mask[] masksById = new Mask[corePrimes.size()];
+      for (int id = 0; id < masksById.length; id++) {
+        corePrimes.get(id).setId(id);
+        masksById[id] = corePrimes.get(id).getMask();
+      }
+
+      // Do the Pyne-McCluskey minimization on the cyclic core only.
+      List<long[]> products = pyne(corePrimes, chart.getCoreMinterms(), budget, statistics);
+      for (long[] product : products == null ? new ArrayList<long[]>() : products) {
+        List<Mask> masksForFunction = new ArrayList<>(essentialMasks);
+
+        // Get masks for resulting minimization.
+        for (int id = Bitsets.nextSet(product, 0); id >= 0; id = Bitsets.nextSet(product, id + 1)) {
+          masksForFunction.add(masksById[id]);
+        }
+        covers.add(masksForFunction);
+
+        if (!options.isAllMinimalCovers()) {
+          break;
+        }
+      }
+    }
+
+    if (covers.isEmpty() && !chart.isCoreEmpty()) {
+      // Budget ran out before any cover of the core was found, so the core is covered greedily.
+      statistics.setProvenMinimal(false);
+      List<Mask> masksForFunction = new ArrayList<>(essentialMasks);
+      for (Implicant implicant : new BranchAndBoundCover(chart.getCorePrimes(),
+          chart.getCoreMinterms()).greedyCover()) {
+        masksForFunction.add(implicant.getMask());
+      }
+      covers.add(masksForFunction);
+    }
+    finishPhase(MinimizationPhase.COVERING, start, options, statistics);
+
+    return covers;
+  }
+
+  /**
+   * Notifies the listener, if there is one, that the phase starts.
+   *
+   * @param phase phase which starts.
+   * @param options options with the listener.
+   * @param statistics statistics of the minimization.
+   * @return start time of the phase, as given by {@link System#nanoTime()}.
+   */
+  private static long startPhase(MinimizationPhase phase, MinimizerOptions options,
+      MinimizationStatistics statistics) {
+    MinimizationListener listener = options.getListener();
+    if (listener != null) {
+      listener.phaseStarted(phase, statistics);
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Records wall time of the phase and notifies the listener, if there is one, that it finished.
+   *
+   * @param phase phase which finished.
+   * @param start start time of the phase.
+   * @param options options with the listener.
+   * @param statistics statistics of the minimization.
+   */
+  private static void finishPhase(MinimizationPhase phase, long start, MinimizerOptions options,
+      MinimizationStatistics statistics) {
+    final long nanos = System.nanoTime() - start;
+    statistics.addPhaseNanos(phase, nanos);
+    MinimizationListener listener = options.getListener();
+    if (listener != null) {
+      listener.phaseFinished(phase, nanos, statistics);
+    }
+  }
+
+  /** Checks if the budget exists and has run out. */
+  private static boolean isExhausted(MinimizationBudget budget) {
+    return budget != null && budget.isExhausted();
+  }
+
+  /** Number of rows of the iterable. */
+  private static long count(Iterable<Integer> rows) {
+    long count = 0;
+    for (Iterator<Integer> iterator = rows.iterator(); iterator.hasNext(); iterator.next()) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * This method minimizes several functions over the same domain together. Prime implicants are
+   * generated once for all of the functions, and a mask which serves more than one function is
+   * shared between them, so the total number of distinct masks is minimal.
+   *
+   * @param functions functions to minimize, at most 64 of them, all over the same domain.
+   * @return array with one {@link MaskBasedBF} instance for each of the given functions, in the
+   *         same order and with the same names.
+   * @throws IllegalArgumentException if functions are not over the same domain or there are too
+   *         many of them.
+   */
+  public static MaskBasedBF[] minimize(List<? extends BooleanFunction> functions) {
+    return minimize(functions, new MinimizationStatistics());
+  }
+
+  /**
+   * This method minimizes several functions over the same domain together and records how much
+   * work was done in the given statistics.
+   *
+   * @param functions functions to minimize, at most 64 of them, all over the same domain.
+   * @param statistics statistics to fill during minimization.
+   * @return array with one {@link MaskBasedBF} instance for each of the given functions, in the
+   *         same order and with the same names.
+   * @throws IllegalArgumentException if functions are not over the same domain or there are too
+   *         many of them.
+   * @see MultiOutputMinimizer
+   */
+  public static MaskBasedBF[] minimize(List<? extends BooleanFunction> functions,
+      MinimizationStatistics statistics) {
+    return new MultiOutputMinimizer(functions, statistics).minimize();
+  }
+
   /**
    * For a given {@link BooleanFunction}, this method creates a partitioning table. It is called
    * partitioning table because the entries are partitioned by some parameter. In this case that
@@ -86,15 +369,19 @@ public class QMCMinimizer {
    * cares to the masks.
    * 
    * @param bf function for which the table is created.
-   * @return map of integers which represent number of ones in the masks stored in the corresponding
-   *         implicants.
+   * @param statistics statistics to record number of rows in.
+   * @return table of implicants, each holding a single minterm or don't care.
    */
-  private static Map<Integer, Set<Implicant>> createPartitionTable(BooleanFunction bf) {
+  private static ImplicantTable createPartitionTable(BooleanFunction bf,
+      MinimizationStatistics statistics) {
     final int domainSize = bf.getDomain().size();
-    Map<Integer, Set<Implicant>> partitionTable = new HashMap<>(domainSize);
+    ImplicantTable partitionTable = new ImplicantTable();
 
-    createPartitionTableHelper(bf.mintermIterable(), partitionTable, domainSize);
-    createPartitionTableHelper(bf.dontcareIterable(), partitionTable, domainSize);
+    final int minterms =
+        createPartitionTableHelper(bf.mintermIterable(), partitionTable, domainSize);
+    final int dontCares =
+        createPartitionTableHelper(bf.dontcareIterable(), partitionTable, domainSize);
+    statistics.setRowCounts(minterms, dontCares);
 
     return partitionTable;
   }
@@ -105,22 +392,17 @@ public class QMCMinimizer {
    * @param indices {@link Iterable}, indices of minterms, dontcares, maxterms...
    * @param partitionTable existing partition table to build upon.
    * @param domainSize size of the domain, used for mask creation.
+   * @return number of indices.
    */
-  private static void createPartitionTableHelper(Iterable<Integer> indices,
-      Map<Integer, Set<Implicant>> partitionTable, int domainSize) {
-
+  private static int createPartitionTableHelper(Iterable<Integer> indices,
+      ImplicantTable partitionTable, int domainSize) {
+    int count = 0;
     for (Integer index : indices) {
       final Mask row = Mask.fromIndex(domainSize, index);
-      final Integer oneCount = row.getNumberOfOnes();
-
-      if (partitionTable.containsKey(oneCount)) {
-        partitionTable.get(oneCount).add(new Implicant(Collections.singleton(index), row));
-      } else {
-        Set<Implicant> entry = new HashSet<Implicant>();
-        entry.add(new Implicant(Collections.singleton(index), row));
-        partitionTable.put(oneCount, entry);
-      }
+      partitionTable.add(new Implicant(MintermSet.of(index), row));
+      count++;
     }
+    return count;
   }
 
   /**
@@ -129,52 +411,105 @@ public class QMCMinimizer {
    * can be combined). Their {@link Mask} instances are combined and a set of minterms which were
    * used in some combination are also stored in {@link Implicant} class instance. At the end, table
    * is consisting of implicants which can't combine any more. Remaining implicants are prime
-   * implicants.
+   * implicants. If the budget runs out, implicants of the level which was being combined are
+   * returned together with the primes found so far. They still cover every minterm, but are not
+   * all prime.
    * 
    * @param partitionTable partition table of minterms (and don't cares).
+   * @param options options which determine if levels are combined in parallel, and the budget.
+   * @param statistics statistics to record combine attempts in.
    * @return Set of implicants.
    */
-  private static Set<Implicant> partitionToImplicantTable(
-      Map<Integer, Set<Implicant>> partitionTable) {
-    Set<Implicant> startImplicants = new HashSet<>();
-    for (Integer oneCount : partitionTable.keySet()) {
-      startImplicants.addAll(initImplicantTable(oneCount, partitionTable));
+  private static Set<Implicant> partitionToImplicantTable(ImplicantTable partitionTable,
+      MinimizerOptions options, MinimizationStatistics statistics) {
+    Set<Implicant> primes = new HashSet<>();
+    ForkJoinPool pool = null;
+    if (options.getParallelism() > 1) {
+      pool = sharedPool(options.getParallelism());
+    }
+
+    final MinimizationBudget budget = options.getBudget();
+    ImplicantTable level = partitionTable;
+    while (!level.isEmpty()) {
+      statistics.addLevelSize(level.size());
+      ImplicantTable nextLevel = null;
+      if (isExhausted(budget)) {
+        // Level is not combined at all.
+      } else if (pool == null) {
+        nextLevel = toImplicantsStep(level, primes, budget, statistics);
+      } else {
+        nextLevel = toImplicantsStepParallel(level, primes, pool, statistics);
+      }
+
+      if (nextLevel == null) {
+        for (Mask pattern : level.getDontCarePatterns()) {
+          for (Set<Implicant> group : level.getGroups(pattern).values()) {
+            primes.addAll(group);
+          }
+        }
+        break;
+      }
+      level = nextLevel;
     }
 
-    return toImplicantsStep(startImplicants);
+    return primes;
+  }
+
+  /**
+   * Pool for the given parallelism level, created on the first request for it.
+   *
+   * @param parallelism parallelism level.
+   * @return shared pool.
+   */
+  private static ForkJoinPool sharedPool(int parallelism) {
+    ForkJoinPool pool = POOLS.get(parallelism);
+    if (pool == null) {
+      ForkJoinPool created = new ForkJoinPool(parallelism);
+      pool = POOLS.putIfAbsent(parallelism, created);
+      if (pool == null) {
+        pool = created;
+      } else {
+        created.shutdown();
+      }
+    }
+    return pool;
   }
 
   /**
-   * First step of creating implicant table. Given group is combined with remaining groups.
+   * General step in creating implicants table. Implicants of one level are combined only with
+   * implicants of the same don't care pattern that have exactly one more one. When some implicant
+   * can't combine any more, it is added to the set of primes. Combined implicants form the next
+   * level.
    * 
-   * @param group group in partition table.
-   * @param partitionTable
-   * @return set of implicants resulting from combinations.
+   * @param level implicants to combine, grouped by don't care pattern and number of ones.
+   * @param primes set to which implicants that can't combine any more are added.
+   * @param budget budget of the minimization, or {@code null} if it is unbounded.
+   * @param statistics statistics to record combine attempts in.
+   * @return next level of implicants, or {@code null} if budget ran out before the level was
+   *         combined.
    */
-  private static Set<Implicant> initImplicantTable(Integer group,
-      Map<Integer, Set<Implicant>> partitionTable) {
-
-    Set<Implicant> combinations = new HashSet<>();
-
-    for (Implicant groundImplicant : partitionTable.get(group)) {
-
-      for (Entry<Integer, Set<Implicant>> entry : partitionTable.entrySet()) {
-     
-        Integer otherGroup = entry.getKey();
-        Set<Implicant> implicants = entry.getValue();
-        
-        if (group < otherGroup) {
-        
-          for (Implicant otherImplicant : implicants) {
-            Mask maskCombo = Mask.combine(groundImplicant.getMask(), otherImplicant.getMask());
-          
-            if (maskCombo != null) {
-              Set<Integer> mintermsCombo = new HashSet<>();
-              mintermsCombo.addAll(groundImplicant.getMinterms());
-              mintermsCombo.addAll(otherImplicant.getMinterms());
-              Implicant combined = new Implicant(mintermsCombo, maskCombo);
-              combinations.add(combined);
-            }
+  private static ImplicantTable toImplicantsStep(ImplicantTable level, Set<Implicant> primes,
+      MinimizationBudget budget, MinimizationStatistics statistics) {
+    ImplicantTable combinations = new ImplicantTable();
+    Set<Implicant> combined = Collections.newSetFromMap(new IdentityHashMap<Implicant, Boolean>());
+
+    for (Mask pattern : level.getDontCarePatterns()) {
+      SortedMap<Integer, Set<Implicant>> groups = level.getGroups(pattern);
+
+      for (Entry<Integer, Set<Implicant>> entry : groups.entrySet()) {
+        Set<Implicant> upperGroup = groups.get(entry.getKey() + 1);
+        if (upperGroup != null
+            && !combineGroups(entry.getValue(), upperGroup, combinations, combined, budget,
+                statistics)) {
+          return null;
+        }
+      }
+
+      // Add those who won't combine to the resulting set.
+      for (Set<Implicant> group : groups.values()) {
+        for (Implicant implicant : group) {
+          if (!combined.contains(implicant)) {
+            primes.add(implicant);
           }
         }
       }
@@ -184,114 +519,181 @@ public class QMCMinimizer {
   }
 
   /**
-   * General step in creating implicants table. When some implicant can't combine any more, it is
-   * added to the resulting set. This step is repeated recursively until all of the implicants which
-   * could get combined, got combined.
+   * Parallel variant of the
+   * {@link #toImplicantsStep(ImplicantTable, Set, MinimizationBudget, MinimizationStatistics)}.
+   * Budget is checked only between the levels. Every pair of adjacent groups is combined by a
+   * separate {@link CombineTask}, and all tasks merge their results into a concurrent map which
+   * removes duplicates. Resulting next level and primes are the same as the ones produced by the
+   * sequential step.
    * 
-   * @param implicants set of implicants to combine.
-   * @return set of implicants which can't combine any more.
+   * @param level implicants to combine, grouped by don't care pattern and number of ones.
+   * @param primes set to which implicants that can't combine any more are added.
+   * @param pool pool on which tasks are run.
+   * @param statistics statistics to record combine attempts in.
+   * @return next level of implicants.
    */
-  private static Set<Implicant> toImplicantsStep(Set<Implicant> implicants) {
-    Set<Implicant> combinations = new HashSet<>();
-    Set<Implicant> cantCombine = new HashSet<>();
-
-    // End of recursion. No more implicants to combine.
-    if (implicants.isEmpty())
-      return Collections.emptySet();
-
-    // Combine all implicants.
-    for (Implicant thisImplicant : implicants) {
-      boolean canCombine = false;
-
-      for (Implicant otherImplicant : implicants) {
-
-        if (thisImplicant != otherImplicant) {
-          Mask maskCombo = Mask.combine(thisImplicant.getMask(), otherImplicant.getMask());
-          if (maskCombo != null) {
-            canCombine = true;
-            Set<Integer> mintermsCombo = new HashSet<>();
-            mintermsCombo.addAll(thisImplicant.getMinterms());
-            mintermsCombo.addAll(otherImplicant.getMinterms());
-            Implicant combined = new Implicant(mintermsCombo, maskCombo);
-            combinations.add(combined);
-          }
+  private static ImplicantTable toImplicantsStepParallel(ImplicantTable level,
+      Set<Implicant> primes, ForkJoinPool pool, MinimizationStatistics statistics) {
+    ConcurrentMap<Mask, Implicant> combinations = new ConcurrentHashMap<>();
+    Set<Mask> combined = Collections.newSetFromMap(new ConcurrentHashMap<Mask, Boolean>());
+    List<CombineTask> tasks = new ArrayList<>();
+
+    for (Mask pattern : level.getDontCarePatterns()) {
+      SortedMap<Integer, Set<Implicant>> groups = level.getGroups(pattern);
+
+      for (Entry<Integer, Set<Implicant>> entry : groups.entrySet()) {
+        Set<Implicant> upperGroup = groups.get(entry.getKey() + 1);
+        if (upperGroup != null) {
+          Set<Implicant> lowerGroup = entry.getValue();
+          tasks.add(new CombineTask(lowerGroup.toArray(new Implicant[lowerGroup.size()]), 0,
+              lowerGroup.size(), upperGroup.toArray(new Implicant[upperGroup.size()]),
+              combinations, combined, statistics));
         }
       }
+    }
 
-      // Add those who won't combine to the resulting set.
-      if (!canCombine) {
-        cantCombine.add(thisImplicant);
+    for (CombineTask task : tasks) {
+      pool.execute(task);
+    }
+    for (CombineTask task : tasks) {
+      task.join();
+    }
+
+    // Add those who won't combine to the resulting set.
+    for (Mask pattern : level.getDontCarePatterns()) {
+      for (Set<Implicant> group : level.getGroups(pattern).values()) {
+        for (Implicant implicant : group) {
+          if (!combined.contains(implicant.getMask())) {
+            primes.add(implicant);
+          }
+        }
       }
+    }
 
+    ImplicantTable nextLevel = new ImplicantTable();
+    for (Implicant implicant : combinations.values()) {
+      nextLevel.add(implicant);
     }
 
-    // Recursive step.
-    cantCombine.addAll(toImplicantsStep(combinations));
+    return nextLevel;
+  }
 
-    return cantCombine;
+  /**
+   * Tries to combine every implicant of the lower group with every implicant of the upper group.
+   * 
+   * @param lowerGroup implicants with some number of ones.
+   * @param upperGroup implicants with the same don't care pattern and one more one.
+   * @param combinations table to which combined implicants are added.
+   * @param combined set to which implicants that took part in some combination are added.
+   * @param budget budget of the minimization, checked for every implicant of the lower group.
+   * @param statistics statistics to record combine attempts in.
+   * @return {@code false} if budget ran out before groups were combined, otherwise {@code true}.
+   */
+  private static boolean combineGroups(Set<Implicant> lowerGroup, Set<Implicant> upperGroup,
+      ImplicantTable combinations, Set<Implicant> combined, MinimizationBudget budget,
+      MinimizationStatistics statistics) {
+    long attempts = 0;
+    long successes = 0;
+
+    for (Implicant lowerImplicant : lowerGroup) {
+      if (isExhausted(budget)) {
+        statistics.addCombines(attempts, successes);
+        return false;
+      }
+      for (Implicant upperImplicant : upperGroup) {
+        attempts++;
+        Mask maskCombo = Mask.combine(lowerImplicant.getMask(), upperImplicant.getMask());
+
+        if (maskCombo != null) {
+          successes++;
+          MintermSet mintermsCombo =
+              lowerImplicant.getMinterms().union(upperImplicant.getMinterms());
+          combinations.add(new Implicant(mintermsCombo, maskCombo));
+          combined.add(lowerImplicant);
+          combined.add(upperImplicant);
+        }
+      }
+    }
+
+    statistics.addCombines(attempts, successes);
+    return true;
   }
 
   /**
    * Method which implements Pyne-McCluskey algorithm used for attaining the minimal forms of the
-   * prime implicants.
+   * prime implicants. Every implicant is represented by its id, and the product of sums is
+   * expanded by the {@link SumOfProducts}.
    * 
-   * @param implicants prime implicants for which the minimization is done, both minterm and don't
-   *        care implicants are included.
-   * @param mintermSymbols map of minterms and empty lists. Each empty list will be filled with
-   *        aliases of implicants for which minterm is defined.
-   * @return list of minimized formula containing only formulas which are constituted from least
-   *         literals.
+   * @param implicants prime implicants of the cyclic core of the prime implicant chart, for which
+   *        the minimization is done. Their ids are their positions in the list.
+   * @param minterms minterms of the cyclic core which have to be covered.
+   * @param budget budget of the minimization, checked before every multiplication.
+   * @param statistics statistics to record number of products in.
+   * @return list of products with fewest literals, each being a bitset of implicant ids, or
+   *         {@code null} if budget ran out before the formula was expanded.
    * @see <a="http://en.wikipedia.org/wiki/Petrick%27s_method">Algorithm article.</a>
    */
-  private static List<SymbolicExpression> pyne(Set<Implicant> implicants,
-      Map<Integer, ArrayList<String>> mintermSymbols) {
-
-    // List of aliases of implicants for which minterm is defined.
+  private static List<long[]> pyne(List<Implicant> implicants, Set<Integer> minterms,
+      MinimizationBudget budget, MinimizationStatistics statistics) {
+    // Sum of ids of implicants for which minterm is defined.
+    Map<Integer, long[]> mintermSums = new HashMap<>();
+    for (Integer minterm : minterms) {
+      mintermSums.put(minterm, new long[Bitsets.words(implicants.size())]);
+    }
     for (Implicant implicant : implicants) {
-      for (Integer minterm : implicant.getMinterms()) {
-        if (mintermSymbols.containsKey(minterm)) {
-          mintermSymbols.get(minterm).add(implicant.getAlias());
+      MintermSet covered = implicant.getMinterms();
+      for (int i = 0, size = covered.size(); i < size; i++) {
+        long[] sum = mintermSums.get(covered.get(i));
+        if (sum != null) {
+          Bitsets.set(sum, implicant.getId());
         }
       }
     }
 
-    // Construct formula from aliases defined for each minterm.
-    List<SymbolicExpression> conjOperands = new ArrayList<>();
-    for (Entry<Integer, ArrayList<String>> entry : mintermSymbols.entrySet()) {
-      List<SymbolicExpression> disjOperands = new ArrayList<>();
-
-      for (String symb : entry.getValue()) {
-        disjOperands.add(new Symbol(symb));
+    // Multiply out the product of sums, shortest sums first to keep partial results small.
+    List<long[]> sums = new ArrayList<>(mintermSums.values());
+    Collections.sort(sums, SumOfProducts.BY_COUNT);
+    SumOfProducts pyneFormula = new SumOfProducts(implicants.size());
+    boolean expanded = true;
+    for (long[] sum : sums) {
+      if (isExhausted(budget)) {
+        expanded = false;
+        break;
       }
-      conjOperands.add(new SymbolicDisjunction(disjOperands));
+      pyneFormula.multiply(sum);
+    }
+    statistics.addProducts(pyneFormula.getProductsBeforeAbsorption(),
+        pyneFormula.getProductsAfterAbsorption());
+    if (!expanded) {
+      return null;
     }
-    SymbolicExpression pyneFormula = new SymbolicConjunction(conjOperands);
+    List<long[]> products = pyneFormula.getProducts();
 
-    return fewestLiterals(pyneFormula.evaluate());
+    return fewestLiterals(products);
   }
 
   /**
-   * Used in Pyne-McCluskey algorithm. For operands in some formula, return list of those who got
-   * fewest themselves.
+   * Used in Pyne-McCluskey algorithm. From the given products, return list of those who got fewest
+   * literals.
    * 
-   * @param formula for wich operands with fewest literals are extracted.
-   * @return list of operands with fewest operands.
+   * @param products products, each being a bitset of implicant ids.
+   * @return list of products with fewest literals.
    */
-  private static List<SymbolicExpression> fewestLiterals(SymbolicExpression formula) {
+  private static List<long[]> fewestLiterals(List<long[]> products) {
     int min = Integer.MAX_VALUE;
-    List<SymbolicExpression> minSyms = new ArrayList<>();
+    List<long[]> minProducts = new ArrayList<>();
 
-    for (SymbolicExpression expr : formula.getOperands()) {
-      int literalCount = expr.getOperands().size();
+    for (long[] product : products) {
+      int literalCount = Bitsets.count(product);
       if (literalCount < min) {
         min = literalCount;
-        minSyms = new ArrayList<>();
-        minSyms.add(expr);
+        minProducts = new ArrayList<>();
+        minProducts.add(product);
       } else if (literalCount == min) {
-        minSyms.add(expr);
+        minProducts.add(product);
       }
     }
 
-    return minSyms;
+    return minProducts;
   }
 }
@@ -0,0 +1,128 @@
+package hr.fer.zemris.bool.qmc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sum of products of implicant ids, used for expanding the formula of Petrick's method. Every
+ * product is a bitset of ids in a {@code long} array, so multiplying two products is a bitwise or
+ * of their words. Sum is always kept absorbed: no product contains another one, because
+ * {@code X + XY = X}.
+ * <p>
+ * Formula of Petrick's method is a product of sums of single ids, one sum for each minterm. It is
+ * expanded by multiplying the sum of products with those sums one at a time, see
+ * {@link #multiply(long[])}.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class SumOfProducts {
+
+  /** Orders products, or sums, by number of ids. */
+  static final Comparator<long[]> BY_COUNT = new Comparator<long[]>() {
+    @Override
+    public int compare(long[] p1, long[] p2) {
+      return Integer.compare(Bitsets.count(p1), Bitsets.count(p2));
+    }
+  };
+
+  /** Products of the sum, sorted by number of ids. */
+  private List<long[]> products = new ArrayList<>();
+  /** Number of products formed by all multiplications, before absorption. */
+  private long productsBeforeAbsorption;
+  /** Number of products left by all multiplications, after absorption. */
+  private long productsAfterAbsorption;
+
+  /**
+   * Constructor for the sum with a single empty product, that is for the constant one.
+   *
+   * @param idCount number of different ids.
+   */
+  public SumOfProducts(int idCount) {
+    products.add(new long[Bitsets.words(idCount)]);
+  }
+
+  /**
+   * Multiplies the sum by the sum of single ids. Product which already contains one of the ids is
+   * kept as it is, since every other product it would give is absorbed by it. Other products are
+   * extended by every one of the ids, and then absorption removes the products containing others.
+   *
+   * @param ids bitset of ids which are summed.
+   */
+  public void multiply(long[] ids) {
+    List<long[]> kept = new ArrayList<>();
+    List<long[]> extended = new ArrayList<>();
+
+    for (long[] product : products) {
+      if (Bitsets.intersects(product, ids)) {
+        kept.add(product);
+        continue;
+      }
+      for (int id = Bitsets.nextSet(ids, 0); id >= 0; id = Bitsets.nextSet(ids, id + 1)) {
+        long[] newProduct = product.clone();
+        Bitsets.set(newProduct, id);
+        extended.add(newProduct);
+      }
+    }
+
+    // Kept products are absorbed among themselves already, so only the new ones are checked.
+    Collections.sort(extended, BY_COUNT);
+    List<long[]> result = new ArrayList<>(kept);
+    for (long[] product : extended) {
+      if (!isAbsorbed(product, result)) {
+        result.add(product);
+      }
+    }
+
+    Collections.sort(result, BY_COUNT);
+    products = result;
+    productsBeforeAbsorption += kept.size() + extended.size();
+    productsAfterAbsorption += result.size();
+  }
+
+  /**
+   * Products of the sum, sorted by number of ids.
+   *
+   * @return list of products, each being a bitset of ids.
+   */
+  public List<long[]> getProducts() {
+    return Collections.unmodifiableList(products);
+  }
+
+  /**
+   * Number of products formed by all multiplications so far, before absorption.
+   *
+   * @return product count.
+   */
+  public long getProductsBeforeAbsorption() {
+    return productsBeforeAbsorption;
+  }
+
+  /**
+   * Number of products left by all multiplications so far, after absorption.
+   *
+   * @return product count.
+   */
+  public long getProductsAfterAbsorption() {
+    return productsAfterAbsorption;
+  }
+
+  /**
+   * Checks if some of the products is a subset of the given one.
+   *
+   * @param product product to check.
+   * @param others products which could absorb it.
+   * @return {@code true} if product is absorbed.
+   */
+  private static boolean isAbsorbed(long[] product, List<long[]> others) {
+    for (long[] other : others) {
+      if (Bitsets.isSubset(other, product)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -5,7 +5,9 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Class representing a simple symbol in a {@link SymbolicExpression} hierarchy.
+ * Class representing a simple symbol in a {@link SymbolicExpression} hierarchy. Symbol is either
+ * named by a string, or identified by a non negative int id, which makes comparison of symbols
+ * cheap.
  * 
  * @author Antonio Paunovic
  * @version 0.2
@@ -14,6 +16,8 @@ public class Symbol implements SymbolicExpression {
 
   /** Read only property. Symbols value or representation or identity or ...blah */
   private String value;
+  /** Id of the symbol, or {@code -1} for symbols named by string. */
+  private int id = -1;
   /** List of operands associated with this symbol. */
   private List<SymbolicExpression> operands = new ArrayList<>();
 
@@ -27,6 +31,21 @@ public class Symbol implements SymbolicExpression {
     operands.add(this);
   }
 
+  /**
+   * Symbols constructor for a symbol identified by id. Its string representation is {@code "P"}
+   * followed by the id. Precondition: id mustn't be negative.
+   * 
+   * @param id symbols id.
+   * @throws IllegalArgumentException on precondition violation.
+   */
+  public Symbol(int id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Precondition violation: id mustn't be negative: " + id);
+    }
+    this.id = id;
+    operands.add(this);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -41,7 +60,16 @@ public class Symbol implements SymbolicExpression {
    * @return string representing symbols value.
    */
   public String getValue() {
-    return value;
+    return value == null ? "P" + id : value;
+  }
+
+  /**
+   * Getter for symbols id.
+   * 
+   * @return id of the symbol, or {@code -1} if symbol is named by string.
+   */
+  public int getId() {
+    return id;
   }
 
   /**
@@ -58,7 +86,7 @@ public class Symbol implements SymbolicExpression {
    */
   @Override
   public String toString() {
-    return value;
+    return getValue();
   }
 
   /**
@@ -76,7 +104,8 @@ public class Symbol implements SymbolicExpression {
   public int hashCode() {
     final int prime = 31;
     int result = 1;
-    result = prime * result + ((operands == null) ? 0 : operands.hashCode());
+    // Operands contain this symbol, so they can't take part in the hash code.
+    result = prime * result + id;
     result = prime * result + ((value == null) ? 0 : value.hashCode());
     return result;
   }
@@ -93,9 +122,9 @@ public class Symbol implements SymbolicExpression {
     if (getClass() != obj.getClass())
       return false;
     Symbol other = (Symbol) obj;
-    if (!value.equals(other.value)) {
+    if (id != other.id) {
       return false;
     }
-    return true;
+    return value == null ? other.value == null : value.equals(other.value);
   }
 }
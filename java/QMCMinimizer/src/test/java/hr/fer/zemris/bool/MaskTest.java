@@ -0,0 +1,121 @@
+package hr.fer.zemris.bool;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MaskTest {
+
+  @Test
+  public void testParseAndToString() {
+    assertEquals("01x1", Mask.parse("01x1").toString());
+    assertEquals(MaskValue.ZERO, Mask.parse("01x1").getValue(0));
+    assertEquals(MaskValue.ONE, Mask.parse("01x1").getValue(1));
+    assertEquals(MaskValue.DONT_CARE, Mask.parse("01x1").getValue(2));
+    assertEquals(Mask.parse("01x1"), new Mask(new MaskValue[] {MaskValue.ZERO, MaskValue.ONE,
+        MaskValue.DONT_CARE, MaskValue.ONE}));
+  }
+
+  @Test
+  public void testFromIndex() {
+    assertEquals(Mask.parse("0101"), Mask.fromIndex(4, 5));
+    assertEquals(Mask.parse("1111"), Mask.fromIndex(4, 15));
+    assertEquals(Mask.parse("000"), Mask.fromIndex(3, 8));
+    assertEquals(Mask.parse("0101").hashCode(), Mask.fromIndex(4, 5).hashCode());
+  }
+
+  @Test
+  public void testCounts() {
+    Mask m = Mask.parse("01x1x0");
+    assertEquals(2, m.getNumberOfOnes());
+    assertEquals(2, m.getNumberOfZeros());
+    assertEquals(2, m.getNumberOfDontCares());
+    assertTrue(m.isMoreGeneral(Mask.parse("011100")));
+    assertFalse(Mask.parse("011100").isMoreGeneral(m));
+  }
+
+  @Test
+  public void testIndexIterator() {
+    List<Integer> rows = new ArrayList<>();
+    for (IntIterator it = Mask.parse("x1x0").indexIterator(); it.hasNext();) {
+      rows.add(it.nextInt());
+    }
+    assertEquals(Arrays.asList(4, 6, 12, 14), rows);
+
+    IntIterator single = Mask.parse("101").indexIterator();
+    assertEquals(5, single.nextInt());
+    assertFalse(single.hasNext());
+
+    int count = 0;
+    for (IntIterator it = Mask.parse("xxxxxxxxxxxxxxxxxxxx").indexIterator(); it.hasNext(); it
+        .nextInt()) {
+      count++;
+    }
+    assertEquals(1 << 20, count);
+  }
+
+  @Test
+  public void testCombine() {
+    assertEquals(Mask.parse("0x0x"), Mask.combine(Mask.parse("000x"), Mask.parse("010x")));
+    assertEquals(Mask.parse("xxxx"), Mask.combine(Mask.parse("xxx0"), Mask.parse("xxx1")));
+    assertNull(Mask.combine(Mask.parse("0x0x"), Mask.parse("0x0x")));
+    assertNull(Mask.combine(Mask.parse("x0"), Mask.parse("0x")));
+    assertNull(Mask.combine(Mask.parse("00"), Mask.parse("11")));
+    assertNull(Mask.combine(Mask.parse("0x"), Mask.parse("00")));
+  }
+
+  @Test
+  public void testWideMasks() {
+    StringBuilder first = new StringBuilder();
+    StringBuilder second = new StringBuilder();
+    StringBuilder combined = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      char c = (i % 3 == 0) ? 'x' : (i % 3 == 1) ? '0' : '1';
+      first.append(i == 7 ? '0' : c);
+      second.append(i == 7 ? '1' : c);
+      combined.append(i == 7 ? 'x' : c);
+    }
+
+    Mask m1 = Mask.parse(first.toString());
+    Mask m2 = Mask.parse(second.toString());
+    assertEquals(first.toString(), m1.toString());
+    assertEquals(Mask.parse(combined.toString()), Mask.combine(m1, m2));
+    assertEquals(m1, m1.clone());
+  }
+
+  @Test
+  public void testPlanes() {
+    Mask mask = Mask.parse("1x0");
+    // First position is the most significant bit.
+    assertArrayEquals(new long[] {0b100}, mask.getValuePlane());
+    assertArrayEquals(new long[] {0b101}, mask.getCarePlane());
+    assertEquals(2, Mask.bitOf(3, 0));
+    assertEquals(mask, Mask.fromPlanes(3, mask.getValuePlane(), mask.getCarePlane()));
+
+    StringBuilder wide = new StringBuilder();
+    for (int i = 0; i < 70; i++) {
+      wide.append("01x".charAt(i % 3));
+    }
+    Mask wideMask = Mask.parse(wide.toString());
+    assertEquals(wideMask, Mask.fromPlanes(70, wideMask.getValuePlane(), wideMask.getCarePlane()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFromPlanesValueOutsideCares() {
+    Mask.fromPlanes(3, new long[] {0b010}, new long[] {0b101});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFromPlanesAboveSize() {
+    Mask.fromPlanes(3, new long[] {0}, new long[] {0b1000});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCombineDifferentSizes() {
+    Mask.combine(Mask.parse("01"), Mask.parse("011"));
+  }
+}
@@ -0,0 +1,112 @@
+package hr.fer.zemris.bool.bdd;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanOperator;
+import hr.fer.zemris.bool.BooleanSource;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.fimpl.IndexedBF;
+import hr.fer.zemris.bool.fimpl.OperatorTreeBF;
+import hr.fer.zemris.bool.opimpl.BooleanOperators;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BddBFTest {
+
+  @Test
+  public void testFromOperatorTree() {
+    BooleanVariable a = new BooleanVariable("A");
+    BooleanVariable b = new BooleanVariable("B");
+    BooleanVariable c = new BooleanVariable("C");
+    List<BooleanVariable> domain = Arrays.asList(a, b, c);
+
+    // A'B + AC + BCX where X is a don't care.
+    BooleanOperator tree =
+        BooleanOperators.or(BooleanOperators.and(BooleanOperators.not(a), b),
+            BooleanOperators.and(a, c), BooleanOperators.and(b, c, dontCare()),
+            BooleanOperators.and(a, b, BooleanOperators.not(c), dontCare()));
+
+    OperatorTreeBF table = new OperatorTreeBF("f", domain, tree);
+    BddBF f = BddBF.fromOperatorTree(table);
+    assertEquals(toList(table.mintermIterable()), toList(f.mintermIterable()));
+    assertEquals(toList(table.maxtermIterable()), toList(f.maxtermIterable()));
+    assertEquals(toList(table.dontcareIterable()), toList(f.dontcareIterable()));
+    assertEquals(Arrays.asList(6), toList(f.dontcareIterable()));
+    assertEquals(BigInteger.valueOf(4), f.countMinterms());
+    assertTrue(f.hasMinterm(5));
+    assertTrue(f.hasMaxterm(0));
+    assertTrue(f.hasDontCare(6));
+  }
+
+  @Test
+  public void testEquivalence() {
+    BooleanVariable a = new BooleanVariable("A");
+    BooleanVariable b = new BooleanVariable("B");
+    BooleanVariable c = new BooleanVariable("C");
+    List<BooleanVariable> domain = Arrays.asList(a, b, c);
+    BddManager manager = new BddManager(3);
+
+    BddBF fromTree =
+        BddBF.fromOperatorTree("f", domain, BooleanOperators.or(BooleanOperators.and(a, b), c),
+            manager);
+    BddBF fromIndexes =
+        BddBF.fromFunction(new IndexedBF("f", domain, true, Arrays.asList(1, 3, 5, 6, 7),
+            new ArrayList<Integer>()), manager);
+    assertTrue(fromTree.isEquivalent(fromIndexes));
+    assertEquals(Arrays.asList(6, 7), toList(fromTree.cofactor(2, false).mintermIterable()));
+
+    fromTree.getDomain().get(0).setValue(BooleanValue.TRUE);
+    fromTree.getDomain().get(1).setValue(BooleanValue.TRUE);
+    assertEquals(BooleanValue.TRUE, fromTree.getValue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFromSortedRowsTooManyVariables() {
+    new BddManager(BddManager.MAX_ROW_VARIABLES + 1).fromSortedRows(new long[] {0});
+  }
+
+  @Test(timeout = 5000)
+  public void testWideDomain() {
+    BddManager manager = new BddManager(100);
+    List<BooleanVariable> domain = new ArrayList<>();
+    List<BooleanSource> products = new ArrayList<>();
+    for (int i = 0; i < 100; i += 2) {
+      BooleanVariable x = new BooleanVariable("x" + i);
+      BooleanVariable y = new BooleanVariable("x" + (i + 1));
+      domain.add(x);
+      domain.add(y);
+      products.add(BooleanOperators.and(x, y));
+    }
+
+    BddBF f =
+        BddBF.fromOperatorTree("f", domain, BooleanOperators.or(products
+            .toArray(new BooleanSource[products.size()])), manager);
+    // Function is false only when no pair is all ones, which is 3^50 of the 4^50 rows.
+    assertEquals(BigInteger.valueOf(4).pow(50).subtract(BigInteger.valueOf(3).pow(50)), f
+        .countMinterms());
+    assertEquals(BigInteger.ZERO, f.countDontCares());
+
+    f.release();
+    manager.collectGarbage();
+    assertEquals(2, manager.getNodeCount());
+  }
+
+  private BooleanSource dontCare() {
+    BooleanVariable x = new BooleanVariable("X");
+    x.setValue(BooleanValue.DONT_CARE);
+    return x;
+  }
+
+  private List<Integer> toList(Iterable<Integer> indexes) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,53 @@
+package hr.fer.zemris.bool.bdd;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CubeSetsTest {
+
+  @Test
+  public void testPrimes() {
+    BddManager bdd = new BddManager(3);
+    ZddManager zdd = new ZddManager(6);
+
+    // AB + A'C has primes AB, A'C and BC.
+    int a = bdd.ref(bdd.variable(0));
+    int ab = bdd.ref(bdd.and(a, bdd.variable(1)));
+    int notAc = bdd.ref(bdd.and(bdd.not(a), bdd.variable(2)));
+    int f = bdd.ref(bdd.or(ab, notAc));
+
+    int primes = CubeSets.primes(bdd, f, zdd);
+    assertEquals(BigInteger.valueOf(3), zdd.count(primes));
+    List<int[]> cubes = zdd.sets(primes);
+    assertEquals(3, cubes.size());
+
+    // AB and BC touch the rows where A and B are both true, A'C doesn't.
+    int intersecting = CubeSets.intersecting(bdd, ab, zdd, primes);
+    List<int[]> touching = zdd.sets(intersecting);
+    assertEquals(2, touching.size());
+    for (int[] cube : touching) {
+      assertFalse(CubeSets.isComplemented(cube[0]) && CubeSets.variableOf(cube[0]) == 0);
+    }
+  }
+
+  @Test
+  public void testPrimesOfParity() {
+    BddManager bdd = new BddManager(10);
+    ZddManager zdd = new ZddManager(20);
+
+    int parity = BddManager.FALSE;
+    for (int i = 0; i < 10; i++) {
+      int x = bdd.ref(bdd.variable(i));
+      int next = bdd.ref(bdd.ite(x, bdd.not(parity), parity));
+      bdd.deref(parity);
+      parity = next;
+    }
+
+    // Every minterm of the parity function is its own prime.
+    assertEquals(BigInteger.valueOf(512), zdd.count(CubeSets.primes(bdd, parity, zdd)));
+  }
+}
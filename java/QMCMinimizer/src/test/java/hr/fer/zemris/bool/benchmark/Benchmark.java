@@ -0,0 +1,46 @@
+package hr.fer.zemris.bool.benchmark;
+
+/**
+ * Single benchmark run by the {@link BenchmarkRunner}. Inputs are prepared once by
+ * {@link #setUp()}, outside of measurement, and every call to {@link #run()} is one operation.
+ * Result of the operation is returned, so that the runner can consume it and the work can't be
+ * removed as dead code.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public abstract class Benchmark {
+
+  /** Name of the benchmark, with its parameters. */
+  private final String name;
+
+  /**
+   * Constructor for the benchmark.
+   *
+   * @param name name of the benchmark, with its parameters.
+   */
+  protected Benchmark(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Name getter.
+   *
+   * @return name of the benchmark, with its parameters.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Prepares inputs of the operation. Called once, before warmup.
+   */
+  public void setUp() {}
+
+  /**
+   * Performs one operation.
+   *
+   * @return result of the operation.
+   */
+  public abstract Object run();
+}
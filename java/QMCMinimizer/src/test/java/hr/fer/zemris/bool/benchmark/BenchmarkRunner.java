@@ -0,0 +1,142 @@
+package hr.fer.zemris.bool.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Runs benchmarks of the {@link BoolBenchmarks} suite and prints a line for each of them: time per
+ * operation, bytes allocated per operation, allocation rate and garbage collections during
+ * measurement. Every benchmark is warmed up first, and then measured in several iterations, each
+ * running whole operations for at least the iteration time. Allocation is read from the thread
+ * allocation counter of the HotSpot {@link ThreadMXBean}, and is reported as {@code n/a} on virtual
+ * machines which don't have it.
+ * <p>
+ * Arguments are an optional regular expression which selects benchmarks by name, and optional
+ * numbers of warmup iterations, measurement iterations and milliseconds per iteration, in that
+ * order. For example {@code BenchmarkRunner "minimize.*vars=8" 3 5 500}.
+ * </p>
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class BenchmarkRunner {
+
+  /** Consumer of the results, so that operations can't be removed as dead code. */
+  private static volatile int sink;
+
+  private BenchmarkRunner() {}
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args name filter, warmup iterations, measurement iterations and iteration time.
+   */
+  public static void main(String[] args) {
+    Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+    final int warmupIterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    final long iterationNanos = (args.length > 3 ? Long.parseLong(args[3]) : 1000) * 1000000L;
+
+    System.out.println(String.format(Locale.ROOT, "%-50s %14s %10s %14s %10s %8s %8s",
+        "Benchmark", "ns/op", "error", "B/op", "MB/s", "gc.count", "gc.ms"));
+    List<Benchmark> benchmarks = BoolBenchmarks.all();
+    for (Benchmark benchmark : benchmarks) {
+      if (filter.matcher(benchmark.getName()).matches()) {
+        benchmark.setUp();
+        for (int i = 0; i < warmupIterations; i++) {
+          iterate(benchmark, iterationNanos, null);
+        }
+        System.out.println(measure(benchmark, iterations, iterationNanos));
+      }
+    }
+  }
+
+  /** Measures the benchmark and formats the result line. */
+  private static String measure(Benchmark benchmark, int iterations, long iterationNanos) {
+    long[] gcBefore = gcTotals();
+    double[] nanosPerOp = new double[iterations];
+    long[] totals = new long[3];
+    for (int i = 0; i < iterations; i++) {
+      long[] iteration = new long[3];
+      iterate(benchmark, iterationNanos, iteration);
+      nanosPerOp[i] = (double) iteration[0] / iteration[1];
+      for (int k = 0; k < totals.length; k++) {
+        totals[k] = totals[k] < 0 || iteration[k] < 0 ? -1 : totals[k] + iteration[k];
+      }
+    }
+    long[] gcAfter = gcTotals();
+
+    double mean = 0;
+    for (double value : nanosPerOp) {
+      mean += value / iterations;
+    }
+    double variance = 0;
+    for (double value : nanosPerOp) {
+      variance += (value - mean) * (value - mean) / Math.max(1, iterations - 1);
+    }
+
+    String bytesPerOp = "n/a";
+    String rate = "n/a";
+    if (totals[2] >= 0) {
+      bytesPerOp = String.format(Locale.ROOT, "%.1f", (double) totals[2] / totals[1]);
+      rate = String.format(Locale.ROOT, "%.1f", totals[2] * 1e3 / totals[0]);
+    }
+    return String.format(Locale.ROOT, "%-50s %14.1f %10.1f %14s %10s %8d %8d",
+        benchmark.getName(), mean, Math.sqrt(variance), bytesPerOp, rate,
+        gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+  }
+
+  /**
+   * Runs whole operations for at least the given time.
+   *
+   * @param benchmark benchmark to run.
+   * @param iterationNanos least time of the iteration.
+   * @param result if not {@code null}, receives elapsed nanoseconds, number of operations and
+   *        allocated bytes, or {@code -1} if allocation is unknown.
+   */
+  private static void iterate(Benchmark benchmark, long iterationNanos, long[] result) {
+    final long allocatedBefore = allocatedBytes();
+    final long start = System.nanoTime();
+    long operations = 0;
+    long elapsed;
+    do {
+      Object value = benchmark.run();
+      sink += value == null ? 0 : System.identityHashCode(value);
+      operations++;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < iterationNanos);
+    final long allocatedAfter = allocatedBytes();
+
+    if (result != null) {
+      result[0] = elapsed;
+      result[1] = operations;
+      result[2] = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+    }
+  }
+
+  /** Bytes allocated by the current thread, or {@code -1} if it is unknown. */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean hotSpot = (com.sun.management.ThreadMXBean) threads;
+      if (hotSpot.isThreadAllocatedMemorySupported() && hotSpot.isThreadAllocatedMemoryEnabled()) {
+        return hotSpot.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  /** Number and milliseconds of garbage collections so far. */
+  private static long[] gcTotals() {
+    long[] totals = new long[2];
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      totals[0] += Math.max(0, collector.getCollectionCount());
+      totals[1] += Math.max(0, collector.getCollectionTime());
+    }
+    return totals;
+  }
+}
@@ -0,0 +1,272 @@
+package hr.fer.zemris.bool.benchmark;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanOperator;
+import hr.fer.zemris.bool.BooleanSource;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.IndexedBF;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+import hr.fer.zemris.bool.fimpl.OperatorTreeBF;
+import hr.fer.zemris.bool.opimpl.BooleanOperators;
+import hr.fer.zemris.bool.qmc.CoveringStrategy;
+import hr.fer.zemris.bool.qmc.MinimizerOptions;
+import hr.fer.zemris.bool.qmc.QMCMinimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmark suite of the boolean function package. Minimization is measured over a grid of
+ * variable counts, on set densities and don't care ratios, and the building blocks it relies on
+ * are measured by micro-benchmarks. Every input is generated from a fixed seed derived from the
+ * benchmark's parameters, so runs on different machines and revisions measure the same functions.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+public final class BoolBenchmarks {
+
+  /** Variable counts of the minimization grid. */
+  private static final int[] VARIABLE_COUNTS = {4, 8, 12, 16};
+  /** Fractions of rows which are minterms. */
+  private static final double[] DENSITIES = {0.01, 0.05, 0.25, 0.5};
+  /** Fractions of rows which are don't cares. */
+  private static final double[] DONT_CARE_RATIOS = {0, 0.05, 0.2};
+  /**
+   * Greatest number of minterms and don't cares of a minimized function. Larger random functions
+   * have too many primes for a single operation to finish in reasonable time.
+   */
+  private static final int MAX_MINIMIZED_ROWS = 1280;
+
+  /**
+   * Options of the measured minimizations. Single cover found by branch and bound keeps dense
+   * functions tractable, where expanding all covers by Petrick's method takes minutes.
+   */
+  private static final MinimizerOptions OPTIONS = new MinimizerOptions();
+
+  static {
+    OPTIONS.setAllMinimalCovers(false);
+    OPTIONS.setCoveringStrategy(CoveringStrategy.BRANCH_AND_BOUND);
+  }
+
+  private BoolBenchmarks() {}
+
+  /**
+   * All benchmarks of the suite.
+   *
+   * @return list of benchmarks, not yet set up.
+   */
+  public static List<Benchmark> all() {
+    List<Benchmark> benchmarks = new ArrayList<>();
+    for (int variables : VARIABLE_COUNTS) {
+      for (double density : DENSITIES) {
+        for (double dontCareRatio : DONT_CARE_RATIOS) {
+          final double rows = (1 << variables) * (density + dontCareRatio);
+          if (rows <= MAX_MINIMIZED_ROWS) {
+            benchmarks.add(minimize(variables, density, dontCareRatio));
+          }
+        }
+      }
+    }
+
+    benchmarks.add(maskCombine(16));
+    benchmarks.add(maskCombine(100));
+    benchmarks.add(maskFromIndex(16));
+    benchmarks.add(maskBasedBF(12, false));
+    benchmarks.add(maskBasedBF(12, true));
+    benchmarks.add(operatorTreeBF(12));
+    benchmarks.add(operatorTreeBF(16));
+    return benchmarks;
+  }
+
+  /**
+   * Random function with the given number of variables. Every row is a minterm or a don't care
+   * with the given probabilities, which must not add up to more than one.
+   *
+   * @param seed seed of the generator.
+   * @param variables number of variables.
+   * @param density probability of a minterm.
+   * @param dontCareRatio probability of a don't care.
+   * @return random function.
+   */
+  public static BooleanFunction randomFunction(long seed, int variables, double density,
+      double dontCareRatio) {
+    Random random = new Random(seed);
+    List<Integer> minterms = new ArrayList<>();
+    List<Integer> dontCares = new ArrayList<>();
+    for (int row = 0; row < 1 << variables; row++) {
+      final double choice = random.nextDouble();
+      if (choice < density) {
+        minterms.add(row);
+      } else if (choice < density + dontCareRatio) {
+        dontCares.add(row);
+      }
+    }
+    return new IndexedBF("random", domain(variables), true, minterms, dontCares);
+  }
+
+  /** Minimization of a random function. */
+  private static Benchmark minimize(final int variables, final double density,
+      final double dontCareRatio) {
+    return new Benchmark(String.format(Locale.ROOT, "minimize vars=%d density=%.2f dc=%.2f",
+        variables, density, dontCareRatio)) {
+      private BooleanFunction function;
+
+      @Override
+      public void setUp() {
+        function =
+            randomFunction(seed(variables, density, dontCareRatio), variables, density,
+                dontCareRatio);
+      }
+
+      @Override
+      public Object run() {
+        return QMCMinimizer.minimize(function, OPTIONS);
+      }
+    };
+  }
+
+  /** Combination of random pairs of masks, half of which can be combined. */
+  private static Benchmark maskCombine(final int size) {
+    return new Benchmark("Mask.combine size=" + size + " pairs=1024") {
+      private Mask[] first;
+      private Mask[] second;
+
+      @Override
+      public void setUp() {
+        Random random = new Random(seed(size));
+        first = new Mask[1024];
+        second = new Mask[first.length];
+        for (int pair = 0; pair < first.length; pair++) {
+          MaskValue[] values = randomValues(random, size);
+          first[pair] = new Mask(values);
+          final int position = random.nextInt(size);
+          if (pair % 2 == 0 && values[position] != MaskValue.DONT_CARE) {
+            values[position] = values[position] == MaskValue.ONE ? MaskValue.ZERO : MaskValue.ONE;
+          } else {
+            values = randomValues(random, size);
+          }
+          second[pair] = new Mask(values);
+        }
+      }
+
+      @Override
+      public Object run() {
+        int combined = 0;
+        for (int pair = 0; pair < first.length; pair++) {
+          if (Mask.combine(first[pair], second[pair]) != null) {
+            combined++;
+          }
+        }
+        return combined;
+      }
+    };
+  }
+
+  /** Masks of every row of a truth table. */
+  private static Benchmark maskFromIndex(final int variables) {
+    return new Benchmark("Mask.fromIndex vars=" + variables) {
+      @Override
+      public Object run() {
+        int ones = 0;
+        for (int row = 0; row < 1 << variables; row++) {
+          ones += Mask.fromIndex(variables, row).getNumberOfOnes();
+        }
+        return ones;
+      }
+    };
+  }
+
+  /** Construction of a function from random masks. */
+  private static Benchmark maskBasedBF(final int variables, final boolean lazy) {
+    return new Benchmark("MaskBasedBF vars=" + variables + " masks=64 lazy=" + lazy) {
+      private List<BooleanVariable> domain;
+      private List<Mask> masks;
+      private List<Mask> dontCareMasks;
+
+      @Override
+      public void setUp() {
+        Random random = new Random(seed(variables, lazy ? 1 : 0));
+        domain = domain(variables);
+        masks = new ArrayList<>();
+        dontCareMasks = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+          (i % 4 == 0 ? dontCareMasks : masks).add(new Mask(randomValues(random, variables)));
+        }
+      }
+
+      @Override
+      public Object run() {
+        return new MaskBasedBF("f", domain, true, masks, dontCareMasks, lazy);
+      }
+    };
+  }
+
+  /** Truth table of a random sum of products given as an operator tree. */
+  private static Benchmark operatorTreeBF(final int variables) {
+    return new Benchmark("OperatorTreeBF vars=" + variables + " products=32") {
+      private List<BooleanVariable> domain;
+      private BooleanOperator tree;
+
+      @Override
+      public void setUp() {
+        Random random = new Random(seed(variables));
+        domain = domain(variables);
+        BooleanSource[] products = new BooleanSource[32];
+        for (int product = 0; product < products.length; product++) {
+          List<BooleanSource> literals = new ArrayList<>();
+          for (BooleanVariable variable : domain) {
+            final int choice = random.nextInt(3);
+            if (choice == 0) {
+              literals.add(variable);
+            } else if (choice == 1) {
+              literals.add(BooleanOperators.not(variable));
+            }
+          }
+          if (literals.isEmpty()) {
+            literals.add(domain.get(0));
+          }
+          products[product] =
+              BooleanOperators.and(literals.toArray(new BooleanSource[literals.size()]));
+        }
+        tree = BooleanOperators.or(products);
+      }
+
+      @Override
+      public Object run() {
+        return new OperatorTreeBF("f", domain, tree);
+      }
+    };
+  }
+
+  /** Variables named {@code x0} to {@code x(n-1)}. */
+  private static List<BooleanVariable> domain(int variables) {
+    List<BooleanVariable> domain = new ArrayList<>(variables);
+    for (int i = 0; i < variables; i++) {
+      domain.add(new BooleanVariable("x" + i));
+    }
+    return domain;
+  }
+
+  /** Random mask values, each position being zero, one or don't care. */
+  private static MaskValue[] randomValues(Random random, int size) {
+    MaskValue[] values = new MaskValue[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = MaskValue.values()[random.nextInt(3)];
+    }
+    return values;
+  }
+
+  /** Seed derived from the parameters of a benchmark. */
+  private static long seed(double... parameters) {
+    long seed = 0x5EEDL;
+    for (double parameter : parameters) {
+      seed = seed * 31 + Double.doubleToLongBits(parameter);
+    }
+    return seed;
+  }
+}
@@ -0,0 +1,107 @@
+package hr.fer.zemris.bool.espresso;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.Masks;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EspressoMinimizerTest {
+
+  private List<BooleanVariable> domain;
+
+  @Before
+  public void setUp() {
+    domain = new ArrayList<>();
+    for (String name : Arrays.asList("A", "B", "C", "D")) {
+      domain.add(new BooleanVariable(name));
+    }
+  }
+
+  @Test
+  public void testMinimize() {
+    MaskBasedBF f =
+        new MaskBasedBF("f1", domain, true, Masks.fromIndexes(4, 0, 1, 4, 5, 11, 15),
+            new ArrayList<Mask>());
+
+    MaskBasedBF[] result = EspressoMinimizer.minimize(f);
+    assertEquals(1, result.length);
+    assertEquals(new HashSet<>(Masks.fromStrings("0x0x", "1x11")),
+        new HashSet<>(result[0].getMasks()));
+  }
+
+  @Test
+  public void testMinimizeMaxterms() {
+    MaskBasedBF f =
+        new MaskBasedBF("f1", domain, false, Masks.fromStrings("1x0x", "x01x", "x110"),
+            Masks.fromStrings("0010"));
+
+    MaskBasedBF[] result = EspressoMinimizer.minimize(f);
+    for (int index = 0; index < 16; index++) {
+      if (!f.hasDontCare(index)) {
+        assertEquals("Wrong value for " + index, f.hasMinterm(index), result[0].hasMinterm(index));
+      }
+    }
+  }
+
+  @Test
+  public void testMinimizeRandom() {
+    Random random = new Random(7);
+    List<BooleanVariable> wideDomain = new ArrayList<>(domain);
+    wideDomain.add(new BooleanVariable("E"));
+    wideDomain.add(new BooleanVariable("F"));
+
+    for (int i = 0; i < 20; i++) {
+      List<Mask> onSet = new ArrayList<>();
+      List<Mask> dontCareSet = new ArrayList<>();
+      for (int index = 0; index < 64; index++) {
+        int choice = random.nextInt(8);
+        if (choice < 3) {
+          onSet.add(Mask.fromIndex(6, index));
+        } else if (choice == 3) {
+          dontCareSet.add(Mask.fromIndex(6, index));
+        }
+      }
+
+      MaskBasedBF f = new MaskBasedBF("r" + i, wideDomain, true, onSet, dontCareSet);
+      MaskBasedBF result = EspressoMinimizer.minimize(f)[0];
+      for (int index = 0; index < 64; index++) {
+        if (!f.hasDontCare(index)) {
+          assertEquals("Wrong value for " + index, f.hasMinterm(index), result.hasMinterm(index));
+        }
+      }
+      assertTrue(result.getMasks().size() <= onSet.size());
+    }
+  }
+
+  @Test
+  public void testMinimizeWideCover() {
+    final int domainSize = 48;
+    List<Mask> onSet = new ArrayList<>();
+    // Cube 1xxx...x split into sixteen cubes over the first five variables.
+    for (int prefix = 16; prefix < 32; prefix++) {
+      StringBuilder sb = new StringBuilder(Mask.fromIndex(5, prefix).toString());
+      for (int i = 5; i < domainSize; i++) {
+        sb.append(i == 40 ? '1' : 'x');
+      }
+      onSet.add(Mask.parse(sb.toString()));
+    }
+
+    StringBuilder expected = new StringBuilder("1");
+    for (int i = 1; i < domainSize; i++) {
+      expected.append(i == 40 ? '1' : 'x');
+    }
+
+    List<Mask> cover = EspressoMinimizer.minimizeCover(domainSize, onSet, new ArrayList<Mask>());
+    assertEquals(Arrays.asList(Mask.parse(expected.toString())), cover);
+  }
+}
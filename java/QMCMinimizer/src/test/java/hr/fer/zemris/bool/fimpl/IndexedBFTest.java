@@ -0,0 +1,81 @@
+package hr.fer.zemris.bool.fimpl;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanVariable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedBFTest {
+
+  private List<BooleanVariable> domain;
+
+  @Before
+  public void setUp() {
+    domain = new ArrayList<>();
+    for (String name : Arrays.asList("A", "B", "C", "D")) {
+      domain.add(new BooleanVariable(name));
+    }
+  }
+
+  @Test
+  public void testMinterms() {
+    IndexedBF f = new IndexedBF("f", domain, true, Arrays.asList(9, 0, 4), Arrays.asList(15));
+
+    assertTrue(f.hasMinterm(4));
+    assertFalse(f.hasMinterm(5));
+    assertTrue(f.hasDontCare(15));
+    assertTrue(f.hasMaxterm(5));
+    assertFalse(f.hasMaxterm(15));
+    assertFalse(f.hasMinterm(16));
+    assertFalse(f.hasMaxterm(-1));
+    assertEquals(Arrays.asList(0, 4, 9), toList(f.mintermIterable()));
+    assertEquals(Arrays.asList(15), toList(f.dontcareIterable()));
+    assertEquals(12, toList(f.maxtermIterable()).size());
+  }
+
+  @Test
+  public void testMaxterms() {
+    IndexedBF f = new IndexedBF("f", domain, false, Arrays.asList(1, 2), Arrays.asList(3));
+
+    assertTrue(f.hasMaxterm(2));
+    assertFalse(f.hasMinterm(3));
+    assertEquals(Arrays.asList(1, 2), toList(f.maxtermIterable()));
+    assertEquals(Arrays.asList(0, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15),
+        toList(f.mintermIterable()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOverlappingDontCares() {
+    new IndexedBF("f", domain, true, Arrays.asList(1, 2), Arrays.asList(2));
+  }
+
+  @Test(timeout = 5000)
+  public void testWideDomain() {
+    List<BooleanVariable> wideDomain = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      wideDomain.add(new BooleanVariable("x" + i));
+    }
+    List<Integer> minterms = new ArrayList<>();
+    for (int index = 0; index < (1 << 20); index += 3) {
+      minterms.add(index);
+    }
+
+    IndexedBF f = new IndexedBF("f", wideDomain, true, minterms, new ArrayList<Integer>());
+    assertTrue(f.hasMinterm(3 * 1000));
+    assertTrue(f.hasMaxterm(3 * 1000 + 1));
+    assertEquals(minterms.size(), toList(f.mintermIterable()).size());
+  }
+
+  private List<Integer> toList(Iterable<Integer> indexes) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+}
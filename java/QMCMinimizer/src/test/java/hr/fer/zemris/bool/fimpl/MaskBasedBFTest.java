@@ -0,0 +1,89 @@
+package hr.fer.zemris.bool.fimpl;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.Masks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MaskBasedBFTest {
+
+  @Test
+  public void testLazyMatchesTable() {
+    List<BooleanVariable> domain = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      domain.add(new BooleanVariable("x" + i));
+    }
+    Random random = new Random(3);
+
+    for (int i = 0; i < 20; i++) {
+      List<Mask> masks = randomMasks(random, 5, 3);
+      List<Mask> dontCares = randomMasks(random, 5, 2);
+      final boolean masksAreMinterms = i % 2 == 0;
+
+      MaskBasedBF table = new MaskBasedBF("f", domain, masksAreMinterms, masks, dontCares);
+      MaskBasedBF lazy = new MaskBasedBF("f", domain, masksAreMinterms, masks, dontCares, true);
+      assertTrue(lazy.isLazy());
+
+      assertEquals(toList(table.mintermIterable()), toList(lazy.mintermIterable()));
+      assertEquals(toList(table.maxtermIterable()), toList(lazy.maxtermIterable()));
+      assertEquals(toList(table.dontcareIterable()), toList(lazy.dontcareIterable()));
+      for (int index = -1; index <= 32; index++) {
+        assertEquals(table.hasMinterm(index), lazy.hasMinterm(index));
+        assertEquals(table.hasMaxterm(index), lazy.hasMaxterm(index));
+        assertEquals(table.hasDontCare(index), lazy.hasDontCare(index));
+      }
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void testLazyWideDomain() {
+    List<BooleanVariable> domain = new ArrayList<>();
+    StringBuilder first = new StringBuilder();
+    StringBuilder second = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      domain.add(new BooleanVariable("x" + i));
+      first.append(i == 0 ? '1' : 'x');
+      second.append(i == 39 ? '1' : 'x');
+    }
+
+    // x0 + x39 over 40 variables.
+    MaskBasedBF f =
+        new MaskBasedBF("f", domain, true, Masks.fromStrings(first.toString(), second
+            .toString()), new ArrayList<Mask>(), true);
+    assertTrue(f.hasMinterm(1));
+    assertFalse(f.hasMinterm(2));
+    assertTrue(f.hasMaxterm(0));
+
+    assertEquals(BooleanValue.FALSE, f.getValue());
+    f.getDomain().get(0).setValue(BooleanValue.TRUE);
+    assertEquals(BooleanValue.TRUE, f.getValue());
+  }
+
+  private List<Mask> randomMasks(Random random, int size, int count) {
+    List<Mask> masks = new ArrayList<>();
+    final char[] values = {'0', '1', 'x'};
+    for (int i = 0; i < count; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int position = 0; position < size; position++) {
+        sb.append(values[random.nextInt(values.length)]);
+      }
+      masks.add(Mask.parse(sb.toString()));
+    }
+    return masks;
+  }
+
+  private List<Integer> toList(Iterable<Integer> indexes) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+}
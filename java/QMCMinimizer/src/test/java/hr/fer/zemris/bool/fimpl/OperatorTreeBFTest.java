@@ -0,0 +1,89 @@
+package hr.fer.zemris.bool.fimpl;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanOperator;
+import hr.fer.zemris.bool.BooleanSource;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.opimpl.BooleanOperators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class OperatorTreeBFTest {
+
+  @Test
+  public void testCompiledTable() {
+    BooleanVariable a = new BooleanVariable("A");
+    BooleanVariable b = new BooleanVariable("B");
+    BooleanVariable c = new BooleanVariable("C");
+    List<BooleanVariable> domain = Arrays.asList(a, b, c);
+
+    // A'B + AC, with don't care where B and C are both true.
+    BooleanOperator notA = BooleanOperators.not(a);
+    BooleanOperator tree =
+        BooleanOperators.or(BooleanOperators.and(notA, b), BooleanOperators.and(a, c),
+            BooleanOperators.and(b, c, dontCare()));
+
+    OperatorTreeBF f = new OperatorTreeBF("f", domain, tree);
+    assertEquals(Arrays.asList(2, 3, 5, 7), toList(f.mintermIterable()));
+    assertEquals(Arrays.asList(0, 1, 4, 6), toList(f.maxtermIterable()));
+    assertFalse(f.dontcareIterable().iterator().hasNext());
+    assertTrue(f.hasMinterm(5));
+    assertTrue(f.hasMaxterm(6));
+  }
+
+  @Test
+  public void testDontCares() {
+    BooleanVariable a = new BooleanVariable("A");
+    BooleanVariable b = new BooleanVariable("B");
+
+    // A + B·X where X is a don't care.
+    BooleanOperator tree = BooleanOperators.or(a, BooleanOperators.and(b, dontCare()));
+    OperatorTreeBF f = new OperatorTreeBF("f", Arrays.asList(a, b), tree);
+
+    assertEquals(Arrays.asList(2, 3), toList(f.mintermIterable()));
+    assertEquals(Arrays.asList(1), toList(f.dontcareIterable()));
+    assertEquals(Arrays.asList(0), toList(f.maxtermIterable()));
+  }
+
+  @Test(timeout = 5000)
+  public void testWideDomain() {
+    List<BooleanVariable> domain = new ArrayList<>();
+    List<BooleanSource> products = new ArrayList<>();
+    for (int i = 0; i < 20; i += 2) {
+      BooleanVariable x = new BooleanVariable("x" + i);
+      BooleanVariable y = new BooleanVariable("x" + (i + 1));
+      domain.add(x);
+      domain.add(y);
+      products.add(BooleanOperators.and(x, BooleanOperators.not(y)));
+    }
+
+    OperatorTreeBF f =
+        new OperatorTreeBF("f", domain, BooleanOperators.or(products
+            .toArray(new BooleanSource[products.size()])));
+    // x18 x19' is true in rows ending with binary 10.
+    assertTrue(f.hasMinterm(2));
+    assertTrue(f.hasMaxterm(0));
+    assertTrue(f.hasMinterm(1 << 19));
+    assertFalse(f.hasMinterm(1 << 18));
+    assertFalse(f.hasMinterm((1 << 19) | (1 << 18) | 1));
+  }
+
+  private BooleanSource dontCare() {
+    BooleanVariable x = new BooleanVariable("X");
+    x.setValue(BooleanValue.DONT_CARE);
+    return x;
+  }
+
+  private List<Integer> toList(Iterable<Integer> indexes) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+}
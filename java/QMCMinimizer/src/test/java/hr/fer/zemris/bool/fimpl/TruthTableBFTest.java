@@ -0,0 +1,104 @@
+package hr.fer.zemris.bool.fimpl;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.qmc.QMCMinimizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TruthTableBFTest {
+
+  private List<BooleanVariable> domain;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    domain = new ArrayList<>();
+    for (String name : Arrays.asList("A", "B", "C", "D")) {
+      domain.add(new BooleanVariable(name));
+    }
+    file = Files.createTempFile("truth-table", ".bin");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void testCreateAndOpen() throws IOException {
+    try (TruthTableBF f = TruthTableBF.create("f", domain, file)) {
+      for (int row : Arrays.asList(0, 1, 4, 5, 11, 15)) {
+        f.setValue(row, BooleanValue.TRUE);
+      }
+      f.setValue(9, BooleanValue.DONT_CARE);
+      f.setValue(5, BooleanValue.TRUE);
+      f.force();
+    }
+
+    try (TruthTableBF f = TruthTableBF.open("f", domain, file, false)) {
+      assertEquals(16, f.getRowCount());
+      assertTrue(f.hasMinterm(11));
+      assertTrue(f.hasDontCare(9));
+      assertTrue(f.hasMaxterm(2));
+      assertFalse(f.hasMinterm(16));
+      assertEquals(BooleanValue.DONT_CARE, f.getValue(9L));
+      assertEquals(Arrays.asList(0, 1, 4, 5, 11, 15), toList(f.mintermIterable()));
+      assertEquals(Arrays.asList(9), toList(f.dontcareIterable()));
+      assertEquals(9, toList(f.maxtermIterable()).size());
+
+      f.getDomain().get(0).setValue(BooleanValue.TRUE);
+      f.getDomain().get(2).setValue(BooleanValue.TRUE);
+      assertEquals(BooleanValue.FALSE, f.getValue());
+
+      assertEquals(new HashSet<>(Arrays.asList(Mask.parse("0x0x"), Mask.parse("1x11"))),
+          new HashSet<>(QMCMinimizer.minimize(f)[0].getMasks()));
+    }
+  }
+
+  @Test
+  public void testNextRowAcrossWords() throws IOException {
+    List<BooleanVariable> wideDomain = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      wideDomain.add(new BooleanVariable("x" + i));
+    }
+
+    try (TruthTableBF f = TruthTableBF.create("f", wideDomain, file)) {
+      f.setValue(31, BooleanValue.TRUE);
+      f.setValue(32, BooleanValue.TRUE);
+      f.setValue(4095, BooleanValue.TRUE);
+
+      assertEquals(31, f.nextRow(0, BooleanValue.TRUE));
+      assertEquals(32, f.nextRow(32, BooleanValue.TRUE));
+      assertEquals(4095, f.nextRow(33, BooleanValue.TRUE));
+      assertEquals(-1, f.nextRow(0, BooleanValue.DONT_CARE));
+      assertEquals(4093, toList(f.maxtermIterable()).size());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOpenWithWrongDomain() throws IOException {
+    TruthTableBF.create("f", domain, file).close();
+    TruthTableBF.open("f", domain.subList(0, 3), file, false);
+  }
+
+  private List<Integer> toList(Iterable<Integer> indexes) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+}
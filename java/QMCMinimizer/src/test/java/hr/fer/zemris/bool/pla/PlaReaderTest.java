@@ -0,0 +1,177 @@
+package hr.fer.zemris.bool.pla;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanValue;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+import hr.fer.zemris.bool.fimpl.TruthTableBF;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PlaReaderTest {
+
+  private static final String PLA = "# two outputs\n"
+      + ".i 4\n"
+      + ".o 2\n"
+      + ".ilb A B C D\n"
+      + ".ob f g\n"
+      + ".p 4\n"
+      + "0-0- 10\n"
+      + "1-11 1-\n"
+      + "\t0000~1 # no space between parts\r\n"
+      + "1111 01\n"
+      + ".e\n"
+      + "1111 11\n";
+
+  @Test
+  public void testHeaderAndCubes() throws IOException {
+    try (PlaReader reader = new PlaReader(channelOf(PLA))) {
+      assertEquals(Arrays.asList(new BooleanVariable("A"), new BooleanVariable("B"),
+          new BooleanVariable("C"), new BooleanVariable("D")), reader.getInputs());
+      assertEquals(Arrays.asList("f", "g"), reader.getOutputs());
+
+      assertTrue(reader.nextCube());
+      assertEquals(Mask.parse("0x0x"), reader.getCubeInputs());
+      assertEquals(MaskValue.ONE, reader.getCubeOutput(0));
+      assertEquals(MaskValue.ZERO, reader.getCubeOutput(1));
+      assertTrue(reader.nextCube());
+      assertEquals(MaskValue.DONT_CARE, reader.getCubeOutput(1));
+      assertTrue(reader.nextCube());
+      assertEquals(Mask.parse("0000"), reader.getCubeInputs());
+      assertEquals(MaskValue.ZERO, reader.getCubeOutput(0));
+      assertEquals(MaskValue.ONE, reader.getCubeOutput(1));
+      assertTrue(reader.nextCube());
+      assertFalse(reader.nextCube());
+      assertFalse(reader.nextCube());
+    }
+  }
+
+  @Test
+  public void testReadCovers() throws IOException {
+    List<MaskBasedBF> functions;
+    try (PlaReader reader = new PlaReader(channelOf(PLA))) {
+      functions = reader.readCovers();
+    }
+
+    assertEquals(2, functions.size());
+    MaskBasedBF f = functions.get(0);
+    assertEquals("f", f.getName());
+    assertTrue(f.isLazy());
+    assertEquals(Arrays.asList(Mask.parse("0x0x"), Mask.parse("1x11")), f.getMasks());
+    assertEquals(Arrays.asList(0, 1, 4, 5, 11, 15), listOf(f.mintermIterable()));
+    // Rows in both on-set and don't care set are don't cares.
+    assertEquals(Arrays.asList(0), listOf(functions.get(1).mintermIterable()));
+    assertEquals(Arrays.asList(11, 15), listOf(functions.get(1).dontcareIterable()));
+    assertFalse(functions.get(1).hasMinterm(15));
+  }
+
+  @Test
+  public void testReadCoversSplitsOverlaps() throws IOException {
+    try (PlaReader reader = new PlaReader(channelOf(".i 4\n.o 1\n--0- 1\n0-00 -\n1-01 -\n"))) {
+      MaskBasedBF f = reader.readCovers().get(0);
+      assertEquals(Arrays.asList(1, 5, 8, 12), listOf(f.mintermIterable()));
+      assertEquals(Arrays.asList(0, 4, 9, 13), listOf(f.dontcareIterable()));
+      int rows = 0;
+      for (Mask mask : f.getMasks()) {
+        rows += 1 << mask.getNumberOfDontCares();
+      }
+      // Split cubes are disjoint.
+      assertEquals(4, rows);
+    }
+  }
+
+  @Test
+  public void testReadTruthTables() throws IOException {
+    List<Path> files = Arrays.asList(Files.createTempFile("pla-f", ".bin"),
+        Files.createTempFile("pla-g", ".bin"));
+    try {
+      List<TruthTableBF> tables;
+      try (PlaReader reader = new PlaReader(channelOf(PLA))) {
+        tables = reader.readTruthTables(files);
+      }
+      try (TruthTableBF f = tables.get(0); TruthTableBF g = tables.get(1)) {
+        assertEquals(Arrays.asList(0, 1, 4, 5, 11, 15), listOf(f.mintermIterable()));
+        // Rows in both on-set and don't care set are don't cares.
+        assertEquals(BooleanValue.DONT_CARE, g.getValue(15));
+        assertEquals(Arrays.asList(0), listOf(g.mintermIterable()));
+        assertEquals(Arrays.asList(11, 15), listOf(g.dontcareIterable()));
+      }
+    } finally {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  @Test
+  public void testTypeF() throws IOException {
+    try (PlaReader reader = new PlaReader(channelOf(".i 2\n.o 1\n.type f\n1- -\n01 1\n"))) {
+      assertEquals(Arrays.asList("x0", "x1"), Arrays.asList(reader.getInputs().get(0).getName(),
+          reader.getInputs().get(1).getName()));
+      MaskBasedBF f = reader.readCovers().get(0);
+      assertEquals(Arrays.asList(1), listOf(f.mintermIterable()));
+      assertTrue(f.getDontCareMasks().isEmpty());
+    }
+  }
+
+  @Test
+  public void testMalformed() throws IOException {
+    for (String pla : Arrays.asList(".o 1\n01 1\n", ".i 2\n.o 1\n012 1\n", ".i 2\n.o 1\n01 11\n",
+        ".i 2\n.o 1\n0 1\n", ".i 2\n.o 1\n.type fr\n", ".i 2\n.o 1\n.ilb a\n")) {
+      try (PlaReader reader = new PlaReader(channelOf(pla))) {
+        while (reader.nextCube()) {
+          // Read all cubes.
+        }
+        fail("Malformed PLA was read: " + pla);
+      } catch (IOException expected) {
+        assertTrue(expected.getMessage().startsWith("Malformed PLA"));
+      }
+    }
+  }
+
+  @Test
+  public void testLargeFile() throws IOException {
+    // About 2.4 MB of cubes, read through the same buffer and line.
+    StringBuilder pla = new StringBuilder(".i 20\n.o 3\n");
+    final int cubes = 100000;
+    for (int cube = 0; cube < cubes; cube++) {
+      for (int input = 0; input < 20; input++) {
+        pla.append("01-".charAt((cube + input) % 3));
+      }
+      pla.append(" 1-0\n");
+    }
+
+    try (PlaReader reader = new PlaReader(channelOf(pla.toString()))) {
+      int count = 0;
+      while (reader.nextCube()) {
+        count++;
+      }
+      assertEquals(cubes, count);
+    }
+  }
+
+  private static ReadableByteChannel channelOf(String pla) {
+    return Channels.newChannel(new ByteArrayInputStream(pla.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private static List<Integer> listOf(Iterable<Integer> rows) {
+    List<Integer> list = new ArrayList<>();
+    for (Integer row : rows) {
+      list.add(row);
+    }
+    return list;
+  }
+}
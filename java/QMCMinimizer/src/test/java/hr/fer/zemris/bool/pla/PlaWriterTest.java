@@ -0,0 +1,77 @@
+package hr.fer.zemris.bool.pla;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.MaskValue;
+import hr.fer.zemris.bool.fimpl.IndexedBF;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+import hr.fer.zemris.bool.qmc.QMCMinimizer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PlaWriterTest {
+
+  private final List<BooleanVariable> domain = Arrays.asList(new BooleanVariable("A"),
+      new BooleanVariable("B"), new BooleanVariable("C"), new BooleanVariable("D"));
+
+  @Test
+  public void testWriteCube() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (PlaWriter writer = new PlaWriter(Channels.newChannel(out), domain,
+        Arrays.asList("f", "g"))) {
+      writer.writeCube(Mask.parse("0x1x"), new MaskValue[] {MaskValue.ONE, MaskValue.DONT_CARE});
+    }
+    assertEquals(".i 4\n.o 2\n.ilb A B C D\n.ob f g\n.type fd\n0-1- 1-\n.e\n",
+        new String(out.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testWriteMinimizedRoundTrip() throws IOException {
+    BooleanFunction f = new IndexedBF("f", domain, true, Arrays.asList(0, 1, 4, 5, 9, 11, 15),
+        Arrays.asList(14));
+    BooleanFunction g = new IndexedBF("g", domain, true, Arrays.asList(0, 1, 4, 5, 6),
+        new ArrayList<Integer>());
+    List<MaskBasedBF> minimized = Arrays.asList(QMCMinimizer.minimize(f)[0],
+        QMCMinimizer.minimize(g)[0]);
+
+    Path file = Files.createTempFile("minimized", ".pla");
+    try {
+      try (PlaWriter writer = PlaWriter.create(file, domain, Arrays.asList("f", "g"))) {
+        writer.write(minimized);
+      }
+      // Cube 0x0x is shared by both outputs.
+      assertEquals(4, Files.readAllLines(file, StandardCharsets.US_ASCII).size() - 6);
+
+      List<MaskBasedBF> read;
+      try (PlaReader reader = PlaReader.open(file)) {
+        read = reader.readCovers();
+      }
+      for (int row = 0; row < 16; row++) {
+        assertEquals(f.hasMinterm(row), read.get(0).hasMinterm(row));
+        assertEquals(g.hasMinterm(row), read.get(1).hasMinterm(row));
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWriteWrongCube() throws IOException {
+    try (PlaWriter writer = new PlaWriter(Channels.newChannel(new ByteArrayOutputStream()),
+        domain, Arrays.asList("f"))) {
+      writer.writeCube(Mask.parse("0x1"), new MaskValue[] {MaskValue.ONE});
+    }
+  }
+}
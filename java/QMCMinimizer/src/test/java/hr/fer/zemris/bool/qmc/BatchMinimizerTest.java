@@ -0,0 +1,198 @@
+package hr.fer.zemris.bool.qmc;
+
+import static org.junit.Assert.*;
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.fimpl.MaskBasedBF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class BatchMinimizerTest {
+
+  @Test
+  public void testMinimizeAllOrdered() throws InterruptedException {
+    final List<BooleanFunction> functions = TestFunctions.randomFunctions(40, 5);
+    final List<Long> indices = new ArrayList<>();
+    final List<String> errors = new ArrayList<>();
+    MinimizerOptions options = new MinimizerOptions();
+    options.setParallelism(8);
+
+    try (BatchMinimizer minimizer = new BatchMinimizer(options, 4, 3)) {
+      assertEquals(40, minimizer.minimizeAll(functions, new BatchCallback() {
+        @Override
+        public void completed(long index, BooleanFunction bf, MaskBasedBF[] result,
+            MinimizationStatistics statistics) {
+          indices.add(index);
+          if (functions.get((int) index) != bf || !statistics.isProvenMinimal()
+              || !masksOf(QMCMinimizer.minimize(bf)).equals(masksOf(result))) {
+            errors.add("Wrong result " + index);
+          }
+        }
+
+        @Override
+        public void failed(long index, BooleanFunction bf, Throwable cause) {
+          errors.add("Failed " + index + ": " + cause);
+        }
+      }, true));
+
+      assertEquals(Collections.emptyList(), errors);
+      assertEquals(40, indices.size());
+      for (int i = 0; i < indices.size(); i++) {
+        assertEquals(i, indices.get(i).longValue());
+      }
+      BatchStatistics statistics = minimizer.getStatistics();
+      assertEquals(40, statistics.getSubmittedCount());
+      assertEquals(40, statistics.getCompletedCount());
+      assertEquals(0, statistics.getInFlightCount());
+      assertTrue(statistics.getThroughput() > 0);
+    }
+  }
+
+  @Test
+  public void testMinimizeAllUnordered() throws InterruptedException {
+    final Set<Long> indices = new HashSet<>();
+    final List<String> errors = new ArrayList<>();
+    try (BatchMinimizer minimizer = new BatchMinimizer(new MinimizerOptions())) {
+      minimizer.minimizeAll(TestFunctions.randomFunctions(50, 4), new BatchCallback() {
+        @Override
+        public void completed(long index, BooleanFunction bf, MaskBasedBF[] result,
+            MinimizationStatistics statistics) {
+          if (!indices.add(index)) {
+            errors.add("Repeated " + index);
+          }
+        }
+
+        @Override
+        public void failed(long index, BooleanFunction bf, Throwable cause) {
+          errors.add("Failed " + index + ": " + cause);
+        }
+      }, false);
+    }
+    assertEquals(Collections.emptyList(), errors);
+    assertEquals(50, indices.size());
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    List<BooleanFunction> functions = TestFunctions.randomFunctions(10, 4);
+    List<Future<MaskBasedBF[]>> futures = new ArrayList<>();
+    try (BatchMinimizer minimizer = new BatchMinimizer(new MinimizerOptions(), 2, 2)) {
+      for (BooleanFunction f : functions) {
+        futures.add(minimizer.submit(f));
+      }
+      for (int i = 0; i < functions.size(); i++) {
+        assertEquals(masksOf(QMCMinimizer.minimize(functions.get(i))),
+            masksOf(futures.get(i).get()));
+      }
+    }
+  }
+
+  @Test
+  public void testCallbackSubmits() throws Exception {
+    final List<BooleanFunction> functions = TestFunctions.randomFunctions(6, 4);
+    final List<Future<MaskBasedBF[]>> futures = new ArrayList<>();
+    final List<String> errors = new ArrayList<>();
+    try (final BatchMinimizer minimizer = new BatchMinimizer(new MinimizerOptions(), 2, 1)) {
+      minimizer.minimizeAll(functions.subList(0, 3), new BatchCallback() {
+        @Override
+        public void completed(long index, BooleanFunction bf, MaskBasedBF[] result,
+            MinimizationStatistics statistics) {
+          try {
+            futures.add(minimizer.submit(functions.get(3 + (int) index)));
+          } catch (InterruptedException e) {
+            errors.add("Interrupted " + index);
+          }
+        }
+
+        @Override
+        public void failed(long index, BooleanFunction bf, Throwable cause) {
+          errors.add("Failed " + index + ": " + cause);
+        }
+      }, true);
+
+      assertEquals(Collections.emptyList(), errors);
+      assertEquals(3, futures.size());
+      for (int i = 0; i < futures.size(); i++) {
+        assertEquals(masksOf(QMCMinimizer.minimize(functions.get(3 + i))),
+            masksOf(futures.get(i).get(5, TimeUnit.SECONDS)));
+      }
+    }
+  }
+
+  @Test
+  public void testMinimizeAllCancelsOnNull() throws Exception {
+    final List<BooleanFunction> functions = new ArrayList<>();
+    functions.add(TestFunctions.slowFunction());
+    functions.add(null);
+    final List<Throwable> causes = new ArrayList<>();
+    try (BatchMinimizer minimizer = new BatchMinimizer(new MinimizerOptions(), 2, 2)) {
+      try {
+        minimizer.minimizeAll(functions, new BatchCallback() {
+          @Override
+          public void completed(long index, BooleanFunction bf, MaskBasedBF[] result,
+              MinimizationStatistics statistics) {
+            fail("Cancelled function was minimized.");
+          }
+
+          @Override
+          public void failed(long index, BooleanFunction bf, Throwable cause) {
+            causes.add(cause);
+          }
+        }, true);
+        fail("Null function was accepted.");
+      } catch (IllegalArgumentException expected) {
+        // Slow function is cancelled.
+      }
+    }
+    assertEquals(1, causes.size());
+    assertTrue(causes.get(0) instanceof CancellationException);
+  }
+
+  @Test
+  public void testTaskTimeoutAndCancel() throws Exception {
+    BooleanFunction f = TestFunctions.slowFunction();
+
+    BatchMinimizer minimizer = new BatchMinimizer(new MinimizerOptions(), 2, 2);
+    try {
+      minimizer.setTaskTimeout(100, TimeUnit.MILLISECONDS);
+      long start = System.nanoTime();
+      MaskBasedBF[] result = minimizer.submit(f).get();
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+      assertEquals(1, result.length);
+
+      minimizer.setTaskTimeout(0, TimeUnit.MILLISECONDS);
+      Future<MaskBasedBF[]> future = minimizer.submit(f);
+      Thread.sleep(50);
+      assertTrue(future.cancel(true));
+      try {
+        future.get();
+        fail("Cancelled result was returned.");
+      } catch (CancellationException expected) {
+        // Result is discarded.
+      }
+    } finally {
+      minimizer.close();
+    }
+    // Results are counted after the futures complete, and surely once the minimizer is closed.
+    assertEquals(1, minimizer.getStatistics().getUnprovenCount());
+    assertEquals(1, minimizer.getStatistics().getCancelledCount());
+    assertEquals(0, minimizer.getStatistics().getInFlightCount());
+  }
+
+  private static Set<Set<Mask>> masksOf(MaskBasedBF[] functions) {
+    Set<Set<Mask>> masks = new HashSet<>();
+    for (MaskBasedBF f : functions) {
+      masks.add(new HashSet<>(f.getMasks()));
+    }
+    return masks;
+  }
+}
@@ -0,0 +1,45 @@
+package hr.fer.zemris.bool.qmc;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class MintermSetTest {
+
+  @Test
+  public void testUnion() {
+    MintermSet first = MintermSet.copyOf(new HashSet<>(Arrays.asList(5, 1, 9)));
+    MintermSet second = MintermSet.copyOf(new HashSet<>(Arrays.asList(3, 9, 12)));
+    MintermSet union = first.union(second);
+
+    assertEquals(5, union.size());
+    assertEquals(1, union.get(0));
+    assertEquals(12, union.get(4));
+    assertEquals(new HashSet<>(Arrays.asList(1, 3, 5, 9, 12)), union);
+    assertTrue(union.containsAll(first));
+    assertTrue(union.containsAll(second));
+    assertFalse(first.containsAll(union));
+  }
+
+  @Test
+  public void testSetContract() {
+    Set<Integer> expected = new HashSet<>(Arrays.asList(2, 7));
+    MintermSet minterms = MintermSet.of(2).union(MintermSet.of(7));
+
+    assertEquals(expected, minterms);
+    assertEquals(minterms, expected);
+    assertEquals(expected.hashCode(), minterms.hashCode());
+    assertTrue(minterms.contains(7));
+    assertFalse(minterms.contains(3));
+    assertFalse(minterms.contains("7"));
+  }
+
+  @Test
+  public void testCopyOfEmpty() {
+    assertTrue(MintermSet.copyOf(new HashSet<Integer>()).isEmpty());
+  }
+}
@@ -4,14 +4,21 @@ import static org.junit.Assert.*;
 import hr.fer.zemris.bool.BooleanFunction;
 import hr.fer.zemris.bool.BooleanVariable;
 import hr.fer.zemris.bool.Mask;
+import hr.fer.zemris.bool.Masks;
 import hr.fer.zemris.bool.fimpl.IndexedBF;
 import hr.fer.zemris.bool.fimpl.MaskBasedBF;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -83,6 +90,15 @@ public class QMCMinimizerTest {
             Arrays.asList(Mask.parse("0x0x"), Mask.parse("1x11")), new ArrayList<Mask>()),
         });
 
+    testMinimize(new IndexedBF("f7",
+        domain,
+        true, Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15),
+        new ArrayList<Integer>()),
+        new MaskBasedBF[] {
+        new MaskBasedBF("", domain, true,
+            Arrays.asList(Mask.parse("xxxx")), new ArrayList<Mask>()),
+        });
+
   }
   
   private void testMinimize(BooleanFunction f, MaskBasedBF[] expectMasksFuncs) {
@@ -125,6 +141,390 @@ public class QMCMinimizerTest {
 
   }
   
+  @Test
+  public void testCombineAttempts() {
+    MinimizationStatistics statistics = new MinimizationStatistics();
+    QMCMinimizer.minimize(new IndexedBF("f1",
+        domain,
+        true, Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15),
+        new ArrayList<Integer>()), statistics);
+
+    // Only adjacent groups with equal don't care patterns are tried.
+    assertEquals(144, statistics.getCombineAttempts());
+    assertEquals(108, statistics.getCombineSuccesses());
+  }
+
+  @Test
+  public void testMinimizeListener() {
+    final List<String> events = new ArrayList<>();
+    MinimizerOptions options = new MinimizerOptions();
+    options.setListener(new MinimizationListener() {
+      @Override
+      public void phaseStarted(MinimizationPhase phase, MinimizationStatistics statistics) {
+        events.add("start " + phase);
+      }
+
+      @Override
+      public void phaseFinished(MinimizationPhase phase, long nanos,
+          MinimizationStatistics statistics) {
+        assertEquals(nanos, statistics.getPhaseNanos(phase));
+        events.add("finish " + phase);
+      }
+    });
+
+    MinimizationStatistics statistics = new MinimizationStatistics();
+    QMCMinimizer.minimize(new IndexedBF("f1", domain, true, Arrays.asList(0, 1, 4, 5, 11, 15),
+        Arrays.asList(14)), options, statistics);
+    assertEquals(Arrays.asList("start PRIME_GENERATION", "finish PRIME_GENERATION",
+        "start CHART_REDUCTION", "finish CHART_REDUCTION", "start COVERING", "finish COVERING",
+        "start RESULT_BUILDING", "finish RESULT_BUILDING"), events);
+    assertEquals(6, statistics.getMintermCount());
+    assertEquals(1, statistics.getDontCareCount());
+    assertEquals(Arrays.asList(7, 6, 1), statistics.getLevelSizes());
+    assertEquals(3, statistics.getPrimeCount());
+    assertEquals(0, statistics.getProductsBeforeAbsorption());
+    assertEquals(1, statistics.getCoverCount());
+    assertEquals(0, statistics.getPhaseNanos(MinimizationPhase.CACHE_LOOKUP));
+
+    // Cyclic function goes through Petrick's method.
+    statistics = new MinimizationStatistics();
+    QMCMinimizer.minimize(new IndexedBF("f2", domain, true, Arrays.asList(0, 1, 2, 5, 6, 7),
+        new ArrayList<Integer>()), statistics);
+    assertEquals(6, statistics.getPrimeCount());
+    assertTrue(statistics.getProductsAfterAbsorption() > 0);
+    assertTrue(statistics.getProductsBeforeAbsorption() > statistics.getProductsAfterAbsorption());
+    assertEquals(2, statistics.getCoverCount());
+  }
+
+  @Test
+  public void testMinimizeWithinBudget() {
+    BooleanFunction f = TestFunctions.slowFunction();
+
+    MinimizationBudget cancelled = new MinimizationBudget();
+    cancelled.cancel();
+    for (CoveringStrategy strategy : CoveringStrategy.values()) {
+      for (MinimizationBudget budget : Arrays.asList(cancelled,
+          new MinimizationBudget(100, TimeUnit.MILLISECONDS))) {
+        MinimizerOptions options = new MinimizerOptions();
+        options.setCoveringStrategy(strategy);
+        options.setBudget(budget);
+        MinimizationStatistics statistics = new MinimizationStatistics();
+        long start = System.nanoTime();
+        MaskBasedBF[] result = QMCMinimizer.minimize(f, options, statistics);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(statistics.isProvenMinimal());
+        assertEquals(1, result.length);
+        for (int index = 0; index < 256; index++) {
+          assertEquals(f.hasMinterm(index), result[0].hasMinterm(index));
+        }
+      }
+    }
+
+    MinimizerOptions options = new MinimizerOptions();
+    options.setBudget(new MinimizationBudget(1, TimeUnit.MINUTES));
+    MinimizationStatistics statistics = new MinimizationStatistics();
+    assertEquals(masksOf(QMCMinimizer.minimize(new IndexedBF("f2", domain, true, Arrays.asList(
+        0, 1, 2, 5, 6, 7), new ArrayList<Integer>()))), masksOf(QMCMinimizer.minimize(
+        new IndexedBF("f2", domain, true, Arrays.asList(0, 1, 2, 5, 6, 7),
+            new ArrayList<Integer>()), options, statistics)));
+    assertTrue(statistics.isProvenMinimal());
+  }
+
+  @Test
+  public void testMinimizeParallel() {
+    MinimizerOptions options = new MinimizerOptions();
+    options.setParallelism(4);
+
+    List<BooleanFunction> functions = Arrays.<BooleanFunction>asList(
+        new IndexedBF("f1", domain, true, Arrays.asList(0, 1, 4, 5, 9, 15), Arrays.asList(11)),
+        new IndexedBF("f2", domain, true, Arrays.asList(4, 5, 6, 7, 8, 9, 10, 11, 13, 14),
+            new ArrayList<Integer>()),
+        new IndexedBF("f3", domain, true, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+            13, 14), new ArrayList<Integer>()));
+
+    for (BooleanFunction f : functions) {
+      assertEquals("Parallel minimization differs for " + f.getName(),
+          masksOf(QMCMinimizer.minimize(f)), masksOf(QMCMinimizer.minimize(f, options)));
+    }
+  }
+
+  private Set<Set<Mask>> masksOf(MaskBasedBF[] functions) {
+    Set<Set<Mask>> masks = new HashSet<>();
+    for (MaskBasedBF f : functions) {
+      masks.add(new HashSet<>(f.getMasks()));
+    }
+    return masks;
+  }
+
+  /** Rows whose variables are negated by the phase and then moved to the given bits. */
+  private List<Integer> permuted(Iterable<Integer> rows, List<Integer> bits, int phase) {
+    List<Integer> permutedRows = new ArrayList<>();
+    for (Integer row : rows) {
+      int permuted = 0;
+      for (int bit = 0; bit < bits.size(); bit++) {
+        permuted |= ((row ^ phase) >>> bit & 1) << bits.get(bit);
+      }
+      permutedRows.add(permuted);
+    }
+    return permutedRows;
+  }
+
+  @Test
+  public void testMinimizeSingleCover() {
+    MinimizerOptions options = new MinimizerOptions();
+    options.setAllMinimalCovers(false);
+
+    fje = QMCMinimizer.minimize(new IndexedBF("f2", domain, true,
+        Arrays.asList(0, 1, 4, 5, 9, 11, 15), new ArrayList<Integer>()), options);
+    assertEquals(1, fje.length);
+
+    Set<Set<Mask>> expected = new HashSet<>();
+    expected.add(new HashSet<>(Masks.fromStrings("0x0x", "1x11", "10x1")));
+    expected.add(new HashSet<>(Masks.fromStrings("0x0x", "1x11", "x001")));
+    assertTrue(expected.contains(new HashSet<>(fje[0].getMasks())));
+  }
+
+  @Test
+  public void testMinimizeNoMinterms() {
+    fje = QMCMinimizer.minimize(new IndexedBF("f0", domain, true, new ArrayList<Integer>(),
+        Arrays.asList(3, 7)));
+    assertEquals(1, fje.length);
+    assertTrue(fje[0].getMasks().isEmpty());
+  }
+
+  @Test
+  public void testMinimizeBranchAndBound() {
+    MinimizerOptions options = new MinimizerOptions();
+    options.setCoveringStrategy(CoveringStrategy.BRANCH_AND_BOUND);
+
+    Random random = new Random(42);
+
+    for (int i = 0; i < 20; i++) {
+      BooleanFunction f = TestFunctions.randomFunction("r" + i, random, 5, 4, 1, 8);
+      assertEquals("Branch and bound differs for function " + i,
+          masksOf(QMCMinimizer.minimize(f)), masksOf(QMCMinimizer.minimize(f, options)));
+    }
+
+    options.setAllMinimalCovers(false);
+    fje = QMCMinimizer.minimize(new IndexedBF("f2", domain, true,
+        Arrays.asList(0, 1, 4, 5, 9, 11, 15), new ArrayList<Integer>()), options);
+    assertEquals(1, fje.length);
+    assertEquals(3, fje[0].getMasks().size());
+  }
+
+  @Test
+  public void testMinimizeImplicitPrimes() {
+    MinimizerOptions options = new MinimizerOptions();
+    options.setImplicitPrimes(true);
+
+    Random random = new Random(7);
+
+    for (int i = 0; i < 20; i++) {
+      BooleanFunction f = TestFunctions.randomFunction("r" + i, random, 5, 2, 2, 6);
+      assertEquals("Implicit primes differ for function " + i,
+          masksOf(QMCMinimizer.minimize(f)), masksOf(QMCMinimizer.minimize(f, options)));
+    }
+  }
+
+  @Test
+  public void testMinimizeCached() throws IOException {
+    MinimizationCache cache = new MinimizationCache(2);
+    MinimizerOptions options = new MinimizerOptions();
+    options.setCache(cache);
+
+    BooleanFunction f2 = new IndexedBF("f2", domain, true, Arrays.asList(0, 1, 4, 5, 9, 11, 15),
+        new ArrayList<Integer>());
+    Set<Set<Mask>> expected = masksOf(QMCMinimizer.minimize(f2));
+    assertEquals(expected, masksOf(QMCMinimizer.minimize(f2, options)));
+    assertEquals(0, cache.getHitCount());
+
+    // Same table under other names is a hit.
+    List<BooleanVariable> renamed = Arrays.asList(new BooleanVariable("P"),
+        new BooleanVariable("Q"), new BooleanVariable("R"), new BooleanVariable("S"));
+    MaskBasedBF[] cached = QMCMinimizer.minimize(new IndexedBF("g", renamed, true, Arrays.asList(
+        0, 1, 4, 5, 9, 11, 15), new ArrayList<Integer>()), options);
+    assertEquals(expected, masksOf(cached));
+    assertEquals(renamed, cached[0].getDomain());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    Path file = Files.createTempFile("qmc", ".cache");
+    try {
+      cache.save(file);
+      MinimizationCache loaded = new MinimizationCache(2);
+      loaded.load(file);
+      options.setCache(loaded);
+      assertEquals(expected, masksOf(QMCMinimizer.minimize(f2, options)));
+      assertEquals(1, loaded.getHitCount());
+    } finally {
+      Files.delete(file);
+    }
+
+    for (int i = 0; i < 3; i++) {
+      QMCMinimizer.minimize(new IndexedBF("h", domain, true, Arrays.asList(i),
+          new ArrayList<Integer>()), options);
+    }
+    assertEquals(2, options.getCache().size());
+    assertEquals(2, options.getCache().getEvictionCount());
+  }
+
+  @Test
+  public void testWideDomainNotCached() {
+    List<BooleanVariable> wideDomain = new ArrayList<>();
+    for (int i = 0; i <= MinimizationCache.MAX_VARIABLES; i++) {
+      wideDomain.add(new BooleanVariable("x" + i));
+    }
+    BooleanFunction f = new MaskBasedBF("f", wideDomain, true, Arrays.asList(Mask.fromIndex(
+        wideDomain.size(), 0)), new ArrayList<Mask>(), true);
+    assertNull(new MinimizationCache(2).lookup(f, new MinimizerOptions()));
+  }
+
+  @Test
+  public void testSparseWideDomainCached() {
+    List<BooleanVariable> wideDomain = new ArrayList<>();
+    for (int i = 0; i < MinimizationCache.MAX_VARIABLES; i++) {
+      wideDomain.add(new BooleanVariable("x" + i));
+    }
+    List<Mask> masks = Arrays.asList(Mask.fromIndex(wideDomain.size(), 0),
+        Mask.fromIndex(wideDomain.size(), 5));
+    BooleanFunction f = new MaskBasedBF("f", wideDomain, true, masks, new ArrayList<Mask>(), true);
+    MinimizationCache cache = new MinimizationCache(2);
+    MinimizerOptions options = new MinimizerOptions();
+
+    MinimizationCache.Lookup lookup = cache.lookup(f, options);
+    assertNotNull(lookup);
+    cache.put(lookup, Arrays.asList(masks));
+    assertNotNull(cache.get(cache.lookup(f, options)));
+  }
+
+  @Test
+  public void testMinimizeCanonicalCached() {
+    MinimizationCache cache = new MinimizationCache(16, true);
+    MinimizerOptions options = new MinimizerOptions();
+    options.setAllMinimalCovers(true);
+    options.setCache(cache);
+    Random random = new Random(19);
+
+    for (int i = 0; i < 10; i++) {
+      List<Integer> bits = Arrays.asList(0, 1, 2, 3, 4);
+      Collections.shuffle(bits, random);
+      int phase = random.nextInt(32);
+      BooleanFunction f = TestFunctions.randomFunction("f", random, 5, 2, 1, 6);
+      BooleanFunction g = new IndexedBF("g", f.getDomain(), true, permuted(f.mintermIterable(),
+          bits, phase), permuted(f.dontcareIterable(), bits, phase));
+      MinimizerOptions direct = new MinimizerOptions();
+      direct.setAllMinimalCovers(true);
+      assertEquals(masksOf(QMCMinimizer.minimize(f, direct)),
+          masksOf(QMCMinimizer.minimize(f, options)));
+      // Inputs of g are negated and permuted inputs of f, so its covers come from the cache.
+      assertEquals(masksOf(QMCMinimizer.minimize(g, direct)),
+          masksOf(QMCMinimizer.minimize(g, options)));
+      assertEquals(i + 1, cache.getHitCount());
+    }
+  }
+
+  @Test
+  public void testMinimizeMultiOutput() {
+    Random random = new Random(7);
+
+    for (int i = 0; i < 10; i++) {
+      List<BooleanFunction> functions = new ArrayList<>();
+      for (int output = 0; output < 3; output++) {
+        functions.add(TestFunctions.randomFunction("g" + output, random, 5, 3, 1, 8));
+      }
+
+      MaskBasedBF[] shared = QMCMinimizer.minimize(functions);
+      assertEquals(functions.size(), shared.length);
+
+      Set<Mask> sharedMasks = new HashSet<>();
+      Set<Mask> separateMasks = new HashSet<>();
+      for (int output = 0; output < functions.size(); output++) {
+        BooleanFunction f = functions.get(output);
+        assertEquals(f.getName(), shared[output].getName());
+        for (int index = 0; index < 32; index++) {
+          if (!f.hasDontCare(index)) {
+            assertEquals("Output " + output + " differs at " + index, f.hasMinterm(index),
+                shared[output].hasMinterm(index));
+          }
+        }
+        sharedMasks.addAll(shared[output].getMasks());
+        separateMasks.addAll(QMCMinimizer.minimize(f)[0].getMasks());
+      }
+      assertTrue(sharedMasks.size() <= separateMasks.size());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMinimizeMultiOutputDifferentDomains() {
+    QMCMinimizer.minimize(Arrays.asList(
+        new IndexedBF("f1", domain, true, Arrays.asList(0, 1), new ArrayList<Integer>()),
+        new IndexedBF("f2", domain.subList(0, 3), true, Arrays.asList(0, 1),
+            new ArrayList<Integer>())));
+  }
+
+  @Test
+  public void testMinimizeIncremental() {
+    checkIncremental(new Random(7), new MinimizerOptions());
+  }
+
+  @Test
+  public void testMinimizeIncrementalImplicitPrimes() {
+    MinimizerOptions options = new MinimizerOptions();
+    options.setImplicitPrimes(true);
+
+    // Prime 11x covers only don't cares until row 6 becomes a minterm.
+    IncrementalMinimizer minimizer = new IncrementalMinimizer(new IndexedBF("f",
+        domain.subList(0, 3), true, Arrays.asList(0), Arrays.asList(6, 7)), options);
+    minimizer.addMinterm(6);
+    assertEquals(masksOf(QMCMinimizer.minimize(minimizer.getFunction(), options)),
+        masksOf(minimizer.minimize()));
+
+    checkIncremental(new Random(11), options);
+  }
+
+  /**
+   * Applies random updates to a random function of 5 variables, and after each of them compares
+   * primes and covers of the incremental minimizer with the ones computed from scratch.
+   */
+  private void checkIncremental(Random random, MinimizerOptions options) {
+    IncrementalMinimizer minimizer =
+        new IncrementalMinimizer(TestFunctions.randomFunction("f", random, 5, 2, 1, 6), options);
+    for (int i = 0; i < 200; i++) {
+      final int row = random.nextInt(32);
+      switch (random.nextInt(4)) {
+        case 0:
+          minimizer.addMinterm(row);
+          break;
+        case 1:
+          minimizer.removeMinterm(row);
+          break;
+        case 2:
+          minimizer.setMaxterm(row);
+          break;
+        default:
+          minimizer.setDontCare(row);
+      }
+
+      BooleanFunction f = minimizer.getFunction();
+      Set<Mask> primes = new HashSet<>();
+      for (Implicant prime : QMCMinimizer.primeImplicants(f, new MinimizerOptions(),
+          new MinimizationStatistics())) {
+        primes.add(prime.getMask());
+      }
+      assertEquals("Primes differ after update " + i, primes,
+          new HashSet<>(minimizer.getPrimes()));
+      assertEquals("Covers differ after update " + i,
+          masksOf(QMCMinimizer.minimize(f, options)), masksOf(minimizer.minimize()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMinimizeIncrementalNoSuchRow() {
+    new IncrementalMinimizer(new IndexedBF("f", domain, true, Arrays.asList(0, 1),
+        new ArrayList<Integer>())).addMinterm(16);
+  }
+
   @Test
   public void testMinimizeTime() {
     testMinimizeTime(new IndexedBF("f1", 
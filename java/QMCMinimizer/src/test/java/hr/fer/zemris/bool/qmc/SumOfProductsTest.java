@@ -0,0 +1,65 @@
+package hr.fer.zemris.bool.qmc;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SumOfProductsTest {
+
+  @Test
+  public void testMultiplyAbsorbs() {
+    // (P0 + P1)(P0 + P2)(P1 + P2) = P0P1 + P0P2 + P1P2
+    SumOfProducts sop = new SumOfProducts(130);
+    sop.multiply(ids(0, 1));
+    sop.multiply(ids(0, 2));
+    sop.multiply(ids(1, 2));
+
+    Set<Long> expected = new HashSet<>();
+    expected.add(ids(0, 1)[0]);
+    expected.add(ids(0, 2)[0]);
+    expected.add(ids(1, 2)[0]);
+    assertEquals(expected, wordsOf(sop.getProducts()));
+  }
+
+  @Test
+  public void testMultiplyKeepsContainingProducts() {
+    // (P0 + P1)(P0) = P0
+    SumOfProducts sop = new SumOfProducts(130);
+    sop.multiply(ids(0, 1));
+    sop.multiply(ids(0));
+
+    assertEquals(1, sop.getProducts().size());
+    assertArrayEquals(ids(0), sop.getProducts().get(0));
+  }
+
+  @Test
+  public void testMultiplyManyIds() {
+    SumOfProducts sop = new SumOfProducts(130);
+    sop.multiply(ids(3, 129));
+    sop.multiply(ids(70));
+
+    assertEquals(2, sop.getProducts().size());
+    assertArrayEquals(ids(3, 70), sop.getProducts().get(0));
+    assertArrayEquals(ids(70, 129), sop.getProducts().get(1));
+  }
+
+  private long[] ids(int... ids) {
+    long[] bits = new long[Bitsets.words(130)];
+    for (int id : ids) {
+      Bitsets.set(bits, id);
+    }
+    return bits;
+  }
+
+  private Set<Long> wordsOf(List<long[]> products) {
+    Set<Long> words = new HashSet<>();
+    for (long[] product : products) {
+      words.add(product[0]);
+    }
+    return words;
+  }
+}
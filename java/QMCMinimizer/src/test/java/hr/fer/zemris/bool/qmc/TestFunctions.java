@@ -0,0 +1,93 @@
+package hr.fer.zemris.bool.qmc;
+
+import hr.fer.zemris.bool.BooleanFunction;
+import hr.fer.zemris.bool.BooleanVariable;
+import hr.fer.zemris.bool.fimpl.IndexedBF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Functions shared by the minimizer tests.
+ *
+ * @author Antonio Paunovic
+ * @version 0.1
+ */
+final class TestFunctions {
+
+  private TestFunctions() {}
+
+  /**
+   * Random functions without don't cares, in which every row is a minterm with probability one
+   * half. Functions are generated from a fixed seed, so every call returns the same ones.
+   *
+   * @param count number of functions.
+   * @param variables number of variables of each function.
+   * @return list of functions named {@code f0}, {@code f1} and so on.
+   */
+  static List<BooleanFunction> randomFunctions(int count, int variables) {
+    List<BooleanVariable> domain = domain(variables);
+    Random random = new Random(8);
+    List<BooleanFunction> functions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      List<Integer> minterms = new ArrayList<>();
+      for (int index = 0; index < 1 << variables; index++) {
+        if (random.nextBoolean()) {
+          minterms.add(index);
+        }
+      }
+      functions.add(new IndexedBF("f" + i, domain, true, minterms, new ArrayList<Integer>()));
+    }
+    return functions;
+  }
+
+  /**
+   * Random function in which every row is chosen by {@code random.nextInt(bound)}: it is a minterm
+   * if the choice is below the minterm weight, a don't care if it is in the following don't care
+   * weight, and a maxterm otherwise.
+   *
+   * @param name name of the function.
+   * @param random source of the choices.
+   * @param variables number of variables.
+   * @param mintermWeight number of choices which make a minterm.
+   * @param dontCareWeight number of choices which make a don't care.
+   * @param bound number of all choices.
+   * @return function with variables named {@code x0}, {@code x1} and so on.
+   */
+  static BooleanFunction randomFunction(String name, Random random, int variables,
+      int mintermWeight, int dontCareWeight, int bound) {
+    List<Integer> minterms = new ArrayList<>();
+    List<Integer> dontCares = new ArrayList<>();
+    for (int index = 0; index < 1 << variables; index++) {
+      int choice = random.nextInt(bound);
+      if (choice < mintermWeight) {
+        minterms.add(index);
+      } else if (choice < mintermWeight + dontCareWeight) {
+        dontCares.add(index);
+      }
+    }
+    return new IndexedBF(name, domain(variables), true, minterms, dontCares);
+  }
+
+  /** Domain of variables named {@code x0}, {@code x1} and so on. */
+  private static List<BooleanVariable> domain(int variables) {
+    List<BooleanVariable> domain = new ArrayList<>();
+    for (int i = 0; i < variables; i++) {
+      domain.add(new BooleanVariable("x" + i));
+    }
+    return domain;
+  }
+
+  /**
+   * Function of 8 variables whose minimization with default options doesn't finish in reasonable
+   * time. It has 3278 minimal covers. Finding all of them takes about 8 seconds by branch and
+   * bound, and Petrick's method, the default, doesn't finish in minutes. Tests minimize it only
+   * within a budget or a timeout.
+   *
+   * @return slow function.
+   */
+  static BooleanFunction slowFunction() {
+    return randomFunctions(1, 8).get(0);
+  }
+}